@@ -0,0 +1,60 @@
+#!/bin/bash -e
+
+#
+# Measures how the time and the heap taken by the refactoring engine grow with the size of the code,
+# on generated codebases, then plots them with gnuplot when it is installed.
+#
+# usage (after "mvn -P benchmarks package"):
+#     benchmarks/scaling.sh [parameter [values [other ScalingBenchmark options]]]
+#
+# e.g.
+#     benchmarks/scaling.sh statements 250,500,1000,2000,4000
+#     benchmarks/scaling.sh files 10,20,40,80 --statements 100
+#
+# parameters: files, methods, nesting-depth, switch-cases, statements, anonymous-classes, generics-depth
+#
+# Writes in benchmarks/target/scaling:
+#     scaling.csv            the measures of each codebase
+#     scaling-exponents.csv  the growth exponent of the time of each measure, above 1 when super-linear
+#     scaling-time.png       the time of the engine and of the fastest growing rules against the number of lines
+#     scaling-heap.png       the peak heap of the engine against the number of lines
+#
+
+DIR=`dirname $0`
+PARAMETER=${1:-statements}
+VALUES=${2:-250,500,1000,2000,4000}
+shift 2 || shift $#
+OUT="$DIR/target/scaling"
+mkdir -p "$OUT"
+
+java -Xmx4000m -cp "$DIR/target/benchmarks.jar" org.autorefactor.benchmarks.ScalingBenchmark \
+    --scale "$PARAMETER" --values "$VALUES" --output "$OUT/scaling.csv" --directory "$OUT/codebases" "$@"
+
+if ! which gnuplot > /dev/null 2>&1; then
+    echo "gnuplot is not installed, see $OUT/scaling.csv"
+    exit 0
+fi
+
+ENGINE="parse-without-bindings parse-with-bindings cfg refactor-all-rules"
+# the 8 rules whose time grows the fastest
+RULES=`tail -n +2 "$OUT/scaling-exponents.csv" | cut -d, -f1 | grep -v -x -F -e parse-without-bindings \
+    -e parse-with-bindings -e cfg -e refactor-all-rules | head -8 | tr '\n' ' '`
+
+gnuplot << EOD
+set datafile separator ','
+set terminal png size 1200,800
+set logscale xy
+set key left top
+set xlabel 'lines'
+
+set output '$OUT/scaling-time.png'
+set title 'Time against size ($PARAMETER)'
+set ylabel 'ms'
+plot for [m in "$ENGINE $RULES"] '< grep ",'.m.'," $OUT/scaling.csv' using 4:6 with linespoints title m
+
+set output '$OUT/scaling-heap.png'
+set title 'Peak heap against size ($PARAMETER)'
+set ylabel 'MB'
+plot for [m in "$ENGINE"] '< grep ",'.m.'," $OUT/scaling.csv' using 4:7 with linespoints title m
+EOD
+echo "plotted $OUT/scaling-time.png and $OUT/scaling-heap.png"
@@ -0,0 +1,185 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.autorefactor.refactoring.ASTCommentRewriter;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.AbstractTypeDeclaration;
+import org.eclipse.jdt.core.dom.BlockComment;
+import org.eclipse.jdt.core.dom.BodyDeclaration;
+import org.eclipse.jdt.core.dom.Comment;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.LineComment;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.text.edits.MultiTextEdit;
+import org.eclipse.text.edits.ReplaceEdit;
+import org.eclipse.text.edits.TextEdit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how the {@link ASTCommentRewriter} scales with the number of comments it rewrites,
+ * on a generated comment dense file after a license header.
+ * <p>
+ * Each member of the generated class is documented by line comments and block comments to convert into javadocs
+ * and is followed by a trailing line comment to remove. The name of each method is replaced by a code edit,
+ * so the comment edits are checked against as many code edits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ASTCommentRewriterBenchmark {
+    /** The lines of a generated member. */
+    private static final int NB_LINES_PER_MEMBER = 10;
+
+    /** The number of lines of the generated file. */
+    @Param({ "1000", "10000" })
+    private int lines;
+
+    private CompilationUnit astRoot;
+    private IDocument document;
+    private final List<BlockComment> blockComments = new ArrayList<BlockComment>();
+    private final List<LineComment> lineComments = new ArrayList<LineComment>();
+    /** The body declaration following each line comment of {@link #lineComments}. */
+    private final List<BodyDeclaration> nextNodes = new ArrayList<BodyDeclaration>();
+    private final List<Comment> trailingComments = new ArrayList<Comment>();
+    private final List<MethodDeclaration> methods = new ArrayList<MethodDeclaration>();
+
+    /** Generates and parses the comment dense file, then finds out what to do with each comment. */
+    @Setup
+    public void setUp() {
+        final String source = generateSource(lines / NB_LINES_PER_MEMBER);
+        document = new Document(source);
+        final ASTParser parser = ASTParser.newParser(AST.JLS8);
+        parser.setSource(source.toCharArray());
+        astRoot = (CompilationUnit) parser.createAST(null);
+
+        final AbstractTypeDeclaration type = (AbstractTypeDeclaration) astRoot.types().get(0);
+        @SuppressWarnings("unchecked")
+        final List<BodyDeclaration> bodyDeclarations = type.bodyDeclarations();
+        @SuppressWarnings("unchecked")
+        final List<Comment> comments = astRoot.getCommentList();
+        int declIdx = 0;
+        int previousEnd = type.getName().getStartPosition();
+        for (Comment comment : comments) {
+            while (declIdx < bodyDeclarations.size()
+                    && bodyDeclarations.get(declIdx).getStartPosition() < comment.getStartPosition()) {
+                final BodyDeclaration decl = bodyDeclarations.get(declIdx);
+                previousEnd = decl.getStartPosition() + decl.getLength();
+                if (decl instanceof MethodDeclaration) {
+                    methods.add((MethodDeclaration) decl);
+                }
+                declIdx++;
+            }
+            if (comment.getStartPosition() < previousEnd) {
+                // the license header, the type comment, and the comments in the method bodies
+                continue;
+            }
+            if (astRoot.getLineNumber(comment.getStartPosition()) == astRoot.getLineNumber(previousEnd)) {
+                trailingComments.add(comment);
+            } else if (declIdx == bodyDeclarations.size()) {
+                // after the last member
+                break;
+            } else if (comment.isBlockComment()) {
+                blockComments.add((BlockComment) comment);
+            } else if (comment.isLineComment()) {
+                lineComments.add((LineComment) comment);
+                nextNodes.add(bodyDeclarations.get(declIdx));
+            }
+        }
+    }
+
+    private static String generateSource(int nbMembers) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("/*\n");
+        for (int i = 0; i < 20; i++) {
+            sb.append(" * License header line ").append(i).append("\n");
+        }
+        sb.append(" */\n");
+        sb.append("package org.autorefactor.generated;\n\n");
+        sb.append("/* The comment dense class. */\n");
+        sb.append("public class CommentDense {\n");
+        for (int i = 0; i < nbMembers; i++) {
+            sb.append("    // The field ").append(i).append(".\n");
+            sb.append("    private int field").append(i).append("; // set by method").append(i).append("\n");
+            sb.append("    /* The method ").append(i).append(". */\n");
+            sb.append("    // Returns the sum of the parameter\n");
+            sb.append("    // and of field").append(i).append(",\n");
+            sb.append("    // never null.\n");
+            sb.append("    public int method").append(i).append("(int i) {\n");
+            sb.append("        // the sum */\n");
+            sb.append("        return i + field").append(i).append(";\n");
+            sb.append("    } // end of method").append(i).append("\n");
+        }
+        return sb.append("}\n").toString();
+    }
+
+    /**
+     * Computes the comment edits and checks they do not overlap the code edits.
+     *
+     * @return the edits
+     */
+    @Benchmark
+    public TextEdit addEdits() {
+        final MultiTextEdit edits = new MultiTextEdit();
+        for (MethodDeclaration method : methods) {
+            final int start = method.getName().getStartPosition();
+            edits.addChild(new ReplaceEdit(start, method.getName().getLength(), method.getName().getIdentifier()));
+        }
+
+        final ASTCommentRewriter commentRewriter = new ASTCommentRewriter(astRoot);
+        for (BlockComment blockComment : blockComments) {
+            commentRewriter.toJavadoc(blockComment);
+        }
+        for (int i = 0; i < lineComments.size(); i++) {
+            commentRewriter.toJavadoc(lineComments.get(i), nextNodes.get(i));
+        }
+        for (Comment trailingComment : trailingComments) {
+            commentRewriter.remove(trailingComment);
+        }
+        commentRewriter.addEdits(document, edits);
+        return edits;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.autorefactor.benchmarks.SamplesCorpus.Sample;
+import org.autorefactor.refactoring.Refactorings;
+import org.autorefactor.refactoring.rules.AggregateASTVisitor;
+import org.autorefactor.refactoring.rules.AllRefactoringRules;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link Refactorings#applyTo(IDocument)} applying the refactorings
+ * collected by the first pass of all the rules on all the samples.
+ * <p>
+ * The refactorings can only be applied once, so they are collected again before each iteration,
+ * which runs a single time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(1)
+public class ApplyToBenchmark {
+    private SamplesCorpus corpus;
+    private AggregateASTVisitor visitor;
+    private final List<IDocument> documents = new ArrayList<IDocument>();
+    private final List<Refactorings> refactorings = new ArrayList<Refactorings>();
+
+    /**
+     * Reads the samples.
+     *
+     * @throws Exception if the samples could not be read
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        corpus = SamplesCorpus.load();
+        visitor = new AggregateASTVisitor(AllRefactoringRules.getAllRefactoringRules());
+    }
+
+    /** Collects the refactorings of the samples refactored by the first pass of all the rules. */
+    @Setup(Level.Iteration)
+    public void collectRefactorings() {
+        documents.clear();
+        refactorings.clear();
+        for (Sample sample : corpus.getSamples()) {
+            final CompilationUnit astRoot = corpus.parse(sample, true);
+            visitor.setRefactoringContext(corpus.newRefactoringContext(sample, astRoot));
+            final Refactorings sampleRefactorings = visitor.getRefactorings(astRoot);
+            if (sampleRefactorings.hasRefactorings()) {
+                documents.add(new Document(sample.getSource()));
+                refactorings.add(sampleRefactorings);
+            }
+        }
+    }
+
+    /**
+     * Applies the collected refactorings to the documents of their samples.
+     *
+     * @return the refactored documents
+     * @throws Exception if the refactorings could not be applied
+     */
+    @Benchmark
+    public List<IDocument> applyTo() throws Exception {
+        for (int i = 0; i < documents.size(); i++) {
+            refactorings.get(i).applyTo(documents.get(i));
+        }
+        return documents;
+    }
+}
@@ -0,0 +1,500 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Generates a synthetic Java project, to measure how the refactoring engine scales with the size of the code.
+ * <p>
+ * Each file declares one generic class with methods made of deep nesting, huge switch statements,
+ * long lists of statements, many anonymous classes and heavily nested generic types,
+ * optionally after many imports of JDK types.
+ * The statements hold code the rules refactor, and each file calls the previous one
+ * so the bindings are resolved across files.
+ * <p>
+ * The generated project has Eclipse {@code .project} and {@code .classpath} files for the {@code apply} command
+ * of the command line, and only uses the statements and expressions the {@code CFGBuilder} supports:
+ * no fields, no lambdas and no local type declarations.
+ */
+public final class CodebaseGenerator {
+    /** The package of the generated classes. */
+    static final String PACKAGE_NAME = "org.autorefactor.generated";
+    /** The source folder of the generated project. */
+    static final String SOURCE_FOLDER = "src/main/java";
+
+    private static final int NB_STATEMENT_TEMPLATES = 8;
+    /** The JDK types imported on top of the imports the code needs, with distinct simple names. */
+    private static final String[] IMPORTABLE_TYPES = {
+        "java.io.BufferedReader", "java.io.File", "java.io.IOException", "java.io.InputStream",
+        "java.io.OutputStream", "java.io.Reader", "java.io.StringReader", "java.io.StringWriter", "java.io.Writer",
+        "java.math.BigDecimal", "java.math.BigInteger",
+        "java.nio.charset.Charset", "java.nio.charset.StandardCharsets",
+        "java.nio.file.Files", "java.nio.file.Path", "java.nio.file.Paths",
+        "java.util.Arrays", "java.util.BitSet", "java.util.Calendar", "java.util.Date", "java.util.Deque",
+        "java.util.EnumMap", "java.util.EnumSet", "java.util.HashSet", "java.util.Hashtable",
+        "java.util.IdentityHashMap", "java.util.Iterator", "java.util.LinkedHashMap", "java.util.LinkedHashSet",
+        "java.util.LinkedList", "java.util.Locale", "java.util.NavigableMap", "java.util.NavigableSet",
+        "java.util.Objects", "java.util.Optional", "java.util.PriorityQueue", "java.util.Properties",
+        "java.util.Queue", "java.util.Random", "java.util.Set", "java.util.SortedMap", "java.util.SortedSet",
+        "java.util.Stack", "java.util.StringJoiner", "java.util.TreeMap", "java.util.TreeSet", "java.util.UUID",
+        "java.util.Vector", "java.util.WeakHashMap",
+        "java.util.concurrent.BlockingQueue", "java.util.concurrent.Callable",
+        "java.util.concurrent.ConcurrentHashMap", "java.util.concurrent.ConcurrentMap",
+        "java.util.concurrent.CopyOnWriteArrayList", "java.util.concurrent.CountDownLatch",
+        "java.util.concurrent.ExecutorService", "java.util.concurrent.Executors", "java.util.concurrent.Future",
+        "java.util.concurrent.TimeUnit",
+        "java.util.concurrent.atomic.AtomicBoolean", "java.util.concurrent.atomic.AtomicInteger",
+        "java.util.concurrent.atomic.AtomicLong", "java.util.concurrent.atomic.AtomicReference",
+        "java.util.regex.Matcher", "java.util.regex.Pattern",
+    };
+
+    private int nbFiles = 10;
+    private int nbMethods = 1;
+    private int nestingDepth = 20;
+    private int nbSwitchCases = 100;
+    private int nbStatements = 200;
+    private int nbAnonymousClasses = 20;
+    private int genericsDepth = 5;
+    private int nbImports;
+
+    /**
+     * Sets the number of generated files.
+     *
+     * @param nbFiles the number of generated files
+     * @return this generator
+     */
+    public CodebaseGenerator files(int nbFiles) {
+        this.nbFiles = nbFiles;
+        return this;
+    }
+
+    /**
+     * Sets the number of methods of each kind in each file.
+     *
+     * @param nbMethods the number of methods of each kind in each file
+     * @return this generator
+     */
+    public CodebaseGenerator methods(int nbMethods) {
+        this.nbMethods = nbMethods;
+        return this;
+    }
+
+    /**
+     * Sets the depth of the nested if, for, while and try statements.
+     *
+     * @param nestingDepth the depth of the nested statements
+     * @return this generator
+     */
+    public CodebaseGenerator nestingDepth(int nestingDepth) {
+        this.nestingDepth = nestingDepth;
+        return this;
+    }
+
+    /**
+     * Sets the number of cases of the switch statements.
+     *
+     * @param nbSwitchCases the number of cases of the switch statements
+     * @return this generator
+     */
+    public CodebaseGenerator switchCases(int nbSwitchCases) {
+        this.nbSwitchCases = nbSwitchCases;
+        return this;
+    }
+
+    /**
+     * Sets the number of statements of the long methods.
+     *
+     * @param nbStatements the number of statements of the long methods
+     * @return this generator
+     */
+    public CodebaseGenerator statements(int nbStatements) {
+        this.nbStatements = nbStatements;
+        return this;
+    }
+
+    /**
+     * Sets the number of anonymous classes of the methods declaring them.
+     *
+     * @param nbAnonymousClasses the number of anonymous classes
+     * @return this generator
+     */
+    public CodebaseGenerator anonymousClasses(int nbAnonymousClasses) {
+        this.nbAnonymousClasses = nbAnonymousClasses;
+        return this;
+    }
+
+    /**
+     * Sets the nesting depth of the generic types.
+     *
+     * @param genericsDepth the nesting depth of the generic types
+     * @return this generator
+     */
+    public CodebaseGenerator genericsDepth(int genericsDepth) {
+        this.genericsDepth = genericsDepth;
+        return this;
+    }
+
+    /**
+     * Sets the number of additional imports of JDK types in each file, at most 65.
+     *
+     * @param nbImports the number of additional imports in each file
+     * @return this generator
+     * @throws IllegalArgumentException if there are not so many JDK types to import
+     */
+    public CodebaseGenerator imports(int nbImports) {
+        if (nbImports > IMPORTABLE_TYPES.length) {
+            throw new IllegalArgumentException(
+                    "At most " + IMPORTABLE_TYPES.length + " imports can be generated, not " + nbImports);
+        }
+        this.nbImports = nbImports;
+        return this;
+    }
+
+    /**
+     * Sets a parameter from its command line option name.
+     *
+     * @param name the command line option name, without the leading dashes
+     * @param value the value of the parameter
+     * @return this generator
+     * @throws IllegalArgumentException if there is no such parameter
+     */
+    public CodebaseGenerator set(String name, int value) {
+        if ("files".equals(name)) {
+            return files(value);
+        } else if ("methods".equals(name)) {
+            return methods(value);
+        } else if ("nesting-depth".equals(name)) {
+            return nestingDepth(value);
+        } else if ("switch-cases".equals(name)) {
+            return switchCases(value);
+        } else if ("statements".equals(name)) {
+            return statements(value);
+        } else if ("anonymous-classes".equals(name)) {
+            return anonymousClasses(value);
+        } else if ("generics-depth".equals(name)) {
+            return genericsDepth(value);
+        } else if ("imports".equals(name)) {
+            return imports(value);
+        }
+        throw new IllegalArgumentException("Unknown parameter: " + name);
+    }
+
+    /**
+     * Generates the project in the provided directory.
+     *
+     * @param directory the directory of the project, created if needed
+     * @return the source folder of the project
+     * @throws IOException if the project could not be written
+     */
+    public File generateProject(File directory) throws IOException {
+        final File packageFolder = new File(directory, SOURCE_FOLDER + "/" + PACKAGE_NAME.replace('.', '/'));
+        if (!packageFolder.isDirectory() && !packageFolder.mkdirs()) {
+            throw new IOException("Cannot create directory " + packageFolder);
+        }
+        // the files of a previous generation in the same directory would count in the size of the project
+        final File[] previousFiles = packageFolder.listFiles();
+        if (previousFiles != null) {
+            for (File file : previousFiles) {
+                if (file.getName().endsWith(".java") && !file.delete()) {
+                    throw new IOException("Cannot delete file " + file);
+                }
+            }
+        }
+        write(new File(directory, ".project"), generateDotProject(directory.getName()));
+        write(new File(directory, ".classpath"), generateDotClasspath());
+        for (int i = 0; i < nbFiles; i++) {
+            write(new File(packageFolder, className(i) + ".java"), generateSource(i));
+        }
+        return new File(directory, SOURCE_FOLDER);
+    }
+
+    private static void write(File file, String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String generateDotProject(String projectName) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<projectDescription>\n"
+                + "\t<name>" + projectName + "</name>\n"
+                + "\t<comment></comment>\n"
+                + "\t<projects>\n"
+                + "\t</projects>\n"
+                + "\t<buildSpec>\n"
+                + "\t\t<buildCommand>\n"
+                + "\t\t\t<name>org.eclipse.jdt.core.javabuilder</name>\n"
+                + "\t\t\t<arguments>\n"
+                + "\t\t\t</arguments>\n"
+                + "\t\t</buildCommand>\n"
+                + "\t</buildSpec>\n"
+                + "\t<natures>\n"
+                + "\t\t<nature>org.eclipse.jdt.core.javanature</nature>\n"
+                + "\t</natures>\n"
+                + "</projectDescription>\n";
+    }
+
+    private static String generateDotClasspath() {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<classpath>\n"
+                + "\t<classpathentry kind=\"src\" path=\"" + SOURCE_FOLDER + "\"/>\n"
+                + "\t<classpathentry kind=\"con\" path=\"org.eclipse.jdt.launching.JRE_CONTAINER\"/>\n"
+                + "\t<classpathentry kind=\"output\" path=\"bin\"/>\n"
+                + "</classpath>\n";
+    }
+
+    private static String className(int fileIndex) {
+        return String.format("Generated%05d", fileIndex);
+    }
+
+    /**
+     * Generates the source code of a file.
+     *
+     * @param fileIndex the index of the file, starting at 0
+     * @return the source code of the file
+     */
+    String generateSource(int fileIndex) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(PACKAGE_NAME).append(";\n\n");
+        sb.append("import java.util.ArrayList;\n");
+        sb.append("import java.util.Collections;\n");
+        sb.append("import java.util.Comparator;\n");
+        sb.append("import java.util.HashMap;\n");
+        sb.append("import java.util.List;\n");
+        sb.append("import java.util.Map;\n");
+        for (int i = 0; i < nbImports; i++) {
+            sb.append("import ").append(IMPORTABLE_TYPES[i]).append(";\n");
+        }
+        sb.append("\n");
+        sb.append("public class ").append(className(fileIndex)).append("<T extends Comparable<T>> {\n");
+        for (int m = 0; m < nbMethods; m++) {
+            appendNestingMethod(sb, m);
+            appendSwitchMethod(sb, m);
+            appendLongMethod(sb, m, fileIndex);
+            appendAnonymousClassesMethod(sb, m);
+            appendGenericsMethod(sb, m);
+        }
+        return sb.append("}\n").toString();
+    }
+
+    private void appendNestingMethod(StringBuilder sb, int m) {
+        sb.append("    public int nesting").append(m).append("(int i) {\n");
+        for (int d = 0; d < nestingDepth; d++) {
+            switch (d % 4) {
+            case 0:
+                indent(sb, d).append("if (i > ").append(d).append(") {\n");
+                break;
+            case 1:
+                indent(sb, d).append("for (int j").append(d).append(" = 0; j").append(d).append(" < i; j").append(d)
+                        .append("++) {\n");
+                break;
+            case 2:
+                indent(sb, d).append("while (i > ").append(d).append(") {\n");
+                indent(sb, d + 1).append("i--;\n");
+                break;
+            default:
+                indent(sb, d).append("try {\n");
+                break;
+            }
+            indent(sb, d + 1).append("i = i * 3 + ").append(d).append(";\n");
+        }
+        for (int d = nestingDepth - 1; d >= 0; d--) {
+            switch (d % 4) {
+            case 0:
+                indent(sb, d).append("} else {\n");
+                indent(sb, d + 1).append("i = i + 1;\n");
+                indent(sb, d).append("}\n");
+                break;
+            case 3:
+                indent(sb, d).append("} catch (RuntimeException e").append(d).append(") {\n");
+                indent(sb, d + 1).append("i = -i;\n");
+                indent(sb, d).append("}\n");
+                break;
+            default:
+                indent(sb, d).append("}\n");
+                break;
+            }
+        }
+        sb.append("        return i;\n");
+        sb.append("    }\n\n");
+    }
+
+    private void appendSwitchMethod(StringBuilder sb, int m) {
+        sb.append("    public String switch").append(m).append("(int i, String s) {\n");
+        sb.append("        switch (i) {\n");
+        for (int c = 0; c < nbSwitchCases; c++) {
+            sb.append("        case ").append(c).append(":\n");
+            if (c % 3 == 2) {
+                // falls through to the next case
+                sb.append("            s = s + \"").append(c).append("\";\n");
+            } else {
+                sb.append("            if (s.equals(\"").append(c).append("\") == true) {\n");
+                sb.append("                return s;\n");
+                sb.append("            }\n");
+                sb.append("            s = \"").append(c).append("\" + s;\n");
+                sb.append("            break;\n");
+            }
+        }
+        sb.append("        default:\n");
+        sb.append("            s = null;\n");
+        sb.append("        }\n");
+        sb.append("        return s;\n");
+        sb.append("    }\n\n");
+    }
+
+    private void appendLongMethod(StringBuilder sb, int m, int fileIndex) {
+        sb.append("    public int long").append(m).append("(List<String> list) {\n");
+        sb.append("        int total = 0;\n");
+        for (int n = 0; n < nbStatements; n++) {
+            switch (n % NB_STATEMENT_TEMPLATES) {
+            case 0:
+                sb.append("        int v").append(n).append(" = list.size() == 0 ? 0 : ").append(n).append(";\n");
+                sb.append("        total += v").append(n).append(";\n");
+                break;
+            case 1:
+                sb.append("        boolean b").append(n).append(" = total > ").append(n).append(" == true;\n");
+                sb.append("        if (b").append(n).append(") {\n");
+                sb.append("            total--;\n");
+                sb.append("        }\n");
+                break;
+            case 2:
+                sb.append("        Integer w").append(n).append(" = new Integer(total);\n");
+                sb.append("        total = total + w").append(n).append(".intValue();\n");
+                break;
+            case 3:
+                sb.append("        String s").append(n).append(" = \"\" + total;\n");
+                sb.append("        list.add(s").append(n).append(");\n");
+                break;
+            case 4:
+                sb.append("        if (list.get(0).equals(\"").append(n).append("\")) {\n");
+                sb.append("            total += ").append(n).append(";\n");
+                sb.append("        } else {\n");
+                sb.append("            total -= 1;\n");
+                sb.append("        }\n");
+                break;
+            case 5:
+                sb.append("        for (int k").append(n).append(" = 0; k").append(n).append(" < list.size(); k")
+                        .append(n).append("++) {\n");
+                sb.append("            total += list.get(k").append(n).append(").length();\n");
+                sb.append("        }\n");
+                break;
+            case 6:
+                sb.append("        List<String> l").append(n).append(" = new ArrayList<String>(list);\n");
+                sb.append("        if (!l").append(n).append(".isEmpty()) {\n");
+                sb.append("            total += l").append(n).append(".size();\n");
+                sb.append("        }\n");
+                break;
+            default:
+                if (fileIndex > 0) {
+                    sb.append("        total += new ").append(className(fileIndex - 1)).append("<String>().long")
+                            .append(m).append("(list);\n");
+                } else {
+                    sb.append("        total = total * 2;\n");
+                }
+                break;
+            }
+        }
+        sb.append("        return total;\n");
+        sb.append("    }\n\n");
+    }
+
+    private void appendAnonymousClassesMethod(StringBuilder sb, int m) {
+        sb.append("    public List<Runnable> anonymous").append(m).append("(final List<String> list) {\n");
+        sb.append("        List<Runnable> result = new ArrayList<Runnable>();\n");
+        for (int a = 0; a < nbAnonymousClasses; a++) {
+            if (a % 2 == 0) {
+                sb.append("        result.add(new Runnable() {\n");
+                sb.append("            public void run() {\n");
+                sb.append("                if (list.isEmpty() == false) {\n");
+                sb.append("                    list.remove(").append(a).append(" % list.size());\n");
+                sb.append("                }\n");
+                sb.append("            }\n");
+                sb.append("        });\n");
+            } else {
+                sb.append("        Collections.sort(list, new Comparator<String>() {\n");
+                sb.append("            public int compare(String a").append(a).append(", String b").append(a)
+                        .append(") {\n");
+                sb.append("                return new Integer(a").append(a).append(".length()).compareTo(b").append(a)
+                        .append(".length());\n");
+                sb.append("            }\n");
+                sb.append("        });\n");
+            }
+        }
+        sb.append("        return result;\n");
+        sb.append("    }\n\n");
+    }
+
+    private void appendGenericsMethod(StringBuilder sb, int m) {
+        final String valueType = nestedGenericType(genericsDepth);
+        sb.append("    public <K extends Comparable<K>> Map<K, ").append(valueType).append("> generics").append(m)
+                .append("(K key, ").append(valueType).append(" value) {\n");
+        sb.append("        Map<K, ").append(valueType).append("> result = new HashMap<K, ").append(valueType)
+                .append(">();\n");
+        sb.append("        if (result.containsKey(key) == false) {\n");
+        sb.append("            result.put(key, value);\n");
+        sb.append("        }\n");
+        sb.append("        return result;\n");
+        sb.append("    }\n\n");
+    }
+
+    private static String nestedGenericType(int depth) {
+        String type = "T";
+        for (int d = 0; d < depth; d++) {
+            type = "List<Map<K, " + type + ">>";
+        }
+        return type;
+    }
+
+    private static StringBuilder indent(StringBuilder sb, int depth) {
+        for (int i = 0; i < depth + 2; i++) {
+            sb.append("    ");
+        }
+        return sb;
+    }
+
+    /**
+     * Generates a project.
+     *
+     * @param args the parameters as {@code --<name> <value>} pairs, for example {@code --files 100},
+     *        followed by the directory of the project
+     * @throws IOException if the project could not be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length % 2 != 1) {
+            System.err.println("Usage: CodebaseGenerator [--files N] [--methods N] [--nesting-depth N]"
+                    + " [--switch-cases N] [--statements N] [--anonymous-classes N] [--generics-depth N] [--imports N]"
+                    + " <directory>");
+            System.exit(1);
+        }
+        final CodebaseGenerator generator = new CodebaseGenerator();
+        for (int i = 0; i < args.length - 1; i += 2) {
+            generator.set(args[i].replaceFirst("^--", ""), Integer.parseInt(args[i + 1]));
+        }
+        generator.generateProject(new File(args[args.length - 1]));
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.autorefactor.benchmarks.SamplesCorpus.Sample;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures parsing all the samples, with and without resolving their bindings.
+ * <p>
+ * The difference is what the {@link org.autorefactor.refactoring.BindingFreeRefactoringRule}s save
+ * on the passes they run alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ParseBenchmark {
+    /** Whether to resolve the bindings of the parsed samples. */
+    @Param({ "true", "false" })
+    private boolean resolveBindings;
+
+    private SamplesCorpus corpus;
+
+    /**
+     * Reads the samples.
+     *
+     * @throws Exception if the samples could not be read
+     */
+    @Setup
+    public void setUp() throws Exception {
+        corpus = SamplesCorpus.load();
+    }
+
+    /**
+     * Parses all the samples.
+     *
+     * @param blackhole consumes the ASTs of the samples
+     */
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        for (Sample sample : corpus.getSamples()) {
+            blackhole.consume(corpus.parse(sample, resolveBindings));
+        }
+    }
+}
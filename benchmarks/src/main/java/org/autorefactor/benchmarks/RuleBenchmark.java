@@ -0,0 +1,109 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.autorefactor.benchmarks.SamplesCorpus.Sample;
+import org.autorefactor.refactoring.RefactoringRule;
+import org.autorefactor.refactoring.rules.AggregateASTVisitor;
+import org.autorefactor.refactoring.rules.AllRefactoringRules;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the time one refactoring rule alone takes to visit the ASTs of all the samples,
+ * parsed beforehand with their bindings.
+ * <p>
+ * Only the visit is measured: the refactorings it collects are not applied.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class RuleBenchmark {
+    /** The simple name of the class of the rule, {@link BenchmarkMain} runs all the rules by default. */
+    @Param
+    private String rule;
+
+    private SamplesCorpus corpus;
+    private AggregateASTVisitor visitor;
+    private List<CompilationUnit> astRoots;
+
+    /**
+     * Parses the samples and finds the rule to measure.
+     *
+     * @throws Exception if the samples could not be read
+     */
+    @Setup
+    public void setUp() throws Exception {
+        corpus = SamplesCorpus.load();
+        visitor = new AggregateASTVisitor(Collections.singletonList(getRule(rule)));
+        astRoots = new ArrayList<CompilationUnit>();
+        for (Sample sample : corpus.getSamples()) {
+            astRoots.add(corpus.parse(sample, true));
+        }
+    }
+
+    private static RefactoringRule getRule(String simpleClassName) {
+        for (RefactoringRule rule : AllRefactoringRules.getAllRefactoringRules()) {
+            if (rule.getClass().getSimpleName().equals(simpleClassName)) {
+                return rule;
+            }
+        }
+        throw new IllegalArgumentException("Unknown refactoring rule: " + simpleClassName);
+    }
+
+    /**
+     * Visits the ASTs of all the samples with the rule.
+     *
+     * @param blackhole consumes the refactorings collected by the visit
+     */
+    @Benchmark
+    public void visit(Blackhole blackhole) {
+        for (int i = 0; i < astRoots.size(); i++) {
+            final CompilationUnit astRoot = astRoots.get(i);
+            visitor.setRefactoringContext(corpus.newRefactoringContext(corpus.getSamples().get(i), astRoot));
+            blackhole.consume(visitor.getRefactorings(astRoot));
+        }
+    }
+}
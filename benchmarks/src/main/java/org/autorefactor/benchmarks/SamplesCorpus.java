@@ -0,0 +1,283 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.autorefactor.environment.Environment;
+import org.autorefactor.environment.EventLoop;
+import org.autorefactor.environment.Logger;
+import org.autorefactor.refactoring.ApplyRefactoringsJob;
+import org.autorefactor.refactoring.JavaProjectOptions;
+import org.autorefactor.refactoring.JavaProjectOptionsImpl;
+import org.autorefactor.refactoring.ParserEnvironment;
+import org.autorefactor.refactoring.Release;
+import org.autorefactor.refactoring.rules.AggregateASTVisitor;
+import org.autorefactor.refactoring.rules.RefactoringContext;
+import org.autorefactor.refactoring.rules.RuleStates;
+import org.autorefactor.util.UnhandledException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+
+/**
+ * The samples_in corpus of the samples module, or a generated codebase,
+ * refactored outside of any workspace like the standalone command line.
+ * <p>
+ * The bindings are resolved against the source folder of the samples and the classpath of the benchmarks,
+ * which holds the dependencies of the samples.
+ */
+final class SamplesCorpus {
+    /** The system property holding the path of the source folder of the samples. */
+    static final String SAMPLES_PROPERTY = "autorefactor.samples";
+    private static final String DEFAULT_SAMPLES_SOURCE_FOLDER = "samples/src/test/java";
+    private static final String SAMPLES_IN_PACKAGE = "org/autorefactor/refactoring/rules/samples_in";
+
+    private static final Environment ENVIRONMENT =
+            new Environment(new CurrentThreadEventLoop(), null, new ThrowingLogger(), null);
+
+    /** A sample, as the path of its file and its source code. */
+    static final class Sample {
+        private final String path;
+        private final String source;
+
+        private Sample(String path, String source) {
+            this.path = path;
+            this.source = source;
+        }
+
+        /**
+         * The path of the file of this sample.
+         *
+         * @return the path of the file of this sample
+         */
+        String getPath() {
+            return path;
+        }
+
+        /**
+         * The source code of this sample.
+         *
+         * @return the source code of this sample
+         */
+        String getSource() {
+            return source;
+        }
+    }
+
+    /** Runs the calls on the current thread, there is no UI thread here. */
+    private static final class CurrentThreadEventLoop implements EventLoop {
+        @Override
+        public <E extends Exception> void syncExec(Callable<E> callable) throws E {
+            final E ex;
+            try {
+                ex = callable.call();
+            } catch (Exception e) {
+                throw new UnhandledException(null, e);
+            }
+            if (ex != null) {
+                throw ex;
+            }
+        }
+    }
+
+    /** Fails the benchmark on any error, so it never measures a broken refactoring. */
+    private static final class ThrowingLogger implements Logger {
+        @Override
+        public void error(String message) {
+            throw new RuntimeException(message);
+        }
+
+        @Override
+        public void error(String message, Exception e) {
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            }
+            throw new UnhandledException(null, message, e);
+        }
+
+        @Override
+        public void warn(String message) {
+            throw new RuntimeException(message);
+        }
+
+        @Override
+        public void info(String message) {
+            // the benchmarks only report their measures
+        }
+    }
+
+    private final List<Sample> samples;
+    private final ParserEnvironment parserEnvironment;
+    private final JavaProjectOptions options;
+
+    private SamplesCorpus(List<Sample> samples, ParserEnvironment parserEnvironment, JavaProjectOptions options) {
+        this.samples = samples;
+        this.parserEnvironment = parserEnvironment;
+        this.options = options;
+    }
+
+    /**
+     * Loads the samples from the source folder in the {@value #SAMPLES_PROPERTY} system property,
+     * by default {@value #DEFAULT_SAMPLES_SOURCE_FOLDER} under the current directory.
+     *
+     * @return the samples corpus
+     * @throws IOException if the samples could not be read
+     */
+    static SamplesCorpus load() throws IOException {
+        final File sourceFolder =
+                new File(System.getProperty(SAMPLES_PROPERTY, DEFAULT_SAMPLES_SOURCE_FOLDER)).getCanonicalFile();
+        final File packageFolder = new File(sourceFolder, SAMPLES_IN_PACKAGE);
+        if (!packageFolder.isDirectory()) {
+            throw new IOException("No samples found in " + sourceFolder + ", set the -D" + SAMPLES_PROPERTY
+                    + " system property to the source folder of the samples module");
+        }
+        return load(sourceFolder, packageFolder);
+    }
+
+    /**
+     * Loads all the Java files of the provided source folder, for example a generated codebase.
+     *
+     * @param sourceFolder the source folder
+     * @return the corpus of the Java files of the source folder
+     * @throws IOException if the Java files could not be read
+     * @see CodebaseGenerator
+     */
+    static SamplesCorpus load(File sourceFolder) throws IOException {
+        final File canonicalSourceFolder = sourceFolder.getCanonicalFile();
+        return load(canonicalSourceFolder, canonicalSourceFolder);
+    }
+
+    private static SamplesCorpus load(File sourceFolder, File folder) throws IOException {
+        final List<File> files = new ArrayList<File>();
+        collectJavaFiles(folder, files);
+        // always visit the samples in the same order
+        Collections.sort(files);
+        final List<Sample> samples = new ArrayList<Sample>();
+        for (File file : files) {
+            final String source = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+            samples.add(new Sample(file.getPath(), source));
+        }
+
+        final String[] classpath = System.getProperty("java.class.path").split(File.pathSeparator);
+        final ParserEnvironment parserEnvironment = new ParserEnvironment(classpath,
+                new String[] { sourceFolder.getPath() }, new String[] { StandardCharsets.UTF_8.name() }, true);
+        final JavaProjectOptionsImpl options = new JavaProjectOptionsImpl();
+        options.setTabSize(4);
+        options.setJavaSERelease(Release.javaSE("1.8.0"));
+        return new SamplesCorpus(Collections.unmodifiableList(samples), parserEnvironment, options);
+    }
+
+    private static void collectJavaFiles(File folder, List<File> javaFiles) {
+        final File[] files = folder.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                collectJavaFiles(file, javaFiles);
+            } else if (file.getName().endsWith(".java")) {
+                javaFiles.add(file);
+            }
+        }
+    }
+
+    /**
+     * The samples, sorted by path.
+     *
+     * @return the samples, sorted by path
+     */
+    List<Sample> getSamples() {
+        return samples;
+    }
+
+    /**
+     * The Java project options the samples are refactored with.
+     *
+     * @return the Java project options the samples are refactored with
+     */
+    JavaProjectOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * Parses the provided sample like the refactoring job does.
+     *
+     * @param sample the sample to parse
+     * @param resolveBindings whether to resolve the bindings
+     * @return the AST of the sample
+     */
+    CompilationUnit parse(Sample sample, boolean resolveBindings) {
+        final ASTParser parser = ASTParser.newParser(AST.JLS8);
+        parserEnvironment.setUp(parser, sample.getPath(), sample.getSource());
+        parser.setResolveBindings(resolveBindings);
+        parser.setCompilerOptions(options.getCompilerOptions());
+        return (CompilationUnit) parser.createAST(null);
+    }
+
+    /**
+     * Returns a new context to collect the refactorings of the visit of the provided AST.
+     *
+     * @param sample the sample the AST has been parsed from
+     * @param astRoot the AST to visit
+     * @return a new context to collect the refactorings of the visit of the provided AST
+     */
+    RefactoringContext newRefactoringContext(Sample sample, CompilationUnit astRoot) {
+        return new RefactoringContext(null, astRoot, options, newMonitor(), ENVIRONMENT, new RuleStates(), null,
+                sample.getSource());
+    }
+
+    /**
+     * Refactors the provided sample until the refactoring rules reach their fixed point,
+     * in the same way as the standalone command line.
+     *
+     * @param sample the sample to refactor
+     * @param refactoring the refactoring rules to apply
+     * @return the refactored document
+     * @throws Exception if any problem occurs
+     */
+    IDocument refactor(Sample sample, AggregateASTVisitor refactoring) throws Exception {
+        final IDocument document = new Document(sample.getSource());
+        new ApplyRefactoringsJob(null, null, ENVIRONMENT).applyRefactoring(
+                document, sample.getPath(), parserEnvironment, refactoring, options, newMonitor());
+        return document;
+    }
+
+    private static SubMonitor newMonitor() {
+        return SubMonitor.convert(new NullProgressMonitor());
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.autorefactor.benchmarks.SamplesCorpus.Sample;
+import org.autorefactor.cfg.CFGBuilder;
+import org.autorefactor.refactoring.RefactoringRule;
+import org.autorefactor.refactoring.rules.AggregateASTVisitor;
+import org.autorefactor.refactoring.rules.AllRefactoringRules;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+/**
+ * Measures how the time and the heap taken by the refactoring engine grow with the size of the code,
+ * on codebases of growing sizes generated by the {@link CodebaseGenerator}.
+ * <p>
+ * One generator parameter takes each of the provided values, the others keep their value.
+ * For each codebase, the parsing, the building of the CFGs, the visit of each rule alone
+ * and the refactoring of the codebase by all the rules are measured, keeping the best time of the repetitions.
+ * The measures are written as CSV, one line per codebase and measure, and the growth exponent
+ * of the time of each measure between the smallest and the largest codebase is written next to it:
+ * an exponent above 1 reveals a measure growing faster than the size of the code.
+ * <p>
+ * {@code benchmarks/scaling.sh} runs it and plots the measures.
+ */
+public final class ScalingBenchmark {
+    private static final String PARSE_WITH_BINDINGS = "parse-with-bindings";
+    private static final String PARSE_WITHOUT_BINDINGS = "parse-without-bindings";
+    private static final String CFG = "cfg";
+    private static final String REFACTOR = "refactor-all-rules";
+
+    /** A measure of a codebase. */
+    private static final class Measure {
+        private final long nanos;
+        private final long peakHeapBytes;
+
+        private Measure(long nanos, long peakHeapBytes) {
+            this.nanos = nanos;
+            this.peakHeapBytes = peakHeapBytes;
+        }
+    }
+
+    /** The code measured on each codebase. */
+    private interface Measured {
+        void run() throws Exception;
+    }
+
+    private final CodebaseGenerator generator = new CodebaseGenerator();
+    private String scaledParameter = "statements";
+    private final List<Integer> values = new ArrayList<Integer>();
+    private File directory = new File(System.getProperty("java.io.tmpdir"), "autorefactor-scaling");
+    private File output = new File("scaling.csv");
+    private int nbRepetitions = 3;
+
+    private ScalingBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args {@code --scale <parameter> --values <v1,v2,...>} for the parameter of the {@link CodebaseGenerator}
+     *        taking each value, then optionally {@code --output <csv file>}, {@code --directory <directory>}
+     *        where the codebases are generated, {@code --repeat <n>} and the other parameters of the generator
+     * @throws Exception if the benchmark could not be run
+     */
+    public static void main(String[] args) throws Exception {
+        final ScalingBenchmark benchmark = new ScalingBenchmark();
+        try {
+            benchmark.parseArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: ScalingBenchmark --scale <parameter> --values <v1,v2,...> [--output <csv file>]"
+                    + " [--directory <directory>] [--repeat <n>] [--<parameter> <value>]...");
+            System.exit(1);
+        }
+        benchmark.run();
+    }
+
+    private void parseArgs(String[] args) {
+        if (args.length % 2 != 0) {
+            throw new IllegalArgumentException("Missing value for option " + args[args.length - 1]);
+        }
+        for (int i = 0; i < args.length; i += 2) {
+            final String name = args[i].replaceFirst("^--", "");
+            final String value = args[i + 1];
+            if ("scale".equals(name)) {
+                scaledParameter = value;
+            } else if ("values".equals(name)) {
+                for (String v : value.split(",")) {
+                    values.add(Integer.valueOf(v.trim()));
+                }
+            } else if ("output".equals(name)) {
+                output = new File(value);
+            } else if ("directory".equals(name)) {
+                directory = new File(value);
+            } else if ("repeat".equals(name)) {
+                nbRepetitions = Integer.parseInt(value);
+            } else {
+                generator.set(name, Integer.parseInt(value));
+            }
+        }
+        if (values.size() < 2) {
+            throw new IllegalArgumentException("At least two values are needed to see how the measures scale");
+        }
+        // fail early on an unknown parameter
+        generator.set(scaledParameter, values.get(0));
+    }
+
+    private void run() throws Exception {
+        // the measures of each codebase, by measure name
+        final List<Map<String, Measure>> measuresByCodebase = new ArrayList<Map<String, Measure>>();
+        final List<Integer> nbLinesByCodebase = new ArrayList<Integer>();
+        final PrintWriter csv = new PrintWriter(output, StandardCharsets.UTF_8.name());
+        try {
+            csv.println("parameter,value,files,lines,measure,millis,peak_heap_mb");
+            for (int value : values) {
+                generator.set(scaledParameter, value);
+                final File sourceFolder = generator.generateProject(new File(directory, scaledParameter + "-" + value));
+                final SamplesCorpus corpus = SamplesCorpus.load(sourceFolder);
+                final int nbLines = countLines(corpus);
+                System.out.println(scaledParameter + "=" + value + ": " + corpus.getSamples().size() + " files, "
+                        + nbLines + " lines");
+
+                final Map<String, Measure> measures = measure(corpus);
+                for (Entry<String, Measure> entry : measures.entrySet()) {
+                    csv.printf(Locale.ROOT, "%s,%d,%d,%d,%s,%.3f,%.1f%n", scaledParameter, value,
+                            corpus.getSamples().size(), nbLines, entry.getKey(), entry.getValue().nanos / 1e6,
+                            entry.getValue().peakHeapBytes / (1024.0 * 1024.0));
+                }
+                csv.flush();
+                measuresByCodebase.add(measures);
+                nbLinesByCodebase.add(nbLines);
+            }
+        } finally {
+            csv.close();
+        }
+        writeExponents(measuresByCodebase, nbLinesByCodebase);
+    }
+
+    private static int countLines(SamplesCorpus corpus) {
+        int nbLines = 0;
+        for (Sample sample : corpus.getSamples()) {
+            for (int i = 0; i < sample.getSource().length(); i++) {
+                if (sample.getSource().charAt(i) == '\n') {
+                    nbLines++;
+                }
+            }
+        }
+        return nbLines;
+    }
+
+    private Map<String, Measure> measure(final SamplesCorpus corpus) throws Exception {
+        final Map<String, Measure> measures = new LinkedHashMap<String, Measure>();
+        measure(measures, PARSE_WITHOUT_BINDINGS, new Measured() {
+            @Override
+            public void run() {
+                for (Sample sample : corpus.getSamples()) {
+                    corpus.parse(sample, false);
+                }
+            }
+        });
+        measure(measures, PARSE_WITH_BINDINGS, new Measured() {
+            @Override
+            public void run() {
+                for (Sample sample : corpus.getSamples()) {
+                    corpus.parse(sample, true);
+                }
+            }
+        });
+
+        final List<CompilationUnit> astRoots = new ArrayList<CompilationUnit>();
+        for (Sample sample : corpus.getSamples()) {
+            astRoots.add(corpus.parse(sample, true));
+        }
+        measure(measures, CFG, new Measured() {
+            @Override
+            public void run() {
+                for (int i = 0; i < astRoots.size(); i++) {
+                    new CFGBuilder(corpus.getSamples().get(i).getSource(), corpus.getOptions())
+                            .buildCFG(astRoots.get(i));
+                }
+            }
+        });
+        for (RefactoringRule rule : AllRefactoringRules.getAllRefactoringRules()) {
+            final AggregateASTVisitor visitor = new AggregateASTVisitor(Collections.singletonList(rule));
+            measure(measures, rule.getClass().getSimpleName(), new Measured() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < astRoots.size(); i++) {
+                        final CompilationUnit astRoot = astRoots.get(i);
+                        final Sample sample = corpus.getSamples().get(i);
+                        visitor.setRefactoringContext(corpus.newRefactoringContext(sample, astRoot));
+                        visitor.getRefactorings(astRoot);
+                    }
+                }
+            });
+        }
+        astRoots.clear();
+
+        final AggregateASTVisitor allRules = new AggregateASTVisitor(AllRefactoringRules.getAllRefactoringRules());
+        measure(measures, REFACTOR, new Measured() {
+            @Override
+            public void run() throws Exception {
+                for (Sample sample : corpus.getSamples()) {
+                    corpus.refactor(sample, allRules);
+                }
+            }
+        });
+        return measures;
+    }
+
+    private void measure(Map<String, Measure> measures, String name, Measured measured) {
+        long bestNanos = Long.MAX_VALUE;
+        long peakHeapBytes = 0;
+        try {
+            for (int i = 0; i < nbRepetitions; i++) {
+                System.gc();
+                resetPeakHeap();
+                final long start = System.nanoTime();
+                measured.run();
+                bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+                peakHeapBytes = Math.max(peakHeapBytes, getPeakHeap());
+            }
+        } catch (Exception e) {
+            // keep measuring the others
+            System.err.println(name + " failed:");
+            e.printStackTrace();
+            return;
+        }
+        measures.put(name, new Measure(bestNanos, peakHeapBytes));
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /** The peaks of the pools are not simultaneous, so this overestimates the peak of the whole heap. */
+    private static long getPeakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private void writeExponents(List<Map<String, Measure>> measuresByCodebase, List<Integer> nbLinesByCodebase)
+            throws IOException {
+        final Map<String, Measure> smallest = measuresByCodebase.get(0);
+        final Map<String, Measure> largest = measuresByCodebase.get(measuresByCodebase.size() - 1);
+        final double sizeRatio = Math.log((double) nbLinesByCodebase.get(nbLinesByCodebase.size() - 1)
+                / nbLinesByCodebase.get(0));
+        final Map<String, Double> exponents = new LinkedHashMap<String, Double>();
+        for (Entry<String, Measure> entry : smallest.entrySet()) {
+            final Measure last = largest.get(entry.getKey());
+            if (last != null && entry.getValue().nanos > 0 && sizeRatio > 0) {
+                exponents.put(entry.getKey(), Math.log((double) last.nanos / entry.getValue().nanos) / sizeRatio);
+            }
+        }
+        final List<Entry<String, Double>> sortedExponents = new ArrayList<Entry<String, Double>>(exponents.entrySet());
+        Collections.sort(sortedExponents, new Comparator<Entry<String, Double>>() {
+            @Override
+            public int compare(Entry<String, Double> e1, Entry<String, Double> e2) {
+                return e2.getValue().compareTo(e1.getValue());
+            }
+        });
+
+        final File exponentsFile = new File(output.getPath().replaceFirst("(\\.csv)?$", "-exponents.csv"));
+        final PrintWriter csv = new PrintWriter(exponentsFile, StandardCharsets.UTF_8.name());
+        try {
+            csv.println("measure,exponent");
+            for (Entry<String, Double> entry : sortedExponents) {
+                csv.printf(Locale.ROOT, "%s,%.2f%n", entry.getKey(), entry.getValue());
+            }
+        } finally {
+            csv.close();
+        }
+        System.out.println("Time growth exponents against the number of lines, fastest growing first:");
+        for (Entry<String, Double> entry : sortedExponents.subList(0, Math.min(10, sortedExponents.size()))) {
+            System.out.printf(Locale.ROOT, "    %.2f %s%n", entry.getValue(), entry.getKey());
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.autorefactor.benchmarks.SamplesCorpus.Sample;
+import org.autorefactor.cfg.CFGBuilder;
+import org.autorefactor.refactoring.TypeBindingsCache;
+import org.autorefactor.refactoring.TypeNameDecider;
+import org.autorefactor.refactoring.rules.AggregateASTVisitor;
+import org.autorefactor.refactoring.rules.ReplaceQualifiedNamesBySimpleNamesRefactoring;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.IVariableBinding;
+import org.eclipse.jdt.core.dom.SingleVariableDeclaration;
+import org.eclipse.jdt.core.dom.VariableDeclaration;
+import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the time the {@link TypeBindingsCache} saves to {@link TypeNameDecider}, {@link CFGBuilder}
+ * and {@link ReplaceQualifiedNamesBySimpleNamesRefactoring} on import heavy files generated by the
+ * {@link CodebaseGenerator}, and how often it answers the lookups.
+ * <p>
+ * The cache of each AST is forgotten before each visit, as if each AST was freshly parsed.
+ * The hits and misses of the cache are reported as secondary results, they stay at zero when it is disabled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TypeBindingsCacheBenchmark {
+    /** Whether the resolved bindings are cached. */
+    @Param({ "true", "false" })
+    private boolean cached;
+
+    /** The number of additional imports in each generated file. */
+    @Param({ "0", "65" })
+    private int imports;
+
+    private File directory;
+    private SamplesCorpus corpus;
+    private List<CompilationUnit> astRoots;
+    /** The declarations of variables of a class or interface type, by AST. */
+    private List<List<VariableDeclaration>> declarations;
+    private AggregateASTVisitor replaceQualifiedNames;
+
+    /** The lookups of the resolved bindings during an iteration. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class CacheCounters {
+        /** The lookups answered from the cache. */
+        public long hits;
+        /** The lookups which resolved the bindings. */
+        public long misses;
+
+        /** Starts counting the lookups of a new iteration. */
+        @Setup(Level.Iteration)
+        public void reset() {
+            hits = 0;
+            misses = 0;
+        }
+
+        private void add(CompilationUnit astRoot) {
+            final TypeBindingsCache cache = TypeBindingsCache.of(astRoot);
+            hits += cache.getNbHits();
+            misses += cache.getNbMisses();
+        }
+    }
+
+    /**
+     * Generates and parses the import heavy files.
+     *
+     * @throws IOException if the files could not be written or read
+     */
+    @Setup
+    public void setUp() throws IOException {
+        TypeBindingsCache.setEnabled(cached);
+        directory = Files.createTempDirectory("autorefactor-imports").toFile();
+        corpus = SamplesCorpus.load(new CodebaseGenerator().files(20).imports(imports).generateProject(directory));
+        astRoots = new ArrayList<CompilationUnit>();
+        declarations = new ArrayList<List<VariableDeclaration>>();
+        for (Sample sample : corpus.getSamples()) {
+            final CompilationUnit astRoot = corpus.parse(sample, true);
+            astRoots.add(astRoot);
+            declarations.add(collectDeclarations(astRoot));
+        }
+        replaceQualifiedNames = new AggregateASTVisitor(
+                Collections.singletonList(new ReplaceQualifiedNamesBySimpleNamesRefactoring()));
+    }
+
+    private static List<VariableDeclaration> collectDeclarations(CompilationUnit astRoot) {
+        final List<VariableDeclaration> results = new ArrayList<VariableDeclaration>();
+        astRoot.accept(new ASTVisitor() {
+            @Override
+            public boolean visit(SingleVariableDeclaration node) {
+                add(node);
+                return true;
+            }
+
+            @Override
+            public boolean visit(VariableDeclarationFragment node) {
+                add(node);
+                return true;
+            }
+
+            private void add(VariableDeclaration node) {
+                final IVariableBinding binding = node.resolveBinding();
+                if (binding != null && isClassOrInterface(binding.getType())) {
+                    results.add(node);
+                }
+            }
+        });
+        return results;
+    }
+
+    private static boolean isClassOrInterface(ITypeBinding typeBinding) {
+        return typeBinding != null && (typeBinding.isClass() || typeBinding.isInterface());
+    }
+
+    /**
+     * Caches the resolved bindings again, as by default, and deletes the generated files.
+     *
+     * @throws IOException if the generated files could not be deleted
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        TypeBindingsCache.setEnabled(true);
+        delete(directory);
+    }
+
+    private static void delete(File file) throws IOException {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        Files.delete(file.toPath());
+    }
+
+    /**
+     * Decides which name to use for the type of each variable, as the rules do for each node they refactor.
+     *
+     * @param counters counts the lookups of the resolved bindings
+     * @param blackhole consumes the names
+     */
+    @Benchmark
+    public void decideTypeNames(CacheCounters counters, Blackhole blackhole) {
+        for (int i = 0; i < astRoots.size(); i++) {
+            TypeBindingsCache.clear(astRoots.get(i));
+            for (VariableDeclaration declaration : declarations.get(i)) {
+                final String typeName = declaration.resolveBinding().getType().getErasure().getQualifiedName();
+                blackhole.consume(new TypeNameDecider(declaration).useSimplestPossibleName(typeName));
+            }
+            counters.add(astRoots.get(i));
+        }
+    }
+
+    /**
+     * Builds the control flow graphs of all the generated files.
+     *
+     * @param counters counts the lookups of the resolved bindings
+     * @param blackhole consumes the control flow graphs
+     */
+    @Benchmark
+    public void buildCfg(CacheCounters counters, Blackhole blackhole) {
+        for (int i = 0; i < astRoots.size(); i++) {
+            final CompilationUnit astRoot = astRoots.get(i);
+            TypeBindingsCache.clear(astRoot);
+            blackhole.consume(
+                    new CFGBuilder(corpus.getSamples().get(i).getSource(), corpus.getOptions()).buildCFG(astRoot));
+            counters.add(astRoot);
+        }
+    }
+
+    /**
+     * Visits all the generated files with {@link ReplaceQualifiedNamesBySimpleNamesRefactoring}.
+     *
+     * @param counters counts the lookups of the resolved bindings
+     * @param blackhole consumes the refactorings collected by the visit
+     */
+    @Benchmark
+    public void replaceQualifiedNames(CacheCounters counters, Blackhole blackhole) {
+        for (int i = 0; i < astRoots.size(); i++) {
+            final CompilationUnit astRoot = astRoots.get(i);
+            TypeBindingsCache.clear(astRoot);
+            final Sample sample = corpus.getSamples().get(i);
+            replaceQualifiedNames.setRefactoringContext(corpus.newRefactoringContext(sample, astRoot));
+            blackhole.consume(replaceQualifiedNames.getRefactorings(astRoot));
+            counters.add(astRoot);
+        }
+    }
+}
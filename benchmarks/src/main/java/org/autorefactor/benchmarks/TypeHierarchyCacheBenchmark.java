@@ -0,0 +1,131 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.autorefactor.benchmarks.SamplesCorpus.Sample;
+import org.autorefactor.refactoring.TypeHierarchyCache;
+import org.autorefactor.refactoring.rules.AggregateASTVisitor;
+import org.autorefactor.refactoring.rules.AllRefactoringRules;
+import org.autorefactor.refactoring.rules.RefactoringContext;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the time the {@link TypeHierarchyCache} saves to all the rules visiting the ASTs of all the samples,
+ * and how often it answers the lookups.
+ * <p>
+ * The hits and misses of the cache are reported as secondary results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TypeHierarchyCacheBenchmark {
+    /** Whether the type hierarchies are cached. */
+    @Param({ "true", "false" })
+    private boolean cached;
+
+    private SamplesCorpus corpus;
+    private AggregateASTVisitor visitor;
+    private List<CompilationUnit> astRoots;
+
+    /** The lookups of the type hierarchies during an iteration. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class CacheCounters {
+        /** The lookups answered from the cache. */
+        public long hits;
+        /** The lookups which walked the bindings. */
+        public long misses;
+
+        /** Starts counting the lookups of a new iteration. */
+        @Setup(Level.Iteration)
+        public void reset() {
+            hits = 0;
+            misses = 0;
+        }
+    }
+
+    /**
+     * Parses the samples.
+     *
+     * @throws Exception if the samples could not be read
+     */
+    @Setup
+    public void setUp() throws Exception {
+        TypeHierarchyCache.setEnabled(cached);
+        corpus = SamplesCorpus.load();
+        visitor = new AggregateASTVisitor(AllRefactoringRules.getAllRefactoringRules());
+        astRoots = new ArrayList<CompilationUnit>();
+        for (Sample sample : corpus.getSamples()) {
+            astRoots.add(corpus.parse(sample, true));
+        }
+    }
+
+    /** Caches the type hierarchies again, as by default. */
+    @TearDown
+    public void tearDown() {
+        TypeHierarchyCache.setEnabled(true);
+    }
+
+    /**
+     * Visits the ASTs of all the samples with all the rules.
+     *
+     * @param counters counts the lookups of the type hierarchies
+     * @param blackhole consumes the refactorings collected by the visit
+     */
+    @Benchmark
+    public void visit(CacheCounters counters, Blackhole blackhole) {
+        for (int i = 0; i < astRoots.size(); i++) {
+            final CompilationUnit astRoot = astRoots.get(i);
+            final RefactoringContext ctx = corpus.newRefactoringContext(corpus.getSamples().get(i), astRoot);
+            visitor.setRefactoringContext(ctx);
+            blackhole.consume(visitor.getRefactorings(astRoot));
+            counters.hits += ctx.getTypeHierarchyCache().getNbHits();
+            counters.misses += ctx.getTypeHierarchyCache().getNbMisses();
+        }
+    }
+}
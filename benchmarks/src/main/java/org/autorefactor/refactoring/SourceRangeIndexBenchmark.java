@@ -0,0 +1,177 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the tracking of the refactored nodes by a {@link SourceRangeIndex}
+ * with the set of the refactored nodes and all their ancestors it replaced.
+ * <p>
+ * A pass over a generated file made of deeply nested if, switch statements and anonymous classes
+ * asks whether each node has been refactored before refactoring one node out of 20.
+ * This benchmark lives in the package of {@link SourceRangeIndex} to reach it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SourceRangeIndexBenchmark {
+    private static final int REFACTOR_ONE_NODE_OUT_OF = 20;
+
+    /** The number of lines of the generated file. */
+    @Param({ "20000" })
+    private int nbLines;
+
+    private List<ASTNode> nodes;
+
+    /** Parses the generated file and collects its nodes in visiting order. */
+    @Setup
+    public void setUp() {
+        final String source = generateSource(nbLines);
+        final ASTParser parser = ASTParser.newParser(AST.JLS8);
+        parser.setKind(ASTParser.K_COMPILATION_UNIT);
+        parser.setSource(source.toCharArray());
+        final CompilationUnit astRoot = (CompilationUnit) parser.createAST(null);
+        nodes = new ArrayList<ASTNode>();
+        astRoot.accept(new ASTVisitor() {
+            @Override
+            public void preVisit(ASTNode node) {
+                nodes.add(node);
+            }
+        });
+    }
+
+    /**
+     * Tracks the refactored nodes with the set of the refactored nodes and their ancestors.
+     *
+     * @return the number of refactored nodes
+     */
+    @Benchmark
+    public int ancestorsSet() {
+        final Set<ASTNode> refactoredNodes = new HashSet<ASTNode>();
+        int nbRefactored = 0;
+        for (int i = 0; i < nodes.size(); i++) {
+            final ASTNode node = nodes.get(i);
+            if (!refactoredNodes.contains(node) && i % REFACTOR_ONE_NODE_OUT_OF == 0) {
+                for (ASTNode n = node; n != null; n = n.getParent()) {
+                    refactoredNodes.add(n);
+                }
+                nbRefactored++;
+            }
+        }
+        return nbRefactored;
+    }
+
+    /**
+     * Tracks the refactored nodes with the source ranges of the refactored nodes.
+     *
+     * @return the number of refactored nodes
+     */
+    @Benchmark
+    public int sourceRangeIndex() {
+        final SourceRangeIndex refactoredLocations = new SourceRangeIndex();
+        int nbRefactored = 0;
+        for (int i = 0; i < nodes.size(); i++) {
+            final ASTNode node = nodes.get(i);
+            if (!refactoredLocations.overlaps(node.getStartPosition(), node.getLength())
+                    && i % REFACTOR_ONE_NODE_OUT_OF == 0) {
+                refactoredLocations.add(node.getStartPosition(), node.getLength());
+                nbRefactored++;
+            }
+        }
+        return nbRefactored;
+    }
+
+    private static String generateSource(int nbLines) {
+        final StringBuilder sb = new StringBuilder("package org.autorefactor.benchmark;\n\npublic class Generated {\n");
+        for (int m = 0, lines = 3; lines < nbLines; m++) {
+            final String method = generateMethod(m);
+            sb.append(method);
+            lines += method.split("\n").length;
+        }
+        return sb.append("}\n").toString();
+    }
+
+    private static String generateMethod(int m) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("    int method").append(m).append("(int i) {\n");
+        sb.append("        Runnable r = new Runnable() {\n");
+        sb.append("            public void run() {\n");
+        sb.append("                switch (hashCode()) {\n");
+        for (int c = 0; c < 10; c++) {
+            sb.append("                case ").append(c).append(":\n");
+            sb.append("                    System.out.println(\"").append(c).append("\");\n");
+            sb.append("                    break;\n");
+        }
+        sb.append("                }\n");
+        sb.append("            }\n");
+        sb.append("        };\n");
+        final int depth = 30;
+        for (int d = 0; d < depth; d++) {
+            indent(sb, d).append("if (i > ").append(d).append(") {\n");
+            indent(sb, d + 1).append("i = i * 3 + ").append(d).append(";\n");
+        }
+        for (int d = depth - 1; d >= 0; d--) {
+            indent(sb, d).append("} else {\n");
+            indent(sb, d + 1).append("r.run();\n");
+            indent(sb, d).append("}\n");
+        }
+        sb.append("        return i;\n");
+        sb.append("    }\n");
+        return sb.toString();
+    }
+
+    private static StringBuilder indent(StringBuilder sb, int depth) {
+        for (int i = 0; i < depth + 2; i++) {
+            sb.append("    ");
+        }
+        return sb;
+    }
+}
@@ -1,5 +1,6 @@
 package org.autorefactor.cli;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -21,6 +22,64 @@ public class ApplyArgs extends CommonResolveArgs {
             description = "Comma separated list of refactorings to exclude (e.g. UseDiamondOperatorRefactoring).")
     private List<String> excludedRefactorings = new ArrayList<String>();
 
+    @Parameter(names = "--multiple-passes-per-parse",
+            description = "Apply several passes of refactorings before parsing a file again (faster).")
+    private boolean multiplePassesPerParse;
+
+    @Parameter(names = "--batch-parse",
+            description = "Parse the files of each package together, sharing the resolution of their bindings (faster).")
+    private boolean batchParse;
+
+    @Parameter(names = "--threads",
+            description = "Number of worker threads refactoring files in parallel. Default is: 1.")
+    private int threads = 1;
+
+    @Parameter(names = "--max-inflight",
+            description = "Maximum number of files parsed or being refactored at once, bounding the memory used."
+            + " Default is: no limit.")
+    private int maxInFlight;
+
+    @Parameter(names = "--skip-cache",
+            description = "File indexing the files left unchanged by previous runs, which are then skipped (faster).")
+    private File skipCache;
+
+    @Parameter(names = "--profile",
+            description = "File where to write the time spent per refactoring and per file, as CSV if the file name"
+            + " ends with .csv, as JSON otherwise.")
+    private File profile;
+
+    @Parameter(names = "--dry-run",
+            description = "Refactor in memory, without writing any file nor saving the workspace.")
+    private boolean dryRun;
+
+    @Parameter(names = "--diff",
+            description = "Print the unified diff of each refactored file, as soon as it is refactored.")
+    private boolean diff;
+
+    @Parameter(names = "--diff-output",
+            description = "File where to write the unified diffs instead of the standard output. Implies --diff.")
+    private File diffOutput;
+
+    @Parameter(names = "--since",
+            description = "Only refactor the files and lines changed since this git revision, working tree included."
+            + " (e.g. origin/master)")
+    private String since;
+
+    @Parameter(names = "--file-budget",
+            description = "Maximum seconds spent refactoring a file before abandoning it, 0 for no limit."
+            + " Default is: 120.")
+    private int fileBudget = 120;
+
+    @Parameter(names = "--rule-budget",
+            description = "Maximum seconds a refactoring may spend on a file before being abandoned for this file,"
+            + " 0 for no limit. Default is: 30.")
+    private int ruleBudget = 30;
+
+    @Parameter(names = "--quarantine",
+            description = "File listing the refactorings which exhausted their budget on a file,"
+            + " then skipped for this file by the next runs.")
+    private File quarantine;
+
     /**
      * The refactorings to apply.
      *
@@ -47,4 +106,122 @@ public class ApplyArgs extends CommonResolveArgs {
     public String getSourceLevel() {
         return sourceLevel;
     }
+
+    /**
+     * Whether several passes of refactorings are applied before parsing a file again.
+     *
+     * @return whether several passes of refactorings are applied before parsing a file again
+     */
+    public boolean isMultiplePassesPerParse() {
+        return multiplePassesPerParse;
+    }
+
+    /**
+     * Whether the files of each package are parsed together.
+     *
+     * @return whether the files of each package are parsed together
+     */
+    public boolean isBatchParse() {
+        return batchParse;
+    }
+
+    /**
+     * The number of worker threads refactoring files in parallel.
+     *
+     * @return the number of worker threads refactoring files in parallel
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * The maximum number of files parsed or being refactored at once.
+     *
+     * @return the maximum number of files parsed or being refactored at once, 0 for no limit
+     */
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * The file indexing the files left unchanged by previous runs.
+     *
+     * @return the file indexing the files left unchanged by previous runs, null if files are never skipped
+     */
+    public File getSkipCache() {
+        return skipCache;
+    }
+
+    /**
+     * The file where to write the time spent per refactoring and per file.
+     *
+     * @return the file where to write the time spent per refactoring and per file, null if not profiling
+     */
+    public File getProfile() {
+        return profile;
+    }
+
+    /**
+     * Whether the files are only refactored in memory.
+     *
+     * @return whether the files are only refactored in memory
+     */
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    /**
+     * Whether the unified diff of each refactored file is printed.
+     *
+     * @return whether the unified diff of each refactored file is printed
+     */
+    public boolean isDiff() {
+        return diff || diffOutput != null;
+    }
+
+    /**
+     * The file where to write the unified diffs.
+     *
+     * @return the file where to write the unified diffs, null to print them on the standard output
+     */
+    public File getDiffOutput() {
+        return diffOutput;
+    }
+
+    /**
+     * The git revision since which the files and lines to refactor changed.
+     *
+     * @return the git revision since which the files and lines to refactor changed, null to refactor everything
+     */
+    public String getSince() {
+        return since;
+    }
+
+    /**
+     * The maximum number of seconds spent refactoring a file.
+     *
+     * @return the maximum number of seconds spent refactoring a file, 0 for no limit
+     */
+    public int getFileBudget() {
+        return fileBudget;
+    }
+
+    /**
+     * The maximum number of seconds a refactoring may spend on a file.
+     *
+     * @return the maximum number of seconds a refactoring may spend on a file, 0 for no limit
+     */
+    public int getRuleBudget() {
+        return ruleBudget;
+    }
+
+    /**
+     * The file listing the refactorings which exhausted their budget on a file.
+     *
+     * @return the file listing the refactorings which exhausted their budget on a file,
+     *         null to not skip them in the next runs
+     */
+    public File getQuarantine() {
+        return quarantine;
+    }
 }
@@ -1,6 +1,7 @@
 package org.autorefactor.cli;
 
 import java.io.File;
+import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -15,6 +16,7 @@ import java.util.regex.Pattern;
 import org.autorefactor.cli.ast.AstMatchRule;
 import org.autorefactor.cli.ast.AstMatcherBase;
 import org.autorefactor.cli.script.jdt.JdtRefactor;
+import org.autorefactor.refactoring.Profiler;
 import org.autorefactor.refactoring.RefactoringRule;
 import org.autorefactor.refactoring.rules.AllRefactoringRules;
 import org.eclipse.core.runtime.CoreException;
@@ -75,6 +77,9 @@ import com.beust.jcommander.ParameterException;
 public class AutoRefactor implements IApplication {
 
     static final Pattern CLASSPATH_VARIABLE_ASSIGNMENT = Pattern.compile("^([^=]+)=(.*)$");
+    /** The commands printing only to the streams they are given, hence the only ones the server can serve. */
+    private static final Set<String> SERVED_COMMANDS =
+            new HashSet<String>(Arrays.asList("list", "apply"));
 
     @Override
     public Object start(IApplicationContext context) throws Exception {
@@ -90,8 +95,21 @@ public class AutoRefactor implements IApplication {
         }
     }
     
-    private Integer run(String[] argv) throws Exception {    
-        // System.out.println("args: " + Arrays.asList(argv));
+    Integer run(String[] argv) throws Exception {
+        return run(argv, System.out, System.err);
+    }
+
+    /**
+     * Runs a command, printing to the provided streams.
+     *
+     * @param argv the command line arguments
+     * @param out where the command prints
+     * @param err where the command prints its errors
+     * @return the exit code
+     * @throws Exception if the command failed
+     */
+    Integer run(String[] argv, PrintStream out, PrintStream err) throws Exception {
+        // out.println("args: " + Arrays.asList(argv));
 
         // parse command line arguments
         final Args args = new Args();
@@ -102,6 +120,8 @@ public class AutoRefactor implements IApplication {
         AstDumpArgs astDumpArgs = new AstDumpArgs();
         AstMatchArgs astMatchArgs = new AstMatchArgs();
         GenericResolveArgs renameClassArgs = new GenericResolveArgs();
+        final ServeArgs serveArgs = new ServeArgs();
+        final WatchArgs watchArgs = new WatchArgs();
         final JCommander argParser = JCommander.newBuilder().addObject(args)
                 .addCommand("list", listArgs)
                 .addCommand("apply", applyArgs)
@@ -110,19 +130,21 @@ public class AutoRefactor implements IApplication {
                 .addCommand("ast-match", astMatchArgs)
                 .addCommand("rename-class", renameClassArgs)
                 .addCommand("eclipse", eclipseArgs)
+                .addCommand("serve", serveArgs)
+                .addCommand("watch", watchArgs)
                 .build();
         argParser.setProgramName("autorefactor");
         try {
             argParser.parse(argv);
         } catch (ParameterException e) {
-            System.out.println("*** ERROR: " + e.getMessage());
+            out.println("*** ERROR: " + e.getMessage());
             // prevent launcher messages
             System.setProperty(IApplicationContext.EXIT_DATA_PROPERTY, "");
             return -1;
         }
 
         if (args.isExperimentalHelp()) {
-            argParser.usage();
+            usage(argParser, out);
             return EXIT_OK;
         }
         if (args.isHelp()) {
@@ -132,8 +154,10 @@ public class AutoRefactor implements IApplication {
                     .addCommand("ast-dump", astDumpArgs)
                     .addCommand("ast-match", astMatchArgs)
                     .addCommand("eclipse", eclipseArgs)
+                    .addCommand("serve", serveArgs)
+                    .addCommand("watch", watchArgs)
                     .build();
-            argParserShort.usage();
+            usage(argParserShort, out);
             return EXIT_OK;
         }
 
@@ -141,22 +165,26 @@ public class AutoRefactor implements IApplication {
 
         boolean usage = false;
         final String cmd = argParser.getParsedCommand();
+        if (AutoRefactorServer.isServing() && cmd != null && !SERVED_COMMANDS.contains(cmd)) {
+            err.println("*** ERROR: the server does not serve the " + cmd + " command, run it directly");
+            return -1;
+        }
         if ("apply".equals(cmd)) {
         	final String projectFile = applyArgs.getProjectPath();
         	if (projectFile != null) {
-        		applyAutoRefactorings(new File(projectFile), applyArgs, applyArgs.getClassPathVariables(), verbose, applyArgs.getSourceLevel(), Rules.resolveRules(applyArgs.getRefactorings()), applyArgs.getExcludedRefactorings());
+        		applyAutoRefactorings(new File(projectFile), applyArgs, applyArgs.getClassPathVariables(), verbose, applyArgs.getSourceLevel(), Rules.resolveRules(applyArgs.getRefactorings()), applyArgs.getExcludedRefactorings(), out, err);
         	} else {
         		usage = true;
         	}
         } else if ("apply-dd".equals(cmd)) {
         	final String projectFile = applyDDArgs.getProjectPath();
     		if (projectFile != null) {
-        		applyDeltaDebugRefactorings(new File(projectFile), applyDDArgs, applyDDArgs.getClassPathVariables(), verbose);
+        		applyDeltaDebugRefactorings(new File(projectFile), applyDDArgs, applyDDArgs.getClassPathVariables(), verbose, out, err);
         	} else {
         		usage = true;
         	}
         } else if ("list".equals(cmd)) {
-            listRefactorings();
+            listRefactorings(out);
         } else if ("ast-dump".equals(cmd)) {
             AstTools.dumpProjectAsts(new File(astDumpArgs.getProjectPath()), Collections.<String>emptyList(),  Collections.<String,String>emptyMap(),
                     astDumpArgs, ignoreFilesFilter());
@@ -166,7 +194,7 @@ public class AutoRefactor implements IApplication {
         		// TODO: catch and log Exceptions on top level 
         		applyAutoRefactorings(new File(projectFile), astMatchArgs, astMatchArgs.getClassPathVariables(), verbose, 
         				null, Arrays.asList(new AstMatchRule(AstMatcherBase.evaluateMatchExpression(astMatchArgs.getMatchPattern()))), 
-        				Collections.emptyList());
+        				Collections.emptyList(), out, err);
         	} else {
         		usage = true;
         	}
@@ -174,12 +202,22 @@ public class AutoRefactor implements IApplication {
         	JdtRefactor.applyRefactorings(renameClassArgs);
         } else if ("eclipse".equals(cmd)) {
             WorkspaceUtil.printEclipseInfo(new File(eclipseArgs.getProjectPath()), null, verbose || eclipseArgs.isVerbose());
+        } else if ("watch".equals(cmd)) {
+        	final String projectFile = watchArgs.getProjectPath();
+        	if (projectFile != null) {
+        		watchAutoRefactorings(new File(projectFile), watchArgs, verbose);
+        	} else {
+        		usage = true;
+        	}
+        } else if ("serve".equals(cmd)) {
+            Rules.reuseRuleInstances = true;
+            new AutoRefactorServer(this, serveArgs).serve();
         } else {
-            argParser.usage();
+            usage(argParser, out);
         }
 
         if (usage) {
-            argParser.usage();
+            usage(argParser, out);
             // prevent launcher messages
             System.setProperty(IApplicationContext.EXIT_DATA_PROPERTY, "");
             return -1;
@@ -192,27 +230,69 @@ public class AutoRefactor implements IApplication {
     public void stop() {
     }
 
+	private static void usage(JCommander argParser, PrintStream out) {
+	    final StringBuilder sb = new StringBuilder();
+	    argParser.usage(sb);
+	    out.print(sb);
+	}
+
 	private Predicate<String> ignoreFilesFilter() {
 		return (s) -> !filesToIgnore.contains(s);
 	}
 
 	private void applyAutoRefactorings(final File projectFile, final CommonResolveArgs applyArgs, Map<String, String> classPathVariables, 
-			final boolean verbose, String configuredSourceLevel, List<RefactoringRule> refactorings, List<String> excludedRefactorings)
-			throws JavaModelException, CoreException {
+			final boolean verbose, String configuredSourceLevel, List<RefactoringRule> refactorings, List<String> excludedRefactorings,
+			PrintStream out, PrintStream err) throws JavaModelException, CoreException {
 		final boolean verboseApply = verbose || applyArgs.isVerbose();
 
 		final List<String> sourceFolders = new ArrayList<String>(applyArgs.getSources());
-		SourceLevel sourceLevel = configuredSourceLevel != null ? SourceLevel.fromValue(configuredSourceLevel) : null;
-		EffApplyArgs effArgs = new EffApplyArgs(sourceLevel, applyArgs.getIncludePattern(), verboseApply);
+		final EffApplyArgs effArgs = newEffApplyArgs(applyArgs, verboseApply, configuredSourceLevel);
+		effArgs.out = out;
+		effArgs.err = err;
 		Refactor.refactorProject(projectFile, sourceFolders, classPathVariables,
 				refactorings,
 				excludedRefactorings,
-				effArgs, (target, rules, args) -> { Refactor.refactorFile(target, rules); }, 
+				effArgs, Refactor.APPLY, 
 				ignoreFilesFilter());
 	}
 
+	private void watchAutoRefactorings(final File projectFile, final WatchArgs watchArgs, final boolean verbose)
+			throws JavaModelException, CoreException {
+		final EffApplyArgs effArgs = newEffApplyArgs(watchArgs, verbose || watchArgs.isVerbose(), watchArgs.getSourceLevel());
+		// read once, the changes would not follow the next saves
+		effArgs.since = null;
+		WatchApply.watchProject(projectFile, new ArrayList<String>(watchArgs.getSources()), watchArgs.getClassPathVariables(),
+				Rules.resolveRules(watchArgs.getRefactorings()), watchArgs.getExcludedRefactorings(),
+				effArgs, watchArgs, ignoreFilesFilter());
+	}
+
+	private EffApplyArgs newEffApplyArgs(final CommonResolveArgs applyArgs, final boolean verboseApply,
+			String configuredSourceLevel) {
+		SourceLevel sourceLevel = configuredSourceLevel != null ? SourceLevel.fromValue(configuredSourceLevel) : null;
+		EffApplyArgs effArgs = new EffApplyArgs(sourceLevel, applyArgs.getIncludePattern(), verboseApply);
+		if (applyArgs instanceof ApplyArgs) {
+			effArgs.multiplePassesPerParse = ((ApplyArgs) applyArgs).isMultiplePassesPerParse();
+			effArgs.batchParse = ((ApplyArgs) applyArgs).isBatchParse();
+			effArgs.threads = Math.max(1, ((ApplyArgs) applyArgs).getThreads());
+			effArgs.maxInFlight = Math.max(0, ((ApplyArgs) applyArgs).getMaxInFlight());
+			effArgs.skipCacheFile = ((ApplyArgs) applyArgs).getSkipCache();
+			effArgs.profileFile = ((ApplyArgs) applyArgs).getProfile();
+			effArgs.dryRun = ((ApplyArgs) applyArgs).isDryRun();
+			effArgs.diff = ((ApplyArgs) applyArgs).isDiff();
+			effArgs.diffFile = ((ApplyArgs) applyArgs).getDiffOutput();
+			effArgs.since = ((ApplyArgs) applyArgs).getSince();
+			effArgs.fileTimeBudget = 1000L * Math.max(0, ((ApplyArgs) applyArgs).getFileBudget());
+			effArgs.ruleTimeBudget = 1000L * Math.max(0, ((ApplyArgs) applyArgs).getRuleBudget());
+			effArgs.quarantineFile = ((ApplyArgs) applyArgs).getQuarantine();
+			if (effArgs.profileFile != null) {
+				effArgs.profiler = new Profiler();
+			}
+		}
+		return effArgs;
+	}
+
 	private void applyDeltaDebugRefactorings(final File projectFile, final ApplyDDArgs applyDDArgs, Map<String, String> classPathVariables,
-			final boolean verbose) throws JavaModelException, CoreException {
+			final boolean verbose, PrintStream out, PrintStream err) throws JavaModelException, CoreException {
 		final boolean verboseApply = verbose || applyDDArgs.isVerbose();
 
 		final List<String> sourceFolders = new ArrayList<String>(applyDDArgs.getSources());
@@ -225,17 +305,19 @@ public class AutoRefactor implements IApplication {
 				applyDDArgs.getDeltaDebugTestCodePattern(),
 				applyDDArgs.getDeltaDebugTestCodeCommand(),
 				verboseApply, applyDDArgs.isDeltaDebug());
+		effArgs.out = out;
+		effArgs.err = err;
 		DeltaDebugRefactor deltaDebugRefactor = new DeltaDebugRefactor();
 		Refactor.refactorProject(projectFile, sourceFolders, classPathVariables,
 				Rules.resolveRules(applyDDArgs.getRefactorings()),
 				applyDDArgs.getExcludedRefactorings(),
 				effArgs,
-				(target, rules, args) -> { deltaDebugRefactor.deltaDebugRefactorFile(target, rules, args); },
+				(target, rules, args, out, err) -> { deltaDebugRefactor.deltaDebugRefactorFile(target, rules, args, out, err); },
 				ignoreFilesFilter());
 	}
 
-	private void listRefactorings() {
-        System.out.println("Available refactorings:");
+	private void listRefactorings(PrintStream out) {
+        out.println("Available refactorings:");
         final List<RefactoringRule> rules = new ArrayList<RefactoringRule>(
                 AllRefactoringRules.getAllRefactoringRules());
         final Comparator<RefactoringRule> bySimpleClassName = new Comparator<RefactoringRule>() {
@@ -248,11 +330,11 @@ public class AutoRefactor implements IApplication {
         };
         Collections.sort(rules, bySimpleClassName);
         for (RefactoringRule rule : rules) {
-            System.out.println("    " + rule.getClass().getSimpleName() + " - " + rule.getName()
+            out.println("    " + rule.getClass().getSimpleName() + " - " + rule.getName()
                     + (rule.isByDefault() ? " (pre-configured)" : ""));
             final String description = TextUtil.formatLines(rule.getDescription(), 70).replace("\n", "\n        ")
                     .trim();
-            System.out.println("        " + description);
+            out.println("        " + description);
         }
     }
 
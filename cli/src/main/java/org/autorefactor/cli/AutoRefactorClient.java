@@ -0,0 +1,85 @@
+package org.autorefactor.cli;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Thin client forwarding its command line arguments to a running {@code autorefactor serve},
+ * so each invocation is served by a warm workspace instead of starting Eclipse.
+ *
+ * It only depends on the JDK, so it starts as fast as the JVM does.
+ * It reads the port of the server and the token authorizing its requests from the {@link ServerPortFile}.
+ *
+ * <pre>
+ autorefactor-client [--port-file &lt;file&gt;] apply --project .project --refactorings ...
+ * </pre>
+ */
+public class AutoRefactorClient {
+    /** Options whose value is a path, possibly relative to the current directory. */
+    private static final List<String> PATH_OPTIONS =
+            Arrays.asList("--project", "--skip-cache", "--profile", "--diff-output", "--quarantine");
+
+    public static void main(String[] argv) {
+        int exitCode;
+        try {
+            exitCode = run(argv, System.out, System.err);
+        } catch (IOException e) {
+            System.err.println("*** ERROR: could not reach the autorefactor server: " + e.getMessage());
+            exitCode = -1;
+        }
+        System.exit(exitCode);
+    }
+
+    /**
+     * Forwards the provided command line arguments to the server, and prints its response.
+     *
+     * @param argv the command line arguments, optionally starting with the port file option
+     * @param out where to print what the command prints to its standard output
+     * @param err where to print what the command prints to its error output
+     * @return the exit code of the command
+     * @throws IOException if the server cannot be reached
+     */
+    static int run(String[] argv, PrintStream out, PrintStream err) throws IOException {
+        File portFile = ServerPortFile.DEFAULT_FILE;
+        int i = 0;
+        if (argv.length > 1 && "--port-file".equals(argv[0])) {
+            portFile = new File(argv[1]);
+            i = 2;
+        }
+        final ServerPortFile server = ServerPortFile.read(portFile);
+        final String[] request = Arrays.copyOfRange(argv, i, argv.length);
+        // the server does not run from the current directory of the client
+        for (int j = 0; j < request.length - 1; j++) {
+            if (PATH_OPTIONS.contains(request[j])) {
+                request[j + 1] = new File(request[j + 1]).getAbsolutePath();
+            }
+        }
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+                PrintStream requestOut = new PrintStream(socket.getOutputStream(), true);
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+            // the server only serves the requests starting with its token
+            requestOut.println(server.getToken() + AutoRefactorServer.SEPARATOR
+                    + String.join(AutoRefactorServer.SEPARATOR, request));
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith(AutoRefactorServer.OUT)) {
+                    out.println(line.substring(AutoRefactorServer.OUT.length()));
+                } else if (line.startsWith(AutoRefactorServer.ERR)) {
+                    err.println(line.substring(AutoRefactorServer.ERR.length()));
+                } else if (line.startsWith(AutoRefactorServer.EXIT)) {
+                    return Integer.parseInt(line.substring(AutoRefactorServer.EXIT.length()).split(" ")[0]);
+                }
+            }
+        }
+        err.println("*** ERROR: the autorefactor server closed the connection before answering");
+        return -1;
+    }
+}
@@ -0,0 +1,332 @@
+package org.autorefactor.cli;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+
+/**
+ * Serves the commands of the command line interface from a long-lived Eclipse application,
+ * so the workspace, the imported projects with their JDT model and the rule instances stay warm across requests.
+ *
+ * A request is one line holding the usual command line arguments, separated by tabs.
+ * Requests come from {@link AutoRefactorClient} over a loopback socket, one request per connection,
+ * or from the standard input.
+ * Any local user can connect to the socket, so its requests start with the token of the {@link ServerPortFile},
+ * and the requests without it are rejected.
+ * The commands print to the streams of their request, never to System.out or System.err, which are shared
+ * by the concurrent requests: only the commands able to do so are served.
+ * The response streams what the command prints, each line prefixed with "out " or "err ",
+ * then ends with the line "exit &lt;exit code&gt; &lt;milliseconds&gt;".
+ * On the standard input, requests are numbered from 1 and each response is written at once,
+ * after a "request &lt;number&gt;" line, since concurrent requests complete in any order.
+ */
+class AutoRefactorServer {
+    static final String SEPARATOR = "\t";
+    static final String OUT = "out ";
+    static final String ERR = "err ";
+    static final String EXIT = "exit ";
+    /** Request returning the latencies of the requests served so far. */
+    static final String STATS = "stats";
+    /** Request stopping the server. */
+    static final String SHUTDOWN = "shutdown";
+
+    private static volatile boolean serving;
+
+    private final AutoRefactor autoRefactor;
+    private final ServeArgs serveArgs;
+    private final ExecutorService workers;
+    /** Where the server itself prints. */
+    private final PrintStream serverOut = System.out;
+    private final PrintStream serverErr = System.err;
+    private final Set<String> warmProjects = ConcurrentHashMap.newKeySet();
+    private final LatencyStatistics coldLatencies = new LatencyStatistics();
+    private final LatencyStatistics warmLatencies = new LatencyStatistics();
+    private volatile ServerSocket serverSocket;
+    /** The port and the token of the server, once listening to a socket. */
+    private volatile ServerPortFile portFile;
+    private volatile boolean stopped;
+
+    AutoRefactorServer(AutoRefactor autoRefactor, ServeArgs serveArgs) {
+        this.autoRefactor = autoRefactor;
+        this.serveArgs = serveArgs;
+        this.workers = Executors.newFixedThreadPool(Math.max(1, serveArgs.getThreads()));
+    }
+
+    /**
+     * Whether this process is serving requests, in which case the projects are kept open between requests.
+     *
+     * @return whether this process is serving requests
+     */
+    static boolean isServing() {
+        return serving;
+    }
+
+    /**
+     * Serves requests until a shutdown request, or the end of the standard input.
+     */
+    void serve() throws IOException, CoreException {
+        serving = true;
+        // the warm projects are kept in sync with the files modified by the clients without walking them again
+        InstanceScope.INSTANCE.getNode(ResourcesPlugin.PI_RESOURCES).putBoolean(ResourcesPlugin.PREF_AUTO_REFRESH, true);
+        try {
+            serveRequests();
+        } finally {
+            serving = false;
+            for (String line : getStatistics()) {
+                serverErr.println("serve: " + line);
+            }
+            ResourcesPlugin.getWorkspace().save(true, null);
+        }
+    }
+
+    /**
+     * Serves requests until a shutdown request, or the end of the standard input,
+     * then waits for the requests being served.
+     */
+    void serveRequests() throws IOException {
+        try {
+            if (serveArgs.isStdin()) {
+                serveStandardInput();
+            } else {
+                serveSocket();
+            }
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private void serveSocket() throws IOException {
+        serverSocket = new ServerSocket(serveArgs.getPort(), 50, InetAddress.getLoopbackAddress());
+        portFile = ServerPortFile.newRandom(serverSocket.getLocalPort());
+        portFile.write(serveArgs.getPortFile());
+        serverErr.println("serve: listening to port " + serverSocket.getLocalPort());
+        try {
+            while (!stopped) {
+                final Socket socket = serverSocket.accept();
+                workers.execute(() -> serveConnection(socket));
+            }
+        } catch (SocketException e) {
+            if (!stopped) {
+                throw e;
+            }
+            // closed by a shutdown request
+        } finally {
+            serverSocket.close();
+            serveArgs.getPortFile().delete();
+        }
+    }
+
+    private void serveConnection(Socket socket) {
+        try (Socket s = socket;
+                BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream()));
+                PrintStream response = new PrintStream(s.getOutputStream(), true)) {
+            final String request = in.readLine();
+            if (request != null) {
+                final int separator = request.indexOf(SEPARATOR);
+                final String token = separator != -1 ? request.substring(0, separator) : request;
+                if (portFile.isAuthorized(token)) {
+                    respond(separator != -1 ? request.substring(separator + SEPARATOR.length()) : "", response);
+                } else {
+                    serverErr.println("serve: rejected a request without the token of the server");
+                    response.println(ERR + "unauthorized request, the token of " + serveArgs.getPortFile()
+                            + " is missing");
+                    response.println(EXIT + "-1 0");
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace(serverErr);
+        }
+    }
+
+    private void serveStandardInput() throws IOException {
+        final BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+        final AtomicInteger nbRequests = new AtomicInteger();
+        String request;
+        while (!stopped && (request = in.readLine()) != null) {
+            final String req = request;
+            final int requestNumber = nbRequests.incrementAndGet();
+            workers.execute(() -> {
+                final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                final PrintStream response = new PrintStream(buffer, true);
+                response.println("request " + requestNumber);
+                respond(req, response);
+                synchronized (serverOut) {
+                    serverOut.write(buffer.toByteArray(), 0, buffer.size());
+                    serverOut.flush();
+                }
+            });
+        }
+    }
+
+    private void respond(String request, PrintStream response) {
+        final String[] argv = request.isEmpty() ? new String[0] : request.split(SEPARATOR);
+        final long start = System.nanoTime();
+        int exitCode = 0;
+        if (argv.length == 1 && STATS.equals(argv[0])) {
+            for (String line : getStatistics()) {
+                response.println(OUT + line);
+            }
+        } else if (argv.length == 1 && SHUTDOWN.equals(argv[0])) {
+            stop();
+        } else if (argv.length > 0 && "serve".equals(argv[0])) {
+            response.println(ERR + "already serving");
+            exitCode = -1;
+        } else {
+            exitCode = run(argv, response);
+        }
+        final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        final String project = projectPath(argv);
+        if (project != null) {
+            // the first request about a project pays for importing it into the workspace
+            (warmProjects.add(project) ? coldLatencies : warmLatencies).record(millis);
+        }
+        synchronized (response) {
+            response.println(EXIT + exitCode + " " + millis);
+        }
+    }
+
+    private int run(String[] argv, PrintStream response) {
+        final LinePrefixingOutputStream out = new LinePrefixingOutputStream(OUT, response);
+        final LinePrefixingOutputStream err = new LinePrefixingOutputStream(ERR, response);
+        final PrintStream requestOut = new PrintStream(out, true);
+        final PrintStream requestErr = new PrintStream(err, true);
+        try {
+            return autoRefactor.run(argv, requestOut, requestErr);
+        } catch (Exception e) {
+            e.printStackTrace(requestErr);
+            return -1;
+        } finally {
+            requestOut.flush();
+            requestErr.flush();
+            out.flushLastLine();
+            err.flushLastLine();
+        }
+    }
+
+    private static String projectPath(String[] argv) {
+        for (int i = 0; i < argv.length - 1; i++) {
+            if ("--project".equals(argv[i])) {
+                return argv[i + 1];
+            }
+        }
+        return null;
+    }
+
+    private void stop() {
+        stopped = true;
+        final ServerSocket socket = serverSocket;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                e.printStackTrace(serverErr);
+            }
+        }
+    }
+
+    private List<String> getStatistics() {
+        final List<String> results = new ArrayList<>();
+        results.add("cold requests: " + coldLatencies.getSummary());
+        results.add("warm requests: " + warmLatencies.getSummary());
+        return results;
+    }
+
+    /** Latencies of the requests, in milliseconds. */
+    private static final class LatencyStatistics {
+        private final List<Long> latencies = new ArrayList<>();
+
+        synchronized void record(long millis) {
+            latencies.add(millis);
+        }
+
+        synchronized String getSummary() {
+            if (latencies.isEmpty()) {
+                return "none";
+            }
+            final List<Long> sorted = new ArrayList<>(latencies);
+            Collections.sort(sorted);
+            long total = 0;
+            for (long latency : sorted) {
+                total += latency;
+            }
+            return sorted.size() + ", average " + (total / sorted.size()) + " ms"
+                    + ", median " + percentile(sorted, 50) + " ms"
+                    + ", p95 " + percentile(sorted, 95) + " ms"
+                    + ", max " + sorted.get(sorted.size() - 1) + " ms";
+        }
+
+        private static long percentile(List<Long> sorted, int percent) {
+            return sorted.get(Math.max(0, (sorted.size() * percent + 99) / 100 - 1));
+        }
+    }
+
+    /**
+     * Writes each line to the response of a request, prefixed to tell the standard output from the error output.
+     */
+    private static final class LinePrefixingOutputStream extends OutputStream {
+        private final byte[] prefix;
+        private final PrintStream response;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+        LinePrefixingOutputStream(String prefix, PrintStream response) {
+            this.prefix = prefix.getBytes();
+            this.response = response;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            if (b == '\n') {
+                writeLine();
+            } else {
+                line.write(b);
+            }
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+
+        synchronized void flushLastLine() {
+            if (line.size() > 0) {
+                writeLine();
+            }
+        }
+
+        private void writeLine() {
+            synchronized (response) {
+                response.write(prefix, 0, prefix.length);
+                response.write(line.toByteArray(), 0, line.size());
+                response.write('\n');
+                response.flush();
+            }
+            line.reset();
+        }
+    }
+}
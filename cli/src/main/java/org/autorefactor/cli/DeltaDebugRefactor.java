@@ -2,6 +2,7 @@ package org.autorefactor.cli;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
@@ -30,29 +31,30 @@ public class DeltaDebugRefactor {
 		Result apply(String code);
 	}
 
-    void deltaDebugRefactorFile(final Refactor.RefactorTarget target, final List<RefactoringRule> originalRules, final EffApplyArgs args) throws CoreException, Exception {
+    void deltaDebugRefactorFile(final Refactor.RefactorTarget target, final List<RefactoringRule> originalRules, final EffApplyArgs args,
+            final PrintStream out, final PrintStream err) throws CoreException, Exception {
     	final IResource resource = target.getResource();
         final String originalCode = FileUtil.read(resource);
-        DDMin.Result testResult = testRefactorFile(originalCode, target, originalRules, args);
+        DDMin.Result testResult = testRefactorFile(originalCode, target, originalRules, args, err);
         if (testResult != DDMin.Result.Reproduced) {
             throw new IllegalStateException("cannot start: test case not reproducable");
         }
         final File file = resource.getLocation().toFile();
 		try {
             // 1. reduce rules
-			final List<RefactoringRule> rules = reduceRules(target, originalCode, originalRules, args);
+			final List<RefactoringRule> rules = reduceRules(target, originalCode, originalRules, args, err);
 			if (originalRules.size() > 1) {
 				if (rules.size() < originalRules.size()) {
-					System.out.println("reduced rule size from " + originalRules.size() + " to " + rules.size());
-					System.out.println("applying rules: " + rules);
+					out.println("reduced rule size from " + originalRules.size() + " to " + rules.size());
+					out.println("applying rules: " + rules);
 				} else {
-					System.out.println("could not reduce reduced rule size " + originalRules.size());
+					out.println("could not reduce reduced rule size " + originalRules.size());
 				}
 			}
 	        final TargetTest test = new TargetTest() {
 				@Override
 				public Result apply(String code) {
-					return testRefactorFile(code, target, rules, args);
+					return testRefactorFile(code, target, rules, args, err);
 	            }
 	        };
 
@@ -91,7 +93,7 @@ public class DeltaDebugRefactor {
     }
 
 	private List<RefactoringRule> reduceRules(final Refactor.RefactorTarget target, final String originalCode,
-			final List<RefactoringRule> originalRules, final EffApplyArgs args) {
+			final List<RefactoringRule> originalRules, final EffApplyArgs args, final PrintStream err) {
 		final List<RefactoringRule> rules;
 		if (originalRules.size() <= 1) {
 		    rules = originalRules;
@@ -99,7 +101,7 @@ public class DeltaDebugRefactor {
 		    rules = DDMin.ddMin(originalRules, 2, new DDMin.Predicate<RefactoringRule>() {
 		        @Override
 		        public Result apply(List<RefactoringRule> newRules) {
-		            return testRefactorFile(originalCode, target, newRules, args);
+		            return testRefactorFile(originalCode, target, newRules, args, err);
 		        }
 		    });
 		}
@@ -290,7 +292,8 @@ public class DeltaDebugRefactor {
 		return s;
 	}
 
-    private DDMin.Result testRefactorFile(String code, Refactor.RefactorTarget target, final List<RefactoringRule> rules, final EffApplyArgs args) {
+    private DDMin.Result testRefactorFile(String code, Refactor.RefactorTarget target, final List<RefactoringRule> rules, final EffApplyArgs args,
+            PrintStream err) {
     	final IResource resource = target.getResource();
         DDMin.Result testResult = DDMin.Result.Unknown;
         try {
@@ -328,8 +331,8 @@ public class DeltaDebugRefactor {
             if (p != null && p.matcher(s).matches()) {
                 testResult = DDMin.Result.Reproduced;
             } else {
-                e.printStackTrace(System.err);
-                System.err.println("delta debugging, testable exception: '" + s + "'");
+                e.printStackTrace(err);
+                err.println("delta debugging, testable exception: '" + s + "'");
                 testResult = DDMin.Result.NotReproduced;
             }
         }
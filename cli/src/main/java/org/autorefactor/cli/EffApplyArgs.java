@@ -1,7 +1,14 @@
 package org.autorefactor.cli;
 
+import java.io.File;
+import java.io.PrintStream;
 import java.util.regex.Pattern;
 
+import org.autorefactor.refactoring.FixedPointStatistics;
+import org.autorefactor.refactoring.Profiler;
+import org.autorefactor.refactoring.Quarantine;
+import org.autorefactor.refactoring.SkipCache;
+
 /**
  * Effective refactor application arguments.
  *
@@ -17,6 +24,66 @@ public class EffApplyArgs {
     /* @Nullable */ final String deltaDebugTestCodeCommand;
     final boolean verbose;
     final boolean deltaDebug;
+    /** Where the run prints, the stream of the request when serving it. */
+    PrintStream out = System.out;
+    /** Where the run prints its errors, the stream of the request when serving it. */
+    PrintStream err = System.err;
+    /** Engine option only set by the apply command. */
+    boolean multiplePassesPerParse;
+    /** Engine option only set by the apply command. */
+    boolean batchParse;
+    /** Number of worker threads, only set by the apply command. */
+    int threads = 1;
+    /** Maximum number of files parsed or being refactored at once, 0 for no limit, only set by the apply command. */
+    int maxInFlight;
+    /** Index of the files left unchanged by previous runs, only set by the apply command. */
+    /* @Nullable */ File skipCacheFile;
+    /** Loaded from {@link #skipCacheFile} once the rules to apply are known. */
+    /* @Nullable */ SkipCache skipCache;
+    /** Shared by all the files refactored during the run, then summarized. */
+    final FixedPointStatistics fixedPointStatistics = new FixedPointStatistics();
+    /** File where to write the profile of the run, only set by the apply command. */
+    /* @Nullable */ File profileFile;
+    /** Created when {@link #profileFile} is set. */
+    /* @Nullable */ Profiler profiler;
+    /** Keep the refactored files in memory, only set by the apply command. */
+    boolean dryRun;
+    /** Print the unified diff of each refactored file, only set by the apply command. */
+    boolean diff;
+    /** File where to write the unified diffs instead of the standard output, only set by the apply command. */
+    /* @Nullable */ File diffFile;
+    /** Opened on {@link #diffFile} for the duration of the run. */
+    /* @Nullable */ PrintStream diffOutput;
+    /** Git revision since which the files and lines to refactor changed, only set by the apply command. */
+    /* @Nullable */ String since;
+    /** Read from git when {@link #since} is set, once the project is known. */
+    /* @Nullable */ GitChanges changes;
+    /** Milliseconds spent refactoring a file, 0 for no limit, only set by the apply command. */
+    long fileTimeBudget;
+    /** Milliseconds a rule may spend on a file, 0 for no limit, only set by the apply command. */
+    long ruleTimeBudget;
+    /** List of the rules skipped for some files, only set by the apply command. */
+    /* @Nullable */ File quarantineFile;
+    /** Loaded from {@link #quarantineFile}, recording the timeouts of the run to summarize them. */
+    /* @Nullable */ Quarantine quarantine;
+
+    /**
+     * The number of worker threads, never more than the files allowed in flight.
+     *
+     * @return the number of worker threads
+     */
+    int getNbWorkers() {
+        return maxInFlight > 0 ? Math.min(threads, maxInFlight) : threads;
+    }
+
+    /**
+     * The maximum number of files parsed together by each worker thread when batch parsing.
+     *
+     * @return the maximum number of files parsed together by each worker thread
+     */
+    int getMaxFilesPerWorkItem() {
+        return maxInFlight > 0 ? Math.max(1, maxInFlight / getNbWorkers()) : Integer.MAX_VALUE;
+    }
 
     public EffApplyArgs(SourceLevel sourceLevel, Pattern compile, boolean verboseApply) {
         super();
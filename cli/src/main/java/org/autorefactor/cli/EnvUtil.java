@@ -43,6 +43,11 @@ public class EnvUtil extends AutoRefactor {
         public void warn(String message) {
             throw new RuntimeException(message);
         }
+
+        @Override
+        public void info(String message) {
+            // the command line reports what it does by itself
+        }
     }
 
     /**
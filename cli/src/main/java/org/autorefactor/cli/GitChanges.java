@@ -0,0 +1,178 @@
+package org.autorefactor.cli;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The files and lines changed since a git revision, read from the output of {@code git diff --unified=0}.
+ *
+ * The working tree is compared to the revision, so the uncommitted changes count as changes too.
+ * The untracked files, except the ignored ones, are new files: all their lines changed.
+ */
+class GitChanges {
+    /** The new side of a hunk header: {@code @@ -12,3 +14,5 @@}, the line count defaulting to 1. */
+    private static final Pattern HUNK_HEADER = Pattern.compile("^@@ -\\d+(?:,\\d+)? \\+(\\d+)(?:,(\\d+))? @@");
+    private static final String DIFF_HEADER_PREFIX = "diff ";
+    private static final String OLD_FILE_PREFIX = "--- ";
+    private static final String NEW_FILE_PREFIX = "+++ ";
+
+    private final String revision;
+    /** Changed line ranges, as the first and last line numbers starting at 1, by canonical file path. */
+    private final Map<String, List<int[]>> changedLines = new HashMap<>();
+
+    GitChanges(String revision) {
+        this.revision = revision;
+    }
+
+    /**
+     * Reads the changes of the git repository holding the provided directory.
+     *
+     * @param revision the revision to compare the working tree to
+     * @param directory a directory of the git repository
+     * @return the changes since the provided revision
+     * @throws IOException if git could not be run or reported an error
+     */
+    static GitChanges since(String revision, File directory) throws IOException {
+        final File topLevel = new File(git(directory, "rev-parse", "--show-toplevel").trim()).getCanonicalFile();
+        final GitChanges changes = new GitChanges(revision);
+        // do not quote the paths holding non ASCII characters
+        changes.parse(git(directory, "-c", "core.quotePath=false", "diff", "--unified=0", "--no-color", "--no-ext-diff",
+                revision, "--"), topLevel);
+        for (String path : git(topLevel, "ls-files", "--others", "--exclude-standard", "-z").split("\0")) {
+            if (!path.isEmpty()) {
+                changes.changedLines.put(new File(topLevel, path).getPath(),
+                        Collections.singletonList(new int[] { 1, Integer.MAX_VALUE }));
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Reads the changed lines from the output of {@code git diff --unified=0}.
+     *
+     * @param diff the output of {@code git diff --unified=0}
+     * @param topLevel the top level directory of the git repository
+     */
+    void parse(String diff, File topLevel) {
+        List<int[]> fileLines = null;
+        // the removed lines starting with "-- " followed by added lines starting with "++ " look like file headers
+        boolean inFileHeader = false;
+        String previousLine = "";
+        for (String line : diff.split("\n")) {
+            if (line.startsWith(DIFF_HEADER_PREFIX)) {
+                inFileHeader = true;
+                fileLines = null;
+            }
+            final boolean isNewFile = inFileHeader
+                    && previousLine.startsWith(OLD_FILE_PREFIX) && line.startsWith(NEW_FILE_PREFIX);
+            previousLine = line;
+            if (isNewFile) {
+                // git ends the paths holding spaces with a tab
+                final String path = line.substring(NEW_FILE_PREFIX.length()).replaceFirst("\t$", "");
+                if (path.startsWith("b/")) {
+                    fileLines = new ArrayList<>();
+                    changedLines.put(new File(topLevel, path.substring(2)).getPath(), fileLines);
+                } else {
+                    // deleted file: /dev/null
+                    fileLines = null;
+                }
+                continue;
+            }
+            final Matcher m = HUNK_HEADER.matcher(line);
+            if (!m.find()) {
+                continue;
+            }
+            inFileHeader = false;
+            if (fileLines != null) {
+                final int firstLine = Integer.parseInt(m.group(1));
+                final int nbLines = m.group(2) != null ? Integer.parseInt(m.group(2)) : 1;
+                if (nbLines > 0) {
+                    fileLines.add(new int[] { firstLine, firstLine + nbLines - 1 });
+                } else {
+                    // only deleted lines, after the first line: the code around them changed
+                    fileLines.add(new int[] { Math.max(1, firstLine), firstLine + 1 });
+                }
+            }
+        }
+    }
+
+    private static String git(File directory, String... args) throws IOException {
+        final List<String> command = new ArrayList<>();
+        command.add("git");
+        Collections.addAll(command, args);
+        final Process process = new ProcessBuilder(command)
+                .directory(directory)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (InputStream in = process.getInputStream()) {
+            final byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                output.write(buffer, 0, n);
+            }
+        }
+        try {
+            final int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                throw new IOException(String.join(" ", command) + " exited with code " + exitCode);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while running " + String.join(" ", command), e);
+        }
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The revision the working tree is compared to.
+     *
+     * @return the revision the working tree is compared to
+     */
+    String getRevision() {
+        return revision;
+    }
+
+    /**
+     * The number of changed files.
+     *
+     * @return the number of changed files
+     */
+    int getNbChangedFiles() {
+        return changedLines.size();
+    }
+
+    /**
+     * Whether the provided file changed.
+     *
+     * @param file the file
+     * @return whether the provided file changed
+     * @throws IOException if the canonical path of the file could not be computed
+     */
+    boolean isChanged(File file) throws IOException {
+        return changedLines.containsKey(file.getCanonicalPath());
+    }
+
+    /**
+     * The changed line ranges of the provided file.
+     *
+     * @param file the file
+     * @return the first and last line numbers of each changed line range, starting at 1, empty if the file did not
+     *         change
+     * @throws IOException if the canonical path of the file could not be computed
+     */
+    List<int[]> getChangedLines(File file) throws IOException {
+        final List<int[]> lines = changedLines.get(file.getCanonicalPath());
+        return lines != null ? lines : Collections.<int[]> emptyList();
+    }
+}
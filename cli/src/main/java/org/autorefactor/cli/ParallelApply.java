@@ -0,0 +1,173 @@
+package org.autorefactor.cli;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.autorefactor.refactoring.RefactoringRule;
+import org.autorefactor.refactoring.rules.AllRefactoringRules;
+
+/**
+ * Refactors work items with a bounded pool of worker threads.
+ *
+ * Like the plugin's PrepareApplyRefactoringsJob, all workers poll work items from a shared queue,
+ * longest first so no long work item is left to a single worker at the end,
+ * and each worker owns its instances of the refactoring rules.
+ * What a work item prints is buffered, then flushed in the order of the work items,
+ * so the console output is the same as the one of a sequential run.
+ * The work items print to the provided streams rather than to System.out and System.err,
+ * which are shared by the whole JVM.
+ */
+class ParallelApply {
+
+    private ParallelApply() {
+    }
+
+    static void refactor(final List<List<Refactor.RefactorTarget>> workItems, final Refactor.RefactorProcedure refactor,
+            final List<RefactoringRule> rules, final EffApplyArgs args, final PrintStream out, final PrintStream err) {
+        final int nbWorkers = Math.min(args.getNbWorkers(), workItems.size());
+        if (nbWorkers == 0) {
+            return;
+        }
+        final long[] costs = new long[workItems.size()];
+        for (int i = 0; i < workItems.size(); i++) {
+            costs[i] = estimateCost(workItems.get(i));
+        }
+        // stable, hence the work items of equal costs keep their order
+        final Queue<Integer> indexes = IntStream.range(0, workItems.size()).boxed()
+                .sorted(Comparator.comparingLong((Integer i) -> costs[i]).reversed())
+                .collect(Collectors.toCollection(ConcurrentLinkedQueue::new));
+        final long start = System.nanoTime();
+        final AtomicLong firstIdle = new AtomicLong();
+
+        final OrderedConsole console = new OrderedConsole(workItems.size(), out, err);
+        final ExecutorService executor = Executors.newFixedThreadPool(nbWorkers);
+        try {
+            final List<Future<?>> workers = new ArrayList<>(nbWorkers);
+            for (int i = 0; i < nbWorkers; i++) {
+                workers.add(executor.submit(() -> {
+                    final List<RefactoringRule> workerRules = cloneRules(rules);
+                    Integer index;
+                    while ((index = indexes.poll()) != null) {
+                        final WorkItemConsole workItemConsole = console.begin();
+                        try {
+                            refactor.refactor(workItems.get(index), workerRules, args,
+                                    workItemConsole.out, workItemConsole.err);
+                        } catch (Exception e) {
+                            e.printStackTrace(workItemConsole.err);
+                        } finally {
+                            console.end(index, workItemConsole);
+                        }
+                    }
+                    firstIdle.compareAndSet(0, System.nanoTime());
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        if (args.verbose) {
+            final long end = System.nanoTime();
+            out.println(nbWorkers + " workers took " + TimeUnit.NANOSECONDS.toMillis(end - start)
+                    + " ms, the last one finishing " + TimeUnit.NANOSECONDS.toMillis(end - firstIdle.get())
+                    + " ms after the first one ran out of work items");
+        }
+    }
+
+    /**
+     * Estimates the time needed to refactor a work item from the length of the source code of its files.
+     */
+    private static long estimateCost(List<Refactor.RefactorTarget> workItem) {
+        long cost = 0;
+        for (Refactor.RefactorTarget target : workItem) {
+            cost += target.getResource().getLocation().toFile().length();
+        }
+        return cost;
+    }
+
+    /**
+     * Clones all the refactorings to apply, the way the plugin gives each worker its own rules.
+     */
+    static List<RefactoringRule> cloneRules(List<RefactoringRule> rules) throws Exception {
+        final List<RefactoringRule> results = new ArrayList<>(rules.size());
+        for (RefactoringRule rule : rules) {
+            results.add(AllRefactoringRules.copyOf(rule));
+        }
+        return results;
+    }
+
+    /**
+     * Buffers what each work item prints, and flushes the buffers in the order of the work items.
+     * The work items print to the streams of their {@link WorkItemConsole}, never to System.out or System.err,
+     * so concurrent runs in the same JVM, like the requests of the server, each keep their own output.
+     */
+    private static final class OrderedConsole {
+        private final PrintStream out;
+        private final PrintStream err;
+        private final byte[][] outs;
+        private final byte[][] errs;
+        private int nextToFlush;
+
+        OrderedConsole(int nbWorkItems, PrintStream out, PrintStream err) {
+            this.out = out;
+            this.err = err;
+            this.outs = new byte[nbWorkItems][];
+            this.errs = new byte[nbWorkItems][];
+        }
+
+        WorkItemConsole begin() {
+            return new WorkItemConsole();
+        }
+
+        void end(int index, WorkItemConsole console) {
+            console.out.flush();
+            console.err.flush();
+            completed(index, console.outBuffer.toByteArray(), console.errBuffer.toByteArray());
+        }
+
+        private synchronized void completed(int index, byte[] outBytes, byte[] errBytes) {
+            outs[index] = outBytes;
+            errs[index] = errBytes;
+            while (nextToFlush < outs.length && outs[nextToFlush] != null) {
+                out.write(outs[nextToFlush], 0, outs[nextToFlush].length);
+                err.write(errs[nextToFlush], 0, errs[nextToFlush].length);
+                // release the buffer, but keep marking the work item as flushed
+                outs[nextToFlush] = new byte[0];
+                errs[nextToFlush] = null;
+                nextToFlush++;
+            }
+            out.flush();
+            err.flush();
+        }
+    }
+
+    /**
+     * The streams a work item prints to, buffered until its turn to be flushed comes.
+     */
+    private static final class WorkItemConsole {
+        private final ByteArrayOutputStream outBuffer = new ByteArrayOutputStream();
+        private final ByteArrayOutputStream errBuffer = new ByteArrayOutputStream();
+        private final PrintStream out = new PrintStream(outBuffer, true);
+        private final PrintStream err = new PrintStream(errBuffer, true);
+    }
+}
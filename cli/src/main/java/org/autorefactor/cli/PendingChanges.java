@@ -0,0 +1,107 @@
+package org.autorefactor.cli;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded queue of the saved files, in the order of their first save,
+ * where the repeated saves of a file are coalesced into a single change.
+ *
+ * A file is only handed out once no save came for the debounce delay, and never while it is being refactored.
+ */
+final class PendingChanges {
+    /** A saved file waiting to be refactored. */
+    static final class PendingChange {
+        final Path file;
+        /** When the first save not refactored yet was seen, in nanoseconds. */
+        final long firstSave;
+        /** When the last save was seen, in nanoseconds. */
+        private long lastSave;
+
+        PendingChange(Path file, long firstSave) {
+            this.file = file;
+            this.firstSave = firstSave;
+            this.lastSave = firstSave;
+        }
+    }
+
+    private final int capacity;
+    private final long debounceNanos;
+    private final Map<Path, PendingChange> changes = new LinkedHashMap<>();
+    /** Files being refactored, which are not handed out again before they are done. */
+    private final Set<Path> inProgress = new HashSet<>();
+
+    PendingChanges(int capacity, long debounceNanos) {
+        this.capacity = capacity;
+        this.debounceNanos = debounceNanos;
+    }
+
+    /**
+     * Records a save of the provided file, waiting for room in the queue if it was not already queued.
+     */
+    synchronized void add(Path file) throws InterruptedException {
+        while (changes.size() >= capacity && !changes.containsKey(file)) {
+            wait();
+        }
+        final long now = System.nanoTime();
+        final PendingChange change = changes.get(file);
+        if (change != null) {
+            change.lastSave = now;
+        } else {
+            changes.put(file, new PendingChange(file, now));
+        }
+        notifyAll();
+    }
+
+    /**
+     * Removes the first file saved for the last time more than the debounce delay ago and not being refactored,
+     * waiting for one.
+     */
+    synchronized PendingChange take() throws InterruptedException {
+        while (true) {
+            final long now = System.nanoTime();
+            long nextSettled = Long.MAX_VALUE;
+            for (Iterator<PendingChange> it = changes.values().iterator(); it.hasNext();) {
+                final PendingChange change = it.next();
+                if (inProgress.contains(change.file)) {
+                    continue;
+                }
+                final long settledIn = change.lastSave + debounceNanos - now;
+                if (settledIn <= 0) {
+                    it.remove();
+                    inProgress.add(change.file);
+                    notifyAll();
+                    return change;
+                }
+                nextSettled = Math.min(nextSettled, settledIn);
+            }
+            if (nextSettled == Long.MAX_VALUE) {
+                wait();
+            } else {
+                TimeUnit.NANOSECONDS.timedWait(this, nextSettled);
+            }
+        }
+    }
+
+    /**
+     * Lets the provided file be handed out again, once refactored.
+     */
+    synchronized void done(Path file) {
+        inProgress.remove(file);
+        notifyAll();
+    }
+
+    /**
+     * Returns the number of files waiting to be refactored.
+     *
+     * @return the number of files waiting to be refactored
+     */
+    synchronized int size() {
+        return changes.size();
+    }
+}
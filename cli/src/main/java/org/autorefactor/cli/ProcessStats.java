@@ -0,0 +1,49 @@
+package org.autorefactor.cli;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.autorefactor.refactoring.HeapUsage;
+
+/**
+ * Measures the startup time and the peak memory of the running launcher, so the launchers can be compared.
+ */
+class ProcessStats {
+    private static volatile long startupMillis = -1;
+
+    private ProcessStats() {
+    }
+
+    /**
+     * Records the time elapsed since the JVM started. Called once the launcher is ready to refactor the first file.
+     */
+    static void recordStartup() {
+        startupMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+
+    /**
+     * @return a human readable summary of the startup time, of the peak resident set size and of the peak heap
+     */
+    static String getSummary() {
+        final long peakRssKb = peakRssKb();
+        return "startup took " + startupMillis + " ms from the JVM start, peak RSS is "
+                + (peakRssKb >= 0 ? (peakRssKb / 1024) + " MB" : "unknown") + ", " + HeapUsage.getPeakSummary();
+    }
+
+    /** Reads the high water mark of the resident set size, only available on Linux. */
+    private static long peakRssKb() {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status"), StandardCharsets.US_ASCII)) {
+                if (line.startsWith("VmHWM:")) {
+                    return Long.parseLong(line.substring("VmHWM:".length()).replace("kB", "").trim());
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // not on Linux
+        }
+        return -1;
+    }
+}
@@ -1,16 +1,29 @@
 package org.autorefactor.cli;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Predicate;
 
 import org.autorefactor.refactoring.ApplyRefactoringsJob;
+import org.autorefactor.refactoring.ChangedLines;
+import org.autorefactor.refactoring.FixedPointStatistics;
 import org.autorefactor.refactoring.JavaProjectOptions;
 import org.autorefactor.refactoring.JavaProjectOptionsImpl;
+import org.autorefactor.refactoring.Profiler;
 import org.autorefactor.refactoring.RefactoringRule;
 import org.autorefactor.refactoring.Release;
+import org.autorefactor.refactoring.Quarantine;
+import org.autorefactor.refactoring.SkipCache;
+import org.autorefactor.refactoring.TriggerTokenIndex;
 import org.autorefactor.refactoring.rules.AggregateASTVisitor;
 import org.autorefactor.util.Pair;
 import org.eclipse.core.resources.IFolder;
@@ -20,7 +33,9 @@ import org.eclipse.core.resources.IResourceVisitor;
 import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.jdt.core.IClasspathEntry;
 import org.eclipse.jdt.core.ICompilationUnit;
@@ -29,6 +44,10 @@ import org.eclipse.jdt.core.IPackageFragment;
 import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTRequestor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jface.text.Document;
 import org.eclipse.jface.text.IDocument;
 
@@ -62,10 +81,54 @@ public class Refactor {
 		}
 	}
 
+	/**
+	 * Refactors files, printing to the provided streams rather than to System.out and System.err,
+	 * so several threads or requests refactoring at once each keep their own console.
+	 */
 	public static interface RefactorProcedure {
-		void refactor(RefactorTarget target, List<RefactoringRule> rules, EffApplyArgs args) throws Exception;
+		void refactor(RefactorTarget target, List<RefactoringRule> rules, EffApplyArgs args,
+				PrintStream out, PrintStream err) throws Exception;
+
+		/**
+		 * Entered with each work item collected when batch parsing or using several threads,
+		 * i.e. all the files of one package or a single file.
+		 * By default, refactors them one after the other.
+		 */
+		default void refactor(List<RefactorTarget> targets, List<RefactoringRule> rules, EffApplyArgs args,
+				PrintStream out, PrintStream err) throws Exception {
+			for (RefactorTarget target : targets) {
+				refactor(target, rules, args, out, err);
+			}
+		}
 	}
 
+	/**
+	 * Refactors files one by one, or whole packages at once when batch parsing.
+	 */
+	static final RefactorProcedure APPLY = new RefactorProcedure() {
+		@Override
+		public void refactor(RefactorTarget target, List<RefactoringRule> rules, EffApplyArgs args,
+				PrintStream out, PrintStream err) throws Exception {
+			refactorFile(target, rules, args, out);
+		}
+
+		@Override
+		public void refactor(List<RefactorTarget> targets, List<RefactoringRule> rules, EffApplyArgs args,
+				PrintStream out, PrintStream err) throws Exception {
+			if (args.batchParse) {
+				refactorFiles(targets, rules, args, out, err);
+			} else {
+				RefactorProcedure.super.refactor(targets, rules, args, out, err);
+			}
+		}
+	};
+
+	/** Java release of the options used to refactor files. */
+	private static final Release CLI_RELEASE = Release.javaSE("1.7.0");
+
+	/** Creating compilation units in the shared package fragments is serialized across worker threads. */
+	private static final Object WORKSPACE_LOCK = new Object();
+
 	/**
 	 * Entered by apply and apply with delta debugging.
 	 * @param fileFilter 
@@ -76,6 +139,10 @@ public class Refactor {
 	        final List<RefactoringRule> rules, final EffApplyArgs args, Predicate<String> fileFilter) throws CoreException {
 	    final boolean verbose = args.verbose;
 	    final IPackageFragmentRoot pfr = project.getPackageFragmentRoot(sourceFolder);
+	    // when batch parsing or using several threads, work items are only collected during the walk
+	    final boolean deferred = args.batchParse || args.threads > 1;
+	    final Map<String, List<RefactorTarget>> workItems = new LinkedHashMap<>();
+	    final TriggerTokenIndex triggerTokenIndex = TriggerTokenIndex.of(rules);
 	    FileUtil.walkMax(sourceFolder, 1000000, new IResourceVisitor() {
 	        @Override
 	        public boolean visit(IResource resource) throws CoreException {
@@ -85,39 +152,91 @@ public class Refactor {
 	                    IPath relativePath = WorkspaceUtil.relativePath(sourceFolder, resource);
 	                    if (!args.sourceFileName.matcher(relativePath.toString()).matches()) {
 	                        if (verbose) {
-	                            System.out.println("skipping " + resource.getProjectRelativePath());
+	                            args.out.println("skipping " + resource.getProjectRelativePath());
 	                            // System.out.println("skipping " +
 	                            // resource.getRawLocationURI());
 	                        }
 	                        return true;
 	                    }
 	                    if (verbose) {
-	                        System.out.println("refactoring " + resource.getProjectRelativePath());
+	                        args.out.println("refactoring " + resource.getProjectRelativePath());
+	                    }
+	                    // untouched files are not even read
+	                    if (args.changes != null && !args.changes.isChanged(resource.getLocation().toFile())) {
+	                        if (verbose) {
+	                            args.out.println("    unchanged since " + args.changes.getRevision());
+	                        }
+	                        return true;
 	                    }
 	                    if (!fileFilter.test(name)) {
 	                        if (verbose) {
-	                            System.out.println("    ignored");
+	                            args.out.println("    ignored");
 	                        }
 	                        return true;
 	                    }
-	                    refactor.refactor(new RefactorTarget(pfr, resource, relativePath), rules, args);
+	                    // FileUtil.read() decodes with the default charset too
+	                    if (!triggerTokenIndex.canAnyRuleApply(resource.getLocation().toFile(), Charset.defaultCharset())) {
+	                        if (verbose) {
+	                            args.out.println("    no rule triggered");
+	                        }
+	                        return true;
+	                    }
+	                    if (args.skipCache != null
+	                            && args.skipCache.isUpToDate(FileUtil.read(resource), project, CLI_RELEASE)) {
+	                        if (verbose) {
+	                            args.out.println("    up to date");
+	                        }
+	                        return true;
+	                    }
+	                    final RefactorTarget target = new RefactorTarget(pfr, resource, relativePath);
+	                    if (deferred) {
+	                        String key = args.batchParse ? packageName(relativePath) : relativePath.toString();
+	                        List<RefactorTarget> targets = workItems.get(key);
+	                        if (targets != null && targets.size() >= args.getMaxFilesPerWorkItem()) {
+	                            // large packages are split, so the files parsed together stay within bounds
+	                            workItems.put(key + "#" + workItems.size(), targets);
+	                            targets = null;
+	                        }
+	                        if (targets == null) {
+	                            targets = new ArrayList<>();
+	                            workItems.put(key, targets);
+	                        }
+	                        targets.add(target);
+	                    } else {
+	                        refactor.refactor(target, rules, args, args.out, args.err);
+	                    }
 	                }
 	            } catch (Exception e) {
-	                e.printStackTrace();
+	                e.printStackTrace(args.err);
 	            }
 	            return true;
 	        }
 	    });
+	    if (args.getNbWorkers() > 1) {
+	        ParallelApply.refactor(new ArrayList<>(workItems.values()), refactor, rules, args, args.out, args.err);
+	    } else {
+	        for (List<RefactorTarget> targets : workItems.values()) {
+	            try {
+	                refactor.refactor(targets, rules, args, args.out, args.err);
+	            } catch (Exception e) {
+	                e.printStackTrace(args.err);
+	            }
+	        }
+	    }
 	}
 
 	static SourceLevel sourceLevel(final IJavaProject project) throws JavaModelException {
+	    return sourceLevel(project, System.err);
+	}
+
+	static SourceLevel sourceLevel(final IJavaProject project, PrintStream err) throws JavaModelException {
 	    SourceLevel sourceLevel = SourceLevel.Max;
 	    for (IClasspathEntry e: project.getRawClasspath()) {
 	        if (e.getEntryKind() == IClasspathEntry.CPE_CONTAINER && String.valueOf(e.getPath()).contains("JRE_CONTAINER")) {
 	            try {
 	                sourceLevel = SourceLevel.fromValue(e.getPath().lastSegment().replaceFirst(".*-", ""));
 	            } catch (IllegalArgumentException ignore) {
-	                System.err.println("could not detect java source level from " + e.getPath().lastSegment() + " assuming java 8");
+	                err.println("could not detect java source level from " + e.getPath().lastSegment() + " assuming java 8");
 	                sourceLevel = SourceLevel.Java8;
 	            }
 	            break;
@@ -131,7 +250,8 @@ public class Refactor {
 	        final EffApplyArgs args, Refactor.RefactorProcedure refactorProcedure, Predicate<String> fileFilter)
 	                throws JavaModelException, CoreException {
 	    final boolean verbose = args.verbose;
-	    final Pair<IWorkspace, IProject> projectCtx = WorkspaceUtil.prepareProject(projectFile, classPathVariables, verbose);
+	    final Pair<IWorkspace, IProject> projectCtx = WorkspaceUtil.prepareProject(projectFile, classPathVariables, verbose,
+	            args.out, args.err);
 	    final IWorkspace workspace = projectCtx.getFirst();
 	    final IProject project = projectCtx.getSecond();
 	
@@ -142,14 +262,43 @@ public class Refactor {
 	    }
 	
 	    if (verbose) {
-	        System.out.println("refactor: starting refactoring");
-	        System.out.println("refactor: source folders: " + sourceFolders);
+	        args.out.println("refactor: starting refactoring");
+	        args.out.println("refactor: source folders: " + sourceFolders);
 	    }
-	    final SourceLevel sourceLevel = args.sourceLevel != null ? args.sourceLevel : sourceLevel(javaProject);
-		final List<RefactoringRule> rules = Rules.filterRules(refactorings, excludedRefactorings, sourceLevel);
+	    final SourceLevel sourceLevel = args.sourceLevel != null ? args.sourceLevel : sourceLevel(javaProject, args.err);
+		final List<RefactoringRule> rules = Rules.filterRules(refactorings, excludedRefactorings, sourceLevel,
+	            args.out, args.err);
 	    if (verbose) {
-	        System.out.println("refactor: rules: " + rules);
+	        args.out.println("refactor: rules: " + rules);
+	    }
+	    if (args.diffFile != null) {
+	        try {
+	            args.diffOutput = new PrintStream(new FileOutputStream(args.diffFile), false, "UTF-8");
+	        } catch (IOException e) {
+	            throw new CoreException(new Status(IStatus.ERROR, "autorefactor", "could not write to " + args.diffFile, e));
+	        }
 	    }
+	    if (args.since != null) {
+	        try {
+	            args.changes = GitChanges.since(args.since, project.getLocation().toFile());
+	        } catch (IOException e) {
+	            throw new CoreException(new Status(IStatus.ERROR, "autorefactor",
+	                    "could not read the changes since " + args.since, e));
+	        }
+	        if (verbose) {
+	            args.out.println("refactor: " + args.changes.getNbChangedFiles() + " file(s) changed since " + args.since);
+	        }
+	    }
+	    if (args.skipCacheFile != null) {
+	        try {
+	            args.skipCache = new SkipCache(args.skipCacheFile, rules);
+	        } catch (IOException e) {
+	            args.err.println("could not read the skip cache " + args.skipCacheFile + ", no file will be skipped");
+	            e.printStackTrace(args.err);
+	        }
+	    }
+	    loadQuarantine(args);
+	    ProcessStats.recordStartup();
 	    try {
 	        for (String src : sourceFolders) {
 	            final IFolder sourceFolder = project.getFolder(src);
@@ -161,9 +310,81 @@ public class Refactor {
 	            //refactor(javaProject, sourceFolder, Pattern.compile(".*ProblemReporter.*"), rules, verbose);
 	        }
 	    } finally {
-	        javaProject.save(null, true);
-	        javaProject.close();
-	        workspace.save(true, null);
+	        // nothing has been written by a dry run, leave the workspace as it was
+	        if (!args.dryRun) {
+	            javaProject.save(null, true);
+	        }
+	        // when serving, the project stays open with its JDT model warm for the next requests
+	        if (!AutoRefactorServer.isServing()) {
+	            javaProject.close();
+	            if (!args.dryRun) {
+	                workspace.save(true, null);
+	            }
+	        }
+	        if (args.diffOutput != null) {
+	            args.diffOutput.close();
+	        }
+	    }
+	    printSummary(args.fixedPointStatistics, verbose, args.out);
+	    printTimeouts(args.quarantine, args.out);
+	    if (verbose) {
+	        args.out.println("refactor: " + ProcessStats.getSummary());
+	    }
+	    if (args.profiler != null) {
+	        writeProfile(args.profiler, args.profileFile, args.out, args.err);
+	    }
+	}
+
+	/**
+	 * Writes the profile once all the files have been refactored, i.e. once all worker threads are done.
+	 */
+	static void writeProfile(Profiler profiler, File profileFile, PrintStream out, PrintStream err) {
+	    try {
+	        final StringWriter writer = new StringWriter();
+	        if (profileFile.getName().endsWith(".csv")) {
+	            profiler.writeCsv(writer);
+	        } else {
+	            profiler.writeJson(writer);
+	        }
+	        FileUtil.writeFile(profileFile, writer.toString());
+	        out.println("refactor: profile written to " + profileFile);
+	    } catch (IOException e) {
+	        err.println("could not write the profile to " + profileFile);
+	        e.printStackTrace(err);
+	    }
+	}
+
+	/**
+	 * Prints how the files reached a fixed point, always mentioning the files which came back to a previous state.
+	 */
+	static void printSummary(FixedPointStatistics statistics, boolean verbose, PrintStream out) {
+	    if (verbose || statistics.getNbRepeatedStates() > 0) {
+	        for (String line : statistics.getSummary()) {
+	            out.println("refactor: " + line);
+	        }
+	    }
+	}
+
+	/**
+	 * Loads the list of the rules skipped for some files, which also records the timeouts of the run.
+	 */
+	static void loadQuarantine(EffApplyArgs args) {
+	    try {
+	        args.quarantine = new Quarantine(args.quarantineFile);
+	    } catch (IOException e) {
+	        args.err.println("could not read the quarantine " + args.quarantineFile + ", no rule will be skipped");
+	        e.printStackTrace(args.err);
+	    }
+	}
+
+	/**
+	 * Prints the files and rules which exhausted their time budget, if any.
+	 */
+	static void printTimeouts(Quarantine quarantine, PrintStream out) {
+	    if (quarantine != null && quarantine.getNbTimeouts() > 0) {
+	        for (String line : quarantine.getSummary()) {
+	            out.println("refactor: " + line);
+	        }
 	    }
 	}
 
@@ -178,22 +399,160 @@ public class Refactor {
 	    return options;
 	}
 
-	static void refactorFile(Refactor.RefactorTarget target, final List<RefactoringRule> rules) throws CoreException, Exception {
+	static void refactorFile(Refactor.RefactorTarget target, final List<RefactoringRule> rules, EffApplyArgs args,
+	        PrintStream out) throws CoreException, Exception {
         final IResource resource = target.getResource();
         final String code = FileUtil.read(resource);
-        final boolean didRefactor = refactorSourceCode(code, target, rules);
-        if (didRefactor) {
-            System.out.println(">> " + resource.getProjectRelativePath());
+        final IDocument doc = newDocument(code, resource, args);
+        final ICompilationUnit cu = createCompilationUnit(code, target, args.dryRun);
+        try {
+            if (applyRefactoring(doc, cu, null, rules, args, defaultJavaProjectOptions())) {
+                reportRefactored(resource.getProjectRelativePath().toString(), code, doc.get(), args, out);
+            }
+        } finally {
+            release(cu);
         }
     }
 
+	/**
+	 * Refactors the provided content of a file in memory, leaving the file untouched.
+	 *
+	 * @return the refactored content, or null when no refactoring applied
+	 */
+	static String refactorInMemory(Refactor.RefactorTarget target, String code, final List<RefactoringRule> rules,
+	        EffApplyArgs args) throws Exception {
+	    final IDocument doc = newDocument(code, target.getResource(), args);
+	    final ICompilationUnit cu = createCompilationUnit(code, target, true);
+	    try {
+	        return applyRefactoring(doc, cu, null, rules, args, defaultJavaProjectOptions()) ? doc.get() : null;
+	    } finally {
+	        release(cu);
+	    }
+	}
+
+	/**
+	 * Creates the document to refactor, restricted to the changed lines of the file when requested.
+	 */
+	private static IDocument newDocument(String code, IResource resource, EffApplyArgs args) throws Exception {
+	    final IDocument doc = new Document(code);
+	    if (args.changes != null) {
+	        for (int[] lines : args.changes.getChangedLines(resource.getLocation().toFile())) {
+	            ChangedLines.track(doc, lines[0], lines[1]);
+	        }
+	    }
+	    return doc;
+	}
+
+	/**
+	 * Prints the unified diff of a refactored file when requested, otherwise only its path, to the provided stream.
+	 */
+	static void reportRefactored(String path, String before, String after, EffApplyArgs args, PrintStream out) {
+	    if (args.diff) {
+	        final String diff = UnifiedDiff.diff(path, before, after);
+	        if (args.diffOutput == null) {
+	            // keep the standard output a valid patch
+	            out.print(diff);
+	            return;
+	        }
+	        args.diffOutput.print(diff);
+	        args.diffOutput.flush();
+	    }
+	    out.println(">> " + path);
+	}
+
+	/**
+	 * Parses all the files together with ASTParser.createASTs(), sharing the resolution of their bindings,
+	 * then refactors each of them from the requestor callback.
+	 */
+	static void refactorFiles(List<RefactorTarget> targets, final List<RefactoringRule> rules, final EffApplyArgs args,
+	        final PrintStream out, final PrintStream err) throws Exception {
+	    final Map<ICompilationUnit, RefactorTarget> targetsByUnit = new LinkedHashMap<>();
+	    final Map<ICompilationUnit, String> codes = new HashMap<>();
+	    final Map<ICompilationUnit, IDocument> documents = new HashMap<>();
+	    for (RefactorTarget target : targets) {
+	        final String code = FileUtil.read(target.getResource());
+	        final ICompilationUnit cu = createCompilationUnit(code, target, args.dryRun);
+	        targetsByUnit.put(cu, target);
+	        codes.put(cu, code);
+	        documents.put(cu, newDocument(code, target.getResource(), args));
+	    }
+
+	    final JavaProjectOptions options = defaultJavaProjectOptions();
+	    final ASTParser parser = ASTParser.newParser(AST.JLS8);
+	    parser.setResolveBindings(true);
+	    parser.setCompilerOptions(options.getCompilerOptions());
+	    final ICompilationUnit[] units = targetsByUnit.keySet().toArray(new ICompilationUnit[targetsByUnit.size()]);
+	    try {
+	        parser.createASTs(units, new String[0], new ASTRequestor() {
+	            @Override
+	            public void acceptAST(ICompilationUnit source, CompilationUnit astRoot) {
+	                final IResource resource = targetsByUnit.get(source).getResource();
+	                try {
+	                    final IDocument doc = documents.get(source);
+	                    if (applyRefactoring(doc, source, astRoot, rules, args, options)) {
+	                        reportRefactored(resource.getProjectRelativePath().toString(), codes.get(source), doc.get(),
+	                                args, out);
+	                    }
+	                } catch (Exception e) {
+	                    err.println("could not refactor " + resource.getProjectRelativePath());
+	                    e.printStackTrace(err);
+	                }
+	            }
+	        }, null);
+	    } finally {
+	        for (ICompilationUnit cu : units) {
+	            release(cu);
+	        }
+	    }
+	}
+
 	/**
 	 * @return didRefactor
 	 */
 	static boolean refactorSourceCode(String code, RefactorTarget target, final List<RefactoringRule> rules) throws Exception {
+	    final IDocument doc = new Document(code);
+	    final ICompilationUnit cu = createCompilationUnit(code, target);
+	    return applyRefactoring(doc, cu, null, rules, null, defaultJavaProjectOptions());
+	}
+
+	private static ICompilationUnit createCompilationUnit(String code, RefactorTarget target) throws JavaModelException {
+	    return createCompilationUnit(code, target, false);
+	}
+
+	/**
+	 * @param dryRun whether to create an in-memory working copy, so refactoring it never writes the file
+	 */
+	private static ICompilationUnit createCompilationUnit(String code, RefactorTarget target, boolean dryRun)
+	        throws JavaModelException {
+	    synchronized (WORKSPACE_LOCK) {
+	        return dryRun ? createWorkingCopy(code, target) : createCompilationUnit0(code, target);
+	    }
+	}
+
+	/**
+	 * Saving a working copy only reconciles it, so the refactorings stay in memory.
+	 */
+	private static ICompilationUnit createWorkingCopy(String code, RefactorTarget target) throws JavaModelException {
+	    final IPackageFragment pf = target.getPackageFragmentRoot().getPackageFragment(packageName(target.getRelativePath()));
+	    final ICompilationUnit cu = pf.getCompilationUnit(target.getResource().getName()).getWorkingCopy(null);
+	    cu.getBuffer().setContents(code);
+	    return cu;
+	}
+
+	/**
+	 * Releases the buffer and the model of a refactored compilation unit, so memory does not grow with the files.
+	 */
+	private static void release(ICompilationUnit cu) throws JavaModelException {
+	    if (cu.isWorkingCopy()) {
+	        cu.discardWorkingCopy();
+	    } else {
+	        cu.close();
+	    }
+	}
+
+	private static ICompilationUnit createCompilationUnit0(String code, RefactorTarget target) throws JavaModelException {
 	    final IPackageFragment pf = target.getPackageFragmentRoot().getPackageFragment(packageName(target.getRelativePath()));
 	    final String name = target.getResource().getName();
-	    final IDocument doc = new Document(code);
 	
 	    // TODO: is this code block needed?
 	    final IPackageFragment packageFragment = pf; //JavaCoreHelper.getPackageFragment(PACKAGE_NAME);
@@ -205,8 +564,38 @@ public class Refactor {
 	    // TODO: needed only for ddmin usage
 	    //cu.getBuffer().setContents(code);
 	    //save(cu);
-	    return new ApplyRefactoringsJob(null, null, EnvUtil.SIMPLE_ENVIRONMENT).applyRefactoring(
+	    return cu;
+	}
+
+	/**
+	 * @param astRoot the already parsed AST of the compilation unit, may be null to have it parsed
+	 * @param args the effective apply arguments, may be null to use the default engine options
+	 * @return didRefactor
+	 */
+	private static boolean applyRefactoring(IDocument doc, ICompilationUnit cu, CompilationUnit astRoot,
+	        List<RefactoringRule> rules, EffApplyArgs args, JavaProjectOptions options) throws Exception {
+	    return newApplyRefactoringsJob(args).applyRefactoring(
 	            doc, cu, new AggregateASTVisitor(rules),
-	            newJavaProjectOptions(Release.javaSE("1.7.0"), 4), SubMonitor.convert(new NullProgressMonitor()));
+	            options, SubMonitor.convert(new NullProgressMonitor()), astRoot);
+	}
+
+	/**
+	 * @param args the effective apply arguments, may be null to use the default engine options
+	 */
+	static ApplyRefactoringsJob newApplyRefactoringsJob(EffApplyArgs args) {
+	    final ApplyRefactoringsJob job = new ApplyRefactoringsJob(null, null, EnvUtil.SIMPLE_ENVIRONMENT);
+	    if (args != null) {
+	        job.setMultiplePassesPerParse(args.multiplePassesPerParse);
+	        job.setSkipCache(args.skipCache);
+	        job.setFixedPointStatistics(args.fixedPointStatistics);
+	        job.setProfiler(args.profiler);
+	        job.setTimeBudgets(args.fileTimeBudget, args.ruleTimeBudget);
+	        job.setQuarantine(args.quarantine);
+	    }
+	    return job;
+	}
+
+	static JavaProjectOptions defaultJavaProjectOptions() {
+	    return newJavaProjectOptions(CLI_RELEASE, 4);
 	}
 }
@@ -1,5 +1,6 @@
 package org.autorefactor.cli;
 
+import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -102,13 +103,29 @@ public class Rules {
 	 * @return List of selected rules
 	 */
 	static List<RefactoringRule> filterRules(List<RefactoringRule> refactorings, List<String> excludedRefactorings, SourceLevel sourceLevel) {
+	    return filterRules(refactorings, excludedRefactorings, sourceLevel, System.out, System.err);
+	}
+
+	/**
+	 * Selected rules, printing the excluded and disabled rules to the provided streams.
+	 *
+	 * @param refactorings
+	 *            the resolved refactorings argument
+	 * @param excludedRefactorings
+	 * @param sourceLevel source level
+	 * @param out where the excluded and disabled rules are printed
+	 * @param err where the unknown rules are printed
+	 * @return List of selected rules
+	 */
+	static List<RefactoringRule> filterRules(List<RefactoringRule> refactorings, List<String> excludedRefactorings, SourceLevel sourceLevel,
+	        PrintStream out, PrintStream err) {
 	    List<RefactoringRule> rules = new ArrayList<>(refactorings);
 	    if (!excludedRefactorings.isEmpty()) {
-	        System.out.println("exclude refactorings: " + excludedRefactorings);
+	        out.println("exclude refactorings: " + excludedRefactorings);
 	        for (String name: excludedRefactorings) {
 		        RefactoringRule rule = findBySimpleClassName(rules, name);
 		        if (rule == null) {
-		            System.err.println("warning: could not find rule: " + name);
+		            err.println("warning: could not find rule: " + name);
 		        } else {
 		        	rules.remove(rule);
 		        }
@@ -119,7 +136,7 @@ public class Rules {
 	        final RefactoringRule rule = it.next();
 	        SourceLevel rsl = sourceLevelPerRuleClass.get(rule.getClass().getName());
 	        if (rsl != null && rsl.compareTo(sourceLevel) > 0) {
-	            System.out.println("disabled rule by source level '" + sourceLevel
+	            out.println("disabled rule by source level '" + sourceLevel
 	                    + "': " + rule.getClass().getSimpleName() + " (" + rsl + ")");
 	            it.remove();
 	        }
@@ -127,8 +144,17 @@ public class Rules {
 	    return rules;
 	}
 
+	/**
+	 * Set when serving requests: each thread then keeps reusing its own instances of the rules,
+	 * since a rule instance only refactors one file at a time.
+	 */
+	static volatile boolean reuseRuleInstances;
+	private static final ThreadLocal<List<RefactoringRule>> allRulesOfThread =
+			ThreadLocal.withInitial(AllRefactoringRules::getAllRefactoringRules);
+
 	public static List<RefactoringRule> resolveRules(List<String> refactorings) {
-		final List<RefactoringRule> allRules = AllRefactoringRules.getAllRefactoringRules();
+		final List<RefactoringRule> allRules =
+				reuseRuleInstances ? allRulesOfThread.get() : AllRefactoringRules.getAllRefactoringRules();
 	    List<RefactoringRule> rules = new ArrayList<RefactoringRule>(allRules.size());
 	    for (String name : refactorings) {
 	        if ("all".equals(name)) {
@@ -0,0 +1,60 @@
+package org.autorefactor.cli;
+
+import java.io.File;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+
+/** Parameters of the long-lived server answering the requests of the client. */
+@Parameters(commandDescription = "Serve the requests of autorefactor-client, keeping the workspace warm.")
+public class ServeArgs {
+    @Parameter(names = "--port", description = "Loopback port to listen to. Default is: any free port.")
+    private int port;
+
+    @Parameter(names = "--port-file", description = "File where to write the port the server listens to"
+            + " and the token authorizing the requests, in a directory only accessible by the current user.")
+    private File portFile = ServerPortFile.DEFAULT_FILE;
+
+    @Parameter(names = "--stdin",
+            description = "Read the requests from the standard input and write the responses to the standard output.")
+    private boolean stdin;
+
+    @Parameter(names = "--threads", description = "Number of requests served concurrently.")
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The loopback port to listen to.
+     *
+     * @return the loopback port to listen to, 0 for any free port
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * The file where to write the port the server listens to and the token authorizing the requests.
+     *
+     * @return the file where to write the port the server listens to and the token authorizing the requests
+     */
+    public File getPortFile() {
+        return portFile;
+    }
+
+    /**
+     * Whether the requests come from the standard input rather than from a socket.
+     *
+     * @return whether the requests come from the standard input
+     */
+    public boolean isStdin() {
+        return stdin;
+    }
+
+    /**
+     * The number of requests served concurrently.
+     *
+     * @return the number of requests served concurrently
+     */
+    public int getThreads() {
+        return threads;
+    }
+}
@@ -0,0 +1,166 @@
+package org.autorefactor.cli;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.LinkOption.NOFOLLOW_LINKS;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Set;
+
+/**
+ * The loopback port the server listens to, along with the secret token the clients must send with each request.
+ *
+ * Any local user can connect to a loopback port, so the server only serves the requests carrying its token.
+ * The token is written in a file of a directory only the current user can access,
+ * hence only the clients of this user can read it.
+ */
+final class ServerPortFile {
+    /** Where the server writes its port and its token by default. */
+    static final File DEFAULT_FILE =
+            new File(new File(System.getProperty("user.home"), ".autorefactor"), "server.port");
+    private static final int TOKEN_LENGTH = 32;
+    private static final Set<PosixFilePermission> OWNER_ONLY_DIRECTORY = PosixFilePermissions.fromString("rwx------");
+    private static final Set<PosixFilePermission> OWNER_ONLY_FILE = PosixFilePermissions.fromString("rw-------");
+
+    private final int port;
+    private final String token;
+
+    ServerPortFile(int port, String token) {
+        this.port = port;
+        this.token = token;
+    }
+
+    /**
+     * Returns the port file of a server listening to the provided port, with a new random token.
+     *
+     * @param port the port the server listens to
+     * @return the port file of a server listening to the provided port
+     */
+    static ServerPortFile newRandom(int port) {
+        final byte[] bytes = new byte[TOKEN_LENGTH];
+        new SecureRandom().nextBytes(bytes);
+        final StringBuilder sb = new StringBuilder(2 * TOKEN_LENGTH);
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b & 0xFF));
+        }
+        return new ServerPortFile(port, sb.toString());
+    }
+
+    int getPort() {
+        return port;
+    }
+
+    String getToken() {
+        return token;
+    }
+
+    /**
+     * Whether the provided token is the one of the server, compared in constant time.
+     *
+     * @param candidate the token sent by a client, may be null
+     * @return whether the provided token is the one of the server
+     */
+    boolean isAuthorized(String candidate) {
+        return candidate != null && MessageDigest.isEqual(token.getBytes(UTF_8), candidate.getBytes(UTF_8));
+    }
+
+    /**
+     * Writes the port and the token to the provided file, only readable by the current user.
+     * Its directory is created if needed, and restricted to the current user.
+     *
+     * @param file the file where to write the port and the token
+     * @throws IOException if the directory belongs to another user, or if the file cannot be written
+     */
+    void write(File file) throws IOException {
+        final Path directory = checkDirectory(file, true);
+        // created only readable by the current user, then atomically renamed, so no one ever reads a partial file
+        final Path tmp = Files.createTempFile(directory, file.getName(), ".tmp");
+        try {
+            Files.write(tmp, (port + " " + token + "\n").getBytes(UTF_8));
+            Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Reads the port and the token written by the server.
+     *
+     * @param file the file written by the server
+     * @return the port and the token written by the server
+     * @throws IOException if the file or its directory can be accessed by other users, or cannot be read
+     */
+    static ServerPortFile read(File file) throws IOException {
+        checkDirectory(file, false);
+        final Path path = file.toPath();
+        if (!Files.isRegularFile(path, NOFOLLOW_LINKS)) {
+            throw new IOException(file + " must be a regular file, not a symbolic link");
+        }
+        checkOwnerOnly(path, OWNER_ONLY_FILE);
+        final String[] fields = new String(Files.readAllBytes(path), UTF_8).trim().split(" ");
+        if (fields.length != 2) {
+            throw new IOException("malformed server port file " + file);
+        }
+        try {
+            return new ServerPortFile(Integer.parseInt(fields[0]), fields[1]);
+        } catch (NumberFormatException e) {
+            throw new IOException("malformed server port file " + file, e);
+        }
+    }
+
+    /**
+     * Checks that the directory of the provided file belongs to the current user, and that only this user can access it.
+     *
+     * @param create whether to create the missing directory, and to restrict the access to an existing one
+     */
+    private static Path checkDirectory(File file, boolean create) throws IOException {
+        final Path directory = file.getAbsoluteFile().toPath().getParent();
+        if (create && !Files.exists(directory, NOFOLLOW_LINKS)) {
+            if (isPosix()) {
+                Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(OWNER_ONLY_DIRECTORY));
+            } else {
+                Files.createDirectories(directory);
+            }
+        }
+        if (!Files.isDirectory(directory, NOFOLLOW_LINKS)) {
+            throw new IOException(directory + " must be a directory, not a symbolic link");
+        }
+        if (create && isPosix() && isOwnedByCurrentUser(directory)) {
+            Files.setPosixFilePermissions(directory, OWNER_ONLY_DIRECTORY);
+        }
+        checkOwnerOnly(directory, OWNER_ONLY_DIRECTORY);
+        return directory;
+    }
+
+    private static void checkOwnerOnly(Path path, Set<PosixFilePermission> allowed) throws IOException {
+        if (!isPosix()) {
+            // the files of the user profile are already private to the user
+            return;
+        }
+        if (!isOwnedByCurrentUser(path)) {
+            throw new IOException(path + " must belong to " + System.getProperty("user.name"));
+        }
+        if (!allowed.containsAll(Files.getPosixFilePermissions(path, NOFOLLOW_LINKS))) {
+            throw new IOException(path + " must only be accessible by its owner");
+        }
+    }
+
+    private static boolean isOwnedByCurrentUser(Path path) throws IOException {
+        final UserPrincipal currentUser = path.getFileSystem().getUserPrincipalLookupService()
+                .lookupPrincipalByName(System.getProperty("user.name"));
+        return currentUser.equals(Files.getOwner(path, NOFOLLOW_LINKS));
+    }
+
+    private static boolean isPosix() {
+        return FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+    }
+}
@@ -2,6 +2,8 @@ package org.autorefactor.cli;
 
 import java.util.Arrays;
 
+import org.autorefactor.refactoring.Release;
+
 public enum SourceLevel {
     None(""), Java14("1.4"), Java5("1.5"), Java6("1.6"), Java7("1.7"), Java8("1.8"), Java9("1.9"), Max("1.100");
 
@@ -11,6 +13,19 @@ public enum SourceLevel {
         this.v = v;
     }
 
+    /**
+     * Returns the Java SE release of this source level,
+     * bounded by the oldest and the newest releases the refactoring rules know about.
+     */
+    Release toRelease() {
+        if (compareTo(Java14) <= 0) {
+            return Release.javaSE("1.4.0");
+        } else if (compareTo(Java8) >= 0) {
+            return Release.javaSE("1.8.0");
+        }
+        return Release.javaSE(v + ".0");
+    }
+
     static SourceLevel fromValue(String v) {
         for (SourceLevel sl : values()) {
             if (v.equals(sl.v)) {
@@ -0,0 +1,189 @@
+package org.autorefactor.cli;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import com.beust.jcommander.Parameter;
+
+/** Parameters of the standalone launcher, which needs neither an Eclipse application nor a workspace. */
+public class StandaloneArgs {
+    @Parameter(names = "--source", required = true,
+            description = "Source directories to refactor, also used to resolve the bindings. (e.g. src/main/java)")
+    private List<String> sources = new ArrayList<String>();
+
+    @Parameter(names = "--classpath",
+            description = "Jars and class directories used to resolve the bindings, separated by the path separator.")
+    private String classpath = "";
+
+    @Parameter(names = "--encoding", description = "Encoding of the source files. Default is: the platform encoding.")
+    private String encoding;
+
+    @Parameter(names = "--source-level", description = "Java source release to support. (e.g. 1.7)")
+    private String sourceLevel;
+
+    @Parameter(names = "--refactorings",
+            description = "Comma separated list of refactorings (e.g. UseDiamondOperatorRefactoring).",
+            required = true)
+    private List<String> refactorings = new ArrayList<String>();
+
+    @Parameter(names = "--exclude-refactorings",
+            description = "Comma separated list of refactorings to exclude (e.g. UseDiamondOperatorRefactoring).")
+    private List<String> excludedRefactorings = new ArrayList<String>();
+
+    @Parameter(names = "--path-re", description = "Select files with java regular expression. (e.g. '/mydir.*/MyFile')")
+    private String includeRe = ".*";
+
+    @Parameter(names = "--multiple-passes-per-parse",
+            description = "Apply several passes of refactorings before parsing a file again (faster).")
+    private boolean multiplePassesPerParse;
+
+    @Parameter(names = "--profile",
+            description = "File where to write the time spent per refactoring and per file, as CSV if the file name"
+            + " ends with .csv, as JSON otherwise.")
+    private File profile;
+
+    @Parameter(names = "--dry-run", description = "Refactor in memory, without writing any file.")
+    private boolean dryRun;
+
+    @Parameter(names = "--diff",
+            description = "Print the unified diff of each refactored file, as soon as it is refactored.")
+    private boolean diff;
+
+    @Parameter(names = "--diff-output",
+            description = "File where to write the unified diffs instead of the standard output. Implies --diff.")
+    private File diffOutput;
+
+    @Parameter(names = "--verbose", description = "Verbose mode")
+    private boolean verbose;
+
+    @Parameter(names = { "--help", "help" }, description = "Display usage info.", help = true)
+    private boolean help;
+
+    /**
+     * Getter.
+     *
+     * @return property
+     */
+    public List<String> getSources() {
+        return sources;
+    }
+
+    /**
+     * The classpath entries.
+     *
+     * @return the classpath entries
+     */
+    public String[] getClasspathEntries() {
+        return classpath.isEmpty() ? new String[0] : classpath.split(File.pathSeparator);
+    }
+
+    /**
+     * The encoding of the source files.
+     *
+     * @return the encoding of the source files, null for the platform encoding
+     */
+    public String getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * The java source level to support.
+     *
+     * @return java source level to support
+     */
+    public String getSourceLevel() {
+        return sourceLevel;
+    }
+
+    /**
+     * The refactorings to apply.
+     *
+     * @return The refactorings to apply.
+     */
+    public List<String> getRefactorings() {
+        return refactorings;
+    }
+
+    /**
+     * The refactorings to exclude from apply.
+     *
+     * @return The refactorings to exclude from apply.
+     */
+    public List<String> getExcludedRefactorings() {
+        return excludedRefactorings;
+    }
+
+    /**
+     * The pattern selecting the files to refactor, matched against their path relative to their source directory.
+     *
+     * @return the pattern selecting the files to refactor
+     */
+    public Pattern getIncludePattern() {
+        return Pattern.compile(CommonArgs.prepareIncludePattern(includeRe));
+    }
+
+    /**
+     * Whether to apply several passes of refactorings before parsing a file again.
+     *
+     * @return whether to apply several passes of refactorings before parsing a file again
+     */
+    public boolean isMultiplePassesPerParse() {
+        return multiplePassesPerParse;
+    }
+
+    /**
+     * The file where to write the profile of the run.
+     *
+     * @return the file where to write the profile of the run, null when not profiling
+     */
+    public File getProfile() {
+        return profile;
+    }
+
+    /**
+     * Whether the files are only refactored in memory.
+     *
+     * @return whether the files are only refactored in memory
+     */
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    /**
+     * Whether the unified diff of each refactored file is printed.
+     *
+     * @return whether the unified diff of each refactored file is printed
+     */
+    public boolean isDiff() {
+        return diff || diffOutput != null;
+    }
+
+    /**
+     * The file where to write the unified diffs.
+     *
+     * @return the file where to write the unified diffs, null to print them on the standard output
+     */
+    public File getDiffOutput() {
+        return diffOutput;
+    }
+
+    /**
+     * Is Verbose?
+     *
+     * @return is Verbose
+     */
+    public boolean isVerbose() {
+        return verbose;
+    }
+
+    /**
+     * Getter.
+     *
+     * @return property
+     */
+    public boolean isHelp() {
+        return help;
+    }
+}
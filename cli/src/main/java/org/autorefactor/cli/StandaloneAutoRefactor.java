@@ -0,0 +1,162 @@
+package org.autorefactor.cli;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.autorefactor.refactoring.JavaProjectOptions;
+import org.autorefactor.refactoring.ParserEnvironment;
+import org.autorefactor.refactoring.Profiler;
+import org.autorefactor.refactoring.RefactoringRule;
+import org.autorefactor.refactoring.rules.AggregateASTVisitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.ParameterException;
+
+/**
+ * Command line interface applying refactorings from a plain {@code main()}.
+ *
+ * Unlike {@link AutoRefactor}, no Eclipse application is started and no project is imported into a workspace:
+ * each file is parsed from memory, its bindings being resolved against the source directories and the classpath
+ * given on the command line. The refactored code only lives in the document until it is written back.
+ *
+ * <pre>
+ java -cp "autorefactor/lib/*:$ECLIPSE_HOME/plugins/*" org.autorefactor.cli.StandaloneAutoRefactor \
+   --source src/main/java --classpath lib/a.jar:lib/b.jar --refactorings UseDiamondOperatorRefactoring
+ * </pre>
+ */
+public class StandaloneAutoRefactor {
+
+    public static void main(String[] argv) {
+        int exitCode;
+        try {
+            exitCode = run(argv);
+        } catch (Exception e) {
+            e.printStackTrace(System.err);
+            exitCode = -1;
+        }
+        System.exit(exitCode);
+    }
+
+    private static int run(String[] argv) throws Exception {
+        final StandaloneArgs args = new StandaloneArgs();
+        final JCommander argParser = JCommander.newBuilder().addObject(args).build();
+        argParser.setProgramName("autorefactor-standalone");
+        try {
+            argParser.parse(argv);
+        } catch (ParameterException e) {
+            System.out.println("*** ERROR: " + e.getMessage());
+            return -1;
+        }
+        if (args.isHelp()) {
+            argParser.usage();
+            return 0;
+        }
+
+        final SourceLevel sourceLevel =
+                args.getSourceLevel() != null ? SourceLevel.fromValue(args.getSourceLevel()) : SourceLevel.Max;
+        final List<RefactoringRule> rules = Rules.filterRules(
+                Rules.resolveRules(args.getRefactorings()), args.getExcludedRefactorings(), sourceLevel);
+        final EffApplyArgs effArgs = new EffApplyArgs(sourceLevel, args.getIncludePattern(), args.isVerbose());
+        effArgs.multiplePassesPerParse = args.isMultiplePassesPerParse();
+        effArgs.profileFile = args.getProfile();
+        effArgs.dryRun = args.isDryRun();
+        effArgs.diff = args.isDiff();
+        effArgs.diffFile = args.getDiffOutput();
+        if (effArgs.profileFile != null) {
+            effArgs.profiler = new Profiler();
+        }
+        if (effArgs.verbose) {
+            System.out.println("refactor: rules: " + rules);
+        }
+
+        final List<Path> sourceFolders = new ArrayList<>();
+        for (String source : args.getSources()) {
+            sourceFolders.add(Paths.get(source).toAbsolutePath());
+        }
+        final Charset charset =
+                args.getEncoding() != null ? Charset.forName(args.getEncoding()) : Charset.defaultCharset();
+        final String[] encodings = new String[sourceFolders.size()];
+        Arrays.fill(encodings, charset.name());
+        // the version-gated rules must see the source level of the refactored code
+        final JavaProjectOptions options = Refactor.newJavaProjectOptions(sourceLevel.toRelease(), 4);
+        final ParserEnvironment parserEnvironment = new ParserEnvironment(args.getClasspathEntries(),
+                sourceFolders.stream().map(Path::toString).toArray(String[]::new), encodings, true);
+
+        if (effArgs.diffFile != null) {
+            effArgs.diffOutput = new PrintStream(new FileOutputStream(effArgs.diffFile), false, "UTF-8");
+        }
+        ProcessStats.recordStartup();
+        try {
+            for (Path sourceFolder : sourceFolders) {
+                for (Path file : javaFiles(sourceFolder)) {
+                    final String relativePath = sourceFolder.relativize(file).toString().replace('\\', '/');
+                    if (!effArgs.sourceFileName.matcher(relativePath).matches()) {
+                        if (effArgs.verbose) {
+                            System.out.println("skipping " + relativePath);
+                        }
+                        continue;
+                    }
+                    if (effArgs.verbose) {
+                        System.out.println("refactoring " + relativePath);
+                    }
+                    refactorFile(file, relativePath, charset, parserEnvironment, rules, options, effArgs);
+                }
+            }
+        } finally {
+            if (effArgs.diffOutput != null) {
+                effArgs.diffOutput.close();
+            }
+        }
+        Refactor.printSummary(effArgs.fixedPointStatistics, effArgs.verbose, effArgs.out);
+        if (effArgs.verbose) {
+            System.out.println("refactor: " + ProcessStats.getSummary());
+        }
+        if (effArgs.profiler != null) {
+            Refactor.writeProfile(effArgs.profiler, effArgs.profileFile, effArgs.out, effArgs.err);
+        }
+        return 0;
+    }
+
+    private static List<Path> javaFiles(Path sourceFolder) throws IOException {
+        try (Stream<Path> files = Files.walk(sourceFolder)) {
+            return files.filter(f -> f.toString().endsWith(".java") && Files.isRegularFile(f))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static void refactorFile(Path file, String relativePath, Charset charset,
+            ParserEnvironment parserEnvironment, List<RefactoringRule> rules, JavaProjectOptions options,
+            EffApplyArgs args) {
+        try {
+            final String code = new String(Files.readAllBytes(file), charset);
+            final IDocument doc = new Document(code);
+            final boolean didRefactor = Refactor.newApplyRefactoringsJob(args).applyRefactoring(
+                    doc, file.toString(), parserEnvironment, new AggregateASTVisitor(rules),
+                    options, SubMonitor.convert(new NullProgressMonitor()));
+            if (didRefactor) {
+                if (!args.dryRun) {
+                    Files.write(file, doc.get().getBytes(charset));
+                }
+                Refactor.reportRefactored(relativePath, code, doc.get(), args, System.out);
+            }
+        } catch (Exception e) {
+            System.err.println("could not refactor " + relativePath);
+            e.printStackTrace();
+        }
+    }
+}
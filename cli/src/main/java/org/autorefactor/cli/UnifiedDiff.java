@@ -0,0 +1,201 @@
+package org.autorefactor.cli;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Computes line based unified diffs, as accepted by {@code patch -p1} and {@code git apply}.
+ *
+ * Uses Myers' O(ND) algorithm on the lines left once the common prefix and suffix are removed,
+ * which is cheap for the few changes a refactoring usually makes to a file.
+ */
+class UnifiedDiff {
+    private static final int CONTEXT = 3;
+    /** Appended to a last line without line terminator, so it differs from the same line with one. */
+    private static final String NO_EOL = "\u0000";
+
+    private UnifiedDiff() {
+    }
+
+    /**
+     * @param path the path of the file, relative to the root of the project
+     * @return the unified diff between the two contents, or an empty string when they are identical
+     */
+    static String diff(String path, String before, String after) {
+        if (before.equals(after)) {
+            return "";
+        }
+        final List<String> a = lines(before);
+        final List<String> b = lines(after);
+        final List<Op> ops = diff(a, b);
+
+        final StringBuilder sb = new StringBuilder();
+        sb.append("--- a/").append(path).append('\n');
+        sb.append("+++ b/").append(path).append('\n');
+        int i = 0;
+        while ((i = nextChange(ops, i)) < ops.size()) {
+            // like diff and git, changes at most twice the context apart are in the same hunk,
+            // so contexts never overlap nor touch
+            final int start = Math.max(0, i - CONTEXT);
+            int lastChange = i;
+            int j = i;
+            while (j < ops.size() && j - lastChange <= 2 * CONTEXT + 1) {
+                if (ops.get(j).type != ' ') {
+                    lastChange = j;
+                }
+                j++;
+            }
+            final int end = Math.min(ops.size(), lastChange + CONTEXT + 1);
+            appendHunk(sb, ops.subList(start, end));
+            i = end;
+        }
+        return sb.toString();
+    }
+
+    private static int nextChange(List<Op> ops, int from) {
+        int i = from;
+        while (i < ops.size() && ops.get(i).type == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static void appendHunk(StringBuilder sb, List<Op> hunk) {
+        int aCount = 0;
+        int bCount = 0;
+        for (Op op : hunk) {
+            aCount += op.type != '+' ? 1 : 0;
+            bCount += op.type != '-' ? 1 : 0;
+        }
+        final Op first = hunk.get(0);
+        sb.append("@@ -").append(aCount == 0 ? first.aIndex : first.aIndex + 1).append(',').append(aCount)
+          .append(" +").append(bCount == 0 ? first.bIndex : first.bIndex + 1).append(',').append(bCount)
+          .append(" @@\n");
+        for (Op op : hunk) {
+            sb.append(op.type);
+            if (op.line.endsWith(NO_EOL)) {
+                sb.append(op.line, 0, op.line.length() - NO_EOL.length()).append("\n\\ No newline at end of file\n");
+            } else {
+                sb.append(op.line).append('\n');
+            }
+        }
+    }
+
+    private static List<String> lines(String s) {
+        final List<String> results = new ArrayList<>();
+        int start = 0;
+        int eol;
+        while ((eol = s.indexOf('\n', start)) != -1) {
+            results.add(s.substring(start, eol));
+            start = eol + 1;
+        }
+        if (start < s.length()) {
+            results.add(s.substring(start) + NO_EOL);
+        }
+        return results;
+    }
+
+    /** One line of the edit script: kept (' '), deleted ('-') or inserted ('+'). */
+    private static final class Op {
+        private final char type;
+        private final String line;
+        /** Number of lines of each side before this one. */
+        private final int aIndex;
+        private final int bIndex;
+
+        Op(char type, String line, int aIndex, int bIndex) {
+            this.type = type;
+            this.line = line;
+            this.aIndex = aIndex;
+            this.bIndex = bIndex;
+        }
+    }
+
+    private static List<Op> diff(List<String> a, List<String> b) {
+        int prefix = 0;
+        while (prefix < a.size() && prefix < b.size() && a.get(prefix).equals(b.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < a.size() - prefix && suffix < b.size() - prefix
+                && a.get(a.size() - 1 - suffix).equals(b.get(b.size() - 1 - suffix))) {
+            suffix++;
+        }
+
+        final List<Op> ops = new ArrayList<>(a.size() + b.size());
+        for (int i = 0; i < prefix; i++) {
+            ops.add(new Op(' ', a.get(i), i, i));
+        }
+        myers(a.subList(prefix, a.size() - suffix), b.subList(prefix, b.size() - suffix), prefix, ops);
+        for (int i = suffix; i > 0; i--) {
+            final int aIndex = a.size() - i;
+            final int bIndex = b.size() - i;
+            ops.add(new Op(' ', a.get(aIndex), aIndex, bIndex));
+        }
+        return ops;
+    }
+
+    /** Appends the shortest edit script turning a into b, both starting after the common prefix. */
+    private static void myers(List<String> a, List<String> b, int offset, List<Op> ops) {
+        final int n = a.size();
+        final int m = b.size();
+        final int max = n + m;
+        final int[] v = new int[2 * max + 2];
+        final List<int[]> trace = new ArrayList<>();
+        found:
+        for (int d = 0; d <= max; d++) {
+            trace.add(v.clone());
+            for (int k = -d; k <= d; k += 2) {
+                int x;
+                if (k == -d || (k != d && v[max + k - 1] < v[max + k + 1])) {
+                    x = v[max + k + 1];
+                } else {
+                    x = v[max + k - 1] + 1;
+                }
+                int y = x - k;
+                while (x < n && y < m && a.get(x).equals(b.get(y))) {
+                    x++;
+                    y++;
+                }
+                v[max + k] = x;
+                if (x >= n && y >= m) {
+                    break found;
+                }
+            }
+        }
+
+        // walk back the trace from the end to the beginning
+        final List<Op> reversed = new ArrayList<>();
+        int x = n;
+        int y = m;
+        for (int d = trace.size() - 1; d >= 0; d--) {
+            final int[] previous = trace.get(d);
+            final int k = x - y;
+            final int previousK;
+            if (k == -d || (k != d && previous[max + k - 1] < previous[max + k + 1])) {
+                previousK = k + 1;
+            } else {
+                previousK = k - 1;
+            }
+            final int previousX = d == 0 ? 0 : previous[max + previousK];
+            final int previousY = previousX - previousK;
+            while (x > previousX && y > previousY) {
+                x--;
+                y--;
+                reversed.add(new Op(' ', a.get(x), offset + x, offset + y));
+            }
+            if (d > 0) {
+                if (x == previousX) {
+                    y--;
+                    reversed.add(new Op('+', b.get(y), offset + x, offset + y));
+                } else {
+                    x--;
+                    reversed.add(new Op('-', a.get(x), offset + x, offset + y));
+                }
+            }
+        }
+        Collections.reverse(reversed);
+        ops.addAll(reversed);
+    }
+}
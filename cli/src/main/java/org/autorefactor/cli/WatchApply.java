@@ -0,0 +1,345 @@
+package org.autorefactor.cli;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.autorefactor.cli.PendingChanges.PendingChange;
+import org.autorefactor.refactoring.RefactoringRule;
+import org.autorefactor.refactoring.SkipCache;
+import org.autorefactor.util.Pair;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceStatus;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+
+/**
+ * Refactors the files of a project each time they are saved, until the process is stopped.
+ *
+ * The project is imported once, then its source folders are watched with a {@link WatchService}.
+ * The saves of a file are coalesced in a bounded queue, and the file is only refactored once no save came
+ * for the debounce delay, by a pool of worker threads each owning its instances of the refactoring rules,
+ * like {@link ParallelApply}. A file is never refactored by two workers at once.
+ * The saves caused by the refactorings themselves are recognized from the content of the file, then ignored.
+ * A file is refactored in memory, then only written if it was not saved again meanwhile,
+ * otherwise the refactored content is dropped and the new content is refactored instead.
+ */
+class WatchApply {
+    private final IWorkspace workspace;
+    private final IJavaProject javaProject;
+    private final List<IFolder> sourceFolders;
+    private final List<RefactoringRule> rules;
+    private final EffApplyArgs args;
+    private final Predicate<String> fileFilter;
+    private final PendingChanges pendingChanges;
+    /** Watched directories, by the key of their registration. */
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    /** Content of the files as left by their last refactoring, to ignore the events caused by the rewrite. */
+    private final Map<Path, String> lastRefactored = new ConcurrentHashMap<>();
+
+    private WatchApply(IWorkspace workspace, IJavaProject javaProject, List<IFolder> sourceFolders,
+            List<RefactoringRule> rules, EffApplyArgs args, WatchArgs watchArgs, Predicate<String> fileFilter) {
+        this.workspace = workspace;
+        this.javaProject = javaProject;
+        this.sourceFolders = sourceFolders;
+        this.rules = rules;
+        this.args = args;
+        this.fileFilter = fileFilter;
+        this.pendingChanges = new PendingChanges(Math.max(1, watchArgs.getQueueSize()),
+                TimeUnit.MILLISECONDS.toNanos(Math.max(0, watchArgs.getDebounce())));
+    }
+
+    static void watchProject(final File projectFile, final List<String> originalSourceFolders,
+            final Map<String, String> classPathVariables, List<RefactoringRule> refactorings,
+            List<String> excludedRefactorings, final EffApplyArgs args, WatchArgs watchArgs,
+            Predicate<String> fileFilter) throws CoreException {
+        final Pair<IWorkspace, IProject> projectCtx =
+                WorkspaceUtil.prepareProject(projectFile, classPathVariables, args.verbose);
+        final IProject project = projectCtx.getSecond();
+        final IJavaProject javaProject = JavaCore.create(project);
+        final List<String> sourceFolderPaths = new ArrayList<>(originalSourceFolders);
+        if (sourceFolderPaths.isEmpty()) {
+            sourceFolderPaths.addAll(WorkspaceUtil.allProjectSourceFolders(javaProject));
+        }
+        final List<IFolder> sourceFolders = new ArrayList<>();
+        for (String src : sourceFolderPaths) {
+            sourceFolders.add(project.getFolder(src));
+        }
+        final SourceLevel sourceLevel =
+                args.sourceLevel != null ? args.sourceLevel : Refactor.sourceLevel(javaProject);
+        final List<RefactoringRule> rules = Rules.filterRules(refactorings, excludedRefactorings, sourceLevel);
+        if (args.verbose) {
+            System.out.println("watch: source folders: " + sourceFolderPaths);
+            System.out.println("watch: rules: " + rules);
+        }
+        if (args.skipCacheFile != null) {
+            try {
+                args.skipCache = new SkipCache(args.skipCacheFile, rules);
+            } catch (IOException e) {
+                System.err.println("could not read the skip cache " + args.skipCacheFile + ", no file will be skipped");
+                e.printStackTrace();
+            }
+        }
+        Refactor.loadQuarantine(args);
+        if (args.diffFile != null) {
+            try {
+                args.diffOutput = new PrintStream(new FileOutputStream(args.diffFile), false, "UTF-8");
+            } catch (IOException e) {
+                throw new CoreException(
+                        new Status(IStatus.ERROR, "autorefactor", "could not write to " + args.diffFile, e));
+            }
+        }
+        ProcessStats.recordStartup();
+        try {
+            new WatchApply(projectCtx.getFirst(), javaProject, sourceFolders, rules, args, watchArgs, fileFilter)
+                    .watch();
+        } catch (IOException e) {
+            throw new CoreException(new Status(IStatus.ERROR, "autorefactor", "could not watch the source folders", e));
+        } finally {
+            if (!args.dryRun) {
+                javaProject.save(null, true);
+                projectCtx.getFirst().save(true, null);
+            }
+            if (args.diffOutput != null) {
+                args.diffOutput.close();
+            }
+        }
+        Refactor.printSummary(args.fixedPointStatistics, args.verbose, args.out);
+        Refactor.printTimeouts(args.quarantine, args.out);
+        if (args.profiler != null) {
+            Refactor.writeProfile(args.profiler, args.profileFile, args.out, args.err);
+        }
+    }
+
+    private void watch() throws IOException {
+        final WatchService watcher = FileSystems.getDefault().newWatchService();
+        final ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, args.threads));
+        final Thread dispatcher = new Thread(() -> dispatch(workers), "autorefactor-watch-dispatcher");
+        dispatcher.setDaemon(true);
+        final CountDownLatch stopped = new CountDownLatch(1);
+        final Thread shutdownHook = new Thread(() -> {
+            try {
+                watcher.close();
+                // let the refactorings in progress complete and the workspace be saved
+                stopped.await(30, TimeUnit.SECONDS);
+            } catch (IOException e) {
+                e.printStackTrace();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        try {
+            for (IFolder sourceFolder : sourceFolders) {
+                registerAll(watcher, sourceFolder.getLocation().toFile().toPath());
+            }
+            dispatcher.start();
+            System.out.println("watch: watching " + directories.size() + " directories, stop with Ctrl-C");
+            processEvents(watcher);
+        } finally {
+            dispatcher.interrupt();
+            workers.shutdown();
+            try {
+                workers.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            watcher.close();
+            stopped.countDown();
+        }
+    }
+
+    private void registerAll(WatchService watcher, Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path dir : paths.filter(p -> Files.isDirectory(p, LinkOption.NOFOLLOW_LINKS))
+                    .collect(Collectors.toList())) {
+                directories.put(dir.register(watcher, ENTRY_CREATE, ENTRY_MODIFY), dir);
+            }
+        }
+    }
+
+    /**
+     * Queues the files saved in the watched directories, until the watch service is closed.
+     */
+    private void processEvents(WatchService watcher) throws IOException {
+        while (true) {
+            final WatchKey key;
+            try {
+                key = watcher.take();
+            } catch (ClosedWatchServiceException e) {
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            final Path directory = directories.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    System.err.println("watch: too many events at once, some saves may have been missed");
+                    continue;
+                }
+                final Path file = directory.resolve((Path) event.context());
+                if (event.kind() == ENTRY_CREATE && Files.isDirectory(file, LinkOption.NOFOLLOW_LINKS)) {
+                    // a new package: its files may have been created before it could be watched
+                    registerAll(watcher, file);
+                    try (Stream<Path> paths = Files.walk(file)) {
+                        for (Path f : paths.filter(this::isJavaFile).collect(Collectors.toList())) {
+                            queue(f);
+                        }
+                    }
+                } else if (isJavaFile(file)) {
+                    queue(file);
+                }
+            }
+            if (!key.reset()) {
+                directories.remove(key);
+            }
+        }
+    }
+
+    private boolean isJavaFile(Path file) {
+        return file.getFileName().toString().endsWith(".java") && Files.isRegularFile(file);
+    }
+
+    private void queue(Path file) {
+        try {
+            pendingChanges.add(file);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Hands the files which were saved and stopped changing to the worker threads, until interrupted.
+     */
+    private void dispatch(ExecutorService workers) {
+        final ThreadLocal<List<RefactoringRule>> workerRules = ThreadLocal.withInitial(() -> {
+            try {
+                return ParallelApply.cloneRules(rules);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        try {
+            while (true) {
+                final PendingChange change = pendingChanges.take();
+                workers.execute(() -> {
+                    try {
+                        refactor(change, workerRules.get());
+                    } catch (Exception e) {
+                        System.err.println("could not refactor " + change.file);
+                        e.printStackTrace();
+                    } finally {
+                        pendingChanges.done(change.file);
+                    }
+                });
+            }
+        } catch (InterruptedException | RejectedExecutionException e) {
+            // stopped
+        }
+    }
+
+    private void refactor(PendingChange change, List<RefactoringRule> workerRules) throws Exception {
+        final IFile resource = workspace.getRoot().getFileForLocation(
+                org.eclipse.core.runtime.Path.fromOSString(change.file.toString()));
+        final IFolder sourceFolder = resource != null ? sourceFolderOf(resource) : null;
+        if (sourceFolder == null || !Files.isRegularFile(change.file)) {
+            // deleted since, or not in the project
+            return;
+        }
+        // the workspace records the modification stamp of the content about to be read
+        resource.refreshLocal(IResource.DEPTH_ZERO, null);
+        final String code = FileUtil.read(resource);
+        if (code.equals(lastRefactored.get(change.file))) {
+            // saved by the refactoring itself, or by the user without any new change
+            return;
+        }
+        final IPath relativePath = WorkspaceUtil.relativePath(sourceFolder, resource);
+        if (!args.sourceFileName.matcher(relativePath.toString()).matches() || !fileFilter.test(resource.getName())) {
+            return;
+        }
+        final String path = resource.getProjectRelativePath().toString();
+        final String refactoredCode = Refactor.refactorInMemory(new Refactor.RefactorTarget(
+                javaProject.getPackageFragmentRoot(sourceFolder), resource, relativePath), code, workerRules, args);
+        if (refactoredCode != null) {
+            if (!args.dryRun && !writeIfUnchanged(resource, code, refactoredCode)) {
+                // the new content is refactored instead, once it stops changing
+                args.out.println("watch: " + path + " saved again while refactored, refactoring it again");
+                queue(change.file);
+                return;
+            }
+            Refactor.reportRefactored(path, code, refactoredCode, args, args.out);
+        }
+        lastRefactored.put(change.file, refactoredCode != null ? refactoredCode : code);
+        final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - change.firstSave);
+        args.out.println("watch: " + path + (refactoredCode != null ? " refactored" : " unchanged")
+                + " " + millis + " ms after save");
+    }
+
+    /**
+     * Writes the refactored content, unless the file was saved since its content was read.
+     *
+     * @return whether the refactored content was written
+     */
+    private static boolean writeIfUnchanged(IFile resource, String code, String refactoredCode) throws CoreException {
+        if (!code.equals(FileUtil.read(resource))) {
+            return false;
+        }
+        try {
+            // not forced, so it fails when the modification stamp changed since the file was read
+            resource.setContents(new ByteArrayInputStream(refactoredCode.getBytes(Charset.defaultCharset())),
+                    IResource.NONE, null);
+            return true;
+        } catch (CoreException e) {
+            if (e.getStatus().getCode() == IResourceStatus.OUT_OF_SYNC_LOCAL) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    private IFolder sourceFolderOf(IResource resource) {
+        for (IFolder sourceFolder : sourceFolders) {
+            if (sourceFolder.getFullPath().isPrefixOf(resource.getFullPath())) {
+                return sourceFolder;
+            }
+        }
+        return null;
+    }
+}
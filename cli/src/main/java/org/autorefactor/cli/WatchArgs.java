@@ -0,0 +1,35 @@
+package org.autorefactor.cli;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+
+/** Parameters for watching a project and refactoring each saved file. */
+@Parameters(commandDescription = "Apply refactorings to the files of the project each time they are saved,"
+        + " until stopped. --since is ignored.")
+public class WatchArgs extends ApplyArgs {
+    @Parameter(names = "--debounce",
+            description = "Milliseconds without any new save before a file is refactored. Default is: 300.")
+    private long debounce = 300;
+
+    @Parameter(names = "--queue-size",
+            description = "Maximum number of saved files waiting to be refactored. Default is: 1000.")
+    private int queueSize = 1000;
+
+    /**
+     * The milliseconds without any new save before a file is refactored.
+     *
+     * @return the milliseconds without any new save before a file is refactored
+     */
+    public long getDebounce() {
+        return debounce;
+    }
+
+    /**
+     * The maximum number of saved files waiting to be refactored.
+     *
+     * @return the maximum number of saved files waiting to be refactored
+     */
+    public int getQueueSize() {
+        return queueSize;
+    }
+}
@@ -5,9 +5,11 @@ import java.io.File;
 import java.io.PrintStream;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
@@ -46,14 +48,14 @@ public class WorkspaceUtil {
 	    return src;
 	}
 
-	static IProject createProject(final IWorkspace workspace, final File projectFile, final boolean verbose)
-	        throws CoreException {
+	static IProject createProject(final IWorkspace workspace, final File projectFile, final boolean verbose,
+	        PrintStream out) throws CoreException {
 	    IPath projectDotProjectFile = new Path(projectFile.getAbsolutePath());
 	    IProjectDescription projectDescription = workspace.loadProjectDescription(projectDotProjectFile);
 	    IProject project = workspace.getRoot().getProject(projectDescription.getName());
 	    if (!project.exists()) {
 	        if (verbose) {
-	            System.out.println("creating project");
+	            out.println("creating project");
 	        }
 	        project.create(projectDescription, null);
 	    }
@@ -91,11 +93,23 @@ public class WorkspaceUtil {
 	    }
 	}
 
+	/** Projects already imported and refreshed by the server, then kept in sync by the workspace auto-refresh. */
+	private static final Set<String> warmProjects = new HashSet<>();
+
 	public static Pair<IWorkspace, IProject> prepareProject(final File projectFile,
 	        final Map<String, String> classPathVariables, final boolean verbose)
 	        throws CoreException, JavaModelException {
+	    return prepareProject(projectFile, classPathVariables, verbose, System.out, System.err);
+	}
+
+	/**
+	 * Imports, opens and refreshes the project, printing the progress to the provided streams.
+	 */
+	public static synchronized Pair<IWorkspace, IProject> prepareProject(final File projectFile,
+	        final Map<String, String> classPathVariables, final boolean verbose, PrintStream out, PrintStream err)
+	        throws CoreException, JavaModelException {
 	    if (!projectFile.exists()) {
-	        System.err.println("cannot access project file: " + projectFile.getAbsolutePath());
+	        err.println("cannot access project file: " + projectFile.getAbsolutePath());
 	        throw new CoreException(new Status(0, "", "cannot access project file: " + projectFile.getAbsolutePath()));
 	    }
 	
@@ -110,17 +124,23 @@ public class WorkspaceUtil {
 	
 	    // import external project into workspace if needed
 	    if (verbose) {
-	        System.out.println("refactor: importing project");
+	        out.println("refactor: importing project");
+	    }
+	    IProject project = createProject(workspace, projectFile, verbose, out);
+	    if (AutoRefactorServer.isServing() && warmProjects.contains(project.getName())) {
+	        return Pair.of(workspace, project);
 	    }
-	    IProject project = createProject(workspace, projectFile, verbose);
 	    if (verbose) {
-	        System.out.println("refactor: opening project");
+	        out.println("refactor: opening project");
 	    }
 	    project.open(null);
 	    if (verbose) {
-	        System.out.println("refactor: refreshing project");
+	        out.println("refactor: refreshing project");
 	    }
 	    project.refreshLocal(IResource.DEPTH_INFINITE, null);
+	    if (AutoRefactorServer.isServing()) {
+	        warmProjects.add(project.getName());
+	    }
 	
 	    return Pair.of(workspace, project);
 	}
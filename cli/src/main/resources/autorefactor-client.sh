@@ -0,0 +1,14 @@
+#!/bin/bash -e
+#
+# usage:
+#     autorefactor serve &
+#     autorefactor-client apply --project ... --refactorings ...
+#
+# Forwards the command line arguments to the running "autorefactor serve".
+#
+
+DIR=`dirname $0`
+BASE_DIR=`dirname "$DIR"`
+BASE_DIR=`cd "$BASE_DIR"; pwd`
+
+exec java -cp "`echo ${BASE_DIR}/dropins/plugins/org.autorefactor.cli-*.jar`" org.autorefactor.cli.AutoRefactorClient "$@"
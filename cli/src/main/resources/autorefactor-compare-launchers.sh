@@ -0,0 +1,47 @@
+#!/bin/bash -e
+#
+# Compares the startup time and the peak resident set size of the Eclipse application launcher
+# with the ones of the standalone launcher, both refactoring the same project without writing any file.
+#
+# usage:
+#     autorefactor-compare-launchers /some/project src/main/java [runs [refactorings]]
+#
+# The project directory must contain the .project file expected by "autorefactor apply".
+# The standalone launcher resolves the bindings against the jars and class directories listed in $CLASSPATH.
+#
+# Prints for each launcher and each run:
+#     wall      the time taken by the whole command
+#     startup   the time from the JVM start until the launcher is ready to refactor the first file
+#     peak RSS  the high water mark of the resident set size, measured by GNU time
+#
+
+DIR=`dirname $0`
+
+if [ $# -lt 2 ]; then
+    echo "usage: `basename $0` project-dir source-dir [runs [refactorings]]"
+    exit 1
+fi
+PROJECT=`cd "$1"; pwd`
+SOURCE=$2
+RUNS=${3:-5}
+REFACTORINGS=${4:-UseDiamondOperatorRefactoring}
+
+OUT=`mktemp --tmpdir -d compare-launchersXXXXXX`
+trap "{ rm -rf \"$OUT\"; }" EXIT
+
+measure() {
+    local launcher=$1
+    shift
+    for run in `seq $RUNS`; do
+        /usr/bin/time -f "%e %M" -o "$OUT/time" "$@" > "$OUT/log" 2>&1
+        local startup=`grep -o "startup took [0-9]* ms" "$OUT/log" | grep -o "[0-9][0-9]*"`
+        read wall rss < "$OUT/time"
+        printf "%-10s %3d %8s s %8s ms %6d MB\n" "$launcher" "$run" "$wall" "${startup:-?}" $((rss / 1024))
+    done
+}
+
+printf "%-10s %3s %10s %11s %9s\n" launcher run wall startup "peak RSS"
+measure eclipse "$DIR/autorefactor" apply --verbose --dry-run \
+    --project "$PROJECT/.project" --source "$SOURCE" --refactorings "$REFACTORINGS"
+measure standalone "$DIR/autorefactor-standalone" --verbose --dry-run \
+    --source "$PROJECT/$SOURCE" --classpath "$CLASSPATH" --refactorings "$REFACTORINGS"
@@ -0,0 +1,17 @@
+#!/bin/bash -e
+#
+# usage:
+#     autorefactor-standalone --help
+#
+# Starts without Eclipse application nor workspace, but loads the jars of the Eclipse plugins
+# from the installation in $AUTOREFACTOR_ECLIPSE_HOME (default is: where "eclipse" is installed).
+#
+
+DIR=`dirname $0`
+BASE_DIR=`dirname "$DIR"`
+BASE_DIR=`cd "$BASE_DIR"; pwd`
+
+[ "$AUTOREFACTOR_ECLIPSE_HOME" = "" ] && AUTOREFACTOR_ECLIPSE_HOME=`dirname "$(readlink -f "$(which eclipse)")"`
+
+exec java -Xmx2000m -cp "${BASE_DIR}/lib/*:${BASE_DIR}/dropins/plugins/*:${AUTOREFACTOR_ECLIPSE_HOME}/plugins/*" \
+    org.autorefactor.cli.StandaloneAutoRefactor "$@"
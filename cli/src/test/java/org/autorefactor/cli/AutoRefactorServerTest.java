@@ -0,0 +1,121 @@
+package org.autorefactor.cli;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.beust.jcommander.JCommander;
+
+public class AutoRefactorServerTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    /** Records the commands it runs instead of running them. */
+    private static final class RecordingAutoRefactor extends AutoRefactor {
+        final List<List<String>> commands = Collections.synchronizedList(new ArrayList<List<String>>());
+
+        @Override
+        Integer run(String[] argv, PrintStream out, PrintStream err) {
+            commands.add(Arrays.asList(argv));
+            out.println("ran " + argv[0]);
+            err.print("no newline");
+            return 3;
+        }
+    }
+
+    @Test
+    public void testServeClientRequests() throws Exception {
+        final File portFile = new File(new File(tmp.getRoot(), "autorefactor"), "server.port");
+        final RecordingAutoRefactor autoRefactor = new RecordingAutoRefactor();
+        final Thread server = startServer(autoRefactor, portFile);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ByteArrayOutputStream err = new ByteArrayOutputStream();
+        final int exitCode = AutoRefactorClient.run(
+                new String[] { "--port-file", portFile.getPath(), "apply", "--project", ".project" },
+                new PrintStream(out, true), new PrintStream(err, true));
+
+        assertEquals(3, exitCode);
+        assertEquals("ran apply\n", out.toString());
+        assertEquals("no newline\n", err.toString());
+        assertEquals(1, autoRefactor.commands.size());
+        assertEquals(Arrays.asList("apply", "--project", new File(".project").getAbsolutePath()),
+                autoRefactor.commands.get(0));
+
+        shutdown(portFile, server);
+        assertFalse(portFile.exists());
+    }
+
+    @Test
+    public void testRequestsWithoutTheTokenAreRejected() throws Exception {
+        final File portFile = new File(new File(tmp.getRoot(), "autorefactor"), "server.port");
+        final RecordingAutoRefactor autoRefactor = new RecordingAutoRefactor();
+        final Thread server = startServer(autoRefactor, portFile);
+        final int port = ServerPortFile.read(portFile).getPort();
+
+        assertEquals(Arrays.asList("err unauthorized request, the token of " + portFile + " is missing", "exit -1 0"),
+                send(port, "0123abcd" + AutoRefactorServer.SEPARATOR + "apply"));
+        assertEquals(Arrays.asList("err unauthorized request, the token of " + portFile + " is missing", "exit -1 0"),
+                send(port, AutoRefactorServer.SHUTDOWN));
+        assertTrue(autoRefactor.commands.isEmpty());
+        assertTrue(server.isAlive());
+
+        shutdown(portFile, server);
+    }
+
+    private static Thread startServer(AutoRefactor autoRefactor, File portFile) throws Exception {
+        final ServeArgs serveArgs = new ServeArgs();
+        JCommander.newBuilder().addObject(serveArgs).build()
+                .parse("--port-file", portFile.getPath(), "--threads", "2");
+        final AutoRefactorServer server = new AutoRefactorServer(autoRefactor, serveArgs);
+        final Thread thread = new Thread(() -> {
+            try {
+                server.serveRequests();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        thread.start();
+        for (int i = 0; i < 1000 && !portFile.exists(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue("the server did not write " + portFile, portFile.exists());
+        return thread;
+    }
+
+    private static void shutdown(File portFile, Thread server) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(0, AutoRefactorClient.run(new String[] { "--port-file", portFile.getPath(), "shutdown" },
+                new PrintStream(out, true), new PrintStream(out, true)));
+        server.join(10000);
+        assertFalse(server.isAlive());
+    }
+
+    private static List<String> send(int port, String request) throws Exception {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+                PrintStream requestOut = new PrintStream(socket.getOutputStream(), true);
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+            requestOut.println(request);
+            final List<String> lines = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                lines.add(line);
+            }
+            return lines;
+        }
+    }
+}
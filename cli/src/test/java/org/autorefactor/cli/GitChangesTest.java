@@ -0,0 +1,62 @@
+package org.autorefactor.cli;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.Test;
+
+public class GitChangesTest {
+    private final File topLevel = new File(System.getProperty("java.io.tmpdir"), "repo").getAbsoluteFile();
+
+    @Test
+    public void testRemovedAndAddedLinesLookingLikeFileHeaders() throws Exception {
+        final GitChanges changes = new GitChanges("HEAD");
+        changes.parse("diff --git a/A.java b/A.java\n"
+                + "index 68aef14..bbfc8a6 100644\n"
+                + "--- a/A.java\n"
+                + "+++ b/A.java\n"
+                + "@@ -2 +2 @@ a\n"
+                + "--- x\n"
+                + "+++ y\n"
+                + "@@ -4 +4,2 @@ b\n"
+                + "-c\n"
+                + "+C\n"
+                + "+D\n", topLevel);
+
+        assertEquals(1, changes.getNbChangedFiles());
+        assertEquals("[2-2, 4-5]", toString(changes.getChangedLines(new File(topLevel, "A.java"))));
+    }
+
+    @Test
+    public void testDeletedFile() throws Exception {
+        final GitChanges changes = new GitChanges("HEAD");
+        changes.parse("diff --git a/A.java b/A.java\n"
+                + "deleted file mode 100644\n"
+                + "index 68aef14..0000000\n"
+                + "--- a/A.java\n"
+                + "+++ /dev/null\n"
+                + "@@ -1,2 +0,0 @@\n"
+                + "-a\n"
+                + "-b\n"
+                + "diff --git a/B.java b/B.java\n"
+                + "index 68aef14..bbfc8a6 100644\n"
+                + "--- a/B.java\n"
+                + "+++ b/B.java\n"
+                + "@@ -3,2 +2,0 @@ a\n"
+                + "-b\n"
+                + "-c\n", topLevel);
+
+        assertEquals(1, changes.getNbChangedFiles());
+        assertEquals("[2-3]", toString(changes.getChangedLines(new File(topLevel, "B.java"))));
+    }
+
+    private static String toString(List<int[]> lines) {
+        final StringBuilder sb = new StringBuilder("[");
+        for (int[] range : lines) {
+            sb.append(sb.length() > 1 ? ", " : "").append(range[0]).append('-').append(range[1]);
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,116 @@
+package org.autorefactor.cli;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.autorefactor.cli.PendingChanges.PendingChange;
+import org.junit.After;
+import org.junit.Test;
+
+public class PendingChangesTest {
+    private static final long DEBOUNCE_MILLIS = 200;
+    private static final Path A = Paths.get("A.java");
+    private static final Path B = Paths.get("B.java");
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testFileIsHandedOutOnceItStopsChanging() throws Exception {
+        final PendingChanges changes = new PendingChanges(10, TimeUnit.MILLISECONDS.toNanos(DEBOUNCE_MILLIS));
+        final long start = System.nanoTime();
+        changes.add(A);
+
+        final PendingChange change = changes.take();
+        assertEquals(A, change.file);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(DEBOUNCE_MILLIS));
+    }
+
+    @Test
+    public void testRepeatedSavesAreCoalesced() throws Exception {
+        final PendingChanges changes = new PendingChanges(10, TimeUnit.MILLISECONDS.toNanos(DEBOUNCE_MILLIS));
+        final long beforeFirstSave = System.nanoTime();
+        changes.add(A);
+        final long afterFirstSave = System.nanoTime();
+        changes.add(B);
+        Thread.sleep(DEBOUNCE_MILLIS / 2);
+        // saved again before it settled: waits for the debounce delay after the last save
+        changes.add(A);
+        assertEquals(2, changes.size());
+        final long lastSave = System.nanoTime();
+
+        final PendingChange first = changes.take();
+        assertEquals("the file settled first is handed out first", B, first.file);
+        final PendingChange second = changes.take();
+        assertEquals(A, second.file);
+        assertTrue("the first save is kept",
+                beforeFirstSave <= second.firstSave && second.firstSave <= afterFirstSave);
+        assertTrue(System.nanoTime() - lastSave >= TimeUnit.MILLISECONDS.toNanos(DEBOUNCE_MILLIS));
+        assertEquals(0, changes.size());
+    }
+
+    @Test
+    public void testFileInProgressIsNotHandedOutAgain() throws Exception {
+        final PendingChanges changes = new PendingChanges(10, 0);
+        changes.add(A);
+        assertEquals(A, changes.take().file);
+
+        // saved while being refactored
+        changes.add(A);
+        final Future<PendingChange> next = executor.submit(() -> changes.take());
+        try {
+            next.get(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+            fail("a file being refactored must not be handed out again");
+        } catch (TimeoutException expected) {
+            // still in progress
+        }
+
+        changes.done(A);
+        assertEquals(A, next.get(10, TimeUnit.SECONDS).file);
+    }
+
+    @Test
+    public void testOtherFilesAreHandedOutWhileOneIsInProgress() throws Exception {
+        final PendingChanges changes = new PendingChanges(10, 0);
+        changes.add(A);
+        assertEquals(A, changes.take().file);
+        changes.add(A);
+        changes.add(B);
+
+        assertEquals(B, changes.take().file);
+    }
+
+    @Test
+    public void testAddWaitsForRoomInTheQueue() throws Exception {
+        final PendingChanges changes = new PendingChanges(1, 0);
+        changes.add(A);
+        // coalesced, so it does not need room
+        changes.add(A);
+
+        final Future<?> added = executor.submit(() -> {
+            changes.add(B);
+            return null;
+        });
+        try {
+            added.get(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+            fail("the queue is full");
+        } catch (TimeoutException expected) {
+            // waiting for room
+        }
+
+        assertEquals(A, changes.take().file);
+        added.get(10, TimeUnit.SECONDS);
+        assertEquals(B, changes.take().file);
+    }
+}
@@ -0,0 +1,107 @@
+package org.autorefactor.cli;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ServerPortFileTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testWriteThenRead() throws IOException {
+        final File file = new File(new File(tmp.getRoot(), "autorefactor"), "server.port");
+        final ServerPortFile written = ServerPortFile.newRandom(4242);
+        written.write(file);
+
+        final ServerPortFile read = ServerPortFile.read(file);
+        assertEquals(4242, read.getPort());
+        assertEquals(written.getToken(), read.getToken());
+        assertEquals(64, read.getToken().length());
+        assertNotEquals(written.getToken(), ServerPortFile.newRandom(4242).getToken());
+    }
+
+    @Test
+    public void testOnlyAccessibleByTheOwner() throws IOException {
+        assumePosix();
+        final File file = new File(new File(tmp.getRoot(), "autorefactor"), "server.port");
+        ServerPortFile.newRandom(4242).write(file);
+
+        assertEquals("rwx------",
+                PosixFilePermissions.toString(Files.getPosixFilePermissions(file.getParentFile().toPath())));
+        assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(file.toPath())));
+    }
+
+    @Test
+    public void testExistingDirectoryIsRestricted() throws IOException {
+        assumePosix();
+        final File directory = tmp.newFolder("autorefactor");
+        Files.setPosixFilePermissions(directory.toPath(), PosixFilePermissions.fromString("rwxrwxrwx"));
+        ServerPortFile.newRandom(4242).write(new File(directory, "server.port"));
+
+        assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(directory.toPath())));
+    }
+
+    @Test(expected = IOException.class)
+    public void testSymbolicLinkToDirectoryIsRejected() throws IOException {
+        assumePosix();
+        final File target = tmp.newFolder("target");
+        final File link = new File(tmp.getRoot(), "autorefactor");
+        Files.createSymbolicLink(link.toPath(), target.toPath());
+
+        ServerPortFile.newRandom(4242).write(new File(link, "server.port"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testSymbolicLinkToFileIsRejected() throws IOException {
+        assumePosix();
+        final File file = new File(new File(tmp.getRoot(), "autorefactor"), "server.port");
+        ServerPortFile.newRandom(4242).write(file);
+        final File link = new File(file.getParentFile(), "link.port");
+        Files.createSymbolicLink(link.toPath(), file.toPath());
+
+        ServerPortFile.read(link);
+    }
+
+    @Test(expected = IOException.class)
+    public void testFileReadableByOthersIsRejected() throws IOException {
+        assumePosix();
+        final File file = new File(new File(tmp.getRoot(), "autorefactor"), "server.port");
+        ServerPortFile.newRandom(4242).write(file);
+        Files.setPosixFilePermissions(file.toPath(), PosixFilePermissions.fromString("rw-r--r--"));
+
+        ServerPortFile.read(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void testMalformedFileIsRejected() throws IOException {
+        final File file = new File(new File(tmp.getRoot(), "autorefactor"), "server.port");
+        ServerPortFile.newRandom(4242).write(file);
+        Files.write(file.toPath(), "4242\n".getBytes("UTF-8"));
+
+        ServerPortFile.read(file);
+    }
+
+    @Test
+    public void testIsAuthorized() {
+        final ServerPortFile portFile = new ServerPortFile(4242, "0123abcd");
+        assertTrue(portFile.isAuthorized("0123abcd"));
+        assertFalse(portFile.isAuthorized("0123abce"));
+        assertFalse(portFile.isAuthorized("0123abcd0"));
+        assertFalse(portFile.isAuthorized(""));
+        assertFalse(portFile.isAuthorized(null));
+    }
+
+    private static void assumePosix() {
+        Assume.assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+    }
+}
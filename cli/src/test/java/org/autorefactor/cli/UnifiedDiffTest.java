@@ -0,0 +1,98 @@
+package org.autorefactor.cli;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class UnifiedDiffTest {
+    @Test
+    public void testIdenticalContents() {
+        assertEquals("", UnifiedDiff.diff("A.java", "", ""));
+        assertEquals("", UnifiedDiff.diff("A.java", "a\nb\n", "a\nb\n"));
+    }
+
+    @Test
+    public void testDistantChangesInSeparateHunks() {
+        final String before = lines(1, 20);
+        final String after = before.replace("\n2\n", "\ntwo\n").replace("\n18\n", "\neighteen\n");
+
+        assertEquals("--- a/A.java\n"
+                + "+++ b/A.java\n"
+                + "@@ -1,5 +1,5 @@\n"
+                + " 1\n"
+                + "-2\n"
+                + "+two\n"
+                + " 3\n"
+                + " 4\n"
+                + " 5\n"
+                + "@@ -15,6 +15,6 @@\n"
+                + " 15\n"
+                + " 16\n"
+                + " 17\n"
+                + "-18\n"
+                + "+eighteen\n"
+                + " 19\n"
+                + " 20\n", UnifiedDiff.diff("A.java", before, after));
+    }
+
+    @Test
+    public void testCloseChangesMergedInOneHunk() {
+        final String before = lines(1, 20);
+        final String after = before.replace("\n5\n", "\n").replace("\n11\n", "\n11\neleven\n");
+
+        assertEquals("--- a/A.java\n"
+                + "+++ b/A.java\n"
+                + "@@ -2,13 +2,13 @@\n"
+                + " 2\n"
+                + " 3\n"
+                + " 4\n"
+                + "-5\n"
+                + " 6\n"
+                + " 7\n"
+                + " 8\n"
+                + " 9\n"
+                + " 10\n"
+                + " 11\n"
+                + "+eleven\n"
+                + " 12\n"
+                + " 13\n"
+                + " 14\n", UnifiedDiff.diff("A.java", before, after));
+    }
+
+    @Test
+    public void testNoNewlineAtEndOfFile() {
+        assertEquals("--- a/A.java\n"
+                + "+++ b/A.java\n"
+                + "@@ -1,2 +1,2 @@\n"
+                + " a\n"
+                + "-b\n"
+                + "\\ No newline at end of file\n"
+                + "+c\n"
+                + "\\ No newline at end of file\n", UnifiedDiff.diff("A.java", "a\nb", "a\nc"));
+
+        assertEquals("--- a/A.java\n"
+                + "+++ b/A.java\n"
+                + "@@ -1,2 +1,2 @@\n"
+                + " a\n"
+                + "-b\n"
+                + "\\ No newline at end of file\n"
+                + "+b\n", UnifiedDiff.diff("A.java", "a\nb", "a\nb\n"));
+    }
+
+    @Test
+    public void testEmptySide() {
+        assertEquals("--- a/A.java\n"
+                + "+++ b/A.java\n"
+                + "@@ -0,0 +1,2 @@\n"
+                + "+a\n"
+                + "+b\n", UnifiedDiff.diff("A.java", "", "a\nb\n"));
+    }
+
+    private static String lines(int from, int to) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = from; i <= to; i++) {
+            sb.append(i).append('\n');
+        }
+        return sb.toString();
+    }
+}
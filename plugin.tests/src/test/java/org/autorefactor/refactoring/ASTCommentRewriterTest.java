@@ -0,0 +1,145 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.text.edits.DeleteEdit;
+import org.eclipse.text.edits.InsertEdit;
+import org.eclipse.text.edits.MultiTextEdit;
+import org.eclipse.text.edits.ReplaceEdit;
+import org.eclipse.text.edits.TextEdit;
+import org.junit.Test;
+
+/** Checks that the comment edits overlapping the code edits are found like {@link SourceLocation#overlapsWith}. */
+public class ASTCommentRewriterTest {
+    private static final Comparator<TextEdit> BY_SOURCE_LOCATION = new Comparator<TextEdit>() {
+        @Override
+        public int compare(TextEdit te1, TextEdit te2) {
+            final int offsetDiff = te1.getOffset() - te2.getOffset();
+            return offsetDiff != 0 ? offsetDiff : te1.getLength() - te2.getLength();
+        }
+    };
+
+    @Test
+    public void touchingRangesOverlap() {
+        assertOverlaps(true, codeEdits(new ReplaceEdit(5, 3, "x")), new DeleteEdit(0, 5));
+        assertOverlaps(true, codeEdits(new ReplaceEdit(0, 5, "x")), new DeleteEdit(5, 3));
+        assertOverlaps(false, codeEdits(new ReplaceEdit(0, 5, "x")), new DeleteEdit(6, 3));
+    }
+
+    @Test
+    public void rangesAtTheSameOffsetOverlap() {
+        assertOverlaps(true, codeEdits(new ReplaceEdit(3, 2, "x")), new DeleteEdit(3, 2));
+        assertOverlaps(true, codeEdits(new ReplaceEdit(3, 10, "x")), new DeleteEdit(3, 1));
+        assertOverlaps(true, codeEdits(new InsertEdit(3, "x")), new InsertEdit(3, "y"));
+    }
+
+    @Test
+    public void insertionsOverlapTheRangesContainingOrTouchingThem() {
+        assertOverlaps(true, codeEdits(new InsertEdit(5, "x")), new DeleteEdit(0, 5));
+        assertOverlaps(true, codeEdits(new InsertEdit(5, "x")), new DeleteEdit(5, 3));
+        assertOverlaps(true, codeEdits(new InsertEdit(2, "x")), new DeleteEdit(0, 5));
+        assertOverlaps(false, codeEdits(new InsertEdit(10, "x")), new DeleteEdit(0, 5));
+        assertOverlaps(false, codeEdits(new ReplaceEdit(0, 5, "x")), new InsertEdit(10, "y"));
+    }
+
+    @Test
+    public void codeEditNestedInAnotherOneIsCheckedAgainstTheEndOfItsParent() {
+        final DeleteEdit parent = new DeleteEdit(0, 20);
+        parent.addChild(new ReplaceEdit(5, 2, "x"));
+
+        // past the end of the nested edit, but before the end of its parent
+        assertOverlaps(true, codeEdits(parent), new DeleteEdit(12, 3));
+        assertOverlaps(false, codeEdits(parent), new DeleteEdit(22, 3));
+    }
+
+    @Test
+    public void answersLikeSourceLocationOverlapsWith() {
+        final Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            final MultiTextEdit codeEdits = new MultiTextEdit();
+            int offset = 0;
+            for (int j = random.nextInt(10); j > 0; j--) {
+                // siblings must not overlap, but they can touch
+                offset += 1 + random.nextInt(20);
+                final int length = random.nextInt(4) == 0 ? 0 : 1 + random.nextInt(20);
+                final TextEdit codeEdit = length == 0 ? new InsertEdit(offset, "x") : new DeleteEdit(offset, length);
+                if (length > 2 && random.nextBoolean()) {
+                    codeEdit.addChild(new ReplaceEdit(offset + 1, random.nextInt(length - 1), "x"));
+                }
+                codeEdits.addChild(codeEdit);
+                offset += length;
+            }
+
+            final List<TextEdit> commentEdits = new ArrayList<TextEdit>();
+            for (int j = random.nextInt(10); j > 0; j--) {
+                final int length = random.nextInt(4) == 0 ? 0 : 1 + random.nextInt(10);
+                commentEdits.add(new DeleteEdit(random.nextInt(offset + 20), length));
+            }
+            Collections.sort(commentEdits, BY_SOURCE_LOCATION);
+
+            assertEquals(codeEdits + " " + commentEdits,
+                    overlaps(codeEdits, commentEdits), ASTCommentRewriter.anyOverlaps(codeEdits, commentEdits));
+        }
+    }
+
+    private static MultiTextEdit codeEdits(TextEdit... edits) {
+        final MultiTextEdit codeEdits = new MultiTextEdit();
+        codeEdits.addChildren(edits);
+        return codeEdits;
+    }
+
+    private static void assertOverlaps(boolean expected, TextEdit codeEdits, TextEdit commentEdit) {
+        final List<TextEdit> commentEdits = Arrays.asList(commentEdit);
+        assertEquals("exhaustive search", expected, overlaps(codeEdits, commentEdits));
+        assertEquals(expected, ASTCommentRewriter.anyOverlaps(codeEdits, commentEdits));
+    }
+
+    private static boolean overlaps(TextEdit codeEdit, List<TextEdit> commentEdits) {
+        if (!(codeEdit instanceof MultiTextEdit)) {
+            final SourceLocation codeLocation = new SourceLocation(codeEdit.getOffset(), codeEdit.getLength());
+            for (TextEdit commentEdit : commentEdits) {
+                if (codeLocation.overlapsWith(new SourceLocation(commentEdit.getOffset(), commentEdit.getLength()))) {
+                    return true;
+                }
+            }
+        }
+        for (TextEdit child : codeEdit.getChildren()) {
+            if (overlaps(child, commentEdits)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring;
+
+import static org.autorefactor.test.TestHelper.TEST_ENVIRONMENT;
+import static org.autorefactor.test.TestHelper.newJavaProjectOptions;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.autorefactor.environment.Environment;
+import org.autorefactor.environment.Logger;
+import org.autorefactor.refactoring.rules.AbstractRefactoringRule;
+import org.autorefactor.refactoring.rules.JavaCoreHelper;
+import org.autorefactor.refactoring.rules.RefactoringContext;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.dom.BooleanLiteral;
+import org.junit.Test;
+
+/** Checks that the units parsed together are refactored independently of each other. */
+public class BatchParseTest {
+    private static final String PACKAGE_NAME = "org.autorefactor.batchparse";
+
+    @Test
+    public void failingUnitDoesNotAbortTheRestOfTheBatch() throws Exception {
+        final IPackageFragment packageFragment = JavaCoreHelper.getPackageFragment(PACKAGE_NAME);
+        final ICompilationUnit failing = createCompilationUnit(packageFragment, "Failing");
+        final ICompilationUnit working = createCompilationUnit(packageFragment, "Working");
+        final String failingSource = failing.getSource();
+        final String workingSource = working.getSource();
+
+        final RecordingLogger logger = new RecordingLogger();
+        final Environment environment = new Environment(TEST_ENVIRONMENT.getEventLoop(), null, logger, null);
+        final ApplyRefactoringsJob job = new ApplyRefactoringsJob(new RefactoringUnitQueue(0),
+                Arrays.<RefactoringRule> asList(new FailingOnUnit("Failing.java"), new ReplaceTrueByFalse()),
+                environment);
+        final JavaProjectOptions options = newJavaProjectOptions(Release.javaSE("1.8.0"), 4);
+        // the failing unit comes first, so the parser still has to hand out the other one
+        job.applyRefactoringsInBatch(Arrays.asList(
+                new RefactoringUnit(failing, options, false),
+                new RefactoringUnit(working, options, false)),
+                SubMonitor.convert(new NullProgressMonitor()));
+
+        assertEquals(1, logger.errors.size());
+        assertTrue(logger.errors.get(0), logger.errors.get(0).contains("Failing.java"));
+        assertEquals(failingSource, failing.getSource());
+        assertEquals(workingSource.replace("true", "false"), working.getSource());
+    }
+
+    private static ICompilationUnit createCompilationUnit(IPackageFragment packageFragment, String className)
+            throws Exception {
+        final String source = "package " + PACKAGE_NAME + ";\n"
+                + "public class " + className + " {\n"
+                + "    boolean b = true;\n"
+                + "}\n";
+        final ICompilationUnit cu = packageFragment.createCompilationUnit(className + ".java", source, true, null);
+        cu.getBuffer().setContents(source);
+        cu.save(null, true);
+        return cu;
+    }
+
+    /** Base class of the test rules. */
+    private abstract static class TestRule extends AbstractRefactoringRule {
+        @Override
+        public String getName() {
+            return getClass().getSimpleName();
+        }
+
+        @Override
+        public String getDescription() {
+            return getClass().getSimpleName();
+        }
+
+        @Override
+        public String getReason() {
+            return "Checks how the failures of the units of a batch are handled.";
+        }
+    }
+
+    /** Fails outside of the visits, where the failure is not handled per rule. */
+    private static final class FailingOnUnit extends TestRule {
+        private final String fileName;
+
+        private FailingOnUnit(String fileName) {
+            this.fileName = fileName;
+        }
+
+        @Override
+        public void setRefactoringContext(RefactoringContext ctx) {
+            super.setRefactoringContext(ctx);
+            if (ctx != null && fileName.equals(ctx.getCompilationUnit().getElementName())) {
+                throw new IllegalStateException("cannot refactor " + fileName);
+            }
+        }
+    }
+
+    /** Refactors both units. */
+    private static final class ReplaceTrueByFalse extends TestRule {
+        @Override
+        public boolean visit(BooleanLiteral node) {
+            if (node.booleanValue()) {
+                ctx.getRefactorings().replace(node, ctx.getASTBuilder().boolean0(false));
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private static final class RecordingLogger implements Logger {
+        private final List<String> errors = new ArrayList<String>();
+
+        public void error(String message) {
+            errors.add(message);
+        }
+
+        public void error(String message, Exception e) {
+            errors.add(message);
+        }
+
+        public void warn(String message) {
+        }
+
+        public void info(String message) {
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+/** Checks that {@link LineStarts} finds the start of the line of each position, whatever the line separators. */
+public class LineStartsTest {
+    @Test
+    public void mixedLineSeparators() {
+        final String source = "a\r\nbc\rd\n\nef";
+        final LineStarts lineStarts = new LineStarts(source);
+
+        assertEquals(5, lineStarts.getNbLines());
+        assertEquals(0, lineStarts.getLineStart(0));
+        assertEquals(0, lineStarts.getLineStart(2));
+        assertEquals(3, lineStarts.getLineStart(3));
+        assertEquals(3, lineStarts.getLineStart(5));
+        assertEquals(6, lineStarts.getLineStart(6));
+        assertEquals(8, lineStarts.getLineStart(8));
+        assertEquals(9, lineStarts.getLineStart(10));
+        assertEquals(9, lineStarts.getLineStart(source.length()));
+    }
+
+    @Test
+    public void trailingLineSeparatorStartsAnEmptyLine() {
+        assertEquals(1, new LineStarts("").getNbLines());
+        assertEquals(2, new LineStarts("a\r\n").getNbLines());
+        assertEquals(3, new LineStarts("\r\r").getNbLines());
+        assertEquals(2, new LineStarts("\r\r").getLineStart(2));
+    }
+
+    @Test
+    public void sameAsMatchingTheLineSeparators() {
+        final StringBuilder sb = new StringBuilder();
+        final String[] separators = { "\r\n", "\r", "\n" };
+        for (int i = 0; i < 1000; i++) {
+            sb.append("// line ").append(i).append(separators[i % separators.length]);
+        }
+        final String source = sb.toString();
+        final TreeSet<Integer> expected = new TreeSet<Integer>();
+        expected.add(0);
+        final Matcher matcher = Pattern.compile("\\r\\n|\\r|\\n").matcher(source);
+        while (matcher.find()) {
+            expected.add(matcher.end());
+        }
+
+        final LineStarts lineStarts = new LineStarts(source);
+        assertEquals(expected.size(), lineStarts.getNbLines());
+        for (int position = 0; position <= source.length(); position++) {
+            assertEquals(expected.floor(position).intValue(), lineStarts.getLineStart(position));
+        }
+    }
+}
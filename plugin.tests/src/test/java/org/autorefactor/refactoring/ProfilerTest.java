@@ -0,0 +1,47 @@
+package org.autorefactor.refactoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+
+import org.autorefactor.refactoring.Profiler.Phase;
+import org.autorefactor.refactoring.Profiler.ThreadProfile;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.junit.Test;
+
+public class ProfilerTest {
+
+    @Test
+    public void measuresOfAllThreadsAreMerged() throws Exception {
+        final Profiler profiler = new Profiler();
+        final Runnable recordMeasures = new Runnable() {
+            @Override
+            public void run() {
+                final ThreadProfile profile = profiler.getThreadProfile();
+                profile.recordVisit(ProfilerTest.this, ASTNode.METHOD_INVOCATION, System.nanoTime());
+                profile.recordRefactoring(ProfilerTest.this, ASTNode.METHOD_INVOCATION);
+                profile.recordPhase("A.java", Phase.PARSE, System.nanoTime());
+            }
+        };
+        final Thread thread = new Thread(recordMeasures);
+        thread.start();
+        recordMeasures.run();
+        thread.join();
+
+        final StringWriter csv = new StringWriter();
+        profiler.writeCsv(csv);
+        final String[] lines = csv.toString().split("\n");
+        assertEquals("section,name,detail,count,timeNanos,refactorings", lines[0]);
+        assertTrue(lines[1], lines[1].startsWith("visitor," + getClass().getName() + ",MethodInvocation,2,"));
+        assertTrue(lines[1], lines[1].endsWith(",2"));
+        assertTrue(lines[2], lines[2].startsWith("file,A.java,parse,2,"));
+        assertEquals(1 + 1 + Phase.values().length, lines.length);
+
+        final StringWriter json = new StringWriter();
+        profiler.writeJson(json);
+        assertTrue(json.toString(), json.toString().contains(
+                "{\"class\": \"" + getClass().getName() + "\", \"invocations\": 2, \"timeNanos\": "));
+        assertTrue(json.toString(), json.toString().contains("\"parse\": {\"count\": 2, \"timeNanos\": "));
+    }
+}
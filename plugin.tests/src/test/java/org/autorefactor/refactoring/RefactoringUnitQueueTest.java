@@ -0,0 +1,125 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.junit.Test;
+
+/** Checks that {@link RefactoringUnitQueue} bounds the units in flight and lets the workers stop. */
+public class RefactoringUnitQueueTest {
+    @Test
+    public void producerWaitsForTheUnitsInFlightToBeReleased() throws Exception {
+        final RefactoringUnitQueue queue = new RefactoringUnitQueue(2);
+        final RefactoringUnit first = newUnit();
+        queue.acquire();
+        queue.add(first);
+        queue.acquire();
+        queue.add(newUnit());
+
+        final CountDownLatch acquired = new CountDownLatch(1);
+        final Thread producer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    queue.acquire();
+                    acquired.countDown();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        producer.start();
+        assertFalse(acquired.await(300, TimeUnit.MILLISECONDS));
+
+        // taking a unit does not let the next one in, only being done with it does
+        assertSame(first, queue.take());
+        assertFalse(acquired.await(300, TimeUnit.MILLISECONDS));
+        queue.release();
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        producer.join();
+    }
+
+    @Test
+    public void consumersStopOnceTheQueueIsClosedAndEmpty() throws Exception {
+        final RefactoringUnitQueue queue = new RefactoringUnitQueue(0);
+        queue.addConsumer();
+        queue.acquire();
+        final RefactoringUnit unit = newUnit();
+        assertEquals(1, queue.add(unit));
+        queue.close();
+
+        assertSame(unit, queue.take());
+        assertNull(queue.take());
+        assertTrue(queue.removeConsumer());
+        assertEquals(Integer.MAX_VALUE, queue.getMaxInFlight());
+    }
+
+    @Test(expected = OperationCanceledException.class)
+    public void producerStopsWhenNoConsumerIsLeft() throws Exception {
+        final RefactoringUnitQueue queue = new RefactoringUnitQueue(1);
+        queue.addConsumer();
+        queue.acquire();
+        queue.add(newUnit());
+        // the only worker failed
+        assertFalse(queue.removeConsumer());
+        queue.acquire();
+    }
+
+    @Test
+    public void tailIsMeasuredFromTheFirstConsumerRunningOutOfUnits() throws Exception {
+        final RefactoringUnitQueue queue = new RefactoringUnitQueue(0);
+        queue.addConsumer();
+        queue.addConsumer();
+        queue.close();
+        // the first consumer runs out of units while the second one is still refactoring its last unit
+        assertNull(queue.take());
+        assertFalse(queue.removeConsumer());
+        Thread.sleep(50);
+        assertTrue(queue.removeConsumer());
+
+        final String summary = queue.getTailSummary();
+        final Matcher m =
+                Pattern.compile("2 workers took (\\d+) ms, the last one finishing (\\d+) ms after").matcher(summary);
+        assertTrue(summary, m.find());
+        assertTrue(summary, Long.parseLong(m.group(2)) >= 50);
+        assertTrue(summary, Long.parseLong(m.group(1)) >= Long.parseLong(m.group(2)));
+    }
+
+    private RefactoringUnit newUnit() {
+        return new RefactoringUnit(null, null, false);
+    }
+}
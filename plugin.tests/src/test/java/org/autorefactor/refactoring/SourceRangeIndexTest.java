@@ -0,0 +1,125 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/** Checks the answers of {@link SourceRangeIndex} about overlapping and containing source ranges. */
+public class SourceRangeIndexTest {
+    @Test
+    public void rangeOverlapsAncestorsAndDescendantsButNotSiblings() {
+        final SourceRangeIndex index = new SourceRangeIndex();
+        index.add(10, 5);
+
+        assertTrue(index.overlaps(0, 100));
+        assertTrue(index.overlaps(10, 5));
+        assertTrue(index.overlaps(12, 1));
+        assertFalse(index.overlaps(0, 10));
+        assertFalse(index.overlaps(15, 3));
+
+        assertTrue(index.contains(10, 5));
+        assertTrue(index.contains(12, 1));
+        assertFalse(index.contains(0, 100));
+        assertFalse(index.contains(14, 2));
+    }
+
+    @Test
+    public void insertionPointOverlapsTheNodesStartingAtItOrContainingIt() {
+        final SourceRangeIndex index = new SourceRangeIndex();
+        index.add(10, 0);
+
+        assertTrue(index.overlaps(0, 100));
+        assertTrue(index.overlaps(10, 5));
+        assertFalse(index.overlaps(5, 5));
+        assertFalse(index.contains(10, 5));
+    }
+
+    @Test
+    public void rangesAreMovedFromOneIndexToAnother() {
+        final SourceRangeIndex previous = new SourceRangeIndex();
+        final SourceRangeIndex current = new SourceRangeIndex();
+        current.add(30, 10);
+        current.add(5, 0);
+        previous.addAll(current);
+        current.clear();
+
+        assertTrue(current.isEmpty());
+        assertFalse(current.overlaps(0, 100));
+        assertTrue(previous.contains(32, 3));
+        assertTrue(previous.overlaps(0, 6));
+        assertEquals("SourceRangeIndex[30-40, 5]", previous.toString());
+    }
+
+    @Test
+    public void answersLikeAnExhaustiveSearch() {
+        final Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            final SourceRangeIndex index = new SourceRangeIndex();
+            final List<int[]> ranges = new ArrayList<int[]>();
+            for (int j = random.nextInt(50); j > 0; j--) {
+                final int[] range = { random.nextInt(200), random.nextInt(4) == 0 ? 0 : 1 + random.nextInt(30) };
+                ranges.add(range);
+                index.add(range[0], range[1]);
+            }
+            for (int j = 0; j < 100; j++) {
+                final int start = random.nextInt(220);
+                final int length = 1 + random.nextInt(40);
+                final String message = index + " " + start + "-" + (start + length);
+                assertEquals(message, overlaps(ranges, start, length), index.overlaps(start, length));
+                assertEquals(message, contains(ranges, start, length), index.contains(start, length));
+            }
+        }
+    }
+
+    private static boolean overlaps(List<int[]> ranges, int start, int length) {
+        for (int[] range : ranges) {
+            final boolean overlaps = range[1] == 0
+                    ? start <= range[0] && range[0] < start + length
+                    : range[0] < start + length && start < range[0] + range[1];
+            if (overlaps) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(List<int[]> ranges, int start, int length) {
+        for (int[] range : ranges) {
+            if (range[1] > 0 && range[0] <= start && start + length <= range[0] + range[1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
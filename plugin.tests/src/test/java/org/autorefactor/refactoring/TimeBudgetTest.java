@@ -0,0 +1,143 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+/** Checks that {@link TimeBudget} abandons the rules running for too long, and {@link Quarantine} remembers them. */
+public class TimeBudgetTest {
+    private static final class SlowRule {
+    }
+
+    private static final class FastRule {
+    }
+
+    @Test
+    public void ruleExhaustingItsBudgetIsAbandoned() throws Exception {
+        final SlowRule slowRule = new SlowRule();
+        final FastRule fastRule = new FastRule();
+        final TimeBudget budget = TimeBudget.start("A.java", 0, 1, Collections.<String> emptySet());
+        try {
+            budget.enter(slowRule);
+            Thread.sleep(10);
+            // the time of the slow rule is charged once the fast rule starts
+            budget.enter(fastRule);
+            try {
+                budget.enter(slowRule);
+                fail("the budget of the slow rule should be exhausted");
+            } catch (TimeBudgetExceededException e) {
+                assertSame(slowRule, e.getRule());
+                assertFalse(e.isFileBudget());
+                budget.abandon(e);
+            }
+            assertTrue(budget.isAbandoned(slowRule));
+            assertFalse(budget.isAbandoned(fastRule));
+            assertFalse(budget.isFileBudgetExceeded());
+            assertEquals(Arrays.asList(SlowRule.class.getName()), budget.getTimedOutRuleClasses());
+        } finally {
+            budget.stop();
+        }
+    }
+
+    @Test
+    public void checkInterruptsTheRunningRuleOnceTheFileBudgetIsExhausted() throws Exception {
+        final SlowRule slowRule = new SlowRule();
+        final TimeBudget budget = TimeBudget.start("A.java", 1, 0, Collections.<String> emptySet());
+        try {
+            budget.enter(slowRule);
+            Thread.sleep(10);
+            try {
+                for (int i = 0; i < 1000; i++) {
+                    TimeBudget.check();
+                }
+                fail("the budget of the file should be exhausted");
+            } catch (TimeBudgetExceededException e) {
+                assertSame(slowRule, e.getRule());
+                assertTrue(e.isFileBudget());
+                budget.abandon(e);
+            }
+            assertTrue(budget.isAbandoned(new FastRule()));
+        } finally {
+            budget.stop();
+        }
+        // no budget is checked anymore once stopped
+        for (int i = 0; i < 1000; i++) {
+            TimeBudget.check();
+        }
+    }
+
+    @Test
+    public void timedOutRulesAreQuarantinedForTheNextRuns() throws Exception {
+        final File listFile = File.createTempFile("quarantine", ".idx");
+        try {
+            final SlowRule slowRule = new SlowRule();
+            final TimeBudget budget = TimeBudget.start("A.java", 0, 1, Collections.<String> emptySet());
+            try {
+                budget.enter(slowRule);
+                Thread.sleep(10);
+                budget.leave();
+                budget.enter(slowRule);
+                fail("the budget of the slow rule should be exhausted");
+            } catch (TimeBudgetExceededException e) {
+                budget.abandon(e);
+            } finally {
+                budget.stop();
+            }
+            final Quarantine quarantine = new Quarantine(listFile);
+            quarantine.recordTimeouts(budget);
+            assertEquals(1, quarantine.getNbTimeouts());
+
+            final Quarantine nextRun = new Quarantine(listFile);
+            assertEquals(Collections.singleton(SlowRule.class.getName()),
+                    nextRun.getQuarantinedRuleClasses("A.java"));
+            assertTrue(nextRun.getQuarantinedRuleClasses("B.java").isEmpty());
+
+            final FastRule fastRule = new FastRule();
+            final SlowRule nextSlowRule = new SlowRule();
+            final TimeBudget nextBudget =
+                    TimeBudget.start("A.java", 0, 0, nextRun.getQuarantinedRuleClasses("A.java"));
+            try {
+                nextBudget.abandonQuarantinedRules(Arrays.asList(fastRule, nextSlowRule));
+                assertTrue(nextBudget.isAbandoned(nextSlowRule));
+                assertFalse(nextBudget.isAbandoned(fastRule));
+            } finally {
+                nextBudget.stop();
+            }
+        } finally {
+            listFile.delete();
+        }
+    }
+}
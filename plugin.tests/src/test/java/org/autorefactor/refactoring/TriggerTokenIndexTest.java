@@ -0,0 +1,213 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+
+import org.autorefactor.preferences.Preferences;
+import org.autorefactor.refactoring.rules.RefactoringContext;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.junit.Test;
+
+/** Checks that {@link TriggerTokenIndex} finds the rules whose trigger tokens appear in the source code. */
+public class TriggerTokenIndexTest {
+    private abstract static class TokenRule implements TriggeredRefactoringRule {
+        private final String[] tokens;
+
+        TokenRule(String... tokens) {
+            this.tokens = tokens;
+        }
+
+        @Override
+        public String[] getTriggerTokens() {
+            return tokens;
+        }
+
+        @Override
+        public String getName() {
+            return getClass().getSimpleName();
+        }
+
+        @Override
+        public String getDescription() {
+            return getName();
+        }
+
+        @Override
+        public String getReason() {
+            return getName();
+        }
+
+        @Override
+        public Refactorings getRefactorings(CompilationUnit astRoot) {
+            return null;
+        }
+
+        @Override
+        public boolean isByDefault() {
+            return true;
+        }
+
+        @Override
+        public boolean isEnabled(Preferences preferences) {
+            return true;
+        }
+
+        @Override
+        public void setRefactoringContext(RefactoringContext ctx) {
+        }
+    }
+
+    private static final class HeRule extends TokenRule {
+        HeRule() {
+            super("he");
+        }
+    }
+
+    private static final class SheRule extends TokenRule {
+        SheRule() {
+            super("she");
+        }
+    }
+
+    private static final class HersRule extends TokenRule {
+        HersRule() {
+            super("hers", "his");
+        }
+    }
+
+    private static final class UntriggeredRule extends TokenRule {
+        UntriggeredRule() {
+            super();
+        }
+    }
+
+    private static final class NonAsciiRule extends TokenRule {
+        NonAsciiRule() {
+            super("caf\u00e9");
+        }
+    }
+
+    @Test
+    public void overlappingTokensAreAllFound() {
+        final TriggerTokenIndex index = TriggerTokenIndex.of(Arrays.asList(new HeRule(), new SheRule(), new HersRule()));
+        assertTrue(index.hasTriggeredRules());
+        assertEquals(bits(0, 1, 2), index.scan("ushers"));
+        assertEquals(bits(0), index.scan("the"));
+        assertEquals(bits(2), index.scan("this"));
+        assertEquals(bits(), index.scan("class A { int s; }"));
+        assertTrue(index.canAnyRuleApply("ushers"));
+        assertFalse(index.canAnyRuleApply("class A { int s; }"));
+    }
+
+    @Test
+    public void untriggeredRulesApplyToAnySource() {
+        final TriggerTokenIndex index = TriggerTokenIndex.of(Arrays.asList(new SheRule(), new UntriggeredRule()));
+        assertTrue(index.hasTriggeredRules());
+        assertEquals(bits(1), index.scan("class A {}"));
+        assertTrue(index.canAnyRuleApply("class A {}"));
+        assertFalse(TriggerTokenIndex.of(Collections.singletonList(new UntriggeredRule())).hasTriggeredRules());
+    }
+
+    @Test
+    public void fileIsScanned() throws Exception {
+        final TriggerTokenIndex index = TriggerTokenIndex.of(Arrays.asList(new SheRule(), new HersRule()));
+        final Charset utf8 = Charset.forName("UTF-8");
+        final File file = File.createTempFile("TriggerTokenIndexTest", ".java");
+        try {
+            write(file, "class A { String s = \"caf\u00e9\"; }", utf8);
+            assertFalse(index.canAnyRuleApply(file, utf8));
+
+            write(file, "class A { String s = \"caf\u00e9\"; int hers; }", utf8);
+            assertTrue(index.canAnyRuleApply(file, utf8));
+
+            final Charset utf16 = Charset.forName("UTF-16");
+            write(file, "class A {}", utf16);
+            assertTrue("the bytes of UTF-16 cannot be matched against ASCII tokens",
+                    index.canAnyRuleApply(file, utf16));
+        } finally {
+            assertTrue("the file must not stay locked once scanned", file.delete());
+        }
+    }
+
+    @Test
+    public void tokenAcrossTwoReadsIsFound() throws Exception {
+        final TriggerTokenIndex index = TriggerTokenIndex.of(Arrays.asList(new SheRule(), new HersRule()));
+        final Charset utf8 = Charset.forName("UTF-8");
+        final File file = File.createTempFile("TriggerTokenIndexTest", ".java");
+        try {
+            final StringBuilder sb = new StringBuilder();
+            while (sb.length() < 8190) {
+                sb.append(' ');
+            }
+            write(file, sb + "hers", utf8);
+            assertTrue(index.canAnyRuleApply(file, utf8));
+
+            write(file, sb + "he rs", utf8);
+            assertFalse(index.canAnyRuleApply(file, utf8));
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void untriggeredRuleDoesNotReadTheFile() throws Exception {
+        final TriggerTokenIndex index = TriggerTokenIndex.of(Arrays.asList(new SheRule(), new UntriggeredRule()));
+        assertTrue(index.canAnyRuleApply(new File("does/not/exist.java"), Charset.forName("UTF-8")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonAsciiTokensAreRejected() {
+        TriggerTokenIndex.of(Collections.singletonList(new NonAsciiRule()));
+    }
+
+    private static BitSet bits(int... indices) {
+        final BitSet bits = new BitSet();
+        for (int i : indices) {
+            bits.set(i);
+        }
+        return bits;
+    }
+
+    private static void write(File file, String content, Charset charset) throws Exception {
+        final OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes(charset));
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.ImportDeclaration;
+import org.junit.Test;
+
+/** Checks that {@link TypeBindingsCache} is shared by all the nodes of an AST, and only by them. */
+public class TypeBindingsCacheTest {
+    @Test
+    public void sharedByTheNodesOfAnAst() {
+        final AST ast = AST.newAST(AST.JLS8);
+        final CompilationUnit cu = ast.newCompilationUnit();
+        final ImportDeclaration importDecl = ast.newImportDeclaration();
+        importDecl.setName(ast.newName("java.util.List"));
+        ASTHelper.imports(cu).add(importDecl);
+
+        final TypeBindingsCache cache = TypeBindingsCache.of(importDecl.getName());
+        assertSame(cache, TypeBindingsCache.of(cu));
+        assertNotSame(cache, TypeBindingsCache.of(AST.newAST(AST.JLS8).newCompilationUnit()));
+
+        TypeBindingsCache.clear(importDecl);
+        assertNotSame(cache, TypeBindingsCache.of(cu));
+    }
+
+    @Test
+    public void notSharedWhenDisabled() {
+        final CompilationUnit cu = AST.newAST(AST.JLS8).newCompilationUnit();
+        TypeBindingsCache.setEnabled(false);
+        try {
+            assertNotSame(TypeBindingsCache.of(cu), TypeBindingsCache.of(cu));
+        } finally {
+            TypeBindingsCache.setEnabled(true);
+        }
+    }
+
+    @Test
+    public void countsHitsAndMisses() {
+        final TypeBindingsCache cache = TypeBindingsCache.of(AST.newAST(AST.JLS8).newCompilationUnit());
+        final ITypeBinding typeBinding = new TypeBindingStub("java.util.List");
+        final List<String> typeNames = Arrays.asList("java.lang.Object", "java.lang.String");
+
+        assertNull(cache.getTypeBinding("java.util.List"));
+        assertNull(cache.getTopLevelTypeNames("java.lang"));
+        cache.putTypeBinding("java.util.List", typeBinding);
+        cache.putTopLevelTypeNames("java.lang", typeNames);
+        assertSame(typeBinding, cache.getTypeBinding("java.util.List"));
+        assertSame(typeNames, cache.getTopLevelTypeNames("java.lang"));
+        assertNull(cache.getTypeBinding("java.util.Map"));
+
+        assertEquals(2, cache.getNbHits());
+        assertEquals(3, cache.getNbMisses());
+    }
+}
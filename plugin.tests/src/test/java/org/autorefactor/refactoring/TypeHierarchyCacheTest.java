@@ -0,0 +1,164 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.junit.Test;
+
+/** Checks that {@link TypeHierarchyCache} finds the same supertypes as walking the bindings, only once. */
+public class TypeHierarchyCacheTest {
+    /** A type binding with a type hierarchy, counting the erasures it computes. */
+    private static final class HierarchyBindingStub extends TypeBindingStub {
+        private final String qualifiedName;
+        private final ITypeBinding erasure;
+        private final ITypeBinding superclass;
+        private final ITypeBinding[] interfaces;
+        private int nbErasures;
+
+        private HierarchyBindingStub(String qualifiedName, ITypeBinding superclass, ITypeBinding... interfaces) {
+            this(qualifiedName, qualifiedName, null, superclass, interfaces);
+        }
+
+        private HierarchyBindingStub(String qualifiedName, String erasureName, ITypeBinding erasure,
+                ITypeBinding superclass, ITypeBinding... interfaces) {
+            super(erasureName);
+            this.qualifiedName = qualifiedName;
+            this.erasure = erasure;
+            this.superclass = superclass;
+            this.interfaces = interfaces;
+        }
+
+        private static HierarchyBindingStub parameterize(HierarchyBindingStub genericType, String typeArgument) {
+            return new HierarchyBindingStub(genericType.getQualifiedName() + "<" + typeArgument + ">",
+                    genericType.getQualifiedName(), genericType, genericType.superclass, genericType.interfaces);
+        }
+
+        @Override
+        public String getQualifiedName() {
+            return qualifiedName;
+        }
+
+        @Override
+        public ITypeBinding getErasure() {
+            nbErasures++;
+            return erasure != null ? erasure : this;
+        }
+
+        @Override
+        public boolean isParameterizedType() {
+            return erasure != null;
+        }
+
+        @Override
+        public boolean isRawType() {
+            return false;
+        }
+
+        @Override
+        public ITypeBinding getSuperclass() {
+            return superclass;
+        }
+
+        @Override
+        public ITypeBinding[] getInterfaces() {
+            return interfaces;
+        }
+    }
+
+    private static final HierarchyBindingStub OBJECT = new HierarchyBindingStub("java.lang.Object", null);
+    private static final HierarchyBindingStub ITERABLE = new HierarchyBindingStub("java.lang.Iterable", null);
+    private static final HierarchyBindingStub COLLECTION =
+            new HierarchyBindingStub("java.util.Collection", null, ITERABLE);
+    private static final HierarchyBindingStub LIST = new HierarchyBindingStub("java.util.List", null, COLLECTION);
+    private static final HierarchyBindingStub ABSTRACT_LIST =
+            new HierarchyBindingStub("java.util.AbstractList", OBJECT, LIST);
+    private static final HierarchyBindingStub ARRAY_LIST =
+            new HierarchyBindingStub("java.util.ArrayList", ABSTRACT_LIST, LIST);
+
+    @Test
+    public void findsTheSuperclassesAndTheInterfaces() throws Exception {
+        final TypeHierarchyCache cache = new TypeHierarchyCache();
+        final ITypeBinding stringList = HierarchyBindingStub.parameterize(ARRAY_LIST, "java.lang.String");
+        for (String supertype : new String[] { "java.util.ArrayList", "java.util.AbstractList", "java.lang.Object",
+            "java.util.List", "java.util.Collection", "java.lang.Iterable" }) {
+            assertTrue(supertype, cache.isSubtypeOf(stringList, supertype));
+        }
+        assertFalse(cache.isSubtypeOf(stringList, "java.util.Map"));
+        assertFalse(cache.isSubtypeOf(LIST, "java.lang.Object"));
+    }
+
+    @Test
+    public void parameterizationsShareTheHierarchyOfTheirGenericType() throws Exception {
+        final TypeHierarchyCache cache = new TypeHierarchyCache();
+        assertTrue(cache.isSubtypeOf(HierarchyBindingStub.parameterize(ARRAY_LIST, "java.lang.String"),
+                "java.util.List"));
+        final long nbMisses = cache.getNbMisses();
+        final long nbHits = cache.getNbHits();
+
+        assertTrue(cache.isSubtypeOf(HierarchyBindingStub.parameterize(ARRAY_LIST, "java.lang.Integer"),
+                "java.lang.Iterable"));
+        assertEquals(nbMisses, cache.getNbMisses());
+        assertEquals(nbHits + 1, cache.getNbHits());
+    }
+
+    @Test
+    public void erasureNamesAreOnlyComputedOnce() throws Exception {
+        final TypeHierarchyCache cache = new TypeHierarchyCache();
+        final HierarchyBindingStub stringList = HierarchyBindingStub.parameterize(ARRAY_LIST, "java.lang.String");
+        assertEquals("java.util.ArrayList", cache.getErasureName(stringList));
+        assertEquals("java.util.ArrayList", cache.getErasureName(stringList));
+        assertEquals(1, stringList.nbErasures);
+        assertEquals(1, cache.getNbMisses());
+        assertEquals(1, cache.getNbHits());
+    }
+
+    @Test
+    public void currentCacheIsRestoredAndCanBeDisabled() throws Exception {
+        final TypeHierarchyCache outer = new TypeHierarchyCache();
+        final TypeHierarchyCache inner = new TypeHierarchyCache();
+        assertNull(TypeHierarchyCache.setCurrent(outer));
+        try {
+            assertSame(outer, TypeHierarchyCache.setCurrent(inner));
+            assertSame(inner, TypeHierarchyCache.current());
+            TypeHierarchyCache.setEnabled(false);
+            try {
+                assertNull(TypeHierarchyCache.current());
+            } finally {
+                TypeHierarchyCache.setEnabled(true);
+            }
+            assertSame(inner, TypeHierarchyCache.setCurrent(outer));
+        } finally {
+            TypeHierarchyCache.setCurrent(null);
+        }
+        assertNull(TypeHierarchyCache.current());
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring.rules;
+
+import static org.autorefactor.test.TestHelper.TEST_ENVIRONMENT;
+import static org.autorefactor.test.TestHelper.newJavaProjectOptions;
+import static org.autorefactor.refactoring.ASTHelper.DO_NOT_VISIT_SUBTREE;
+import static org.autorefactor.refactoring.ASTHelper.VISIT_SUBTREE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.autorefactor.refactoring.ApplyRefactoringsJob;
+import org.autorefactor.refactoring.BindingFreeRefactoringRule;
+import org.autorefactor.refactoring.ChangedLines;
+import org.autorefactor.refactoring.ParserEnvironment;
+import org.autorefactor.refactoring.RefactoringRule;
+import org.autorefactor.refactoring.Refactorings;
+import org.autorefactor.refactoring.Release;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.FieldDeclaration;
+import org.eclipse.jdt.core.dom.ImportDeclaration;
+import org.eclipse.jdt.core.dom.PrimitiveType;
+import org.eclipse.jdt.core.dom.TypeDeclaration;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.junit.Test;
+
+/** Refactors only the changed lines of a compilation unit, including with the rules refactoring it as a whole. */
+public class ChangedLinesTest {
+    @Test
+    public void rulesRefactoringTheWholeCompilationUnitOnlyTouchTheChangedLines() throws Exception {
+        final IDocument doc = new Document("package p;\n"
+                + "\n"
+                + "\n"
+                + "public class A {\n"
+                + "    int i;;\n"
+                + "\n"
+                + "\n"
+                + "    int j;;\n"
+                + "}\n");
+        ChangedLines.track(doc, 5, 7);
+
+        final boolean refactored = new ApplyRefactoringsJob(null, null, TEST_ENVIRONMENT).applyRefactoring(
+                doc, "p/A.java",
+                new ParserEnvironment(new String[0], new String[0], null, true),
+                new AggregateASTVisitor(Arrays.<RefactoringRule> asList(
+                        new RemoveEmptyLinesRefactoring(), new RemoveSemiColonRefactoring())),
+                newJavaProjectOptions(Release.javaSE("1.8.0"), 4),
+                SubMonitor.convert(new NullProgressMonitor()));
+
+        assertTrue(refactored);
+        assertEquals("package p;\n"
+                + "\n"
+                + "\n"
+                + "public class A {\n"
+                + "    int i;\n"
+                + "\n"
+                + "    int j;;\n"
+                + "}\n", doc.get());
+    }
+
+    @Test
+    public void visitTouchingTheChangedLinesIsAppliedWhole() throws Exception {
+        final IDocument doc = new Document("package p;\n"
+                + "\n"
+                + "import java.util.Map;\n"
+                + "\n"
+                + "public class A {\n"
+                + "    Map<String, String> m;\n"
+                + "    int i;\n"
+                + "}\n");
+        ChangedLines.track(doc, 7, 7);
+
+        assertTrue(refactor(doc));
+        assertEquals("package p;\n"
+                + "\n"
+                + "import java.util.Map;\n"
+                + "import java.util.List;\n"
+                + "\n"
+                + "public class A {\n"
+                + "    Map<String, String> m;\n"
+                + "    long i;\n"
+                + "}\n", doc.get());
+    }
+
+    @Test
+    public void visitOutsideTheChangedLinesIsDroppedWhole() throws Exception {
+        final String source = "package p;\n"
+                + "\n"
+                + "import java.util.Map;\n"
+                + "\n"
+                + "public class A {\n"
+                + "    Map<String, String> m;\n"
+                + "    int i;\n"
+                + "}\n";
+        final IDocument doc = new Document(source);
+        ChangedLines.track(doc, 6, 6);
+
+        assertFalse(refactor(doc));
+        assertEquals(source, doc.get());
+    }
+
+    private static boolean refactor(IDocument doc) throws Exception {
+        return new ApplyRefactoringsJob(null, null, TEST_ENVIRONMENT).applyRefactoring(
+                doc, "p/A.java",
+                new ParserEnvironment(new String[0], new String[0], null, true),
+                new AggregateASTVisitor(Arrays.<RefactoringRule> asList(new IntFieldsToLongRefactoring())),
+                newJavaProjectOptions(Release.javaSE("1.8.0"), 4),
+                SubMonitor.convert(new NullProgressMonitor()));
+    }
+
+    /**
+     * Refactors a compilation unit as a whole, like the rules adding an import along with the code using it.
+     */
+    private static final class IntFieldsToLongRefactoring extends AbstractRefactoringRule
+            implements BindingFreeRefactoringRule {
+        @Override
+        public String getName() {
+            return "IntFieldsToLong";
+        }
+
+        @Override
+        public String getDescription() {
+            return "Declares the int fields as long, and imports java.util.List along with them.";
+        }
+
+        @Override
+        public String getReason() {
+            return "Checks that the refactorings of a visit are applied together.";
+        }
+
+        @Override
+        public boolean visit(CompilationUnit node) {
+            final Refactorings r = ctx.getRefactorings();
+            final AST ast = node.getAST();
+            boolean refactored = false;
+            for (Object type : node.types()) {
+                for (FieldDeclaration field : ((TypeDeclaration) type).getFields()) {
+                    if (field.getType().isPrimitiveType()
+                            && ((PrimitiveType) field.getType()).getPrimitiveTypeCode() == PrimitiveType.INT) {
+                        r.replace(field.getType(), ast.newPrimitiveType(PrimitiveType.LONG));
+                        refactored = true;
+                    }
+                }
+            }
+            if (refactored) {
+                final ImportDeclaration importDecl = ast.newImportDeclaration();
+                importDecl.setName(ast.newName(new String[] { "java", "util", "List" }));
+                r.insertLast(node, CompilationUnit.IMPORTS_PROPERTY, importDecl);
+                return DO_NOT_VISIT_SUBTREE;
+            }
+            return VISIT_SUBTREE;
+        }
+    }
+}
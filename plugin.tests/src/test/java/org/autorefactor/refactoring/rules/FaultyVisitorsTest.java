@@ -0,0 +1,123 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring.rules;
+
+import static org.autorefactor.test.TestHelper.TEST_ENVIRONMENT;
+import static org.autorefactor.test.TestHelper.newJavaProjectOptions;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.autorefactor.environment.Environment;
+import org.autorefactor.environment.Logger;
+import org.autorefactor.refactoring.ApplyRefactoringsJob;
+import org.autorefactor.refactoring.BindingFreeRefactoringRule;
+import org.autorefactor.refactoring.ParserEnvironment;
+import org.autorefactor.refactoring.RefactoringRule;
+import org.autorefactor.refactoring.Release;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jface.text.Document;
+import org.junit.Test;
+
+/**
+ * Disables the visitors throwing an exception for the rest of the run,
+ * even when the visitors are analyzed again for the next files.
+ */
+public class FaultyVisitorsTest {
+    @Test
+    public void faultyVisitorIsNeverSelectedAgain() throws Exception {
+        final RecordingLogger logger = new RecordingLogger();
+        final Environment environment = new Environment(TEST_ENVIRONMENT.getEventLoop(), null, logger, null);
+        final ThrowingRefactoring throwing = new ThrowingRefactoring();
+        final AggregateASTVisitor visitor = new AggregateASTVisitor(Arrays.<RefactoringRule> asList(throwing));
+
+        for (int i = 0; i < 2; i++) {
+            final boolean refactored = new ApplyRefactoringsJob(null, null, environment).applyRefactoring(
+                    new Document("package p;\n"
+                            + "public class A" + i + " {\n"
+                            + "    void m() {}\n"
+                            + "}\n"),
+                    "p/A" + i + ".java",
+                    new ParserEnvironment(new String[0], new String[0], null, true),
+                    visitor,
+                    newJavaProjectOptions(Release.javaSE("1.8.0"), 4),
+                    SubMonitor.convert(new NullProgressMonitor()));
+            assertFalse(refactored);
+        }
+
+        assertEquals(1, throwing.visits);
+        assertEquals(1, logger.errors.size());
+    }
+
+    private static final class ThrowingRefactoring extends AbstractRefactoringRule
+            implements BindingFreeRefactoringRule {
+        private int visits;
+
+        @Override
+        public String getName() {
+            return "Throwing";
+        }
+
+        @Override
+        public String getDescription() {
+            return "Throws while visiting any method declaration.";
+        }
+
+        @Override
+        public String getReason() {
+            return "Checks how faulty visitors are handled.";
+        }
+
+        @Override
+        public boolean visit(MethodDeclaration node) {
+            visits++;
+            throw new IllegalArgumentException("faulty");
+        }
+    }
+
+    private static final class RecordingLogger implements Logger {
+        private final List<String> errors = new ArrayList<String>();
+
+        public void error(String message) {
+            errors.add(message);
+        }
+
+        public void error(String message, Exception e) {
+            errors.add(message);
+        }
+
+        public void warn(String message) {
+        }
+
+        public void info(String message) {
+        }
+    }
+}
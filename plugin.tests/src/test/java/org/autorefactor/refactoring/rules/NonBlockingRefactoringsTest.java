@@ -0,0 +1,209 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring.rules;
+
+import static org.autorefactor.refactoring.ASTHelper.DO_NOT_VISIT_SUBTREE;
+import static org.autorefactor.refactoring.ASTHelper.VISIT_SUBTREE;
+import static org.autorefactor.test.TestHelper.TEST_ENVIRONMENT;
+import static org.autorefactor.test.TestHelper.newJavaProjectOptions;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.autorefactor.refactoring.ApplyRefactoringsJob;
+import org.autorefactor.refactoring.FixedPointStatistics;
+import org.autorefactor.refactoring.RefactoringRule;
+import org.autorefactor.refactoring.Refactorings;
+import org.autorefactor.refactoring.Release;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.dom.Block;
+import org.eclipse.jdt.core.dom.BooleanLiteral;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.NumberLiteral;
+import org.eclipse.jdt.core.dom.ReturnStatement;
+import org.eclipse.jdt.core.dom.SimpleName;
+import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
+import org.eclipse.jdt.core.dom.VariableDeclarationStatement;
+import org.eclipse.jface.text.Document;
+import org.junit.Test;
+
+/** Checks that the rules whose refactorings do not overlap all contribute during the same pass. */
+public class NonBlockingRefactoringsTest {
+    private static final String SOURCE = "package org.autorefactor.nonblocking.%s;\n"
+            + "public class Sample {\n"
+            + "    int value() {\n"
+            + "        boolean b = true;\n"
+            + "        return 1;\n"
+            + "    }\n"
+            + "}\n";
+    private static final String SOURCE_WITH_VARIABLE = "package org.autorefactor.nonblocking.%s;\n"
+            + "public class Sample {\n"
+            + "    int value() {\n"
+            + "        int i = 2;\n"
+            + "        return i;\n"
+            + "    }\n"
+            + "}\n";
+
+    private List<String> summary;
+
+    @Test
+    public void independentRefactoringsAreAppliedInTheSamePass() throws Exception {
+        final String source = String.format(SOURCE, "independent");
+        final Document doc = refactor(SOURCE, "independent", new ReplaceReturnedOne(), new ReplaceTrueByFalse());
+
+        assertEquals(source.replace("true", "false").replace("return 1", "return 2"), doc.get());
+        assertEquals("1 file(s) reached a fixed point after 1 changing pass(es) in total", summary.get(0));
+    }
+
+    @Test
+    public void conflictingRefactoringsAreDeferredToTheNextPass() throws Exception {
+        final String source = String.format(SOURCE, "conflicting");
+        final Document doc = refactor(SOURCE, "conflicting",
+                new ReplaceReturnedOne(), new ReplaceTwoByThree(), new ReplaceTrueByFalse());
+
+        assertEquals(source.replace("true", "false").replace("return 1", "return 3"), doc.get());
+        assertEquals("1 file(s) reached a fixed point after 2 changing pass(es) in total", summary.get(0));
+    }
+
+    @Test
+    public void visitOverlappingAnotherVisitIsDeferredWhole() throws Exception {
+        final String source = String.format(SOURCE_WITH_VARIABLE, "overlapping");
+        // the return statement does not overlap the refactored literal, but the removed declaration does
+        final Document doc = refactor(SOURCE_WITH_VARIABLE, "overlapping",
+                new InlineReturnedVariable(), new ReplaceTwoByThree());
+
+        assertEquals(source.replace("        int i = 2;\n", "").replace("return i", "return 3"), doc.get());
+        assertEquals("1 file(s) reached a fixed point after 2 changing pass(es) in total", summary.get(0));
+    }
+
+    private Document refactor(String sourceFormat, String packageName, RefactoringRule... rules) throws Exception {
+        final String source = String.format(sourceFormat, packageName);
+        final IPackageFragment packageFragment =
+                JavaCoreHelper.getPackageFragment("org.autorefactor.nonblocking." + packageName);
+        final ICompilationUnit cu = packageFragment.createCompilationUnit("Sample.java", source, true, null);
+        cu.getBuffer().setContents(source);
+        cu.save(null, true);
+
+        final FixedPointStatistics statistics = new FixedPointStatistics();
+        final ApplyRefactoringsJob job = new ApplyRefactoringsJob(null, null, TEST_ENVIRONMENT);
+        job.setFixedPointStatistics(statistics);
+        final Document doc = new Document(source);
+        job.applyRefactoring(doc, cu, new AggregateASTVisitor(Arrays.asList(rules)),
+                newJavaProjectOptions(Release.javaSE("1.8.0"), 4),
+                SubMonitor.convert(new NullProgressMonitor()));
+        summary = statistics.getSummary();
+        return doc;
+    }
+
+    /** Base class of the test rules. */
+    private abstract static class TestRule extends AbstractRefactoringRule {
+        @Override
+        public String getName() {
+            return getClass().getSimpleName();
+        }
+
+        @Override
+        public String getDescription() {
+            return getClass().getSimpleName();
+        }
+
+        @Override
+        public String getReason() {
+            return "Checks how the refactorings of several rules are combined.";
+        }
+    }
+
+    /** Refactors a descendant of the visited method, then does not visit its subtree anymore. */
+    public static class ReplaceReturnedOne extends TestRule {
+        @Override
+        public boolean visit(MethodDeclaration node) {
+            for (Object statement : node.getBody().statements()) {
+                if (statement instanceof ReturnStatement) {
+                    final ReturnStatement returnStatement = (ReturnStatement) statement;
+                    if (returnStatement.getExpression() instanceof NumberLiteral
+                            && "1".equals(((NumberLiteral) returnStatement.getExpression()).getToken())) {
+                        ctx.getRefactorings().replace(returnStatement.getExpression(),
+                                ctx.getASTBuilder().number("2"));
+                        return DO_NOT_VISIT_SUBTREE;
+                    }
+                }
+            }
+            return VISIT_SUBTREE;
+        }
+    }
+
+    /** Refactors the same node as {@link ReplaceReturnedOne}, once it has been refactored. */
+    public static class ReplaceTwoByThree extends TestRule {
+        @Override
+        public boolean visit(NumberLiteral node) {
+            if ("2".equals(node.getToken())) {
+                ctx.getRefactorings().replace(node, ctx.getASTBuilder().number("3"));
+                return DO_NOT_VISIT_SUBTREE;
+            }
+            return VISIT_SUBTREE;
+        }
+    }
+
+    /** Refactors the return statement and the declaration before it, which contains a literal. */
+    public static class InlineReturnedVariable extends TestRule {
+        @Override
+        public boolean visit(ReturnStatement node) {
+            final List<?> statements = ((Block) node.getParent()).statements();
+            final int index = statements.indexOf(node);
+            if (index > 0
+                    && statements.get(index - 1) instanceof VariableDeclarationStatement
+                    && node.getExpression() instanceof SimpleName) {
+                final VariableDeclarationStatement declaration =
+                        (VariableDeclarationStatement) statements.get(index - 1);
+                final VariableDeclarationFragment fragment =
+                        (VariableDeclarationFragment) declaration.fragments().get(0);
+                if (fragment.getName().getIdentifier().equals(((SimpleName) node.getExpression()).getIdentifier())) {
+                    final Refactorings r = ctx.getRefactorings();
+                    r.replace(node.getExpression(), ctx.getASTBuilder().move(fragment.getInitializer()));
+                    r.remove(declaration);
+                    return DO_NOT_VISIT_SUBTREE;
+                }
+            }
+            return VISIT_SUBTREE;
+        }
+    }
+
+    /** Refactors a node next to the one refactored by {@link ReplaceReturnedOne}. */
+    public static class ReplaceTrueByFalse extends TestRule {
+        @Override
+        public boolean visit(BooleanLiteral node) {
+            if (node.booleanValue()) {
+                ctx.getRefactorings().replace(node, ctx.getASTBuilder().boolean0(false));
+                return DO_NOT_VISIT_SUBTREE;
+            }
+            return VISIT_SUBTREE;
+        }
+    }
+}
@@ -102,12 +102,37 @@ public class RefactoringRulesTest {
         });
     }
 
+    /** Accumulating refactorings on the untouched parts of the AST must not change the refactored code. */
+    @Test
+    public void testRefactoringWithMultiplePassesPerParse() throws Exception {
+        runTest(new Callable<Void>() {
+            /**
+             * Call.
+             *
+             * @return the void.
+             */
+            public Void call() throws Exception {
+                final String singlePassPerParse = refactorSample(false);
+                assertEquals(testName + ": wrong output with multiple passes per parse;",
+                        singlePassPerParse, refactorSample(true));
+                return null;
+            }
+        });
+    }
+
     private void testRefactoring0() throws Exception {
+        final File sampleOut = new File(SAMPLES_BASE_DIR, "samples_out/" + testName + "Sample.java");
+        assertTrue(testName + ": sample out file " + sampleOut + " should exist", sampleOut.exists());
+
+        final String actual = refactorSample(false);
+        final String expected = normalizeJavaSourceCode(readAll(sampleOut));
+        assertEquals(testName + ": wrong output;", expected, actual);
+    }
+
+    private String refactorSample(boolean multiplePassesPerParse) throws Exception {
         final String sampleName = testName + "Sample.java";
         final File sampleIn = new File(SAMPLES_BASE_DIR, "samples_in/" + sampleName);
         assertTrue(testName + ": sample in file " + sampleIn + " should exist", sampleIn.exists());
-        final File sampleOut = new File(SAMPLES_BASE_DIR, "samples_out/" + sampleName);
-        assertTrue(testName + ": sample out file " + sampleOut + " should exist", sampleOut.exists());
 
         final String refactoringClassname = testName + "Refactoring";
         final RefactoringRule refactoring = getRefactoringClass(refactoringClassname);
@@ -117,7 +142,6 @@ public class RefactoringRulesTest {
                 refactoring);
 
         final String sampleInSource = readAll(sampleIn);
-        final String sampleOutSource = readAll(sampleOut);
 
         final IPackageFragment packageFragment = JavaCoreHelper.getPackageFragment(PACKAGE_NAME);
         final ICompilationUnit cu = packageFragment.createCompilationUnit(
@@ -126,16 +150,15 @@ public class RefactoringRulesTest {
         cu.save(null, true);
 
         final IDocument doc = new Document(sampleInSource);
-        new ApplyRefactoringsJob(null, null, TEST_ENVIRONMENT).applyRefactoring(
+        final ApplyRefactoringsJob job = new ApplyRefactoringsJob(null, null, TEST_ENVIRONMENT);
+        job.setMultiplePassesPerParse(multiplePassesPerParse);
+        job.applyRefactoring(
                 doc, cu,
                 new AggregateASTVisitor(Arrays.asList(refactoring)),
                 newJavaProjectOptions(Release.javaSE("1.8.0"), 4),
                 SubMonitor.convert(new NullProgressMonitor()));
 
-        final String actual = normalizeJavaSourceCode(
-                doc.get().replaceAll("samples_in", "samples_out"));
-        final String expected = normalizeJavaSourceCode(sampleOutSource);
-        assertEquals(testName + ": wrong output;", expected, actual);
+        return normalizeJavaSourceCode(doc.get().replaceAll("samples_in", "samples_out"));
     }
 
     private RefactoringRule getRefactoringClass(final String refactoringClassName) throws Exception {
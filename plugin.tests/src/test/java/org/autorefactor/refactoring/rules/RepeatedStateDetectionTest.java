@@ -0,0 +1,133 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring.rules;
+
+import static org.autorefactor.refactoring.ASTHelper.DO_NOT_VISIT_SUBTREE;
+import static org.autorefactor.refactoring.ASTHelper.VISIT_SUBTREE;
+import static org.autorefactor.test.TestHelper.TEST_ENVIRONMENT;
+import static org.autorefactor.test.TestHelper.newJavaProjectOptions;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+
+import org.autorefactor.refactoring.ApplyRefactoringsJob;
+import org.autorefactor.refactoring.FixedPointStatistics;
+import org.autorefactor.refactoring.RefactoringRule;
+import org.autorefactor.refactoring.Release;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.dom.NumberLiteral;
+import org.eclipse.jface.text.Document;
+import org.junit.Test;
+
+/** Checks that code refactored one way then back is detected as soon as a previous state recurs. */
+public class RepeatedStateDetectionTest {
+    private static final String SOURCE = "package org.autorefactor.repeatedstate;\n"
+            + "public class Sample {\n"
+            + "    int value() { return 1; }\n"
+            + "}\n";
+
+    @Test
+    public void pingPongingRulesAreReportedAfterTheFirstCycle() throws Exception {
+        final IPackageFragment packageFragment = JavaCoreHelper.getPackageFragment("org.autorefactor.repeatedstate");
+        final ICompilationUnit cu = packageFragment.createCompilationUnit("Sample.java", SOURCE, true, null);
+        cu.getBuffer().setContents(SOURCE);
+        cu.save(null, true);
+
+        final FixedPointStatistics statistics = new FixedPointStatistics();
+        final ApplyRefactoringsJob job = new ApplyRefactoringsJob(null, null, TEST_ENVIRONMENT);
+        job.setFixedPointStatistics(statistics);
+        try {
+            job.applyRefactoring(new Document(SOURCE), cu,
+                    new AggregateASTVisitor(Arrays.<RefactoringRule> asList(new OneToTwo(), new TwoToOne())),
+                    newJavaProjectOptions(Release.javaSE("1.8.0"), 4),
+                    SubMonitor.convert(new NullProgressMonitor()));
+            fail("Expected the infinite loop to be reported");
+        } catch (RuntimeException e) {
+            // the test logger throws the reported error
+            final String message = e.getMessage();
+            assertTrue(message, message.contains("After pass 2, the code came back to what it was after pass 0"));
+            assertTrue(message, message.contains(OneToTwo.class.getName()));
+            assertTrue(message, message.contains(TwoToOne.class.getName()));
+        }
+        assertEquals(1, statistics.getNbRepeatedStates());
+    }
+
+    /** Replaces the number literals with a value by another value. */
+    private abstract static class ReplaceNumber extends AbstractRefactoringRule {
+        private final String from;
+        private final String to;
+
+        ReplaceNumber(String from, String to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public String getName() {
+            return getClass().getSimpleName();
+        }
+
+        @Override
+        public String getDescription() {
+            return "Replaces " + from + " by " + to + ".";
+        }
+
+        @Override
+        public String getReason() {
+            return "Refactors the code back and forth with another rule.";
+        }
+
+        @Override
+        public boolean visit(NumberLiteral node) {
+            if (from.equals(node.getToken())) {
+                ctx.getRefactorings().replace(node, ctx.getASTBuilder().number(to));
+                return DO_NOT_VISIT_SUBTREE;
+            }
+            return VISIT_SUBTREE;
+        }
+    }
+
+    /** Replaces 1 by 2. */
+    public static class OneToTwo extends ReplaceNumber {
+        /** Default constructor. */
+        public OneToTwo() {
+            super("1", "2");
+        }
+    }
+
+    /** Replaces 2 by 1. */
+    public static class TwoToOne extends ReplaceNumber {
+        /** Default constructor. */
+        public TwoToOne() {
+            super("2", "1");
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring.rules;
+
+import static org.autorefactor.test.TestHelper.TEST_ENVIRONMENT;
+import static org.autorefactor.test.TestHelper.newJavaProjectOptions;
+import static org.autorefactor.test.TestHelper.readAll;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.autorefactor.refactoring.ApplyRefactoringsJob;
+import org.autorefactor.refactoring.RefactoringRule;
+import org.autorefactor.refactoring.Release;
+import org.autorefactor.refactoring.SkipCache;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jface.text.Document;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Checks which files the {@link SkipCache} lets skip on the next runs. */
+public class SkipCacheTest {
+    private static final Release RELEASE = Release.javaSE("1.8.0");
+    private static final String PACKAGE_NAME = "org.autorefactor.skipcache";
+    private static final String BASE = "package " + PACKAGE_NAME + ";\n"
+            + "public class Base {\n"
+            + "    protected int base;\n"
+            + "}\n";
+    private static final String DEPENDENCY = "package " + PACKAGE_NAME + ";\n"
+            + "public class Dependency extends Base {\n"
+            + "    public int value() { return 1; }\n"
+            + "}\n";
+    private static final String UNIT = "package " + PACKAGE_NAME + ";\n"
+            + "public class Unit {\n"
+            + "    int value(Dependency d) { return d.value(); }\n"
+            + "}\n";
+
+    private final List<RefactoringRule> rules = Arrays.<RefactoringRule> asList(new StringRefactoring());
+    private File indexFile;
+    private IPackageFragment packageFragment;
+    private IJavaProject javaProject;
+
+    @Before
+    public void setUp() throws Exception {
+        indexFile = File.createTempFile("skip-cache", ".idx");
+        indexFile.delete();
+        packageFragment = JavaCoreHelper.getPackageFragment(PACKAGE_NAME);
+        javaProject = packageFragment.getJavaProject();
+        createCompilationUnit("Base.java", BASE);
+        createCompilationUnit("Dependency.java", DEPENDENCY);
+        refactor(createCompilationUnit("Unit.java", UNIT));
+    }
+
+    @After
+    public void tearDown() {
+        indexFile.delete();
+    }
+
+    @Test
+    public void unchangedFileIsUpToDateForNextRuns() throws Exception {
+        assertTrue(new SkipCache(indexFile, rules).isUpToDate(UNIT, javaProject, RELEASE));
+    }
+
+    @Test
+    public void changedFileIsNotUpToDate() throws Exception {
+        assertFalse(new SkipCache(indexFile, rules).isUpToDate(UNIT + "\n", javaProject, RELEASE));
+    }
+
+    @Test
+    public void otherRulesOrReleaseAreNotUpToDate() throws Exception {
+        final List<RefactoringRule> otherRules = Collections.<RefactoringRule> singletonList(new BooleanRefactoring());
+        assertFalse(new SkipCache(indexFile, otherRules).isUpToDate(UNIT, javaProject, RELEASE));
+        assertFalse(new SkipCache(indexFile, rules).isUpToDate(UNIT, javaProject, Release.javaSE("1.7.0")));
+    }
+
+    @Test
+    public void dependencyBodyChangeKeepsFileUpToDate() throws Exception {
+        createCompilationUnit("Dependency.java", DEPENDENCY.replace("return 1;", "return 2;"));
+        assertTrue(new SkipCache(indexFile, rules).isUpToDate(UNIT, javaProject, RELEASE));
+    }
+
+    @Test
+    public void dependencySignatureChangeInvalidatesFile() throws Exception {
+        createCompilationUnit("Dependency.java", DEPENDENCY.replace("public int value()", "public long value()"));
+        assertFalse(new SkipCache(indexFile, rules).isUpToDate(UNIT, javaProject, RELEASE));
+    }
+
+    @Test
+    public void supertypeSignatureChangeInvalidatesFile() throws Exception {
+        // the file only references the subtype, but inherits what the supertype declares through it
+        createCompilationUnit("Base.java", BASE.replace("int base", "long base"));
+        assertFalse(new SkipCache(indexFile, rules).isUpToDate(UNIT, javaProject, RELEASE));
+    }
+
+    @Test
+    public void staleEntriesAreRemovedFromTheIndexOnLoad() throws Exception {
+        final SkipCache skipCache = new SkipCache(indexFile, rules);
+        String unit = UNIT;
+        for (int i = 0; i < 3; i++) {
+            unit += "\n";
+            refactor(createCompilationUnit("Unit.java", unit), skipCache);
+        }
+        assertEquals(4, readAll(indexFile).split("\n").length);
+
+        final SkipCache reloaded = new SkipCache(indexFile, rules);
+        assertEquals(1, readAll(indexFile).split("\n").length);
+        assertTrue(reloaded.isUpToDate(unit, javaProject, RELEASE));
+        assertFalse(reloaded.isUpToDate(UNIT, javaProject, RELEASE));
+        assertTrue(new SkipCache(indexFile, rules).isUpToDate(unit, javaProject, RELEASE));
+    }
+
+    private ICompilationUnit createCompilationUnit(String fileName, String source) throws Exception {
+        final ICompilationUnit cu = packageFragment.createCompilationUnit(fileName, source, true, null);
+        cu.getBuffer().setContents(source);
+        cu.save(null, true);
+        return cu;
+    }
+
+    private void refactor(ICompilationUnit cu) throws Exception {
+        refactor(cu, new SkipCache(indexFile, rules));
+    }
+
+    private void refactor(ICompilationUnit cu, SkipCache skipCache) throws Exception {
+        final ApplyRefactoringsJob job = new ApplyRefactoringsJob(null, null, TEST_ENVIRONMENT);
+        job.setSkipCache(skipCache);
+        assertFalse(job.applyRefactoring(new Document(cu.getSource()), cu,
+                new AggregateASTVisitor(rules),
+                newJavaProjectOptions(RELEASE, 4),
+                SubMonitor.convert(new NullProgressMonitor())));
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring.rules;
+
+import static org.autorefactor.test.TestHelper.TEST_ENVIRONMENT;
+import static org.autorefactor.test.TestHelper.newJavaProjectOptions;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.autorefactor.refactoring.ApplyRefactoringsJob;
+import org.autorefactor.refactoring.ParserEnvironment;
+import org.autorefactor.refactoring.RefactoringRule;
+import org.autorefactor.refactoring.Release;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.junit.Test;
+
+/**
+ * Refactors compilation units which do not belong to any Java project, like the standalone launcher does.
+ */
+public class StandaloneRefactoringTest {
+    @Test
+    public void rulesReadingTheSourceCodeRefactorTheDocument() throws Exception {
+        final IDocument doc = new Document("package p;\n"
+                + "\n"
+                + "\n"
+                + "public class A {\n"
+                + "    int i;;\n"
+                + "}\n");
+
+        final boolean refactored = new ApplyRefactoringsJob(null, null, TEST_ENVIRONMENT).applyRefactoring(
+                doc, "p/A.java",
+                new ParserEnvironment(new String[0], new String[0], null, true),
+                new AggregateASTVisitor(Arrays.<RefactoringRule> asList(
+                        new RemoveEmptyLinesRefactoring(), new RemoveSemiColonRefactoring())),
+                newJavaProjectOptions(Release.javaSE("1.8.0"), 4),
+                SubMonitor.convert(new NullProgressMonitor()));
+
+        assertTrue(refactored);
+        assertEquals("package p;\n"
+                + "\n"
+                + "public class A {\n"
+                + "    int i;\n"
+                + "}\n", doc.get());
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring.rules;
+
+import static org.autorefactor.test.TestHelper.TEST_ENVIRONMENT;
+import static org.autorefactor.test.TestHelper.newJavaProjectOptions;
+import static org.autorefactor.test.TestHelper.readAll;
+import static org.autorefactor.util.COEvolgy.TRACE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.autorefactor.refactoring.ApplyRefactoringsJob;
+import org.autorefactor.refactoring.RefactoringRule;
+import org.autorefactor.refactoring.Release;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.junit.Test;
+
+/**
+ * Runs the refactoring rules keeping state about the compilation unit they refactor
+ * concurrently on many files, and verifies they produce the same results as a sequential run.
+ */
+public class StatefulRulesConcurrencyTest {
+
+    private static final String SAMPLES_DIR = "../samples/src/test/java/org/autorefactor/refactoring/rules/samples_in";
+    private static final String PACKAGE_NAME = "org.autorefactor.refactoring.rules.samples_in";
+    /** Each sample is copied in that many packages, so the same code is refactored concurrently. */
+    private static final int NB_COPIES = 3;
+    private static final int NB_THREADS = 4;
+
+    private static final List<Class<? extends RefactoringRule>> STATEFUL_RULES =
+            Arrays.<Class<? extends RefactoringRule>> asList(
+                    DrawAllocationRefactoring.class,
+                    ExcessiveMethodCallsRefactoring.class,
+                    HashMapUsageRefactoring.class,
+                    MemberIgnoringMethodRefactoring.class,
+                    MemoizationChanceRefactoring.class,
+                    RecycleRefactoring.class,
+                    TraceMethodsRefactoring.class,
+                    ViewHolderRefactoring.class,
+                    WakelockRefactoring.class);
+
+    @Test
+    public void concurrentRunGivesSameResultsAsSequentialRun() throws Exception {
+        final List<SampleCopy> copies = new ArrayList<SampleCopy>();
+        for (int i = 0; i < NB_COPIES; i++) {
+            final String packageName = PACKAGE_NAME + ".copy" + i;
+            final IPackageFragment packageFragment = JavaCoreHelper.getPackageFragment(packageName);
+            for (File sample : new File(SAMPLES_DIR).listFiles(new EndsWithFileFilter("Sample.java"))) {
+                final String source = readAll(sample).replace(PACKAGE_NAME, packageName);
+                copies.add(new SampleCopy(packageFragment, sample.getName(), source));
+            }
+        }
+
+        final List<String> expected = new ArrayList<String>(copies.size());
+        final List<RefactoringRule> rules = newRules();
+        for (SampleCopy copy : copies) {
+            expected.add(copy.refactor(rules));
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(NB_THREADS);
+        try {
+            final List<Future<String>> actual = new ArrayList<Future<String>>(copies.size());
+            for (final SampleCopy copy : copies) {
+                actual.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        // like the worker jobs, never share rule instances across threads
+                        return copy.refactor(newRules());
+                    }
+                }));
+            }
+            for (int i = 0; i < copies.size(); i++) {
+                assertEquals(copies.get(i) + ": concurrent run differs from the sequential run;",
+                        expected.get(i), actual.get(i).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void copiesKeepTheOperationFlag() throws Exception {
+        for (Class<? extends RefactoringRule> ruleClass : STATEFUL_RULES) {
+            final RefactoringRule rule = ruleClass.getConstructor(int.class).newInstance(TRACE);
+
+            final RefactoringRule copy = AllRefactoringRules.copyOf(rule);
+
+            assertNotSame(rule, copy);
+            assertSame(ruleClass, copy.getClass());
+            assertEquals(ruleClass.getSimpleName(), TRACE, ((OperationFlagRefactoringRule) copy).getOperationFlag());
+        }
+    }
+
+    private static List<RefactoringRule> newRules() throws Exception {
+        final List<RefactoringRule> rules = new ArrayList<RefactoringRule>(STATEFUL_RULES.size());
+        for (Class<? extends RefactoringRule> ruleClass : STATEFUL_RULES) {
+            rules.add(ruleClass.newInstance());
+        }
+        return rules;
+    }
+
+    /** A copy of a sample file in its own package. */
+    private static final class SampleCopy {
+        private final IPackageFragment packageFragment;
+        private final String fileName;
+        private final String source;
+
+        private SampleCopy(IPackageFragment packageFragment, String fileName, String source) {
+            this.packageFragment = packageFragment;
+            this.fileName = fileName;
+            this.source = source;
+        }
+
+        /** Refactors this copy starting from its original source, and returns the refactored source. */
+        private String refactor(List<RefactoringRule> rules) throws Exception {
+            final ICompilationUnit cu = packageFragment.createCompilationUnit(fileName, source, true, null);
+            cu.getBuffer().setContents(source);
+            cu.save(null, true);
+
+            final IDocument doc = new Document(source);
+            try {
+                new ApplyRefactoringsJob(null, null, TEST_ENVIRONMENT).applyRefactoring(
+                        doc, cu,
+                        new AggregateASTVisitor(rules),
+                        newJavaProjectOptions(Release.javaSE("1.8.0"), 4),
+                        SubMonitor.convert(new NullProgressMonitor()));
+            } catch (RuntimeException e) {
+                // rules failing on a sample must fail the same way in both runs
+                return e.getClass().getName() + ": " + e.getMessage();
+            }
+            return doc.get();
+        }
+
+        @Override
+        public String toString() {
+            return packageFragment.getElementName() + "." + fileName;
+        }
+    }
+}
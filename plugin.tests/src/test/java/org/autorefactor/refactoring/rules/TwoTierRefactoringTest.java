@@ -0,0 +1,186 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring.rules;
+
+import static org.autorefactor.refactoring.ASTHelper.DO_NOT_VISIT_SUBTREE;
+import static org.autorefactor.refactoring.ASTHelper.VISIT_SUBTREE;
+import static org.autorefactor.test.TestHelper.TEST_ENVIRONMENT;
+import static org.autorefactor.test.TestHelper.newJavaProjectOptions;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import org.autorefactor.refactoring.ApplyRefactoringsJob;
+import org.autorefactor.refactoring.BindingFreeRefactoringRule;
+import org.autorefactor.refactoring.ParserEnvironment;
+import org.autorefactor.refactoring.Profiler;
+import org.autorefactor.refactoring.Profiler.Phase;
+import org.autorefactor.refactoring.RefactoringRule;
+import org.autorefactor.refactoring.Release;
+import org.autorefactor.refactoring.TriggeredRefactoringRule;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.jdt.core.dom.BooleanLiteral;
+import org.eclipse.jdt.core.dom.SimpleName;
+import org.eclipse.jface.text.Document;
+import org.junit.Test;
+
+/**
+ * Checks that the binding free rules first run to their fixed point on ASTs parsed without bindings,
+ * then all the rules run to their fixed point on ASTs parsed with bindings.
+ */
+public class TwoTierRefactoringTest {
+    private static final String FILE_NAME = "p/A.java";
+
+    @Test
+    public void boundParseIsSkippedWhenOnlyBindingFreeRulesAreTriggered() throws Exception {
+        final String source = "package p;\n"
+                + "public class A {\n"
+                + "    boolean b = true;\n"
+                + "}\n";
+        final Profiler profiler = new Profiler();
+
+        final Document document = refactor(source, profiler,
+                new BindingFreeReplaceTrueByFalse(), new InlineBooleanConstants());
+
+        assertEquals(source.replace("true", "false"), document.get());
+        assertEquals(1, phaseCount(profiler, Phase.PARSE_WITHOUT_BINDINGS));
+        assertEquals(0, phaseCount(profiler, Phase.PARSE));
+        assertEquals(0, phaseCount(profiler, Phase.VISIT));
+    }
+
+    @Test
+    public void bothTiersReachTheirFixedPointAndProduceTheSingleTierOutput() throws Exception {
+        final String source = "package p;\n"
+                + "public class A {\n"
+                // keeps the binding free rule triggered, so its tier ends on a pass finding nothing to refactor
+                + "    // true or false\n"
+                + "    static final boolean FLAG = true;\n"
+                + "    boolean b = FLAG;\n"
+                + "}\n";
+        final Profiler profiler = new Profiler();
+
+        final Document twoTiers = refactor(source, profiler,
+                new BindingFreeReplaceTrueByFalse(), new InlineBooleanConstants());
+
+        // without bindings: the pass replacing true, then the pass reaching the fixed point
+        assertEquals(2, phaseCount(profiler, Phase.PARSE_WITHOUT_BINDINGS));
+        assertEquals(2, phaseCount(profiler, Phase.VISIT_WITHOUT_BINDINGS));
+        // with bindings: the pass inlining FLAG, then the pass reaching the fixed point
+        assertEquals(2, phaseCount(profiler, Phase.PARSE));
+        assertEquals(2, phaseCount(profiler, Phase.VISIT));
+
+        final Profiler singleTierProfiler = new Profiler();
+        final Document singleTier = refactor(source, singleTierProfiler,
+                new ReplaceTrueByFalse(), new InlineBooleanConstants());
+        assertEquals(0, phaseCount(singleTierProfiler, Phase.PARSE_WITHOUT_BINDINGS));
+        assertEquals(singleTier.get(), twoTiers.get());
+        assertTrue(twoTiers.get(), twoTiers.get().contains("boolean b = false;"));
+    }
+
+    private Document refactor(String source, Profiler profiler, RefactoringRule... rules) throws Exception {
+        final Document document = new Document(source);
+        final ApplyRefactoringsJob job = new ApplyRefactoringsJob(null, null, TEST_ENVIRONMENT);
+        job.setProfiler(profiler);
+        job.applyRefactoring(document, FILE_NAME,
+                new ParserEnvironment(new String[0], new String[0], null, true),
+                new AggregateASTVisitor(Arrays.asList(rules)),
+                newJavaProjectOptions(Release.javaSE("1.8.0"), 4),
+                SubMonitor.convert(new NullProgressMonitor()));
+        return document;
+    }
+
+    private static long phaseCount(Profiler profiler, Phase phase) throws Exception {
+        final StringWriter csv = new StringWriter();
+        profiler.writeCsv(csv);
+        final String prefix = "file," + FILE_NAME + "," + phase.name().toLowerCase() + ",";
+        for (String line : csv.toString().split("\n")) {
+            if (line.startsWith(prefix)) {
+                return Long.parseLong(line.substring(prefix.length(), line.indexOf(',', prefix.length())));
+            }
+        }
+        return 0;
+    }
+
+    /** Base class of the test rules. */
+    private abstract static class TestRule extends AbstractRefactoringRule implements TriggeredRefactoringRule {
+        @Override
+        public String getName() {
+            return getClass().getSimpleName();
+        }
+
+        @Override
+        public String getDescription() {
+            return getClass().getSimpleName();
+        }
+
+        @Override
+        public String getReason() {
+            return "Checks how the binding free rules and the other rules are run.";
+        }
+    }
+
+    /** Does not need the bindings, but is not marked so: it makes the refactoring run in a single tier. */
+    private static class ReplaceTrueByFalse extends TestRule {
+        @Override
+        public String[] getTriggerTokens() {
+            return new String[] { "true" };
+        }
+
+        @Override
+        public boolean visit(BooleanLiteral node) {
+            if (node.booleanValue()) {
+                ctx.getRefactorings().replace(node, ctx.getASTBuilder().boolean0(false));
+                return DO_NOT_VISIT_SUBTREE;
+            }
+            return VISIT_SUBTREE;
+        }
+    }
+
+    private static final class BindingFreeReplaceTrueByFalse extends ReplaceTrueByFalse
+            implements BindingFreeRefactoringRule {
+    }
+
+    /** Needs the bindings to find the value of the constants. */
+    private static final class InlineBooleanConstants extends TestRule {
+        @Override
+        public String[] getTriggerTokens() {
+            return new String[] { "FLAG" };
+        }
+
+        @Override
+        public boolean visit(SimpleName node) {
+            final Object value = node.resolveConstantExpressionValue();
+            if (!node.isDeclaration() && value instanceof Boolean) {
+                ctx.getRefactorings().replace(node, ctx.getASTBuilder().boolean0((Boolean) value));
+                return DO_NOT_VISIT_SUBTREE;
+            }
+            return VISIT_SUBTREE;
+        }
+    }
+}
@@ -59,4 +59,13 @@ class ThrowingLogger implements Logger {
     public void warn(String message) {
         throw new RuntimeException(message);
     }
+
+    /**
+     * Ignore an informational message.
+     *
+     * @param message the message
+     */
+    public void info(String message) {
+        // not a failure
+    }
 }
@@ -109,6 +109,15 @@ public class AutoRefactorPlugin extends AbstractUIPlugin {
         public void error(String message, Exception e) {
             log(IStatus.ERROR, message, e);
         }
+
+        /**
+         * Log an informational message, even in debug mode.
+         *
+         * @param message the message
+         */
+        public void info(String message) {
+            getDefault().getLog().log(new Status(IStatus.INFO, PLUGIN_ID, message));
+        }
     }
 
     /**
@@ -26,6 +26,13 @@
 package org.autorefactor.ui.preferences;
 
 import static org.autorefactor.preferences.PreferenceConstants.DEBUG_MODE_ON;
+import static org.autorefactor.preferences.PreferenceConstants.FILE_TIME_BUDGET;
+import static org.autorefactor.preferences.PreferenceConstants.MAX_IN_FLIGHT_UNITS;
+import static org.autorefactor.preferences.PreferenceConstants.RULE_TIME_BUDGET;
+import static org.autorefactor.preferences.PreferenceConstants.WORKER_THREADS;
+import static org.autorefactor.preferences.PreferenceConstants.MULTIPLE_PASSES_PER_PARSE_ON;
+import static org.autorefactor.preferences.PreferenceConstants.SKIP_UNCHANGED_FILES_ON;
+import static org.autorefactor.preferences.PreferenceConstants.BATCH_PARSE_ON;
 
 import org.autorefactor.preferences.PreferenceConstants;
 import org.autorefactor.preferences.Preferences;
@@ -58,6 +65,69 @@ public class EclipsePreferences implements Preferences {
         return getBoolean(DEBUG_MODE_ON);
     }
 
+    /**
+     * True if several passes of refactoring rules are applied per parse of a file.
+     *
+     * @return True if several passes of refactoring rules are applied per parse of a file.
+     */
+    public boolean multiplePassesPerParseOn() {
+        return getBoolean(MULTIPLE_PASSES_PER_PARSE_ON);
+    }
+
+    /**
+     * True if several files are parsed together, sharing the resolution of their bindings.
+     *
+     * @return True if several files are parsed together, sharing the resolution of their bindings.
+     */
+    public boolean batchParseOn() {
+        return getBoolean(BATCH_PARSE_ON);
+    }
+
+    /**
+     * True if the files to which no refactoring was applicable during a previous run are skipped.
+     *
+     * @return True if the files left unchanged by a previous run are skipped.
+     */
+    public boolean skipUnchangedFilesOn() {
+        return getBoolean(SKIP_UNCHANGED_FILES_ON);
+    }
+
+    /**
+     * The maximum number of files opened or being refactored at once.
+     *
+     * @return The maximum number of files opened or being refactored at once, 0 for no limit.
+     */
+    public int maxInFlightUnits() {
+        return preferenceStore.getInt(MAX_IN_FLIGHT_UNITS.getName());
+    }
+
+    /**
+     * The number of files refactored in parallel.
+     *
+     * @return The number of files refactored in parallel, 0 for one per processor.
+     */
+    public int workerThreads() {
+        return preferenceStore.getInt(WORKER_THREADS.getName());
+    }
+
+    /**
+     * The maximum number of seconds spent refactoring a file.
+     *
+     * @return The maximum number of seconds spent refactoring a file, 0 for no limit.
+     */
+    public int fileTimeBudget() {
+        return preferenceStore.getInt(FILE_TIME_BUDGET.getName());
+    }
+
+    /**
+     * The maximum number of seconds a refactoring rule may spend on a file.
+     *
+     * @return The maximum number of seconds a refactoring rule may spend on a file, 0 for no limit.
+     */
+    public int ruleTimeBudget() {
+        return preferenceStore.getInt(RULE_TIME_BUDGET.getName());
+    }
+
     /**
      * True if it is enabled.
      *
@@ -27,6 +27,13 @@
 package org.autorefactor.ui.preferences;
 
 import static org.autorefactor.preferences.PreferenceConstants.DEBUG_MODE_ON;
+import static org.autorefactor.preferences.PreferenceConstants.FILE_TIME_BUDGET;
+import static org.autorefactor.preferences.PreferenceConstants.MAX_IN_FLIGHT_UNITS;
+import static org.autorefactor.preferences.PreferenceConstants.RULE_TIME_BUDGET;
+import static org.autorefactor.preferences.PreferenceConstants.WORKER_THREADS;
+import static org.autorefactor.preferences.PreferenceConstants.MULTIPLE_PASSES_PER_PARSE_ON;
+import static org.autorefactor.preferences.PreferenceConstants.SKIP_UNCHANGED_FILES_ON;
+import static org.autorefactor.preferences.PreferenceConstants.BATCH_PARSE_ON;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -38,6 +45,7 @@ import org.autorefactor.refactoring.RefactoringRule;
 import org.autorefactor.refactoring.rules.AllRefactoringRules;
 import org.eclipse.jface.preference.BooleanFieldEditor;
 import org.eclipse.jface.preference.FieldEditor;
+import org.eclipse.jface.preference.IntegerFieldEditor;
 import org.eclipse.jface.preference.PreferencePage;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.SelectionAdapter;
@@ -106,10 +114,24 @@ public class WorkspacePreferencePage extends PreferencePage implements IWorkbenc
     private Group createControls(final Composite parent, final List<RefactoringRule> allRefactoringRules) {
         fieldEditorParent = new Composite(parent, SWT.FILL);
 
-        fields = new ArrayList<FieldEditor>(1 + allRefactoringRules.size());
+        fields = new ArrayList<FieldEditor>(8 + allRefactoringRules.size());
 
         fields.add(new BooleanFieldEditor(DEBUG_MODE_ON.getName(), DEBUG_MODE_ON.getDescription(),
                 fieldEditorParent));
+        fields.add(new BooleanFieldEditor(MULTIPLE_PASSES_PER_PARSE_ON.getName(),
+                MULTIPLE_PASSES_PER_PARSE_ON.getDescription(), fieldEditorParent));
+        fields.add(new BooleanFieldEditor(BATCH_PARSE_ON.getName(),
+                BATCH_PARSE_ON.getDescription(), fieldEditorParent));
+        fields.add(new BooleanFieldEditor(SKIP_UNCHANGED_FILES_ON.getName(),
+                SKIP_UNCHANGED_FILES_ON.getDescription(), fieldEditorParent));
+        fields.add(new IntegerFieldEditor(MAX_IN_FLIGHT_UNITS.getName(),
+                MAX_IN_FLIGHT_UNITS.getDescription(), fieldEditorParent));
+        fields.add(new IntegerFieldEditor(WORKER_THREADS.getName(),
+                WORKER_THREADS.getDescription(), fieldEditorParent));
+        fields.add(new IntegerFieldEditor(FILE_TIME_BUDGET.getName(),
+                FILE_TIME_BUDGET.getDescription(), fieldEditorParent));
+        fields.add(new IntegerFieldEditor(RULE_TIME_BUDGET.getName(),
+                RULE_TIME_BUDGET.getDescription(), fieldEditorParent));
 
         final Group ruleGroup = new Group(fieldEditorParent, SWT.FILL);
         ruleGroup.setText("Rules by default");
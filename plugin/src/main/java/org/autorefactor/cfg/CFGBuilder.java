@@ -239,15 +239,6 @@ public class CFGBuilder {
     /** The exit block for the CFG being built. */
     private CFGBasicBlock exitBlock;
 
-    /**
-     * Cache of "manually" resolved type bindings.
-     * <p>
-     * Cannot be made static because for {@link ITypeBinding#equals(Object)} to
-     * work, all type bindings must have been loaded from the same
-     * CompilationUnit.
-     */
-    private final Map<String, ITypeBinding> typeBindingsCache = new HashMap<String, ITypeBinding>();
-
     /**
      * Builds an instance of this class.
      *
@@ -398,12 +389,9 @@ public class CFGBuilder {
     }
 
     private ITypeBinding newException(Expression node, String fullyQualifiedName) {
-        ITypeBinding typeBinding = typeBindingsCache.get(fullyQualifiedName);
-        if (typeBinding == null) {
-            typeBinding = new TypeNameDecider(node).resolveTypeBinding(fullyQualifiedName);
-            typeBindingsCache.put(typeBinding.getQualifiedName(), typeBinding);
-        }
-        return typeBinding;
+        // cached for the whole AST: for ITypeBinding#equals(Object) to work,
+        // all type bindings must have been loaded from the same CompilationUnit
+        return new TypeNameDecider(node).resolveTypeBinding(fullyQualifiedName);
     }
 
     /**
@@ -31,6 +31,7 @@ import java.util.Deque;
 import java.util.LinkedList;
 import java.util.List;
 
+import org.autorefactor.refactoring.TimeBudget;
 import org.autorefactor.util.IllegalStateException;
 
 /** Collects code paths into the CFG. */
@@ -50,6 +51,8 @@ public class CodePathCollector {
     }
 
     private void collectPathes(CFGBasicBlock block) {
+        // the number of paths can grow exponentially with the number of branches
+        TimeBudget.check();
         if (block.isExitBlock()) {
             // this is the end of this path,
             // let's take a copy of the stack
@@ -31,7 +31,42 @@ public enum PreferenceConstants {
     DEBUG_MODE_ON(
             "debug_mode_on",
             "Enable debug mode (for developers)",
-            Boolean.FALSE);
+            Boolean.FALSE),
+    /** Preference that turns on applying several passes of refactoring rules per parse of a file. */
+    MULTIPLE_PASSES_PER_PARSE_ON(
+            "multiple_passes_per_parse_on",
+            "Apply several passes of refactorings before parsing a file again (faster)",
+            Boolean.FALSE),
+    /** Preference that turns on parsing several files together, sharing the resolution of their bindings. */
+    BATCH_PARSE_ON(
+            "batch_parse_on",
+            "Parse several files together, sharing the resolution of their bindings (faster)",
+            Boolean.FALSE),
+    /** Preference that turns on skipping the files to which no refactoring was applicable during a previous run. */
+    SKIP_UNCHANGED_FILES_ON(
+            "skip_unchanged_files_on",
+            "Skip the files left unchanged by a previous run with the same refactorings (faster)",
+            Boolean.FALSE),
+    /** Preference bounding the number of files opened or being refactored at once, hence the memory used. */
+    MAX_IN_FLIGHT_UNITS(
+            "max_in_flight_units",
+            "Maximum number of files opened or being refactored at once, bounding the memory used (0 for no limit)",
+            Integer.valueOf(200)),
+    /** Preference sizing the pool of workers, whatever the number of files to refactor. */
+    WORKER_THREADS(
+            "worker_threads",
+            "Number of files refactored in parallel (0 for one per processor)",
+            Integer.valueOf(0)),
+    /** Preference bounding the time spent refactoring a file, so a pathological file cannot stall a worker. */
+    FILE_TIME_BUDGET(
+            "file_time_budget",
+            "Maximum seconds spent refactoring a file before abandoning it (0 for no limit)",
+            Integer.valueOf(120)),
+    /** Preference bounding the time a rule spends on a file, before it gets quarantined for this file. */
+    RULE_TIME_BUDGET(
+            "rule_time_budget",
+            "Maximum seconds a rule may spend on a file before being quarantined for this file (0 for no limit)",
+            Integer.valueOf(30));
 
     /** TODO use this for preferences initialization. */
     private static final String JDT_ALWAYS_USE_THIS_FOR_NON_STATIC_METHOD_ACCESS =
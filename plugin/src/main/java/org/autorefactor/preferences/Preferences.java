@@ -36,6 +36,55 @@ public interface Preferences {
      */
     boolean debugModeOn();
 
+    /**
+     * Returns whether several passes of refactoring rules are applied per parse of a file.
+     *
+     * @return true if several passes of refactoring rules are applied per parse of a file, false otherwise.
+     */
+    boolean multiplePassesPerParseOn();
+
+    /**
+     * Returns whether several files are parsed together, sharing the resolution of their bindings.
+     *
+     * @return true if several files are parsed together, false otherwise.
+     */
+    boolean batchParseOn();
+
+    /**
+     * Returns whether the files to which no refactoring was applicable during a previous run are skipped.
+     *
+     * @return true if the files left unchanged by a previous run are skipped, false otherwise.
+     */
+    boolean skipUnchangedFilesOn();
+
+    /**
+     * Returns the maximum number of files opened or being refactored at once.
+     *
+     * @return the maximum number of files opened or being refactored at once, 0 for no limit.
+     */
+    int maxInFlightUnits();
+
+    /**
+     * Returns the number of files refactored in parallel.
+     *
+     * @return the number of files refactored in parallel, 0 for one per processor.
+     */
+    int workerThreads();
+
+    /**
+     * Returns the maximum number of seconds spent refactoring a file.
+     *
+     * @return the maximum number of seconds spent refactoring a file, 0 for no limit.
+     */
+    int fileTimeBudget();
+
+    /**
+     * Returns the maximum number of seconds a refactoring rule may spend on a file.
+     *
+     * @return the maximum number of seconds a refactoring rule may spend on a file, 0 for no limit.
+     */
+    int ruleTimeBudget();
+
     /**
      * Returns whether this refactoring rule is on.
      *
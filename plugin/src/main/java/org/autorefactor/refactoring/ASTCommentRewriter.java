@@ -38,8 +38,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.TreeSet;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -65,6 +63,18 @@ import org.eclipse.text.edits.TextEditVisitor;
 public class ASTCommentRewriter {
 
     private static final Pattern INDENT = Pattern.compile("\\s+");
+    private static final Pattern END_OF_BLOCK_COMMENT = Pattern.compile("\\*/");
+    /** Orders the text edits like {@link SourceLocation#compareTo(org.eclipse.jdt.core.ISourceRange)}. */
+    private static final Comparator<TextEdit> BY_SOURCE_LOCATION = new Comparator<TextEdit>() {
+        @Override
+        public int compare(TextEdit te1, TextEdit te2) {
+            final int offsetDiff = te1.getOffset() - te2.getOffset();
+            if (offsetDiff != 0) {
+                return offsetDiff;
+            }
+            return te1.getLength() - te2.getLength();
+        }
+    };
     /**
      * Using a Set to avoid duplicates because Javadocs are visited twice via
      * CompilationUnit.getCommentList() and visit(Javadoc).
@@ -91,6 +101,10 @@ public class ASTCommentRewriter {
     }
 
     private String findRecommendedLineSeparator(CompilationUnit astRoot) {
+        if (astRoot.getTypeRoot() == null) {
+            // parsed from a source string, like in the benchmarks
+            return null;
+        }
         try {
             return astRoot.getTypeRoot().findRecommendedLineSeparator();
         } catch (JavaModelException e) {
@@ -143,6 +157,8 @@ public class ASTCommentRewriter {
 
     /**
      * Adds the edits contained in the current instance to the provided edits for the provided document.
+     * <p>
+     * The comment edits are sorted once, then checked against the code edits with a single sweep.
      *
      * @param document the provided document to edit
      * @param edits where to add edits
@@ -154,6 +170,7 @@ public class ASTCommentRewriter {
         addReplacementEdits(commentEdits);
         addBlockCommentToJavadocEdits(commentEdits);
         addLineCommentsToJavadocEdits(commentEdits, source);
+        Collections.sort(commentEdits, BY_SOURCE_LOCATION);
         // detectPotentiallyMalformedTree(commentEdits, source);
         if (!commentEdits.isEmpty() && !anyOverlaps(edits, commentEdits)) {
             edits.addChildren(commentEdits.toArray(new TextEdit[commentEdits.size()]));
@@ -162,35 +179,23 @@ public class ASTCommentRewriter {
         // They will be retried in the next refactoring loop.
     }
 
-    private void detectPotentiallyMalformedTree(List<TextEdit> commentEdits, final String source) {
-        if (commentEdits.isEmpty()) {
-            return;
-        }
-        Collections.sort(commentEdits, new Comparator<TextEdit>() {
-            /**
-             * Compare objects.
-             *
-             * @param te1 First item
-             * @param te2 Second item
-             *
-             * @return -1, 0 or 1
-             */
-            public int compare(TextEdit te1, TextEdit te2) {
-                final SourceLocation sourceLoc1 = toSourceLoc(te1);
-                final SourceLocation sourceLoc2 = toSourceLoc(te2);
-                if (sourceLoc1.overlapsWith(sourceLoc2)) {
-                    throw new IllegalStateException(null,
-                            "Potentially malformed tree detected:\n"
-                            + " overlapping edit 1: " + toString(te1, sourceLoc1, source)
-                            + " overlapping edit 2: " + toString(te2, sourceLoc2, source));
-                }
-                return sourceLoc1.compareTo(sourceLoc2);
+    private void detectPotentiallyMalformedTree(List<TextEdit> sortedCommentEdits, final String source) {
+        TextEdit furthestEdit = null;
+        for (TextEdit commentEdit : sortedCommentEdits) {
+            if (furthestEdit != null && commentEdit.getOffset() <= furthestEdit.getExclusiveEnd()) {
+                throw new IllegalStateException(null,
+                        "Potentially malformed tree detected:\n"
+                        + " overlapping edit 1: " + toString(furthestEdit, source)
+                        + " overlapping edit 2: " + toString(commentEdit, source));
             }
-
-            private String toString(TextEdit te, SourceLocation sourceLocation, String source) {
-                return te + "\"" + sourceLocation.substring(source) + "\"";
+            if (furthestEdit == null || commentEdit.getExclusiveEnd() > furthestEdit.getExclusiveEnd()) {
+                furthestEdit = commentEdit;
             }
-        });
+        }
+    }
+
+    private String toString(TextEdit te, String source) {
+        return te + "\"" + toSourceLoc(te).substring(source) + "\"";
     }
 
     private int nbEdits() {
@@ -200,18 +205,49 @@ public class ASTCommentRewriter {
                 + lineCommentsToJavadoc.size();
     }
 
-    private boolean anyOverlaps(TextEdit edits, List<TextEdit> commentEdits) {
-        for (TextEdit commentEdit : commentEdits) {
-            if (overlaps(edits, commentEdit)) {
-                return true;
+    /**
+     * Returns whether any comment edit overlaps any code edit, like {@link SourceLocation#overlapsWith}:
+     * ranges touching each other overlap.
+     * <p>
+     * Sweeps both lists of edits in the order of their offsets: an edit overlaps one of the other list
+     * if it starts at or before the furthest end of the edits of the other list already swept.
+     *
+     * @param edits the code edits
+     * @param sortedCommentEdits the comment edits, sorted by source location
+     * @return true if any comment edit overlaps any code edit, false otherwise
+     */
+    static boolean anyOverlaps(TextEdit edits, List<TextEdit> sortedCommentEdits) {
+        final List<TextEdit> codeEdits = getNonMultiTextEdits(edits);
+        Collections.sort(codeEdits, BY_SOURCE_LOCATION);
+        int commentIdx = 0;
+        int codeIdx = 0;
+        int commentsMaxEnd = -1;
+        int codeMaxEnd = -1;
+        while (commentIdx < sortedCommentEdits.size() && codeIdx < codeEdits.size()) {
+            final TextEdit commentEdit = sortedCommentEdits.get(commentIdx);
+            final TextEdit codeEdit = codeEdits.get(codeIdx);
+            if (commentEdit.getOffset() <= codeEdit.getOffset()) {
+                if (commentEdit.getOffset() <= codeMaxEnd) {
+                    return true;
+                }
+                commentsMaxEnd = Math.max(commentsMaxEnd, commentEdit.getExclusiveEnd());
+                commentIdx++;
+            } else {
+                if (codeEdit.getOffset() <= commentsMaxEnd) {
+                    return true;
+                }
+                codeMaxEnd = Math.max(codeMaxEnd, codeEdit.getExclusiveEnd());
+                codeIdx++;
             }
         }
-        return false;
+        // the remaining edits start after all the edits of the other list, only the first one can overlap them
+        return (commentIdx < sortedCommentEdits.size()
+                        && sortedCommentEdits.get(commentIdx).getOffset() <= codeMaxEnd)
+                || (codeIdx < codeEdits.size() && codeEdits.get(codeIdx).getOffset() <= commentsMaxEnd);
     }
 
-    private boolean overlaps(TextEdit edits, TextEdit edit2) {
-        final SourceLocation range = toSourceLoc(edit2);
-        final AtomicBoolean overlaps = new AtomicBoolean();
+    private static List<TextEdit> getNonMultiTextEdits(TextEdit edits) {
+        final List<TextEdit> results = new ArrayList<TextEdit>();
         edits.accept(new TextEditVisitor() {
             @Override
             public boolean visit(MultiTextEdit edit) {
@@ -221,13 +257,11 @@ public class ASTCommentRewriter {
 
             @Override
             public boolean visitNode(TextEdit edit) {
-                if (!overlaps.get()) {
-                    overlaps.set(range.overlapsWith(toSourceLoc(edit)));
-                }
-                return !overlaps.get();
+                results.add(edit);
+                return VISIT_SUBTREE;
             }
         });
-        return overlaps.get();
+        return results;
     }
 
     private SourceLocation toSourceLoc(TextEdit edit) {
@@ -274,7 +308,7 @@ public class ASTCommentRewriter {
         if (this.lineCommentsToJavadoc.isEmpty()) {
             return;
         }
-        final TreeSet<Integer> lineStarts = getLineStarts(source);
+        final LineStarts lineStarts = new LineStarts(source);
         for (Entry<ASTNode, List<LineComment>> entry : this.lineCommentsToJavadoc.entrySet()) {
             final List<LineComment> lineComments = entry.getValue();
             // TODO Collect all words from the line comments,
@@ -288,19 +322,8 @@ public class ASTCommentRewriter {
         }
     }
 
-    private TreeSet<Integer> getLineStarts(String source) {
-        final TreeSet<Integer> lineStarts = new TreeSet<Integer>();
-        lineStarts.add(0);
-
-        final Matcher matcher = Pattern.compile("\\r\\n|\\r|\\n").matcher(source);
-        while (matcher.find()) {
-            lineStarts.add(matcher.end());
-        }
-        return lineStarts;
-    }
-
     private void addSingleLineCommentToJavadocEdits(List<TextEdit> commentEdits,
-            ASTNode nextNode, List<LineComment> lineComments, String source, TreeSet<Integer> lineStarts) {
+            ASTNode nextNode, List<LineComment> lineComments, String source, LineStarts lineStarts) {
         final int nodeStart = nextNode.getStartPosition();
         final LineComment lineComment = lineComments.get(0);
 
@@ -374,7 +397,7 @@ public class ASTCommentRewriter {
     }
 
     private void addMultiLineCommentsToJavadocEdits(List<TextEdit> commentEdits, ASTNode node,
-            List<LineComment> lineComments, String source, TreeSet<Integer> lineStarts) {
+            List<LineComment> lineComments, String source, LineStarts lineStarts) {
         for (int i = 0; i < lineComments.size(); i++) {
             final LineComment lineComment = lineComments.get(i);
             if (lineComment.getStartPosition() <= node.getStartPosition()) {
@@ -389,7 +412,7 @@ public class ASTCommentRewriter {
 
     private void replaceLineCommentBeforeJavaElement(List<TextEdit> commentEdits,
             LineComment lineComment, List<LineComment> lineComments, int i,
-            String source, TreeSet<Integer> lineStarts) {
+            String source, LineStarts lineStarts) {
         final int replaceLength = "//".length();
         final boolean isFirst = i == 0;
         String replacementText;
@@ -425,14 +448,14 @@ public class ASTCommentRewriter {
     }
 
     private Matcher endsOfBlockCommentMatcher(LineComment lineComment, String source, int startPos) {
-        return Pattern.compile("\\*/")
+        return END_OF_BLOCK_COMMENT
             .matcher(source)
             .region(startPos, getEndPosition(lineComment));
     }
 
     private void replaceLineCommentAfterJavaElement(List<TextEdit> commentEdits,
             LineComment lineComment, List<LineComment> lineComments, int i,
-            String source, TreeSet<Integer> lineStarts) {
+            String source, LineStarts lineStarts) {
         if (i - 1 < 0) {
             throw new NotImplementedException(lineComment,
                     "for a line comment situated after the java elements that it documents,"
@@ -457,7 +480,7 @@ public class ASTCommentRewriter {
         deleteLineCommentAfterNode(commentEdits, source, lineComment);
     }
 
-    private SourceLocation getIndentForJavadoc(LineComment lineComment, String source, TreeSet<Integer> lineStarts) {
+    private SourceLocation getIndentForJavadoc(LineComment lineComment, String source, LineStarts lineStarts) {
         final SourceLocation indentLoc = getIndent(lineComment, lineStarts);
         final Matcher matcher = INDENT.matcher(source).region(indentLoc.getStartPosition(), indentLoc.getEndPosition());
         if (matcher.matches()) {
@@ -466,19 +489,9 @@ public class ASTCommentRewriter {
         return SourceLocation.fromPositions(0, 0);
     }
 
-    private SourceLocation getIndent(ASTNode node, TreeSet<Integer> lineStarts) {
-        if (lineStarts.isEmpty()) {
-            // no match, return empty range
-            return SourceLocation.fromPositions(0, 0);
-        }
-
+    private SourceLocation getIndent(ASTNode node, LineStarts lineStarts) {
         final int commentStart = node.getStartPosition();
-        final int previousLineStart = findPreviousLineStart(lineStarts, commentStart);
-        return SourceLocation.fromPositions(previousLineStart, commentStart);
-    }
-
-    private int findPreviousLineStart(TreeSet<Integer> lineStarts, final int commentStart) {
-        return lineStarts.headSet(commentStart, true).last();
+        return SourceLocation.fromPositions(lineStarts.getLineStart(commentStart), commentStart);
     }
 
     private int chompWhitespacesBefore(final String text, int start) {
@@ -1430,7 +1430,9 @@ public final class ASTHelper {
      */
     public static boolean hasType(final ITypeBinding typeBinding, String... oneOfQualifiedTypeNames) {
         if (typeBinding != null) {
-            final String qualifiedName = typeBinding.getErasure().getQualifiedName();
+            final TypeHierarchyCache cache = TypeHierarchyCache.current();
+            final String qualifiedName = cache != null
+                    ? cache.getErasureName(typeBinding) : typeBinding.getErasure().getQualifiedName();
             for (String qualifiedTypeName : oneOfQualifiedTypeNames) {
                 if (qualifiedTypeName.equals(qualifiedName)) {
                     return true;
@@ -1473,6 +1475,10 @@ public final class ASTHelper {
      * @return true if the provided type binding is an instance of the qualified type name, false otherwise
      */
     public static boolean instanceOf(ITypeBinding typeBinding, String qualifiedTypeName) {
+        final TypeHierarchyCache cache = TypeHierarchyCache.current();
+        if (cache != null && typeBinding != null && qualifiedTypeName.indexOf('<') == -1) {
+            return cache.isSubtypeOf(typeBinding, qualifiedTypeName);
+        }
         return findImplementedType(typeBinding, qualifiedTypeName) != null;
     }
 
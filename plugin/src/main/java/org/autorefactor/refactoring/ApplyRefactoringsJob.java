@@ -25,16 +25,23 @@
  */
 package org.autorefactor.refactoring;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Queue;
+import java.util.Map;
 import java.util.Set;
 
 import org.autorefactor.environment.Environment;
+import org.autorefactor.refactoring.Profiler.Phase;
+import org.autorefactor.refactoring.Profiler.ThreadProfile;
 import org.autorefactor.refactoring.rules.AggregateASTVisitor;
 import org.autorefactor.refactoring.rules.RefactoringContext;
+import org.autorefactor.refactoring.rules.RuleStates;
 import org.autorefactor.util.IllegalStateException;
 import org.autorefactor.util.UnhandledException;
 import org.eclipse.core.filebuffers.FileBuffers;
@@ -49,8 +56,11 @@ import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTRequestor;
 import org.eclipse.jdt.core.dom.ASTVisitor;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jface.text.IDocument;
@@ -63,11 +73,23 @@ import static org.autorefactor.refactoring.PluginConstant.*;
  * Several such jobs might be started and run in parallel to form a worker pool,
  * with all workers accepting work items ({@link RefactoringUnit}) from a queue provided by the partitioner
  * ({@link PrepareApplyRefactoringsJob}).
+ * Once refactored, a unit is released along with its AST, so the next one can be streamed in.
  */
 public class ApplyRefactoringsJob extends Job {
-    private final Queue<RefactoringUnit> refactoringUnits;
+    /** Maximum number of units parsed together when batch parsing is on. */
+    private static final int MAX_UNITS_PER_BATCH = 50;
+
+    private final RefactoringUnitQueue refactoringUnits;
     private final List<RefactoringRule> refactoringRulesToApply;
     private final Environment environment;
+    private boolean multiplePassesPerParse;
+    private boolean batchParse;
+    private SkipCache skipCache;
+    private FixedPointStatistics fixedPointStatistics;
+    private Profiler profiler;
+    private long fileTimeBudget;
+    private long ruleTimeBudget;
+    private Quarantine quarantine;
 
     /**
      * Builds an instance of this class.
@@ -76,7 +98,7 @@ public class ApplyRefactoringsJob extends Job {
      * @param refactoringRulesToApply the refactorings to apply
      * @param environment the environment
      */
-    public ApplyRefactoringsJob(Queue<RefactoringUnit> refactoringUnits,
+    public ApplyRefactoringsJob(RefactoringUnitQueue refactoringUnits,
                                 List<RefactoringRule> refactoringRulesToApply,
                                 Environment environment) {
         super("AutoRefactor");
@@ -86,6 +108,91 @@ public class ApplyRefactoringsJob extends Job {
         this.environment = environment;
     }
 
+    /**
+     * Sets whether several passes of refactoring rules are applied to the same parsed AST.
+     * <p>
+     * When on, the rules which did not contribute any refactoring are run again on the same AST,
+     * restricted to the nodes which have not been touched by the previous passes.
+     * All the refactorings are then applied together,
+     * thus reducing the number of times the compilation unit must be parsed and have its bindings resolved.
+     *
+     * @param multiplePassesPerParse whether several passes are applied to the same parsed AST
+     * @see AggregateASTVisitor#visitAgain(CompilationUnit)
+     */
+    public void setMultiplePassesPerParse(boolean multiplePassesPerParse) {
+        this.multiplePassesPerParse = multiplePassesPerParse;
+    }
+
+    /**
+     * Sets whether several compilation units are parsed together.
+     * <p>
+     * When on, the units of the same Java project are parsed in batches
+     * via {@link ASTParser#createASTs(ICompilationUnit[], String[], ASTRequestor, IProgressMonitor)},
+     * so resolving the bindings of the types they reference is only done once for the whole batch.
+     * Only the first parse of each unit is shared: once refactored, a unit is parsed again on its own.
+     *
+     * @param batchParse whether several compilation units are parsed together
+     */
+    public void setBatchParse(boolean batchParse) {
+        this.batchParse = batchParse;
+    }
+
+    /**
+     * Sets the index where the compilation units to which no refactoring is applicable are recorded.
+     *
+     * @param skipCache the index where to record the compilation units left unchanged,
+     *        or null to not record them
+     */
+    public void setSkipCache(SkipCache skipCache) {
+        this.skipCache = skipCache;
+    }
+
+    /**
+     * Sets the statistics where to record how the compilation units reached a fixed point.
+     *
+     * @param fixedPointStatistics the statistics shared by the jobs of the current run,
+     *        or null to not record them
+     */
+    public void setFixedPointStatistics(FixedPointStatistics fixedPointStatistics) {
+        this.fixedPointStatistics = fixedPointStatistics;
+    }
+
+    /**
+     * Sets the profiler recording the time spent in each phase of the refactoring of each file,
+     * and in each refactoring rule.
+     *
+     * @param profiler the profiler shared by the jobs of the current run, or null to not profile them
+     */
+    public void setProfiler(Profiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Sets the time a compilation unit may be refactored for, and the time each rule may spend on it.
+     * <p>
+     * A rule exhausting its budget is abandoned for the rest of the compilation unit.
+     * Once the budget of the compilation unit is exhausted, all the rules are abandoned.
+     * Such compilation units are not recorded as up to date in the {@link SkipCache}.
+     *
+     * @param fileTimeBudget the milliseconds a compilation unit may be refactored for, 0 for no limit
+     * @param ruleTimeBudget the milliseconds each rule may spend on a compilation unit, 0 for no limit
+     * @see TimeBudget
+     */
+    public void setTimeBudgets(long fileTimeBudget, long ruleTimeBudget) {
+        this.fileTimeBudget = fileTimeBudget;
+        this.ruleTimeBudget = ruleTimeBudget;
+    }
+
+    /**
+     * Sets the list of the rules which must not refactor some compilation units,
+     * where the rules exhausting their time budget are added.
+     *
+     * @param quarantine the list shared by the jobs of the current run, or null to not consult nor record it
+     */
+    public void setQuarantine(Quarantine quarantine) {
+        this.quarantine = quarantine;
+    }
+
     @Override
     protected IStatus run(IProgressMonitor monitor) {
         environment.getJobManager().register(this);
@@ -105,33 +212,144 @@ public class ApplyRefactoringsJob extends Job {
     }
 
     private IStatus run0(IProgressMonitor monitor) throws Exception {
-        if (refactoringUnits.isEmpty()) {
-            // No java project exists.
-            return Status.OK_STATUS;
+        // the number of units is not known upfront, they are streamed while being refactored
+        final SubMonitor loopMonitor = SubMonitor.convert(monitor);
+        try {
+            if (batchParse) {
+                List<RefactoringUnit> batch;
+                while (!(batch = takeBatch()).isEmpty()) {
+                    try {
+                        for (List<RefactoringUnit> projectBatch : groupByJavaProject(batch).values()) {
+                            applyRefactoringsInBatch(projectBatch, loopMonitor);
+                        }
+                    } finally {
+                        // the bindings are shared by the whole batch, hence only freed with it
+                        for (RefactoringUnit unit : batch) {
+                            release(unit);
+                        }
+                    }
+                }
+            } else {
+                RefactoringUnit toRefactor;
+                while ((toRefactor = refactoringUnits.take()) != null) {
+                    try {
+                        applyRefactoring(toRefactor, null, loopMonitor);
+                    } finally {
+                        release(toRefactor);
+                    }
+                }
+            }
+        } finally {
+            loopMonitor.done();
+            if (refactoringUnits.removeConsumer()) {
+                environment.getLogger().info("Refactored " + refactoringUnits.getNbQueued() + " files with "
+                        + (refactoringUnits.getMaxInFlight() == Integer.MAX_VALUE
+                                ? "no limit" : "at most " + refactoringUnits.getMaxInFlight())
+                        + " files in flight, " + HeapUsage.getPeakSummary());
+                environment.getLogger().info(refactoringUnits.getTailSummary());
+                if (quarantine != null) {
+                    for (String line : quarantine.getSummary()) {
+                        environment.getLogger().info(line);
+                    }
+                }
+            }
         }
+        return Status.OK_STATUS;
+    }
 
-        final SubMonitor loopMonitor = SubMonitor.convert(monitor, refactoringUnits.size());
+    private List<RefactoringUnit> takeBatch() throws InterruptedException {
+        final List<RefactoringUnit> batch = new ArrayList<RefactoringUnit>();
+        RefactoringUnit toRefactor = refactoringUnits.take();
+        while (toRefactor != null) {
+            batch.add(toRefactor);
+            // do not wait for more units than the ones already queued
+            toRefactor = batch.size() < MAX_UNITS_PER_BATCH ? refactoringUnits.poll() : null;
+        }
+        return batch;
+    }
+
+    /**
+     * Lets the next unit in once the provided one has been refactored,
+     * closing its compilation unit if it has been opened for refactoring it.
+     */
+    private void release(RefactoringUnit unit) {
         try {
-            RefactoringUnit toRefactor;
-            while ((toRefactor = refactoringUnits.poll()) != null) {
-                final ICompilationUnit compilationUnit = toRefactor.getCompilationUnit();
-                final JavaProjectOptions options = toRefactor.getOptions();
+            if (unit.isCloseWhenDone()) {
+                unit.getCompilationUnit().close();
+            }
+        } catch (JavaModelException e) {
+            environment.getLogger().error("Could not close " + unit.getCompilationUnit().getPath(), e);
+        } finally {
+            refactoringUnits.release();
+        }
+    }
+
+    private Map<IJavaProject, List<RefactoringUnit>> groupByJavaProject(List<RefactoringUnit> units) {
+        final Map<IJavaProject, List<RefactoringUnit>> results =
+                new LinkedHashMap<IJavaProject, List<RefactoringUnit>>();
+        for (RefactoringUnit unit : units) {
+            final IJavaProject javaProject = unit.getCompilationUnit().getJavaProject();
+            List<RefactoringUnit> projectUnits = results.get(javaProject);
+            if (projectUnits == null) {
+                projectUnits = new ArrayList<RefactoringUnit>();
+                results.put(javaProject, projectUnits);
+            }
+            projectUnits.add(unit);
+        }
+        return results;
+    }
+
+    /**
+     * Parses the provided units together, then refactors each of them as soon as it is parsed.
+     * A unit failing to be refactored is logged, and the other units of the batch are still refactored.
+     *
+     * @param units the units to refactor, all from the same Java project
+     * @param loopMonitor the progress monitor of the current job
+     */
+    void applyRefactoringsInBatch(List<RefactoringUnit> units, final SubMonitor loopMonitor) {
+        final Map<ICompilationUnit, RefactoringUnit> unitsByCompilationUnit =
+                new LinkedHashMap<ICompilationUnit, RefactoringUnit>();
+        for (RefactoringUnit unit : units) {
+            unitsByCompilationUnit.put(unit.getCompilationUnit(), unit);
+        }
+        final ICompilationUnit[] compilationUnits =
+                unitsByCompilationUnit.keySet().toArray(new ICompilationUnit[unitsByCompilationUnit.size()]);
+
+        final ASTParser parser = ASTParser.newParser(AST.JLS8);
+        parser.setResolveBindings(true);
+        // all the units come from the same java project, hence share the same options
+        parser.setCompilerOptions(units.get(0).getOptions().getCompilerOptions());
+        parser.createASTs(compilationUnits, new String[0], new ASTRequestor() {
+            @Override
+            public void acceptAST(ICompilationUnit source, CompilationUnit astRoot) {
                 try {
-                    loopMonitor.subTask("Applying refactorings to " + getClassName(compilationUnit));
-                    final AggregateASTVisitor refactoring = new AggregateASTVisitor(refactoringRulesToApply);
-                    applyRefactoring(compilationUnit, refactoring, options, loopMonitor.newChild(1));
-                } catch (OperationCanceledException e) {
-                    throw e;
-                } catch (Exception e) {
-                    final String msg = "Exception when applying refactorings to file \""
-                            + compilationUnit.getPath() + "\": " + e.getMessage();
-                    throw new UnhandledException(null, msg, e);
+                    applyRefactoring(unitsByCompilationUnit.get(source), astRoot, loopMonitor);
+                } catch (UnhandledException e) {
+                    // the parser keeps handing out the next units only if this one does not throw
+                    environment.getLogger().error(e.getMessage(), e);
                 }
             }
+        }, null);
+    }
+
+    private void applyRefactoring(RefactoringUnit toRefactor, CompilationUnit astRoot, SubMonitor loopMonitor) {
+        final ICompilationUnit compilationUnit = toRefactor.getCompilationUnit();
+        final JavaProjectOptions options = toRefactor.getOptions();
+        final AggregateASTVisitor refactoring = new AggregateASTVisitor(refactoringRulesToApply);
+        try {
+            loopMonitor.setWorkRemaining(refactoringUnits.size() + 1);
+            loopMonitor.subTask("Applying refactorings to " + getClassName(compilationUnit));
+            applyRefactoring(compilationUnit, refactoring, options, loopMonitor.newChild(1), astRoot);
+        } catch (OperationCanceledException e) {
+            throw e;
+        } catch (Exception e) {
+            final String msg = "Exception when applying refactorings to file \""
+                    + compilationUnit.getPath() + "\": " + e.getMessage();
+            throw new UnhandledException(null, msg, e);
         } finally {
-            loopMonitor.done();
+            // the rules are reused for the next unit, do not let them retain this AST and its bindings
+            refactoring.setRefactoringContext(null);
         }
-        return Status.OK_STATUS;
     }
 
     private String getClassName(final ICompilationUnit compilationUnit) {
@@ -141,7 +359,7 @@ public class ApplyRefactoringsJob extends Job {
     }
 
     private void applyRefactoring(ICompilationUnit compilationUnit, AggregateASTVisitor refactoringToApply,
-            JavaProjectOptions options, SubMonitor monitor) throws Exception {
+            JavaProjectOptions options, SubMonitor monitor, CompilationUnit astRoot) throws Exception {
         final ITextFileBufferManager bufferManager = FileBuffers.getTextFileBufferManager();
         final IPath path = compilationUnit.getPath();
         final LocationKind locationKind = LocationKind.NORMALIZE;
@@ -161,7 +379,7 @@ public class ApplyRefactoringsJob extends Job {
                 return;
             }
             final IDocument document = textFileBuffer.getDocument();
-            applyRefactoring(document, compilationUnit, refactoringToApply, options, monitor);
+            applyRefactoring(document, compilationUnit, refactoringToApply, options, monitor, astRoot);
         } finally {
             bufferManager.disconnect(path, locationKind, null);
         }
@@ -192,17 +410,124 @@ public class ApplyRefactoringsJob extends Job {
      */
     public boolean applyRefactoring(IDocument document, ICompilationUnit compilationUnit, AggregateASTVisitor refactoring,
             JavaProjectOptions options, SubMonitor monitor) throws Exception {
+        return applyRefactoring(document, compilationUnit, refactoring, options, monitor, null);
+    }
+
+    /**
+     * Applies the refactorings provided inside the {@link AggregateASTVisitor} to the provided
+     * {@link ICompilationUnit}, starting from an AST which has already been parsed.
+     *
+     * @param document the document where the compilation unit comes from
+     * @param compilationUnit the compilation unit to refactor
+     * @param refactoring the {@link AggregateASTVisitor} to apply to the compilation unit
+     * @param options the Java project options used to compile the project
+     * @param monitor the progress monitor of the current job
+     * @param parsedAstRoot the AST of the compilation unit parsed with resolved bindings,
+     *        or null to have it parsed by this method
+     * @return true, if changes were applied
+     * @throws Exception if any problem occurs
+     * @see #applyRefactoring(IDocument, ICompilationUnit, AggregateASTVisitor, JavaProjectOptions, SubMonitor)
+     */
+    public boolean applyRefactoring(IDocument document, ICompilationUnit compilationUnit, AggregateASTVisitor refactoring,
+            JavaProjectOptions options, SubMonitor monitor, CompilationUnit parsedAstRoot) throws Exception {
+        return applyRefactoring(document, new CompilationUnitSource(compilationUnit), refactoring, options, monitor,
+                parsedAstRoot);
+    }
+
+    /**
+     * Applies the refactorings provided inside the {@link AggregateASTVisitor} to a compilation unit
+     * which does not belong to any Java project, for example when refactoring outside of an Eclipse workspace.
+     * Nothing is saved: the document is the only one to receive the refactored code.
+     *
+     * @param document the document containing the source code of the compilation unit
+     * @param unitName the path of the file of the compilation unit
+     * @param parserEnvironment the environment against which the bindings of the compilation unit are resolved
+     * @param refactoring the {@link AggregateASTVisitor} to apply to the compilation unit
+     * @param options the Java project options used to compile the compilation unit
+     * @param monitor the progress monitor of the current job
+     * @return true, if changes were applied
+     * @throws Exception if any problem occurs
+     * @see #applyRefactoring(IDocument, ICompilationUnit, AggregateASTVisitor, JavaProjectOptions, SubMonitor)
+     */
+    public boolean applyRefactoring(IDocument document, String unitName, ParserEnvironment parserEnvironment,
+            AggregateASTVisitor refactoring, JavaProjectOptions options, SubMonitor monitor) throws Exception {
+        return applyRefactoring(document, new StandaloneSource(unitName, parserEnvironment), refactoring, options,
+                monitor, null);
+    }
+
+    private boolean applyRefactoring(IDocument document, RefactoredSource source, AggregateASTVisitor refactoring,
+            JavaProjectOptions options, SubMonitor monitor, CompilationUnit parsedAstRoot) throws Exception {
+        final TimeBudget budget = startTimeBudget(source.getPath());
+        refactoring.setTimeBudget(budget);
+        try {
+            return applyRefactoring(document, source, refactoring, options, monitor, parsedAstRoot, budget);
+        } finally {
+            refactoring.setTimeBudget(null);
+            if (budget != null) {
+                budget.stop();
+                recordTimeouts(budget);
+            }
+        }
+    }
+
+    private TimeBudget startTimeBudget(String path) {
+        if (fileTimeBudget <= 0 && ruleTimeBudget <= 0 && quarantine == null) {
+            return null;
+        }
+        final Set<String> quarantinedRuleClasses = quarantine != null
+                ? quarantine.getQuarantinedRuleClasses(path) : Collections.<String> emptySet();
+        return TimeBudget.start(path, fileTimeBudget, ruleTimeBudget, quarantinedRuleClasses);
+    }
+
+    private void recordTimeouts(TimeBudget budget) {
+        if (quarantine == null) {
+            return;
+        }
+        try {
+            quarantine.recordTimeouts(budget);
+        } catch (Exception e) {
+            // not fatal: the rules exhausting their budget will just be tried again next time
+            environment.getLogger().error(
+                    "Cannot quarantine the rules which timed out on file \"" + budget.getPath() + "\"", e);
+        }
+    }
+
+    private boolean applyRefactoring(IDocument document, RefactoredSource source, AggregateASTVisitor refactoring,
+            JavaProjectOptions options, SubMonitor monitor, CompilationUnit parsedAstRoot, TimeBudget budget)
+            throws Exception {
         boolean changed = false;
+        final ThreadProfile profile = profiler != null ? profiler.getThreadProfile() : null;
+        final String fileName = profile != null ? source.getPath() : null;
+        refactoring.setProfile(profile);
         // creation of DOM/AST from a ICompilationUnit
         final ASTParser parser = ASTParser.newParser(AST.JLS8);
-        resetParser(compilationUnit, parser, options);
-
-        CompilationUnit astRoot = (CompilationUnit) parser.createAST(null);
+        CompilationUnit astRoot = parsedAstRoot;
+        long start;
+        if (!refactoring.restrictToTriggeredVisitors(document.get()) && astRoot == null) {
+            // no rule can refactor this compilation unit, do not even parse it
+            if (fixedPointStatistics != null) {
+                fixedPointStatistics.recordFixedPoint(0);
+            }
+            return false;
+        }
+        // the binding free rules first run to a fixed point on the cheaper ASTs without bindings,
+        // unless the bindings have already been resolved
+        boolean withBindings = astRoot != null || !refactoring.hasTriggeredVisitors(false);
+        refactoring.setBindingFreeVisitorsOnly(!withBindings);
+        if (astRoot == null) {
+            astRoot = parse(parser, source, document, options, withBindings, profile, fileName);
+        }
 
         final int maxIterations = 100;
         int iterationCount = 0;
         Set<ASTVisitor> lastLoopVisitors = Collections.emptySet();
         int nbLoopsWithSameVisitors = 0;
+        // the rules state about this compilation unit survives parsing it again
+        final RuleStates ruleStates = new RuleStates();
+        // fingerprints of the document after each pass, to detect code refactored back to a previous state
+        final Map<Long, Integer> passesByFingerprint = new HashMap<Long, Integer>();
+        final List<Set<ASTVisitor>> visitorsByPass = new ArrayList<Set<ASTVisitor>>();
+        passesByFingerprint.put(fingerprint(document.get()), 0);
 
         monitor.setWorkRemaining(maxIterations);
         while (true) {
@@ -217,22 +542,57 @@ public class ApplyRefactoringsJob extends Job {
                 environment.getLogger().error(errorMsg, new IllegalStateException(astRoot, errorMsg));
                 break;
             }
+            if (budget != null && budget.isFileBudgetExceeded()) {
+                // keep the refactorings of the previous passes, reported in the summary of the timeouts
+                break;
+            }
 
+            // the changed lines follow the refactorings applied to the document by the previous passes
+            final ChangedLines changedLines = ChangedLines.of(document);
             final RefactoringContext ctx = new RefactoringContext(
-                compilationUnit, astRoot, options, monitor, environment);
+                source.getCompilationUnit(), astRoot, options, monitor, environment, ruleStates, changedLines,
+                document.get());
             refactoring.setRefactoringContext(ctx);
 
+            start = startTiming(profile);
             final Refactorings refactorings = refactoring.getRefactorings(astRoot);
             if (!refactorings.hasRefactorings()) {
+                recordPhase(profile, fileName, withBindings ? Phase.VISIT : Phase.VISIT_WITHOUT_BINDINGS, start);
+                if (!withBindings && refactoring.hasTriggeredVisitors(true)) {
+                    // the binding free rules reached their fixed point, now run all the rules
+                    withBindings = true;
+                    refactoring.setBindingFreeVisitorsOnly(false);
+                    astRoot = parse(parser, source, document, options, withBindings, profile, fileName);
+                    continue;
+                }
                 // no new refactorings have been applied,
                 // we are done with applying the refactorings.
+                if (budget != null && budget.hasAbandonedRules()) {
+                    // some rules did not refactor the whole compilation unit
+                    return changed;
+                }
+                if (changedLines == null) {
+                    // otherwise the lines which did not change were not refactored
+                    recordUpToDate(document, source.getCompilationUnit(), astRoot, options);
+                }
+                if (fixedPointStatistics != null) {
+                    fixedPointStatistics.recordFixedPoint(visitorsByPass.size());
+                }
                 return changed;
             }
             changed = true;
+            if (multiplePassesPerParse) {
+                while (refactoring.visitAgain(astRoot)) {
+                    // keep accumulating refactorings on the untouched parts of the AST
+                }
+            }
+            recordPhase(profile, fileName, withBindings ? Phase.VISIT : Phase.VISIT_WITHOUT_BINDINGS, start);
 
+            start = startTiming(profile);
             try {
                 // apply the refactorings and save the compilation unit
                 refactorings.applyTo(document);
+                recordPhase(profile, fileName, Phase.APPLY, start);
             } catch (MalformedTreeException e) {
                 final String errorMsg = "Illegal changes have been created by "
                         + visitorClasses("", refactoring.getVisitorsContributingRefactoring())
@@ -244,18 +604,14 @@ public class ApplyRefactoringsJob extends Job {
                 environment.getLogger().error(errorMsg, ise);
                 break;
             }
-            final boolean hadUnsavedChanges = compilationUnit.hasUnsavedChanges();
-            compilationUnit.getBuffer().setContents(document.get());
-            //System.out.println("<document>\n" + document.get() + "\n</document>");
-            // http://wiki.eclipse.org/FAQ_What_is_a_working_copy%3F
-            // compilationUnit.reconcile(AST.JLS8,
-            // ICompilationUnit.ENABLE_BINDINGS_RECOVERY |
-            // ICompilationUnit.ENABLE_STATEMENTS_RECOVERY |
-            // ICompilationUnit.FORCE_PROBLEM_DETECTION
-            // /** can be useful to back out a change that does not compile */
-            // , null, null);
-            if (!hadUnsavedChanges) {
-                compilationUnit.save(null, true);
+            start = startTiming(profile);
+            source.save(document);
+            recordPhase(profile, fileName, Phase.SAVE, start);
+            visitorsByPass.add(new HashSet<ASTVisitor>(refactoring.getVisitorsContributingRefactoring()));
+            final Integer previousPass = passesByFingerprint.put(fingerprint(document.get()), visitorsByPass.size());
+            if (previousPass != null) {
+                reportRepeatedState(astRoot, visitorsByPass, previousPass);
+                break;
             }
             // I did not find any other way to directly modify the AST
             // while still keeping the resolved type bindings working.
@@ -263,8 +619,19 @@ public class ApplyRefactoringsJob extends Job {
             // type bindings were lost. Is there a way to recover them?
             // FIXME we should find a way to apply all the changes at
             // the AST level and refresh the bindings
-            resetParser(compilationUnit, parser, options);
-            astRoot = (CompilationUnit) parser.createAST(null);
+            if (!refactoring.restrictToTriggeredVisitors(document.get())) {
+                // the refactorings removed the tokens all the rules need, no need to parse it again
+                if (fixedPointStatistics != null) {
+                    fixedPointStatistics.recordFixedPoint(visitorsByPass.size());
+                }
+                return changed;
+            }
+            if (!withBindings && !refactoring.hasTriggeredVisitors(false)) {
+                // the refactorings removed the tokens all the binding free rules need
+                withBindings = true;
+                refactoring.setBindingFreeVisitorsOnly(false);
+            }
+            astRoot = parse(parser, source, document, options, withBindings, profile, fileName);
             ++iterationCount;
 
             final Set<ASTVisitor> thisLoopVisitors = refactoring.getVisitorsContributingRefactoring();
@@ -279,10 +646,169 @@ public class ApplyRefactoringsJob extends Job {
         return changed;
     }
 
-    private static void resetParser(ICompilationUnit cu, ASTParser parser, JavaProjectOptions options) {
-        parser.setSource(cu);
-        parser.setResolveBindings(true);
-        parser.setCompilerOptions(options.getCompilerOptions());
+    private static CompilationUnit parse(ASTParser parser, RefactoredSource source, IDocument document,
+            JavaProjectOptions options, boolean resolveBindings, ThreadProfile profile, String fileName) {
+        final long start = startTiming(profile);
+        source.resetParser(parser, document, options, resolveBindings);
+        final CompilationUnit astRoot = (CompilationUnit) parser.createAST(null);
+        recordPhase(profile, fileName, resolveBindings ? Phase.PARSE : Phase.PARSE_WITHOUT_BINDINGS, start);
+        return astRoot;
+    }
+
+    private void recordUpToDate(IDocument document, ICompilationUnit compilationUnit, CompilationUnit astRoot,
+            JavaProjectOptions options) {
+        if (skipCache == null || compilationUnit == null) {
+            return;
+        }
+        try {
+            skipCache.recordUpToDate(document.get(), astRoot, compilationUnit, options.getJavaSERelease());
+        } catch (Exception e) {
+            // not fatal: this compilation unit will just be refactored again next time
+            environment.getLogger().error(
+                    "Cannot record that file \"" + compilationUnit.getPath() + "\" is up to date", e);
+        }
+    }
+
+    /** Only reads the clock when profiling, so refactoring costs nothing more otherwise. */
+    private static long startTiming(ThreadProfile profile) {
+        return profile != null ? System.nanoTime() : 0L;
+    }
+
+    private static void recordPhase(ThreadProfile profile, String fileName, Phase phase, long start) {
+        if (profile != null) {
+            profile.recordPhase(fileName, phase, start);
+        }
+    }
+
+    /**
+     * Computes a polynomial rolling hash of the provided document content.
+     * Cheaper than keeping the document content of each pass, and collisions are unlikely enough on 64 bits.
+     */
+    private static long fingerprint(String content) {
+        long hash = content.length();
+        for (int i = 0; i < content.length(); i++) {
+            hash = 1000003 * hash + content.charAt(i);
+        }
+        return hash;
+    }
+
+    /**
+     * Reports the visitors which contributed refactorings since the code was last in the repeated state.
+     * They are the ones refactoring the code one way then back to what it was.
+     */
+    private void reportRepeatedState(CompilationUnit astRoot, List<Set<ASTVisitor>> visitorsByPass,
+            int previousPass) {
+        final Set<ASTVisitor> culprits = new LinkedHashSet<ASTVisitor>();
+        for (Set<ASTVisitor> visitors : visitorsByPass.subList(previousPass, visitorsByPass.size())) {
+            culprits.addAll(visitors);
+        }
+        final int nbPasses = visitorsByPass.size();
+        final int cycleLength = nbPasses - previousPass;
+        final String errorMsg = "An infinite loop has been detected for file "
+                + getFileName(astRoot) + "."
+                + " After pass " + nbPasses + ", the code came back to what it was after pass " + previousPass
+                + ": it is being incorrectly refactored one way then refactored back to what it was."
+                + " Fix the code before pursuing."
+                + (culprits.isEmpty() ? "" : visitorClasses(" Culprit ASTVisitor classes are: ", culprits));
+        environment.getLogger().error(errorMsg, new IllegalStateException(astRoot, errorMsg));
+        if (fixedPointStatistics != null) {
+            final List<String> culpritClasses = new ArrayList<String>(culprits.size());
+            for (ASTVisitor culprit : culprits) {
+                culpritClasses.add(culprit.getClass().getName());
+            }
+            fixedPointStatistics.recordRepeatedState(getFileName(astRoot), nbPasses, cycleLength, culpritClasses);
+        }
+    }
+
+    /** Where a refactored compilation unit is parsed from, and where its refactored code goes. */
+    private abstract static class RefactoredSource {
+        /** Returns the compilation unit, or null when it does not belong to any Java project. */
+        abstract ICompilationUnit getCompilationUnit();
+
+        abstract String getPath();
+
+        abstract void resetParser(ASTParser parser, IDocument document, JavaProjectOptions options,
+                boolean resolveBindings);
+
+        abstract void save(IDocument document) throws JavaModelException;
+    }
+
+    /** A compilation unit of a Java project, saved after each pass. */
+    private static final class CompilationUnitSource extends RefactoredSource {
+        private final ICompilationUnit compilationUnit;
+
+        private CompilationUnitSource(ICompilationUnit compilationUnit) {
+            this.compilationUnit = compilationUnit;
+        }
+
+        @Override
+        ICompilationUnit getCompilationUnit() {
+            return compilationUnit;
+        }
+
+        @Override
+        String getPath() {
+            return compilationUnit.getPath().toString();
+        }
+
+        @Override
+        void resetParser(ASTParser parser, IDocument document, JavaProjectOptions options,
+                boolean resolveBindings) {
+            parser.setSource(compilationUnit);
+            parser.setResolveBindings(resolveBindings);
+            parser.setCompilerOptions(options.getCompilerOptions());
+        }
+
+        @Override
+        void save(IDocument document) throws JavaModelException {
+            final boolean hadUnsavedChanges = compilationUnit.hasUnsavedChanges();
+            compilationUnit.getBuffer().setContents(document.get());
+            //System.out.println("<document>\n" + document.get() + "\n</document>");
+            // http://wiki.eclipse.org/FAQ_What_is_a_working_copy%3F
+            // compilationUnit.reconcile(AST.JLS8,
+            // ICompilationUnit.ENABLE_BINDINGS_RECOVERY |
+            // ICompilationUnit.ENABLE_STATEMENTS_RECOVERY |
+            // ICompilationUnit.FORCE_PROBLEM_DETECTION
+            // /** can be useful to back out a change that does not compile */
+            // , null, null);
+            if (!hadUnsavedChanges) {
+                compilationUnit.save(null, true);
+            }
+        }
+    }
+
+    /** A compilation unit outside of any Java project, which is parsed again from the refactored document. */
+    private static final class StandaloneSource extends RefactoredSource {
+        private final String unitName;
+        private final ParserEnvironment parserEnvironment;
+
+        private StandaloneSource(String unitName, ParserEnvironment parserEnvironment) {
+            this.unitName = unitName;
+            this.parserEnvironment = parserEnvironment;
+        }
+
+        @Override
+        ICompilationUnit getCompilationUnit() {
+            return null;
+        }
+
+        @Override
+        String getPath() {
+            return unitName;
+        }
+
+        @Override
+        void resetParser(ASTParser parser, IDocument document, JavaProjectOptions options,
+                boolean resolveBindings) {
+            parserEnvironment.setUp(parser, unitName, document.get());
+            parser.setResolveBindings(resolveBindings);
+            parser.setCompilerOptions(options.getCompilerOptions());
+        }
+
+        @Override
+        void save(IDocument document) {
+            // the document already holds the refactored code
+        }
     }
 
     private String getPossibleCulprits(int nbLoopsWithSameVisitors, Set<ASTVisitor> lastLoopVisitors) {
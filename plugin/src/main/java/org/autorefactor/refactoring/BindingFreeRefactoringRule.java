@@ -0,0 +1,40 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring;
+
+/**
+ * Marker interface for the refactoring rules which never resolve any binding.
+ * <p>
+ * {@link ApplyRefactoringsJob} first runs such rules to a fixed point on ASTs parsed without resolving the bindings,
+ * which is much cheaper. Only then does it parse the file with its bindings for the other rules,
+ * or not at all when no other rule can refactor the file.
+ * <p>
+ * Implementations must not call the {@code resolve*()} methods of the AST nodes, neither directly
+ * nor through the helpers like {@link ASTHelper#isMethod(org.eclipse.jdt.core.dom.MethodInvocation, String, String,
+ * String...)} or {@link TypeNameDecider}: they return null on such ASTs.
+ */
+public interface BindingFreeRefactoringRule extends RefactoringRule {
+}
@@ -0,0 +1,132 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring;
+
+import org.autorefactor.util.UnhandledException;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.BadPositionCategoryException;
+import org.eclipse.jface.text.DefaultPositionUpdater;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.Position;
+
+/**
+ * The changed lines of a document, outside of which the refactoring rules do not refactor anything.
+ * <p>
+ * The changed lines are tracked as positions of the document,
+ * so they follow the refactorings applied to the document from one pass to the next.
+ * Documents without tracked lines are refactored as a whole.
+ */
+public final class ChangedLines {
+    /** The category of the positions of the changed lines in the document. */
+    private static final String POSITION_CATEGORY = ChangedLines.class.getName();
+
+    private final SourceRangeIndex locations;
+
+    private ChangedLines(SourceRangeIndex locations) {
+        this.locations = locations;
+    }
+
+    /**
+     * Restricts the refactorings of the provided document to the provided lines, in addition to the lines
+     * it was already restricted to.
+     *
+     * @param document the document to refactor
+     * @param firstLine the first changed line, starting at 1
+     * @param lastLine the last changed line, starting at 1
+     * @throws BadLocationException if the lines are not in the document
+     */
+    public static void track(IDocument document, int firstLine, int lastLine) throws BadLocationException {
+        if (!document.containsPositionCategory(POSITION_CATEGORY)) {
+            document.addPositionCategory(POSITION_CATEGORY);
+            document.addPositionUpdater(new DefaultPositionUpdater(POSITION_CATEGORY));
+        }
+        final int endLine = Math.min(document.getNumberOfLines() - 1, lastLine - 1);
+        final int startLine = Math.min(endLine, Math.max(0, firstLine - 1));
+        final int start = document.getLineOffset(startLine);
+        final int end = document.getLineOffset(endLine) + document.getLineLength(endLine);
+        try {
+            document.addPosition(POSITION_CATEGORY, new Position(start, end - start));
+        } catch (BadPositionCategoryException e) {
+            throw new UnhandledException(null, e);
+        }
+    }
+
+    /**
+     * Returns the changed lines tracked in the provided document.
+     *
+     * @param document the document to refactor
+     * @return the changed lines tracked in the provided document, or null when the whole document can be refactored
+     */
+    public static ChangedLines of(IDocument document) {
+        if (!document.containsPositionCategory(POSITION_CATEGORY)) {
+            return null;
+        }
+        final SourceRangeIndex locations = new SourceRangeIndex();
+        try {
+            for (Position position : document.getPositions(POSITION_CATEGORY)) {
+                // removed along with all the code of the changed lines
+                if (!position.isDeleted()) {
+                    locations.add(position.getOffset(), position.getLength());
+                }
+            }
+        } catch (BadPositionCategoryException e) {
+            throw new UnhandledException(null, e);
+        }
+        return new ChangedLines(locations);
+    }
+
+    /**
+     * Returns whether the provided node intersects the changed lines.
+     *
+     * @param node the node for which to make the determination
+     * @return true if the provided node intersects the changed lines, false otherwise
+     */
+    public boolean intersects(ASTNode node) {
+        return node.getStartPosition() < 0 || locations.overlaps(node.getStartPosition(), node.getLength());
+    }
+
+    /**
+     * Returns whether the provided source range intersects the changed lines.
+     *
+     * @param start the start position of the source range
+     * @param length the length of the source range
+     * @return true if the provided source range intersects the changed lines, false otherwise
+     */
+    public boolean intersects(int start, int length) {
+        return locations.overlaps(start, length);
+    }
+
+    /**
+     * Returns whether the provided node lies in the changed lines.
+     *
+     * @param node the node for which to make the determination
+     * @return true if the provided node lies in the changed lines, false otherwise
+     */
+    public boolean contains(ASTNode node) {
+        return node.getStartPosition() >= 0 && locations.contains(node.getStartPosition(), node.getLength());
+    }
+}
@@ -68,6 +68,7 @@ public class FinderVisitor<R> extends ASTVisitor {
 
     @Override
     public boolean preVisit2(ASTNode node) {
+        TimeBudget.check();
         // exit has fast as possible when the result is found
         return resultFound ? DO_NOT_VISIT_SUBTREE : VISIT_SUBTREE;
     }
@@ -0,0 +1,99 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Statistics about how the compilation units reached a fixed point while being refactored,
+ * shared by all the {@link ApplyRefactoringsJob}s of a run.
+ */
+public class FixedPointStatistics {
+    private int nbFixedPoints;
+    private int nbPassesToFixedPoints;
+    private final List<String> repeatedStates = new ArrayList<String>();
+    /** Number of repeated states each culprit visitor class took part in. */
+    private final Map<String, Integer> culprits = new TreeMap<String, Integer>();
+
+    /**
+     * Records a compilation unit for which no more refactorings were applicable.
+     *
+     * @param nbPasses the number of passes which changed the compilation unit before reaching the fixed point
+     */
+    public synchronized void recordFixedPoint(int nbPasses) {
+        nbFixedPoints++;
+        nbPassesToFixedPoints += nbPasses;
+    }
+
+    /**
+     * Records a compilation unit whose refactoring was aborted because its code came back to a previous state.
+     *
+     * @param fileName the name of the file of the compilation unit
+     * @param nbPasses the number of passes which changed the compilation unit
+     * @param cycleLength the number of passes after which the code came back to a previous state
+     * @param culpritClasses the names of the visitor classes which contributed refactorings during the cycle
+     */
+    public synchronized void recordRepeatedState(String fileName, int nbPasses, int cycleLength,
+            List<String> culpritClasses) {
+        repeatedStates.add(fileName + " (state repeated after pass " + nbPasses
+                + ", cycle of " + cycleLength + " passes)");
+        for (String culpritClass : culpritClasses) {
+            final Integer count = culprits.get(culpritClass);
+            culprits.put(culpritClass, count != null ? count + 1 : 1);
+        }
+    }
+
+    /**
+     * Returns the number of compilation units whose code came back to a previous state.
+     *
+     * @return the number of compilation units whose code came back to a previous state
+     */
+    public synchronized int getNbRepeatedStates() {
+        return repeatedStates.size();
+    }
+
+    /**
+     * Returns a human readable summary of these statistics.
+     *
+     * @return a human readable summary of these statistics, one line per item
+     */
+    public synchronized List<String> getSummary() {
+        final List<String> results = new ArrayList<String>();
+        results.add(nbFixedPoints + " file(s) reached a fixed point after " + nbPassesToFixedPoints
+                + " changing pass(es) in total");
+        results.add(repeatedStates.size() + " file(s) came back to an already seen state");
+        for (String repeatedState : repeatedStates) {
+            results.add("    " + repeatedState);
+        }
+        for (Map.Entry<String, Integer> culprit : culprits.entrySet()) {
+            results.add("    culprit " + culprit.getKey() + " in " + culprit.getValue() + " cycle(s)");
+        }
+        return results;
+    }
+}
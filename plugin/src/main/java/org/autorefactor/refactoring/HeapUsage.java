@@ -0,0 +1,80 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+
+/**
+ * Reads the peak usage of the Java heap, as recorded by the JVM for each of its heap memory pools.
+ * <p>
+ * The pools may not all reach their peak at the same time, so the reported peak is an upper bound.
+ */
+public final class HeapUsage {
+    private HeapUsage() {
+    }
+
+    /**
+     * Restarts recording the peak usage from the current usage.
+     */
+    public static void resetPeak() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * Returns the peak usage of the heap since the JVM started, or since the last call to {@link #resetPeak()}.
+     *
+     * @return the peak usage of the heap, in bytes
+     */
+    public static long getPeakBytes() {
+        long result = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                final MemoryUsage peak = pool.getPeakUsage();
+                if (peak != null) {
+                    result += peak.getUsed();
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the peak usage of the heap in a human readable form.
+     *
+     * @return the peak usage of the heap in a human readable form
+     * @see #getPeakBytes()
+     */
+    public static String getPeakSummary() {
+        return "peak heap is " + (getPeakBytes() / (1024 * 1024)) + " MB";
+    }
+}
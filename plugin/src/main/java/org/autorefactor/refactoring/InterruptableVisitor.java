@@ -45,6 +45,20 @@ public class InterruptableVisitor extends ASTVisitor {
         }
     }
 
+    /**
+     * Checks the time budget of the file being refactored before visiting each node,
+     * so a visit running for too long gets interrupted.
+     *
+     * @param node The node to visit.
+     * @return true to visit the node, false otherwise.
+     * @see TimeBudget#check()
+     */
+    @Override
+    public boolean preVisit2(ASTNode node) {
+        TimeBudget.check();
+        return super.preVisit2(node);
+    }
+
     /**
      * Interrupt the visit of a tree.
      *
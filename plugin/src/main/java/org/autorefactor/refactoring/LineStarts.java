@@ -0,0 +1,103 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring;
+
+import java.util.Arrays;
+
+/**
+ * Index of the start positions of the lines of a source, answering in logarithmic time where the line
+ * of a position starts.
+ * <p>
+ * Lines are separated by {@code "\r\n"}, {@code "\r"} or {@code "\n"},
+ * like in {@link org.eclipse.jface.text.IDocument}.
+ * The start positions are computed by a single scan of the source and kept sorted in an array of primitive ints.
+ */
+final class LineStarts {
+    /** A guess of the average line length, to size the array once for most sources. */
+    private static final int AVERAGE_LINE_LENGTH = 32;
+
+    private int[] starts;
+    private int nbLines;
+
+    /**
+     * Computes the start positions of the lines of the provided source.
+     *
+     * @param source the source
+     */
+    LineStarts(String source) {
+        starts = new int[source.length() / AVERAGE_LINE_LENGTH + 1];
+        add(0);
+        final int length = source.length();
+        for (int i = 0; i < length; i++) {
+            final char c = source.charAt(i);
+            if (c == '\r') {
+                if (i + 1 < length && source.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                add(i + 1);
+            } else if (c == '\n') {
+                add(i + 1);
+            }
+        }
+    }
+
+    private void add(int lineStart) {
+        if (nbLines == starts.length) {
+            starts = Arrays.copyOf(starts, 2 * nbLines);
+        }
+        starts[nbLines++] = lineStart;
+    }
+
+    /**
+     * Returns the number of lines, a source ending with a line separator ends with an empty line.
+     *
+     * @return the number of lines
+     */
+    int getNbLines() {
+        return nbLines;
+    }
+
+    /**
+     * Returns the start position of the line containing the provided position.
+     *
+     * @param position a position in the source
+     * @return the start position of the line containing the provided position
+     */
+    int getLineStart(int position) {
+        // the last line start at or before the position, there is always one since the first line starts at 0
+        int low = 0;
+        int high = nbLines;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (starts[mid] <= position) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return starts[low - 1];
+    }
+}
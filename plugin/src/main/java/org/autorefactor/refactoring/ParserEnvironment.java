@@ -0,0 +1,71 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring;
+
+import org.eclipse.jdt.core.dom.ASTParser;
+
+/**
+ * The classpath and sourcepath against which the bindings of a compilation unit are resolved
+ * when it does not belong to any Java project, for example when refactoring outside of an Eclipse workspace.
+ *
+ * @see ASTParser#setEnvironment(String[], String[], String[], boolean)
+ */
+public class ParserEnvironment {
+    private final String[] classpathEntries;
+    private final String[] sourcepathEntries;
+    private final String[] encodings;
+    private final boolean includeRunningVMBootclasspath;
+
+    /**
+     * Builds an instance of this class.
+     *
+     * @param classpathEntries the paths of the jars and class folders the compilation units depend on
+     * @param sourcepathEntries the paths of the source folders where to look for the other compilation units
+     * @param encodings the encodings of the source folders, one per source folder,
+     *        or null to use the platform encoding for all of them
+     * @param includeRunningVMBootclasspath whether to resolve the JDK types against the running VM
+     */
+    public ParserEnvironment(String[] classpathEntries, String[] sourcepathEntries, String[] encodings,
+            boolean includeRunningVMBootclasspath) {
+        this.classpathEntries = classpathEntries;
+        this.sourcepathEntries = sourcepathEntries;
+        this.encodings = encodings;
+        this.includeRunningVMBootclasspath = includeRunningVMBootclasspath;
+    }
+
+    /**
+     * Configures the provided parser to parse a compilation unit in this environment.
+     *
+     * @param parser the parser to configure
+     * @param unitName the path of the file of the compilation unit
+     * @param source the source code of the compilation unit
+     */
+    public void setUp(ASTParser parser, String unitName, String source) {
+        parser.setEnvironment(classpathEntries, sourcepathEntries, encodings, includeRunningVMBootclasspath);
+        parser.setUnitName(unitName);
+        parser.setSource(source.toCharArray());
+    }
+}
@@ -27,17 +27,23 @@ package org.autorefactor.refactoring;
 
 import static org.autorefactor.refactoring.PluginConstant.PLUGIN_ID;
 
+import java.io.IOException;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.autorefactor.environment.Environment;
+import org.autorefactor.refactoring.rules.AllRefactoringRules;
 import org.autorefactor.util.NotImplementedException;
 import org.autorefactor.util.UnhandledException;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.OperationCanceledException;
@@ -52,12 +58,27 @@ import org.eclipse.jdt.core.IPackageFragment;
 import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.eclipse.jdt.core.JavaModelException;
 
-/** Eclipse job that prepares and partitions work for {@link ApplyRefactoringsJob}. */
+/**
+ * Eclipse job that prepares and partitions work for {@link ApplyRefactoringsJob}.
+ * <p>
+ * The compilation units are queued longest first, so the workers taking the next unit whenever they are done
+ * end up with balanced loads: no long unit is left to a single worker at the end of the run.
+ */
 public class PrepareApplyRefactoringsJob extends Job {
     private final List<IJavaElement> javaElements;
     private final List<RefactoringRule> refactoringRulesToApply;
     private final Map<IJavaElement, JavaProjectOptions> javaProjects = new HashMap<IJavaElement, JavaProjectOptions>();
     private final Environment environment;
+    /** The index of the files to which no refactoring is applicable, or null when not skipping them. */
+    private SkipCache skipCache;
+    private Quarantine quarantine;
+    private TriggerTokenIndex triggerTokenIndex;
+    /** The units streamed to the workers as soon as they are found. */
+    private RefactoringUnitQueue refactoringUnits;
+    private JobGroup jobGroup;
+    private final int nbCores = Runtime.getRuntime().availableProcessors();
+    private int maxWorkers;
+    private int nbWorkers;
 
     /**
      * Builds an instance of this class.
@@ -96,20 +117,44 @@ public class PrepareApplyRefactoringsJob extends Job {
 
     private IStatus run0(IProgressMonitor monitor) throws Exception {
         if (!javaElements.isEmpty()) {
-            final Queue<RefactoringUnit> toRefactor = collectRefactoringUnits(javaElements, monitor);
-            final int nbCores = Runtime.getRuntime().availableProcessors();
-            final int nbWorkers = computeNbWorkers(toRefactor.size(), nbCores);
-            final JobGroup jobGroup = new JobGroup("Job name", nbWorkers, nbWorkers);
-            for (int i = 0; i < nbWorkers; i++) {
-                final Job job = new ApplyRefactoringsJob(toRefactor, clone(refactoringRulesToApply), environment);
-                job.setJobGroup(jobGroup);
-                job.setUser(true);
-                job.schedule();
+            if (environment.getPreferences().skipUnchangedFilesOn()) {
+                skipCache = new SkipCache(SkipCache.getPluginIndexFile(), refactoringRulesToApply);
             }
+            quarantine = new Quarantine(Quarantine.getPluginListFile());
+            triggerTokenIndex = TriggerTokenIndex.of(refactoringRulesToApply);
+            refactoringUnits = new RefactoringUnitQueue(environment.getPreferences().maxInFlightUnits());
+            final int workerThreads = environment.getPreferences().workerThreads();
+            maxWorkers = workerThreads > 0 ? workerThreads : nbCores;
+            jobGroup = new JobGroup("Job name", maxWorkers, 1);
+            HeapUsage.resetPeak();
+            collectRefactoringUnits(javaElements, monitor);
         }
         return Status.OK_STATUS;
     }
 
+    /**
+     * Schedules one more worker for each unit queued, up to the configured number of workers,
+     * so there are never more workers than units.
+     */
+    private void scheduleWorkers(int nbQueued) throws Exception {
+        final int nbWorkersNeeded = Math.min(maxWorkers, nbQueued);
+        while (nbWorkers < nbWorkersNeeded) {
+            final ApplyRefactoringsJob job =
+                    new ApplyRefactoringsJob(refactoringUnits, clone(refactoringRulesToApply), environment);
+            job.setMultiplePassesPerParse(environment.getPreferences().multiplePassesPerParseOn());
+            job.setBatchParse(environment.getPreferences().batchParseOn());
+            job.setSkipCache(skipCache);
+            job.setTimeBudgets(1000L * environment.getPreferences().fileTimeBudget(),
+                    1000L * environment.getPreferences().ruleTimeBudget());
+            job.setQuarantine(quarantine);
+            job.setJobGroup(jobGroup);
+            job.setUser(true);
+            refactoringUnits.addConsumer();
+            job.schedule();
+            nbWorkers++;
+        }
+    }
+
     /**
      * Clones all the refactorings to apply.
      * In fairness, this method is only useful for stateful refactorings.
@@ -117,73 +162,141 @@ public class PrepareApplyRefactoringsJob extends Job {
     private List<RefactoringRule> clone(List<RefactoringRule> refactorings) throws Exception {
         final List<RefactoringRule> res = new ArrayList<RefactoringRule>(refactorings.size());
         for (RefactoringRule refactoring : refactorings) {
-            res.add(refactoring.getClass().newInstance());
+            res.add(AllRefactoringRules.copyOf(refactoring));
         }
         return res;
     }
 
-    private int computeNbWorkers(int nbWorkItems, int nbCores) {
-        final int nbPartitions = nbWorkItems / 10;
-        if (nbPartitions >= nbCores) {
-            return nbCores;
-        } else if (nbPartitions > 0) {
-            return nbPartitions;
-        } else {
-            return 1;
-        }
-    }
-
-    private Queue<RefactoringUnit> collectRefactoringUnits(List<IJavaElement> javaElements, IProgressMonitor monitor) {
+    /**
+     * Walks the java elements, then streams their compilation units to the workers, longest first.
+     * Only the handles of the compilation units are kept during the walk, the units are opened while streamed.
+     * The producer waits for the workers whenever the maximum number of units in flight is reached.
+     */
+    private void collectRefactoringUnits(List<IJavaElement> javaElements, IProgressMonitor monitor) {
         try {
-            final Queue<RefactoringUnit> results = new ConcurrentLinkedQueue<RefactoringUnit>();
-            addAll(results, javaElements, monitor);
-            return results;
+            final List<Candidate> candidates = new ArrayList<Candidate>();
+            addAll(javaElements, candidates, monitor);
+            // stable, hence the units of equal costs keep the order of the walk
+            Collections.sort(candidates);
+            for (Candidate candidate : candidates) {
+                add(candidate.compilationUnit, candidate.options);
+            }
+        } catch (OperationCanceledException e) {
+            throw e;
         } catch (Exception e) {
             throw new UnhandledException(null, e);
+        } finally {
+            refactoringUnits.close();
         }
     }
 
-    private void addAll(Queue<RefactoringUnit> results, List<IJavaElement> javaElements, IProgressMonitor monitor)
-            throws JavaModelException {
+    private void addAll(List<IJavaElement> javaElements, List<Candidate> candidates, IProgressMonitor monitor)
+            throws Exception {
         final SubMonitor subMonitor = SubMonitor.convert(monitor, javaElements.size());
         for (IJavaElement javaElement : javaElements) {
             final SubMonitor child = subMonitor.newChild(1);
             final JavaProjectOptions options = getJavaProjectOptions(javaElement);
             if (javaElement instanceof ICompilationUnit) {
-                add(results, (ICompilationUnit) javaElement, options);
+                addCandidate((ICompilationUnit) javaElement, options, candidates);
             } else if (javaElement instanceof IPackageFragment) {
                 final IPackageFragment pf = (IPackageFragment) javaElement;
-                addAll(results, getSubPackages(pf), child);
-                addAll(results, pf.getCompilationUnits(), options);
+                addAll(getSubPackages(pf), candidates, child);
+                addAll(pf.getCompilationUnits(), options, candidates);
             } else if (javaElement instanceof IPackageFragmentRoot) {
                 final IPackageFragmentRoot pfr = (IPackageFragmentRoot) javaElement;
-                addAll(results, Arrays.asList(pfr.getChildren()), child);
+                addAll(Arrays.asList(pfr.getChildren()), candidates, child);
             } else if (javaElement instanceof IJavaProject) {
                 IJavaProject javaProject = (IJavaProject) javaElement;
                 for (IPackageFragment pf : javaProject.getPackageFragments()) {
-                    addAll(results, pf.getCompilationUnits(), options);
+                    addAll(pf.getCompilationUnits(), options, candidates);
                 }
             }
         }
     }
 
-    private void addAll(final Queue<RefactoringUnit> results, ICompilationUnit[] cus, JavaProjectOptions options)
-            throws JavaModelException {
+    private void addAll(ICompilationUnit[] cus, JavaProjectOptions options, List<Candidate> candidates) {
         for (ICompilationUnit cu : cus) {
-            add(results, cu, options);
+            addCandidate(cu, options, candidates);
+        }
+    }
+
+    private void addCandidate(ICompilationUnit cu, JavaProjectOptions options, List<Candidate> candidates) {
+        candidates.add(new Candidate(cu, options, estimateCost(cu)));
+    }
+
+    /**
+     * Estimates the time needed to refactor the provided compilation unit from the length of its source code,
+     * without opening it.
+     */
+    private long estimateCost(ICompilationUnit cu) {
+        try {
+            if (cu.isOpen() && cu.hasUnsavedChanges()) {
+                return cu.getBuffer().getLength();
+            }
+            final IResource resource = cu.getResource();
+            final IPath location = resource != null ? resource.getLocation() : null;
+            return location != null ? location.toFile().length() : 0;
+        } catch (JavaModelException e) {
+            return 0;
         }
     }
 
-    private void add(final Queue<RefactoringUnit> results, ICompilationUnit cu, JavaProjectOptions options)
-            throws JavaModelException {
-        if (!cu.isConsistent()) {
-            cu.makeConsistent(null);
+    private void add(ICompilationUnit cu, JavaProjectOptions options) throws Exception {
+        if (!canAnyRuleApply(cu)) {
+            return;
         }
-        if (!cu.isReadOnly()) {
-            results.add(new RefactoringUnit(cu, options));
+        // only open the compilation unit once it can be in flight
+        refactoringUnits.acquire();
+        final boolean wasOpen = cu.isOpen();
+        boolean queued = false;
+        try {
+            if (!cu.isConsistent()) {
+                cu.makeConsistent(null);
+            }
+            if (!cu.isReadOnly() && !isUpToDate(cu, options)) {
+                final int nbQueued = refactoringUnits.add(new RefactoringUnit(cu, options, !wasOpen));
+                queued = true;
+                scheduleWorkers(nbQueued);
+            }
+        } finally {
+            if (!queued) {
+                refactoringUnits.release();
+                if (!wasOpen) {
+                    cu.close();
+                }
+            }
         }
     }
 
+    /**
+     * Checked before opening the compilation unit, so the files no rule can refactor are not even read in memory.
+     * The compilation units with unsaved changes are checked by the workers, against their unsaved source.
+     */
+    private boolean canAnyRuleApply(ICompilationUnit cu) {
+        try {
+            final IResource resource = cu.getResource();
+            final IPath location = resource != null ? resource.getLocation() : null;
+            if (location == null || !(resource instanceof IFile) || (cu.isOpen() && cu.hasUnsavedChanges())) {
+                return true;
+            }
+            final Charset charset = Charset.forName(((IFile) resource).getCharset());
+            return triggerTokenIndex.canAnyRuleApply(location.toFile(), charset);
+        } catch (CoreException e) {
+            return true;
+        } catch (IOException e) {
+            return true;
+        } catch (IllegalArgumentException e) {
+            // unsupported charset
+            return true;
+        }
+    }
+
+    /** Checked before parsing anything, so the files left unchanged by a previous run are cheaply skipped. */
+    private boolean isUpToDate(ICompilationUnit cu, JavaProjectOptions options) throws JavaModelException {
+        return skipCache != null
+                && skipCache.isUpToDate(cu.getSource(), cu.getJavaProject(), options.getJavaSERelease());
+    }
+
     private JavaProjectOptions getJavaProjectOptions(IJavaElement javaElement) {
         final IJavaProject javaProject = getIJavaProject(javaElement);
         JavaProjectOptions options = javaProjects.get(javaProject);
@@ -205,6 +318,27 @@ public class PrepareApplyRefactoringsJob extends Job {
         throw new NotImplementedException(null, javaElement);
     }
 
+    /** A compilation unit found by the walk, ordered longest first. */
+    private static final class Candidate implements Comparable<Candidate> {
+        private final ICompilationUnit compilationUnit;
+        private final JavaProjectOptions options;
+        private final long estimatedCost;
+
+        private Candidate(ICompilationUnit compilationUnit, JavaProjectOptions options, long estimatedCost) {
+            this.compilationUnit = compilationUnit;
+            this.options = options;
+            this.estimatedCost = estimatedCost;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            if (estimatedCost != other.estimatedCost) {
+                return estimatedCost > other.estimatedCost ? -1 : 1;
+            }
+            return 0;
+        }
+    }
+
     private List<IJavaElement> getSubPackages(IPackageFragment motherPackage) throws JavaModelException {
         List<IJavaElement> subPackages = new ArrayList<IJavaElement>();
         String packageName = motherPackage.getElementName();
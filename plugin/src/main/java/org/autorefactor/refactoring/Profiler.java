@@ -0,0 +1,332 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+
+/**
+ * Profiles where the time is spent while refactoring:
+ * in each visitor per type of visited node, and in each phase of the refactoring of each file.
+ * <p>
+ * Each thread records into its own {@link ThreadProfile} without any synchronization.
+ * The thread profiles are merged once the run is over, then exported as JSON or CSV.
+ */
+public class Profiler {
+    /** The phases of the refactoring of a file. */
+    public enum Phase {
+        /** Parsing the file, including resolving its bindings. */
+        PARSE,
+        /** Visiting the AST with the refactoring rules. */
+        VISIT,
+        /** Applying the refactorings to the document. */
+        APPLY,
+        /** Saving the refactored document. */
+        SAVE,
+        /** Parsing the file without resolving its bindings, for the {@link BindingFreeRefactoringRule}s. */
+        PARSE_WITHOUT_BINDINGS,
+        /** Visiting the AST without bindings with the {@link BindingFreeRefactoringRule}s. */
+        VISIT_WITHOUT_BINDINGS
+    }
+
+    private static final int NB_NODE_TYPES;
+
+    static {
+        int maxNodeType = 0;
+        for (int nodeType = 1; nodeType < 256; nodeType++) {
+            try {
+                ASTNode.nodeClassForType(nodeType);
+                maxNodeType = nodeType;
+            } catch (IllegalArgumentException e) {
+                // not a node type for the running JDT
+            }
+        }
+        NB_NODE_TYPES = maxNodeType + 1;
+    }
+
+    private final List<ThreadProfile> threadProfiles = new ArrayList<ThreadProfile>();
+    private final ThreadLocal<ThreadProfile> currentThreadProfile = new ThreadLocal<ThreadProfile>() {
+        @Override
+        protected ThreadProfile initialValue() {
+            final ThreadProfile threadProfile = new ThreadProfile();
+            synchronized (threadProfiles) {
+                threadProfiles.add(threadProfile);
+            }
+            return threadProfile;
+        }
+    };
+
+    /**
+     * Returns the profile where the current thread records its measures.
+     *
+     * @return the profile where the current thread records its measures
+     */
+    public ThreadProfile getThreadProfile() {
+        return currentThreadProfile.get();
+    }
+
+    /** The measures of one thread. Must only be accessed by this thread until the run is over. */
+    public static final class ThreadProfile {
+        /** Invocations, then nanoseconds, then refactorings, each indexed by node type, per visitor class. */
+        private final Map<Class<?>, long[][]> visitors = new HashMap<Class<?>, long[][]>();
+        /** Number of runs, then nanoseconds, each indexed by phase ordinal, per file. */
+        private final Map<String, long[][]> files = new LinkedHashMap<String, long[][]>();
+
+        private ThreadProfile() {
+        }
+
+        /**
+         * Records a call to one of the {@code visit()} methods of a visitor.
+         *
+         * @param visitor the visitor
+         * @param nodeType the type of the visited node
+         * @param startNanos the value of {@link System#nanoTime()} before the call
+         */
+        public void recordVisit(Object visitor, int nodeType, long startNanos) {
+            final long[][] counters = getVisitorCounters(visitor);
+            counters[0][nodeType]++;
+            counters[1][nodeType] += System.nanoTime() - startNanos;
+        }
+
+        /**
+         * Records a call to one of the {@code endVisit()} methods of a visitor. Only its time is accounted for.
+         *
+         * @param visitor the visitor
+         * @param nodeType the type of the visited node
+         * @param startNanos the value of {@link System#nanoTime()} before the call
+         */
+        public void recordEndVisit(Object visitor, int nodeType, long startNanos) {
+            getVisitorCounters(visitor)[1][nodeType] += System.nanoTime() - startNanos;
+        }
+
+        /**
+         * Records a visitor contributing refactorings while visiting a node.
+         *
+         * @param visitor the visitor
+         * @param nodeType the type of the visited node
+         */
+        public void recordRefactoring(Object visitor, int nodeType) {
+            getVisitorCounters(visitor)[2][nodeType]++;
+        }
+
+        private long[][] getVisitorCounters(Object visitor) {
+            long[][] counters = visitors.get(visitor.getClass());
+            if (counters == null) {
+                counters = new long[3][NB_NODE_TYPES];
+                visitors.put(visitor.getClass(), counters);
+            }
+            return counters;
+        }
+
+        /**
+         * Records the time spent in a phase of the refactoring of a file.
+         *
+         * @param fileName the name of the file
+         * @param phase the phase
+         * @param startNanos the value of {@link System#nanoTime()} at the beginning of the phase
+         */
+        public void recordPhase(String fileName, Phase phase, long startNanos) {
+            long[][] counters = files.get(fileName);
+            if (counters == null) {
+                counters = new long[2][Phase.values().length];
+                files.put(fileName, counters);
+            }
+            counters[0][phase.ordinal()]++;
+            counters[1][phase.ordinal()] += System.nanoTime() - startNanos;
+        }
+    }
+
+    /**
+     * Merges the measures of all the threads. Must only be called once all the threads are done.
+     */
+    private ThreadProfile merge() {
+        final ThreadProfile results = new ThreadProfile();
+        synchronized (threadProfiles) {
+            for (ThreadProfile threadProfile : threadProfiles) {
+                for (Map.Entry<Class<?>, long[][]> entry : threadProfile.visitors.entrySet()) {
+                    long[][] counters = results.visitors.get(entry.getKey());
+                    if (counters == null) {
+                        counters = new long[3][NB_NODE_TYPES];
+                        results.visitors.put(entry.getKey(), counters);
+                    }
+                    add(counters, entry.getValue());
+                }
+                for (Map.Entry<String, long[][]> entry : threadProfile.files.entrySet()) {
+                    long[][] counters = results.files.get(entry.getKey());
+                    if (counters == null) {
+                        counters = new long[2][Phase.values().length];
+                        results.files.put(entry.getKey(), counters);
+                    }
+                    add(counters, entry.getValue());
+                }
+            }
+        }
+        return results;
+    }
+
+    private static void add(long[][] counters, long[][] toAdd) {
+        for (int i = 0; i < counters.length; i++) {
+            for (int j = 0; j < counters[i].length; j++) {
+                counters[i][j] += toAdd[i][j];
+            }
+        }
+    }
+
+    private static Map<String, long[][]> sortByClassName(Map<Class<?>, long[][]> visitors) {
+        final Map<String, long[][]> results = new TreeMap<String, long[][]>();
+        for (Map.Entry<Class<?>, long[][]> entry : visitors.entrySet()) {
+            results.put(entry.getKey().getName(), entry.getValue());
+        }
+        return results;
+    }
+
+    private static long sum(long[] values) {
+        long result = 0;
+        for (long value : values) {
+            result += value;
+        }
+        return result;
+    }
+
+    private static String nodeTypeName(int nodeType) {
+        return ASTNode.nodeClassForType(nodeType).getSimpleName();
+    }
+
+    private static String phaseName(Phase phase) {
+        return phase.name().toLowerCase();
+    }
+
+    /**
+     * Writes the merged measures of all the threads as JSON.
+     * Must only be called once all the threads are done.
+     *
+     * @param writer where to write the JSON document
+     * @throws IOException if the writer fails
+     */
+    public void writeJson(Writer writer) throws IOException {
+        final ThreadProfile profile = merge();
+        writer.write("{\n  \"visitors\": [");
+        String separator = "\n";
+        for (Map.Entry<String, long[][]> entry : sortByClassName(profile.visitors).entrySet()) {
+            final long[][] counters = entry.getValue();
+            writer.write(separator + "    {\"class\": " + quote(entry.getKey())
+                    + ", \"invocations\": " + sum(counters[0])
+                    + ", \"timeNanos\": " + sum(counters[1])
+                    + ", \"refactorings\": " + sum(counters[2])
+                    + ", \"nodeTypes\": [");
+            String nodeTypeSeparator = "";
+            for (int nodeType = 1; nodeType < NB_NODE_TYPES; nodeType++) {
+                if (counters[0][nodeType] != 0 || counters[1][nodeType] != 0) {
+                    writer.write(nodeTypeSeparator + "{\"nodeType\": " + quote(nodeTypeName(nodeType))
+                            + ", \"invocations\": " + counters[0][nodeType]
+                            + ", \"timeNanos\": " + counters[1][nodeType]
+                            + ", \"refactorings\": " + counters[2][nodeType] + "}");
+                    nodeTypeSeparator = ", ";
+                }
+            }
+            writer.write("]}");
+            separator = ",\n";
+        }
+        writer.write("\n  ],\n  \"files\": [");
+        separator = "\n";
+        for (Map.Entry<String, long[][]> entry : profile.files.entrySet()) {
+            final long[][] counters = entry.getValue();
+            writer.write(separator + "    {\"file\": " + quote(entry.getKey()) + ", \"phases\": {");
+            String phaseSeparator = "";
+            for (Phase phase : Phase.values()) {
+                writer.write(phaseSeparator + quote(phaseName(phase))
+                        + ": {\"count\": " + counters[0][phase.ordinal()]
+                        + ", \"timeNanos\": " + counters[1][phase.ordinal()] + "}");
+                phaseSeparator = ", ";
+            }
+            writer.write("}}");
+            separator = ",\n";
+        }
+        writer.write("\n  ]\n}\n");
+    }
+
+    /**
+     * Writes the merged measures of all the threads as CSV, one line per visitor and node type,
+     * then one line per file and phase.
+     * Must only be called once all the threads are done.
+     *
+     * @param writer where to write the CSV document
+     * @throws IOException if the writer fails
+     */
+    public void writeCsv(Writer writer) throws IOException {
+        final ThreadProfile profile = merge();
+        writer.write("section,name,detail,count,timeNanos,refactorings\n");
+        for (Map.Entry<String, long[][]> entry : sortByClassName(profile.visitors).entrySet()) {
+            final long[][] counters = entry.getValue();
+            for (int nodeType = 1; nodeType < NB_NODE_TYPES; nodeType++) {
+                if (counters[0][nodeType] != 0 || counters[1][nodeType] != 0) {
+                    writer.write("visitor," + entry.getKey() + "," + nodeTypeName(nodeType)
+                            + "," + counters[0][nodeType]
+                            + "," + counters[1][nodeType]
+                            + "," + counters[2][nodeType] + "\n");
+                }
+            }
+        }
+        for (Map.Entry<String, long[][]> entry : profile.files.entrySet()) {
+            final long[][] counters = entry.getValue();
+            for (Phase phase : Phase.values()) {
+                writer.write("file," + csvQuote(entry.getKey()) + "," + phaseName(phase)
+                        + "," + counters[0][phase.ordinal()]
+                        + "," + counters[1][phase.ordinal()] + ",\n");
+            }
+        }
+    }
+
+    private static String quote(String s) {
+        final StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < ' ') {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private static String csvQuote(String s) {
+        if (s.indexOf(',') == -1 && s.indexOf('"') == -1) {
+            return s;
+        }
+        return "\"" + s.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring;
+
+import static org.autorefactor.refactoring.PluginConstant.PLUGIN_ID;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import org.eclipse.core.runtime.Platform;
+
+/**
+ * Persistent list of the refactoring rules which exhausted their time budget on a file,
+ * so the next runs do not apply them to this file again. Deleting the file of the list lifts all the quarantines.
+ * It also summarizes the timeouts of the current run.
+ * <p>
+ * Entries are appended to the list file and never rewritten.
+ * Lines which have been partially written are detected with a checksum and ignored.
+ *
+ * @see TimeBudget
+ */
+public class Quarantine {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String SEPARATOR = "\t";
+
+    private final File listFile;
+    /** Names of the quarantined rule classes, by file path. Sets are replaced, never modified. */
+    private final Map<String, Set<String>> ruleClassesByPath = new ConcurrentHashMap<String, Set<String>>();
+    private final List<String> timeouts = new ArrayList<String>();
+    private int nbFileTimeouts;
+
+    /**
+     * Builds an instance of this class, loading the provided list file if it exists.
+     *
+     * @param listFile the file where the list is persisted, or null to only summarize the timeouts of this run
+     * @throws IOException if the list file cannot be read
+     */
+    public Quarantine(File listFile) throws IOException {
+        this.listFile = listFile;
+        load();
+    }
+
+    /**
+     * Returns the file of the list maintained by the plugin in its state location.
+     *
+     * @return the file of the list maintained by the plugin
+     */
+    public static File getPluginListFile() {
+        return Platform.getStateLocation(Platform.getBundle(PLUGIN_ID)).append("quarantine.idx").toFile();
+    }
+
+    private void load() throws IOException {
+        if (listFile == null || !listFile.isFile()) {
+            return;
+        }
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(listFile), UTF_8));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String[] fields = line.split(SEPARATOR, -1);
+                if (fields.length == 3 && checksum(fields[0], fields[1]).equals(fields[2])) {
+                    add(fields[0], fields[1]);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Returns the names of the rule classes which must not refactor the provided file.
+     *
+     * @param path the path of the file
+     * @return the names of the rule classes which must not refactor the provided file
+     */
+    public Set<String> getQuarantinedRuleClasses(String path) {
+        final Set<String> ruleClasses = ruleClassesByPath.get(path);
+        return ruleClasses != null ? ruleClasses : Collections.<String> emptySet();
+    }
+
+    /**
+     * Quarantines the rules which exhausted their time budget on a file, and records the timeouts for the summary.
+     *
+     * @param budget the budget of the refactored file
+     * @throws IOException if the list file cannot be written
+     */
+    public void recordTimeouts(TimeBudget budget) throws IOException {
+        final List<String> ruleClasses = budget.getTimedOutRuleClasses();
+        final boolean fileTimeout = budget.isFileBudgetExceeded();
+        if (ruleClasses.isEmpty() && !fileTimeout) {
+            return;
+        }
+        synchronized (this) {
+            timeouts.add(budget.getPath() + ": " + (ruleClasses.isEmpty() ? "no rule running" : ruleClasses)
+                    + (fileTimeout ? ", file budget exhausted" : ""));
+            if (fileTimeout) {
+                nbFileTimeouts++;
+            }
+        }
+        final StringBuilder lines = new StringBuilder();
+        for (String ruleClass : ruleClasses) {
+            if (add(budget.getPath(), ruleClass)) {
+                lines.append(budget.getPath()).append(SEPARATOR)
+                    .append(ruleClass).append(SEPARATOR)
+                    .append(checksum(budget.getPath(), ruleClass)).append('\n');
+            }
+        }
+        if (listFile != null && lines.length() > 0) {
+            append(lines.toString().getBytes(UTF_8));
+        }
+    }
+
+    private synchronized boolean add(String path, String ruleClass) {
+        final Set<String> ruleClasses = getQuarantinedRuleClasses(path);
+        if (ruleClasses.contains(ruleClass)) {
+            return false;
+        }
+        final Set<String> newRuleClasses = new TreeSet<String>(ruleClasses);
+        newRuleClasses.add(ruleClass);
+        ruleClassesByPath.put(path, Collections.unmodifiableSet(newRuleClasses));
+        return true;
+    }
+
+    private synchronized void append(byte[] lines) throws IOException {
+        listFile.getAbsoluteFile().getParentFile().mkdirs();
+        final OutputStream out = new FileOutputStream(listFile, true);
+        try {
+            // a single write, so lines appended concurrently by other processes do not interleave
+            out.write(lines);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Returns the number of files which exhausted a time budget during the current run.
+     *
+     * @return the number of files which exhausted a time budget during the current run
+     */
+    public synchronized int getNbTimeouts() {
+        return timeouts.size();
+    }
+
+    /**
+     * Returns a human readable summary of the timeouts of the current run.
+     *
+     * @return a human readable summary of the timeouts of the current run, one line per item
+     */
+    public synchronized List<String> getSummary() {
+        int nbQuarantined = 0;
+        for (Set<String> ruleClasses : ruleClassesByPath.values()) {
+            nbQuarantined += ruleClasses.size();
+        }
+        final List<String> results = new ArrayList<String>();
+        results.add(timeouts.size() + " file(s) exhausted a time budget, " + nbFileTimeouts
+                + " of them their whole budget");
+        for (String timeout : timeouts) {
+            results.add("    " + timeout);
+        }
+        results.add(nbQuarantined + " rule(s) quarantined in total, summed over the files");
+        return results;
+    }
+
+    private static String checksum(String path, String ruleClass) {
+        final CRC32 crc = new CRC32();
+        crc.update((path + SEPARATOR + ruleClass).getBytes(UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+}
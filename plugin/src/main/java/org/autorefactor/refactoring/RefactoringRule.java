@@ -84,7 +84,7 @@ public interface RefactoringRule {
     /**
      * Sets the refactoring context before analysis.
      *
-     * @param ctx the refactoring context
+     * @param ctx the refactoring context, or null to release the one of the compilation unit refactored last
      */
     void setRefactoringContext(RefactoringContext ctx);
 }
@@ -31,10 +31,13 @@ import org.eclipse.jdt.core.ICompilationUnit;
 class RefactoringUnit {
     private final ICompilationUnit compilationUnit;
     private final JavaProjectOptions options;
+    /** Whether the compilation unit was opened for refactoring it, then must be closed once refactored. */
+    private final boolean closeWhenDone;
 
-    RefactoringUnit(ICompilationUnit compilationUnit, JavaProjectOptions options) {
+    RefactoringUnit(ICompilationUnit compilationUnit, JavaProjectOptions options, boolean closeWhenDone) {
         this.compilationUnit = compilationUnit;
         this.options = options;
+        this.closeWhenDone = closeWhenDone;
     }
 
     ICompilationUnit getCompilationUnit() {
@@ -45,6 +48,10 @@ class RefactoringUnit {
         return options;
     }
 
+    boolean isCloseWhenDone() {
+        return closeWhenDone;
+    }
+
     @Override
     public String toString() {
         return getCompilationUnit().toString();
@@ -0,0 +1,216 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.runtime.OperationCanceledException;
+
+/**
+ * Work items streamed by {@link PrepareApplyRefactoringsJob} to the {@link ApplyRefactoringsJob}s.
+ * <p>
+ * The number of units in flight, i.e. queued or being refactored, is bounded:
+ * the producer waits for a worker to be done with a unit before it opens the next one.
+ * This bounds the compilation units kept open, and the ASTs with their bindings held by the workers,
+ * whatever the number of files to refactor.
+ * <p>
+ * It also measures the tail of the run, i.e. how long the last worker kept refactoring
+ * after the first one ran out of units, which the longest units being queued first keeps short.
+ */
+class RefactoringUnitQueue {
+    /** How often the waiting threads check whether the other side stopped, in milliseconds. */
+    private static final long POLL_MILLIS = 100;
+
+    private final BlockingQueue<RefactoringUnit> units = new LinkedBlockingQueue<RefactoringUnit>();
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+    private final AtomicInteger nbQueued = new AtomicInteger();
+    private final AtomicInteger nbConsumers = new AtomicInteger();
+    private final AtomicInteger nbConsumersAdded = new AtomicInteger();
+    /** When this queue was created, as given by {@link System#nanoTime()}. */
+    private final long startNanos = System.nanoTime();
+    /** When the first consumer ran out of units, 0 until then. */
+    private final AtomicLong firstIdleNanos = new AtomicLong();
+    /** When the last consumer stopped, 0 until then. */
+    private volatile long endNanos;
+    /** No unit will be added anymore. */
+    private volatile boolean closed;
+    /** All the consumers stopped before the producer was done. */
+    private volatile boolean aborted;
+
+    /**
+     * Builds an instance of this class.
+     *
+     * @param maxInFlight the maximum number of units queued or being refactored, or 0 for no limit
+     */
+    RefactoringUnitQueue(int maxInFlight) {
+        this.maxInFlight = maxInFlight > 0 ? maxInFlight : Integer.MAX_VALUE;
+        this.inFlight = new Semaphore(this.maxInFlight);
+    }
+
+    /**
+     * Waits until a new unit can be in flight. The producer must then either {@link #add(RefactoringUnit)} it,
+     * or {@link #release()} its place if the unit does not need to be refactored.
+     *
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     * @throws OperationCanceledException if no consumer is left to refactor the units
+     */
+    void acquire() throws InterruptedException {
+        while (!inFlight.tryAcquire(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (aborted) {
+                throw new OperationCanceledException();
+            }
+        }
+    }
+
+    /**
+     * Releases the place of a unit which is not in flight anymore.
+     */
+    void release() {
+        inFlight.release();
+    }
+
+    /**
+     * Adds a unit to refactor, once its place has been acquired.
+     *
+     * @param unit the unit to refactor
+     * @return the number of units added so far
+     */
+    int add(RefactoringUnit unit) {
+        units.add(unit);
+        return nbQueued.incrementAndGet();
+    }
+
+    /**
+     * Signals that the producer will not add any more units.
+     */
+    void close() {
+        closed = true;
+    }
+
+    /**
+     * Returns the next unit to refactor, waiting for the producer to add one.
+     *
+     * @return the next unit to refactor, or null once the producer is done and all the units have been taken
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    RefactoringUnit take() throws InterruptedException {
+        while (true) {
+            // the units are added before the queue is closed
+            final boolean wasClosed = closed;
+            final RefactoringUnit unit = units.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            if (unit == null && wasClosed) {
+                firstIdleNanos.compareAndSet(0, System.nanoTime());
+            }
+            if (unit != null || wasClosed) {
+                return unit;
+            }
+        }
+    }
+
+    /**
+     * Returns the next unit to refactor if one is already queued.
+     *
+     * @return the next unit to refactor, or null if none is queued
+     */
+    RefactoringUnit poll() {
+        return units.poll();
+    }
+
+    /**
+     * Returns the number of queued units, not taken by a consumer yet.
+     *
+     * @return the number of queued units
+     */
+    int size() {
+        return units.size();
+    }
+
+    /**
+     * Returns the maximum number of units queued or being refactored.
+     *
+     * @return the maximum number of units queued or being refactored, {@link Integer#MAX_VALUE} for no limit
+     */
+    int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Returns the number of units added so far.
+     *
+     * @return the number of units added so far
+     */
+    int getNbQueued() {
+        return nbQueued.get();
+    }
+
+    /**
+     * Records a new consumer, before it is started.
+     */
+    void addConsumer() {
+        nbConsumers.incrementAndGet();
+        nbConsumersAdded.incrementAndGet();
+    }
+
+    /**
+     * Records that a consumer stopped, aborting the producer if it was the last one while units may still come.
+     *
+     * @return true if the last consumer stopped after all the units have been taken
+     */
+    boolean removeConsumer() {
+        if (nbConsumers.decrementAndGet() > 0) {
+            return false;
+        }
+        if (!closed || !units.isEmpty()) {
+            aborted = true;
+            return false;
+        }
+        endNanos = System.nanoTime();
+        return true;
+    }
+
+    /**
+     * Returns how long the run took, and how long the last consumer kept working after the first one ran out of units.
+     * Must only be called once the last consumer stopped.
+     *
+     * @return the duration and the tail of the run in a human readable form
+     */
+    String getTailSummary() {
+        final long idleNanos = firstIdleNanos.get();
+        final long tailNanos = idleNanos != 0 ? endNanos - idleNanos : 0;
+        return nbConsumersAdded.get() + " workers took " + toMillis(endNanos - startNanos)
+                + " ms, the last one finishing " + toMillis(tailNanos) + " ms after the first one ran out of files";
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
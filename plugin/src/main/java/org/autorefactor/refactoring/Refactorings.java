@@ -25,14 +25,13 @@
  */
 package org.autorefactor.refactoring;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.Callable;
 
 import org.autorefactor.environment.EventLoop;
@@ -50,7 +49,12 @@ import org.eclipse.jdt.core.dom.rewrite.ListRewrite;
 import org.eclipse.jdt.core.dom.rewrite.TargetSourceRangeComputer;
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.text.edits.CopySourceEdit;
+import org.eclipse.text.edits.CopyTargetEdit;
+import org.eclipse.text.edits.MoveSourceEdit;
+import org.eclipse.text.edits.MoveTargetEdit;
 import org.eclipse.text.edits.TextEdit;
+import org.eclipse.text.edits.TextEditGroup;
 
 /**
  * Class aggregating all the refactorings performed by a refactoring rule until
@@ -67,8 +71,28 @@ public class Refactorings {
             new HashMap<Pair<ASTNode, ChildListPropertyDescriptor>, ListRewrite>();
     private final ASTCommentRewriter commentRewriter;
     private final SourceRewriter sourceRewriter = new SourceRewriter();
-    /** Nodes that cannot be visited. */
-    private final Set<ASTNode> refactoredNodes = new HashSet<ASTNode>();
+    /**
+     * Source locations of the refactorings of the current pass, in the original source,
+     * except the ones of the visit in progress which are kept by {@link #visitEditGroup}.
+     */
+    private final SourceRangeIndex currentPassLocations = new SourceRangeIndex();
+    /** Source locations of the refactorings of the previous passes over the same AST, in the original source. */
+    private final SourceRangeIndex previousPassesLocations = new SourceRangeIndex();
+    private boolean hasRefactoringsInCurrentPass;
+    /** Incremented each time a location is refactored during the current pass. */
+    private int currentPassModCount;
+    /** The only lines to refactor, or null to refactor the whole compilation unit. */
+    private final ChangedLines changedLines;
+    /** Source locations of the refactorings touching the changed lines, in the original source. */
+    private final SourceRangeIndex changedLinesLocations = new SourceRangeIndex();
+    private boolean hasRefactoringsOutsideChangedLines;
+    /** Whether the refactorings of a visit have been deferred because they conflicted with other visits. */
+    private boolean hasDeferredVisits;
+    /** The node whose visit records the next refactorings, null when it is not known. */
+    private ASTNode visitedNode;
+    /** The refactorings recorded while visiting the current node, null until the visit records one. */
+    private VisitEditGroup visitEditGroup;
+    private final List<VisitEditGroup> visitEditGroups = new ArrayList<VisitEditGroup>();
 
     /**
      * Builds an instance of this class.
@@ -77,7 +101,19 @@ public class Refactorings {
      * @param eventLoop the event loop
      */
     public Refactorings(CompilationUnit astRoot, EventLoop eventLoop) {
+        this(astRoot, eventLoop, null);
+    }
+
+    /**
+     * Builds an instance of this class.
+     *
+     * @param astRoot the compilation unit, root of the AST
+     * @param eventLoop the event loop
+     * @param changedLines the only lines to refactor, or null to refactor the whole compilation unit
+     */
+    public Refactorings(CompilationUnit astRoot, EventLoop eventLoop, ChangedLines changedLines) {
         this.eventLoop = eventLoop;
+        this.changedLines = changedLines;
         this.rewrite = ASTRewrite.create(astRoot.getAST());
         this.rewrite.setTargetSourceRangeComputer(new TargetSourceRangeComputer() {
             @Override
@@ -101,21 +137,216 @@ public class Refactorings {
     }
 
     /**
-     * Returns whether the provided node has been the target of a refactoring.
+     * Returns whether the provided node, one of its ancestors or one of its descendants
+     * has been the target of a refactoring.
+     * <p>
+     * After {@link #startNewPass()} has been called,
+     * this also returns true for nodes located inside a location refactored by the previous passes.
      *
      * @param node the node for which to make the determination
      * @return true if the provided node has been refactored, false otherwise
      */
     public boolean hasBeenRefactored(ASTNode node) {
-        return refactoredNodes.contains(node);
+        return node.getStartPosition() >= 0
+                && (overlapsCurrentPass(node.getStartPosition(), node.getLength())
+                        || previousPassesLocations.contains(node.getStartPosition(), node.getLength()));
+    }
+
+    /**
+     * Returns whether the provided node overlaps a location refactored by the previous passes over the same AST.
+     * Such nodes can still be traversed to reach their untouched descendants, but they must not be refactored.
+     *
+     * @param node the node for which to make the determination
+     * @return true if the provided node overlaps a location refactored by the previous passes, false otherwise
+     * @see #startNewPass()
+     */
+    public boolean overlapsPreviousPasses(ASTNode node) {
+        return node.getStartPosition() >= 0
+                && previousPassesLocations.overlaps(node.getStartPosition(), node.getLength());
+    }
+
+    /**
+     * Returns whether the provided node overlaps a location refactored since the start of the current pass.
+     * Other refactorings of such nodes would conflict with the ones already recorded,
+     * while the nodes which do not overlap them can still be refactored during the same pass.
+     *
+     * @param node the node for which to make the determination
+     * @return true if the provided node overlaps a location refactored during the current pass, false otherwise
+     */
+    public boolean overlapsCurrentPass(ASTNode node) {
+        return node.getStartPosition() >= 0
+                && overlapsCurrentPass(node.getStartPosition(), node.getLength());
+    }
+
+    private boolean overlapsCurrentPass(int startPosition, int length) {
+        return currentPassLocations.overlaps(startPosition, length)
+                || (visitEditGroup != null && visitEditGroup.locations.overlaps(startPosition, length));
+    }
+
+    /**
+     * Returns a number which changes each time a location is refactored during the current pass.
+     * Results of {@link #overlapsCurrentPass(ASTNode)} remain valid as long as this number does not change.
+     *
+     * @return a number which changes each time a location is refactored during the current pass
+     */
+    public int getCurrentPassModCount() {
+        return currentPassModCount;
+    }
+
+    /**
+     * Starts a new pass of refactoring rules over the same AST.
+     * <p>
+     * All the refactorings accumulated so far are kept and will be applied together.
+     * Nodes located inside the locations refactored so far are considered as refactored,
+     * while their ancestors can be visited again to reach the untouched parts of the AST.
+     */
+    public void startNewPass() {
+        endVisit();
+        previousPassesLocations.addAll(currentPassLocations);
+        currentPassLocations.clear();
+        currentPassModCount++;
+        hasRefactoringsInCurrentPass = false;
+    }
+
+    /**
+     * Returns whether refactorings have been added since the last call to {@link #startNewPass()}.
+     *
+     * @return true if refactorings have been added since the start of the current pass, false otherwise
+     */
+    public boolean hasRefactoringsInCurrentPass() {
+        return hasRefactoringsInCurrentPass;
     }
 
-    private void addRefactoredNodes(ASTNode node) {
-        hasRefactorings = true;
-        refactoredNodes.add(node);
-        if (node.getParent() != null) {
-            addRefactoredNodes(node.getParent());
+    /**
+     * Returns whether refactorings have been dropped because they did not touch the changed lines.
+     *
+     * @return true if refactorings have been dropped because they did not touch the changed lines, false otherwise
+     * @see #setVisitedNode(ASTNode)
+     */
+    public boolean hasRefactoringsOutsideChangedLines() {
+        return hasRefactoringsOutsideChangedLines;
+    }
+
+    /**
+     * Sets the node whose visit records the next refactorings.
+     * <p>
+     * The refactorings recorded while visiting a node are applied or deferred together,
+     * since some of them, like adding imports, follow from the others.
+     * As soon as one of them overlaps a location refactored by another visit over the same AST,
+     * the visit records nothing more, and all its refactorings are dropped before applying the others:
+     * the visitor refactors the node again once the source has been parsed again.
+     * <p>
+     * When only the changed lines are refactored, the changes of the AST recorded while visiting a node
+     * are also applied or dropped together:
+     * they are applied when the visited node lies in the changed lines, or when one of them touches the changed lines.
+     * The changes of the source code, like removing empty lines or rewriting comments,
+     * do not depend on each other, so each of them is only applied where it touches the changed lines.
+     *
+     * @param node the node whose visit records the next refactorings, null when it is not known
+     */
+    public void setVisitedNode(ASTNode node) {
+        endVisit();
+        this.visitedNode = node;
+    }
+
+    /**
+     * Ends the visit in progress: its locations now conflict with the refactorings of the next visits,
+     * even when it has been deferred, since its changes of the AST are only dropped when applying the refactorings.
+     */
+    private void endVisit() {
+        if (visitEditGroup != null) {
+            currentPassLocations.addAll(visitEditGroup.locations);
+            if (!visitEditGroup.deferred) {
+                for (SourceChange sourceChange : visitEditGroup.sourceChanges) {
+                    sourceChange.record();
+                }
+            }
+            visitEditGroup = null;
+        }
+    }
+
+    /**
+     * Returns the group of the refactorings recorded while visiting the current node.
+     *
+     * @return the group of the refactorings recorded while visiting the current node
+     */
+    private VisitEditGroup visitEditGroup() {
+        if (visitEditGroup == null) {
+            visitEditGroup = new VisitEditGroup();
+            visitEditGroups.add(visitEditGroup);
+        }
+        return visitEditGroup;
+    }
+
+    private boolean addRefactoredLocation(ASTNode node) {
+        return addRefactoredLocation(node.getStartPosition(), node.getLength());
+    }
+
+    /**
+     * Only records the insertion point in the list, so the other elements of the list are left untouched.
+     *
+     * @param listRewrite the list where a node is inserted
+     * @param index the index of the insertion in the original list, -1 to insert at the end of the list
+     * @return true if the insertion can be recorded, false if the visit has been deferred
+     */
+    private boolean addInsertionLocation(ListRewrite listRewrite, int index) {
+        final List<?> originalList = listRewrite.getOriginalList();
+        if (originalList.isEmpty()) {
+            return addRefactoredLocation(listRewrite.getParent());
+        } else if (0 <= index && index < originalList.size()) {
+            return addRefactoredLocation(((ASTNode) originalList.get(index)).getStartPosition(), 0);
+        } else {
+            final ASTNode lastElement = (ASTNode) originalList.get(originalList.size() - 1);
+            return addRefactoredLocation(SourceLocation.getEndPosition(lastElement), 0);
+        }
+    }
+
+    /**
+     * Records the location of a refactoring of the current visit, before recording the refactoring itself.
+     *
+     * @param startPosition the start position of the refactored location, negative for a new node
+     * @param length the length of the refactored location
+     * @return true if the refactoring can be recorded,
+     *         false if the current visit has been deferred because it conflicts with another visit
+     * @see #setVisitedNode(ASTNode)
+     */
+    private boolean addRefactoredLocation(int startPosition, int length) {
+        final VisitEditGroup group = visitEditGroup();
+        if (group.deferred) {
+            return false;
+        }
+        if (startPosition >= 0
+                && (currentPassLocations.overlaps(startPosition, length)
+                        || previousPassesLocations.overlaps(startPosition, length))) {
+            group.deferred = true;
+            hasDeferredVisits = true;
+            return false;
+        }
+        if (isOutsideChangedLines(startPosition, length)) {
+            // its edits are removed before applying the refactorings, unless the rest of the visit is applied
+            hasRefactoringsOutsideChangedLines = true;
+        } else {
+            hasRefactorings = true;
+            hasRefactoringsInCurrentPass = true;
+            if (changedLines != null) {
+                group.touchesChangedLines = true;
+                if (startPosition >= 0) {
+                    changedLinesLocations.add(startPosition, length);
+                }
+            }
         }
+        if (startPosition >= 0) {
+            group.locations.add(startPosition, length);
+            currentPassModCount++;
+        }
+        return true;
+    }
+
+    private boolean isOutsideChangedLines(int startPosition, int length) {
+        return changedLines != null
+                && startPosition >= 0
+                && (visitedNode == null || !changedLines.contains(visitedNode))
+                && !changedLines.intersects(startPosition, length);
     }
 
     /**
@@ -254,9 +485,10 @@ public class Refactorings {
      * @see ASTRewrite#replace(ASTNode, ASTNode, org.eclipse.text.edits.TextEditGroup)
      */
     public void replace(ASTNode node, ASTNode replacement) {
-        node.setProperty(UNTOUCH_COMMENT, Boolean.TRUE);
-        rewrite.replace(node, replacement, null);
-        addRefactoredNodes(node);
+        if (addRefactoredLocation(node)) {
+            node.setProperty(UNTOUCH_COMMENT, Boolean.TRUE);
+            rewrite.replace(node, replacement, visitEditGroup);
+        }
     }
 
     /**
@@ -265,9 +497,15 @@ public class Refactorings {
      * @param comment the comment to replace
      * @param replacement the replacement text
      */
-    public void replace(Comment comment, String replacement) {
-        hasRefactorings = true;
-        commentRewriter.replace(comment, replacement);
+    public void replace(final Comment comment, final String replacement) {
+        if (addRefactoredLocation(comment)) {
+            visitEditGroup.sourceChanges.add(new SourceChange() {
+                @Override
+                void record() {
+                    commentRewriter.replace(comment, replacement);
+                }
+            });
+        }
     }
 
     /**
@@ -276,9 +514,15 @@ public class Refactorings {
      * @param toReplace the source location to replace
      * @param replacement the replacement string
      */
-    public void replace(SourceLocation toReplace, String replacement) {
-        hasRefactorings = true;
-        this.sourceRewriter.replace(toReplace, replacement);
+    public void replace(final SourceLocation toReplace, final String replacement) {
+        if (addRefactoredLocation(toReplace.getStartPosition(), toReplace.getLength())) {
+            visitEditGroup.sourceChanges.add(new SourceChange() {
+                @Override
+                void record() {
+                    sourceRewriter.replace(toReplace, replacement);
+                }
+            });
+        }
     }
 
     /**
@@ -288,12 +532,9 @@ public class Refactorings {
      * @see ASTRewrite#remove(ASTNode, org.eclipse.text.edits.TextEditGroup)
      */
     public void remove(ASTNode node) {
-        if (node instanceof Comment) {
-            commentRewriter.remove((Comment) node);
-        } else {
-            rewrite.remove(node, null);
+        if (addRefactoredLocation(node)) {
+            removeNode(node);
         }
-        addRefactoredNodes(node);
     }
 
     /**
@@ -303,8 +544,24 @@ public class Refactorings {
      * @see ASTRewrite#remove(ASTNode, org.eclipse.text.edits.TextEditGroup)
      */
     public void removeButKeepComment(ASTNode node) {
-        node.setProperty(UNTOUCH_COMMENT, Boolean.TRUE);
-        remove(node);
+        if (addRefactoredLocation(node)) {
+            node.setProperty(UNTOUCH_COMMENT, Boolean.TRUE);
+            removeNode(node);
+        }
+    }
+
+    private void removeNode(ASTNode node) {
+        if (node instanceof Comment) {
+            final Comment comment = (Comment) node;
+            visitEditGroup.sourceChanges.add(new SourceChange() {
+                @Override
+                void record() {
+                    commentRewriter.remove(comment);
+                }
+            });
+        } else {
+            rewrite.remove(node, visitEditGroup);
+        }
     }
 
     /**
@@ -312,12 +569,18 @@ public class Refactorings {
      *
      * @param toRemove the source location to remove
      */
-    public void remove(SourceLocation toRemove) {
+    public void remove(final SourceLocation toRemove) {
         if (toRemove.getLength() == 0) {
             throw new IllegalArgumentException("Cannot remove an empty source range: " + toRemove);
         }
-        hasRefactorings = true;
-        sourceRewriter.remove(toRemove);
+        if (addRefactoredLocation(toRemove.getStartPosition(), toRemove.getLength())) {
+            visitEditGroup.sourceChanges.add(new SourceChange() {
+                @Override
+                void record() {
+                    sourceRewriter.remove(toRemove);
+                }
+            });
+        }
     }
 
     /**
@@ -362,8 +625,10 @@ public class Refactorings {
      */
     public void insertAt(
             ASTNode listHolder, StructuralPropertyDescriptor locationInParent, ASTNode nodeToInsert, int index) {
-        getListRewrite(listHolder, locationInParent).insertAt(nodeToInsert, index, null);
-        addRefactoredNodes(listHolder);
+        final ListRewrite listRewrite = getListRewrite(listHolder, locationInParent);
+        if (addInsertionLocation(listRewrite, index)) {
+            listRewrite.insertAt(nodeToInsert, index, visitEditGroup);
+        }
     }
 
     /**
@@ -374,8 +639,9 @@ public class Refactorings {
      * @see ListRewrite#insertBefore(ASTNode, ASTNode, org.eclipse.text.edits.TextEditGroup)
      */
     public void insertBefore(ASTNode nodeToInsert, ASTNode element) {
-        getListRewrite(element).insertBefore(nodeToInsert, element, null);
-        addRefactoredNodes(element.getParent());
+        if (addRefactoredLocation(element.getStartPosition(), 0)) {
+            getListRewrite(element).insertBefore(nodeToInsert, element, visitEditGroup);
+        }
     }
 
     /**
@@ -386,8 +652,9 @@ public class Refactorings {
      * @see ListRewrite#insertAfter(ASTNode, ASTNode, org.eclipse.text.edits.TextEditGroup)
      */
     public void insertAfter(ASTNode nodeToInsert, ASTNode element) {
-        getListRewrite(element).insertAfter(nodeToInsert, element, null);
-        addRefactoredNodes(element.getParent());
+        if (addRefactoredLocation(element.getStartPosition() >= 0 ? SourceLocation.getEndPosition(element) : -1, 0)) {
+            getListRewrite(element).insertAfter(nodeToInsert, element, visitEditGroup);
+        }
     }
 
     /**
@@ -399,8 +666,10 @@ public class Refactorings {
      * @see ListRewrite#insertFirst(ASTNode, org.eclipse.text.edits.TextEditGroup)
      */
     public void insertFirst(ASTNode listHolder, StructuralPropertyDescriptor locationInParent, ASTNode nodeToInsert) {
-        getListRewrite(listHolder, locationInParent).insertFirst(nodeToInsert, null);
-        addRefactoredNodes(listHolder);
+        final ListRewrite listRewrite = getListRewrite(listHolder, locationInParent);
+        if (addInsertionLocation(listRewrite, 0)) {
+            listRewrite.insertFirst(nodeToInsert, visitEditGroup);
+        }
     }
 
     /**
@@ -412,8 +681,10 @@ public class Refactorings {
      * @see ListRewrite#insertLast(ASTNode, org.eclipse.text.edits.TextEditGroup)
      */
     public void insertLast(ASTNode listHolder, StructuralPropertyDescriptor locationInParent, ASTNode nodeToInsert) {
-        getListRewrite(listHolder, locationInParent).insertLast(nodeToInsert, null);
-        addRefactoredNodes(listHolder);
+        final ListRewrite listRewrite = getListRewrite(listHolder, locationInParent);
+        if (addInsertionLocation(listRewrite, -1)) {
+            listRewrite.insertLast(nodeToInsert, visitEditGroup);
+        }
     }
 
     /**
@@ -434,9 +705,15 @@ public class Refactorings {
      * @param lineComment the line comment to convert to javadoc
      * @param nextNode the AST node immediately following the line comment
      */
-    public void toJavadoc(LineComment lineComment, ASTNode nextNode) {
-        hasRefactorings = true;
-        commentRewriter.toJavadoc(lineComment, nextNode);
+    public void toJavadoc(final LineComment lineComment, final ASTNode nextNode) {
+        if (addRefactoredLocation(lineComment)) {
+            visitEditGroup.sourceChanges.add(new SourceChange() {
+                @Override
+                void record() {
+                    commentRewriter.toJavadoc(lineComment, nextNode);
+                }
+            });
+        }
     }
 
     /**
@@ -444,9 +721,15 @@ public class Refactorings {
      *
      * @param blockComment the block comment to convert to javadoc
      */
-    public void toJavadoc(BlockComment blockComment) {
-        hasRefactorings = true;
-        commentRewriter.toJavadoc(blockComment);
+    public void toJavadoc(final BlockComment blockComment) {
+        if (addRefactoredLocation(blockComment)) {
+            visitEditGroup.sourceChanges.add(new SourceChange() {
+                @Override
+                void record() {
+                    commentRewriter.toJavadoc(blockComment);
+                }
+            });
+        }
     }
 
     /**
@@ -458,8 +741,9 @@ public class Refactorings {
      * @see ASTRewrite#set(ASTNode, StructuralPropertyDescriptor, Object, org.eclipse.text.edits.TextEditGroup)
      */
     public void set(ASTNode node, StructuralPropertyDescriptor property, Object value) {
-        rewrite.set(node, property, value, null);
-        addRefactoredNodes(node);
+        if (addRefactoredLocation(node)) {
+            rewrite.set(node, property, value, visitEditGroup);
+        }
     }
 
     /**
@@ -469,12 +753,112 @@ public class Refactorings {
      * @throws BadLocationException if trying to access a non existing position
      */
     public void applyTo(final IDocument document) throws BadLocationException {
+        endVisit();
         final TextEdit edits = rewrite.rewriteAST(document, null);
+        if (hasRefactoringsOutsideChangedLines || hasDeferredVisits) {
+            removeDroppedVisits(edits);
+        }
+        final List<TextEdit> astEdits = Arrays.asList(edits.getChildren());
         commentRewriter.addEdits(document, edits);
         sourceRewriter.addEdits(document, edits);
+        if (hasRefactoringsOutsideChangedLines) {
+            removeSourceEditsOutsideChangedLines(edits, astEdits, document);
+        }
         applyEditsToDocument(edits, document);
     }
 
+    /**
+     * Removes all the changes of the AST recorded while visiting a node, when the visit has been deferred,
+     * or when none of them touches the changed lines.
+     * <p>
+     * The changes made inside a removed change are kept, since they now apply to the code left in place.
+     * Moving or copying code is only dropped along with the node where the code goes, and conversely.
+     */
+    private void removeDroppedVisits(TextEdit edits) {
+        boolean removedEdits = false;
+        for (VisitEditGroup group : visitEditGroups) {
+            if (group.deferred || (changedLines != null && !group.touchesChangedLines)) {
+                for (TextEdit edit : group.getTextEdits()) {
+                    removedEdits |= removeKeepingChildren(edit);
+                }
+            }
+        }
+        if (removedEdits) {
+            removeCodeMovesToRemovedEdits(edits, edits);
+        }
+    }
+
+    private static boolean removeKeepingChildren(TextEdit edit) {
+        final TextEdit parent = edit.getParent();
+        if (parent == null) {
+            return false;
+        }
+        parent.removeChild(edit);
+        parent.addChildren(edit.removeChildren());
+        return true;
+    }
+
+    /**
+     * Removes the moves and copies of code whose source or target has been removed,
+     * so the code is left where it is.
+     */
+    private static void removeCodeMovesToRemovedEdits(TextEdit root, TextEdit edit) {
+        for (TextEdit child : edit.getChildren()) {
+            removeCodeMovesToRemovedEdits(root, child);
+            if (!isAttachedTo(root, getOtherEnd(child))) {
+                removeKeepingChildren(child);
+            }
+        }
+    }
+
+    /**
+     * Returns the other end of the provided move or copy of code, or the provided edit for the other edits.
+     */
+    private static TextEdit getOtherEnd(TextEdit edit) {
+        if (edit instanceof MoveSourceEdit) {
+            return ((MoveSourceEdit) edit).getTargetEdit();
+        } else if (edit instanceof MoveTargetEdit) {
+            return ((MoveTargetEdit) edit).getSourceEdit();
+        } else if (edit instanceof CopySourceEdit) {
+            return ((CopySourceEdit) edit).getTargetEdit();
+        } else if (edit instanceof CopyTargetEdit) {
+            return ((CopyTargetEdit) edit).getSourceEdit();
+        }
+        return edit;
+    }
+
+    private static boolean isAttachedTo(TextEdit root, TextEdit edit) {
+        TextEdit ancestor = edit;
+        while (ancestor != null && ancestor != root) {
+            ancestor = ancestor.getParent();
+        }
+        return ancestor == root;
+    }
+
+    /**
+     * Removes the changes of the source code which neither touch the changed lines
+     * nor the lines of the refactorings to apply.
+     * <p>
+     * Edits are compared line by line, since the edits of a refactoring may extend a bit beyond its location.
+     *
+     * @param astEdits the changes of the AST, already filtered
+     */
+    private void removeSourceEditsOutsideChangedLines(TextEdit edits, List<TextEdit> astEdits, IDocument document)
+            throws BadLocationException {
+        for (TextEdit edit : edits.getChildren()) {
+            if (astEdits.contains(edit)) {
+                continue;
+            }
+            final int firstLine = document.getLineOfOffset(edit.getOffset());
+            final int lastLine = document.getLineOfOffset(edit.getExclusiveEnd());
+            final int start = document.getLineOffset(firstLine);
+            final int length = document.getLineOffset(lastLine) + document.getLineLength(lastLine) - start;
+            if (!changedLines.intersects(start, length) && !changedLinesLocations.overlaps(start, length)) {
+                edits.removeChild(edit);
+            }
+        }
+    }
+
     private void applyEditsToDocument(final TextEdit edits, final IDocument document) throws BadLocationException {
         // Call this operation on the SWT Display Thread with syncExec(),
         // because it changes or adds something to the GUI.
@@ -504,4 +888,25 @@ public class Refactorings {
     public ASTRewrite getRewrite() {
         return rewrite;
     }
+
+    /** The refactorings recorded while visiting a node, applied or dropped together. */
+    private static final class VisitEditGroup extends TextEditGroup {
+        /** The source locations refactored by the visit, in the original source. */
+        private final SourceRangeIndex locations = new SourceRangeIndex();
+        /** The changes of the source code, only recorded once the visit ends without being deferred. */
+        private final List<SourceChange> sourceChanges = new ArrayList<SourceChange>();
+        /** Whether one of the refactorings of the visit conflicts with the refactorings of another visit. */
+        private boolean deferred;
+        /** Whether one of the refactorings of the visit touches the changed lines. */
+        private boolean touchesChangedLines;
+
+        VisitEditGroup() {
+            super("visit");
+        }
+    }
+
+    /** A change of the source code, like rewriting a comment, which is not part of the changes of the AST. */
+    private abstract static class SourceChange {
+        abstract void record();
+    }
 }
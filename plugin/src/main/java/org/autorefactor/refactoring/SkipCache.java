@@ -0,0 +1,453 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring;
+
+import static org.autorefactor.refactoring.PluginConstant.PLUGIN_ID;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import org.autorefactor.util.UnhandledException;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IField;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.IBinding;
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.IVariableBinding;
+import org.eclipse.jdt.core.dom.SimpleName;
+import org.osgi.framework.Bundle;
+
+/**
+ * Persistent index of the compilation units to which no refactoring is applicable.
+ * <p>
+ * An entry is keyed by the hash of the source code of a compilation unit,
+ * the refactoring rules to apply, the Java release, the version of AutoRefactor
+ * and the libraries on the classpath of the Java project.
+ * It records the compilation units in the Java model referenced by the source code,
+ * and the ones declaring their supertypes, along with a hash of their signatures:
+ * the entry is invalidated as soon as the signature of one of them changes.
+ * <p>
+ * Entries are appended to the index file, along with the compilation unit they were recorded for.
+ * The index file is loaded once, then lookups are lock-free reads,
+ * so the worker threads consulting this index never contend.
+ * Lines which have been partially written are detected with a checksum and ignored.
+ * When most lines are stale on load, because they were recorded for previous versions of the compilation units,
+ * the index file is rewritten with the latest entries only.
+ * The entries appended by another process meanwhile can then be lost, which only costs refactoring their files again.
+ */
+public class SkipCache {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String SEPARATOR = "\t";
+
+    private final File indexFile;
+    private final String ruleSetKey;
+    private final String toolVersion;
+    /** What the compilation units depended on, per key. */
+    private final Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+    private final Map<IJavaProject, String> classpathFingerprints = new ConcurrentHashMap<IJavaProject, String>();
+
+    /**
+     * Builds an instance of this class, loading the provided index file if it exists.
+     *
+     * @param indexFile the file where the index is persisted
+     * @param refactoringRules the refactoring rules to apply
+     * @throws IOException if the index file cannot be read
+     */
+    public SkipCache(File indexFile, List<RefactoringRule> refactoringRules) throws IOException {
+        this.indexFile = indexFile;
+        this.ruleSetKey = ruleSetKey(refactoringRules);
+        this.toolVersion = toolVersion();
+        load();
+    }
+
+    /**
+     * Returns the file of the index maintained by the plugin in its state location.
+     *
+     * @return the file of the index maintained by the plugin
+     */
+    public static File getPluginIndexFile() {
+        return Platform.getStateLocation(Platform.getBundle(PLUGIN_ID)).append("skip-cache.idx").toFile();
+    }
+
+    private static String ruleSetKey(List<RefactoringRule> refactoringRules) {
+        final Set<String> ruleNames = new TreeSet<String>();
+        for (RefactoringRule rule : refactoringRules) {
+            ruleNames.add(rule.getClass().getName());
+        }
+        return ruleNames.toString();
+    }
+
+    private static String toolVersion() {
+        final Bundle bundle = Platform.getBundle(PLUGIN_ID);
+        return bundle != null ? bundle.getVersion().toString() : "unknown";
+    }
+
+    private void load() throws IOException {
+        if (!indexFile.isFile()) {
+            return;
+        }
+        // the key of the latest entry of each compilation unit, the previous ones are stale
+        final Map<String, String> latestKeys = new HashMap<String, String>();
+        int nbLines = 0;
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(indexFile), UTF_8));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                nbLines++;
+                final int lastSeparator = line.lastIndexOf(SEPARATOR);
+                if (lastSeparator == -1) {
+                    continue;
+                }
+                final String payload = line.substring(0, lastSeparator);
+                if (!checksum(payload).equals(line.substring(lastSeparator + SEPARATOR.length()))) {
+                    // partially written line
+                    continue;
+                }
+                final String[] fields = payload.split(SEPARATOR, -1);
+                // the key, the compilation unit, then the dependencies along with their signature hashes
+                if (fields.length % 2 != 0) {
+                    continue;
+                }
+                final String[] dependencies = new String[fields.length - 2];
+                System.arraycopy(fields, 2, dependencies, 0, dependencies.length);
+                final Entry entry = new Entry(fields[1], dependencies);
+                entries.put(fields[0], entry);
+                final String previousKey = latestKeys.put(entry.compilationUnit, fields[0]);
+                if (previousKey != null && !previousKey.equals(fields[0])) {
+                    final Entry previousEntry = entries.get(previousKey);
+                    if (previousEntry != null && previousEntry.compilationUnit.equals(entry.compilationUnit)) {
+                        entries.remove(previousKey);
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        if (nbLines > 2 * entries.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * Rewrites the index file with the loaded entries only.
+     * The new file is written aside, then renamed, so the other processes never read a partial index.
+     */
+    private synchronized void compact() throws IOException {
+        final File tmpFile = File.createTempFile(indexFile.getName(), ".tmp", indexFile.getParentFile());
+        try {
+            final OutputStream out = new FileOutputStream(tmpFile);
+            try {
+                for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                    out.write(toLine(entry.getKey(), entry.getValue()));
+                }
+            } finally {
+                out.close();
+            }
+            if (!tmpFile.renameTo(indexFile)) {
+                // some platforms do not rename over an existing file
+                indexFile.delete();
+                if (!tmpFile.renameTo(indexFile)) {
+                    throw new IOException("Cannot rewrite the skip cache " + indexFile);
+                }
+            }
+        } finally {
+            tmpFile.delete();
+        }
+    }
+
+    /**
+     * Returns whether no refactoring is applicable to the provided source code,
+     * as recorded by a previous run which has not been invalidated since then.
+     *
+     * @param source the source code of the compilation unit
+     * @param javaProject the Java project of the compilation unit
+     * @param javaSERelease the Java release used to refactor the compilation unit
+     * @return true if no refactoring is applicable to the provided source code, false otherwise
+     */
+    public boolean isUpToDate(String source, IJavaProject javaProject, Release javaSERelease) {
+        try {
+            final Entry entry = entries.get(key(source, javaProject, javaSERelease));
+            if (entry == null) {
+                return false;
+            }
+            final String[] dependencies = entry.dependencies;
+            for (int i = 0; i < dependencies.length; i += 2) {
+                final IJavaElement dependency = JavaCore.create(dependencies[i]);
+                if (!(dependency instanceof ICompilationUnit)
+                        || !dependency.exists()
+                        || !dependencies[i + 1].equals(signatureHash((ICompilationUnit) dependency))) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (JavaModelException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Records that no refactoring is applicable to the provided source code.
+     *
+     * @param source the source code of the compilation unit
+     * @param astRoot the compilation unit parsed from the source code, with resolved bindings
+     *        unless only {@link BindingFreeRefactoringRule}s could refactor it: it then depends on no other file
+     * @param compilationUnit the compilation unit in the Java model
+     * @param javaSERelease the Java release used to refactor the compilation unit
+     * @throws IOException if the index file cannot be written
+     * @throws JavaModelException if the signatures of the dependencies cannot be computed
+     */
+    public void recordUpToDate(String source, CompilationUnit astRoot, ICompilationUnit compilationUnit,
+            Release javaSERelease) throws IOException, JavaModelException {
+        final String key = key(source, compilationUnit.getJavaProject(), javaSERelease);
+        final List<String> dependencies = new ArrayList<String>();
+        for (ICompilationUnit dependency : getDependencies(astRoot)) {
+            dependencies.add(dependency.getHandleIdentifier());
+            dependencies.add(signatureHash(dependency));
+        }
+
+        final Entry entry = new Entry(compilationUnit.getPrimary().getHandleIdentifier(),
+                dependencies.toArray(new String[dependencies.size()]));
+        append(toLine(key, entry));
+        entries.put(key, entry);
+    }
+
+    private static byte[] toLine(String key, Entry entry) {
+        final StringBuilder payload = new StringBuilder(key).append(SEPARATOR).append(entry.compilationUnit);
+        for (String dependency : entry.dependencies) {
+            payload.append(SEPARATOR).append(dependency);
+        }
+        payload.append(SEPARATOR).append(checksum(payload.toString())).append('\n');
+        return payload.toString().getBytes(UTF_8);
+    }
+
+    private synchronized void append(byte[] line) throws IOException {
+        indexFile.getParentFile().mkdirs();
+        final OutputStream out = new FileOutputStream(indexFile, true);
+        try {
+            // a single write, so lines appended concurrently by other processes do not interleave
+            out.write(line);
+        } finally {
+            out.close();
+        }
+    }
+
+    private String key(String source, IJavaProject javaProject, Release javaSERelease) throws JavaModelException {
+        return hash(hash(source),
+                ruleSetKey,
+                String.valueOf(javaSERelease),
+                toolVersion,
+                getClasspathFingerprint(javaProject));
+    }
+
+    /**
+     * Only the libraries are fingerprinted, the source dependencies are tracked per compilation unit.
+     * Libraries do not change during a run, so the fingerprint is computed once per Java project.
+     */
+    private String getClasspathFingerprint(IJavaProject javaProject) throws JavaModelException {
+        String fingerprint = classpathFingerprints.get(javaProject);
+        if (fingerprint == null) {
+            final List<String> libraries = new ArrayList<String>();
+            for (IClasspathEntry entry : javaProject.getResolvedClasspath(true)) {
+                if (entry.getEntryKind() == IClasspathEntry.CPE_LIBRARY) {
+                    final File library = toFile(entry.getPath());
+                    libraries.add(library + ":" + library.length() + ":" + library.lastModified());
+                }
+            }
+            fingerprint = hash(libraries.toArray(new String[libraries.size()]));
+            classpathFingerprints.put(javaProject, fingerprint);
+        }
+        return fingerprint;
+    }
+
+    private File toFile(IPath path) {
+        final IResource resource = ResourcesPlugin.getWorkspace().getRoot().findMember(path);
+        if (resource != null && resource.getLocation() != null) {
+            return resource.getLocation().toFile();
+        }
+        return path.toFile();
+    }
+
+    /**
+     * Returns the compilation units in the Java model declaring the types, methods and fields
+     * referenced by the provided compilation unit, along with the supertypes of these types.
+     * The inherited members and the overridden methods depend on all the supertypes,
+     * even when the source code only references one of their subtypes.
+     */
+    private Set<ICompilationUnit> getDependencies(final CompilationUnit astRoot) {
+        final IJavaElement javaElement = astRoot.getJavaElement();
+        final IJavaElement self = javaElement != null ? javaElement.getPrimaryElement() : null;
+        final Set<ICompilationUnit> results = new TreeSet<ICompilationUnit>(new Comparator<ICompilationUnit>() {
+            @Override
+            public int compare(ICompilationUnit cu1, ICompilationUnit cu2) {
+                return cu1.getHandleIdentifier().compareTo(cu2.getHandleIdentifier());
+            }
+        });
+        astRoot.accept(new ASTVisitor() {
+            /** The keys of the types already added, along with their supertypes. */
+            private final Set<String> addedTypes = new HashSet<String>();
+
+            @Override
+            public boolean visit(SimpleName node) {
+                final IBinding binding = node.resolveBinding();
+                if (binding instanceof ITypeBinding) {
+                    add((ITypeBinding) binding);
+                } else if (binding instanceof IMethodBinding) {
+                    add(((IMethodBinding) binding).getDeclaringClass());
+                } else if (binding instanceof IVariableBinding) {
+                    add(((IVariableBinding) binding).getDeclaringClass());
+                    add(((IVariableBinding) binding).getType());
+                }
+                return true;
+            }
+
+            private void add(ITypeBinding typeBinding) {
+                if (typeBinding == null) {
+                    return;
+                }
+                if (typeBinding.isArray()) {
+                    add(typeBinding.getElementType());
+                    return;
+                }
+                final ITypeBinding erasure = typeBinding.getErasure();
+                // the supertypes of the library types are library types, which are not tracked
+                if (!erasure.isFromSource() || !addedTypes.add(erasure.getKey())) {
+                    return;
+                }
+                final IJavaElement type = erasure.getJavaElement();
+                if (type instanceof IType) {
+                    final ICompilationUnit cu = ((IType) type).getCompilationUnit();
+                    if (cu != null && !cu.getPrimary().equals(self)) {
+                        results.add(cu.getPrimary());
+                    }
+                }
+                add(erasure.getSuperclass());
+                for (ITypeBinding superInterface : erasure.getInterfaces()) {
+                    add(superInterface);
+                }
+            }
+        });
+        return results;
+    }
+
+    /**
+     * Hashes the signatures of the types declared in the provided compilation unit,
+     * i.e. what other compilation units can see of it. Method bodies are left out.
+     */
+    private String signatureHash(ICompilationUnit cu) throws JavaModelException {
+        final List<String> signatures = new ArrayList<String>();
+        for (IType type : cu.getTypes()) {
+            addSignatures(signatures, type);
+        }
+        return hash(signatures.toArray(new String[signatures.size()]));
+    }
+
+    private void addSignatures(List<String> signatures, IType type) throws JavaModelException {
+        signatures.add(type.getFullyQualifiedName() + " " + type.getFlags() + " "
+                + type.getSuperclassTypeSignature() + " "
+                + Arrays.toString(type.getSuperInterfaceTypeSignatures())
+                + Arrays.toString(type.getTypeParameterSignatures()));
+        for (IField field : type.getFields()) {
+            signatures.add(field.getElementName() + " " + field.getFlags() + " " + field.getTypeSignature()
+                    + " " + field.getConstant());
+        }
+        for (IMethod method : type.getMethods()) {
+            signatures.add(method.getElementName() + " " + method.getFlags() + " " + method.getSignature()
+                    + Arrays.toString(method.getExceptionTypes())
+                    + Arrays.toString(method.getTypeParameterSignatures()));
+        }
+        for (IType memberType : type.getTypes()) {
+            addSignatures(signatures, memberType);
+        }
+    }
+
+    private static String hash(String... values) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            for (String value : values) {
+                digest.update(value.getBytes(UTF_8));
+                digest.update((byte) 0);
+            }
+            final StringBuilder sb = new StringBuilder();
+            for (byte b : digest.digest()) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new UnhandledException(null, e);
+        }
+    }
+
+    private static String checksum(String payload) {
+        final CRC32 crc = new CRC32();
+        crc.update(payload.getBytes(UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+
+    /** What a compilation unit depended on when no refactoring was applicable to it. */
+    private static final class Entry {
+        /** The handle identifier of the compilation unit the entry was recorded for. */
+        private final String compilationUnit;
+        /** Alternating the handle identifiers of the dependencies and the hashes of their signatures. */
+        private final String[] dependencies;
+
+        private Entry(String compilationUnit, String[] dependencies) {
+            this.compilationUnit = compilationUnit;
+            this.dependencies = dependencies;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring;
+
+import java.util.Arrays;
+
+/**
+ * Index of source ranges answering in logarithmic time whether a node overlaps or is contained by one of them.
+ * <p>
+ * Ranges are half-open: a range overlaps a node when it contains at least one of its characters,
+ * so a refactored node overlaps its ancestors and its descendants, but not its siblings.
+ * An empty range is an insertion point: it overlaps the nodes starting at it or containing it.
+ * <p>
+ * Non empty ranges are kept sorted by start position, along with the maximum end position of the ranges
+ * starting before each of them, so both questions are answered by a binary search.
+ * Ranges are mostly added in the order of the source, so adding one rarely moves the other ones.
+ */
+final class SourceRangeIndex {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] ends = new int[INITIAL_CAPACITY];
+    /** The maximum of {@link #ends} from index 0 up to each index included. */
+    private int[] maxEnds = new int[INITIAL_CAPACITY];
+    private int nbRanges;
+    /** Sorted positions of the empty ranges. */
+    private int[] points = new int[INITIAL_CAPACITY];
+    private int nbPoints;
+
+    /**
+     * Adds the provided source range.
+     *
+     * @param start the start position of the range
+     * @param length the length of the range, 0 for an insertion point
+     */
+    void add(int start, int length) {
+        if (length == 0) {
+            addPoint(start);
+        } else {
+            addRange(start, start + length);
+        }
+    }
+
+    private void addPoint(int position) {
+        if (nbPoints == points.length) {
+            points = Arrays.copyOf(points, 2 * nbPoints);
+        }
+        final int index = firstIndexAfter(points, nbPoints, position);
+        System.arraycopy(points, index, points, index + 1, nbPoints - index);
+        points[index] = position;
+        nbPoints++;
+    }
+
+    private void addRange(int start, int end) {
+        if (nbRanges == starts.length) {
+            starts = Arrays.copyOf(starts, 2 * nbRanges);
+            ends = Arrays.copyOf(ends, 2 * nbRanges);
+            maxEnds = Arrays.copyOf(maxEnds, 2 * nbRanges);
+        }
+        final int index = firstIndexAfter(starts, nbRanges, start);
+        final int nbMoved = nbRanges - index;
+        System.arraycopy(starts, index, starts, index + 1, nbMoved);
+        System.arraycopy(ends, index, ends, index + 1, nbMoved);
+        System.arraycopy(maxEnds, index, maxEnds, index + 1, nbMoved);
+        starts[index] = start;
+        ends[index] = end;
+        maxEnds[index] = index > 0 ? Math.max(maxEnds[index - 1], end) : end;
+        nbRanges++;
+        // the following maximums can only grow, and stop growing at the first one already greater
+        for (int i = index + 1; i < nbRanges && maxEnds[i] < end; i++) {
+            maxEnds[i] = end;
+        }
+    }
+
+    /**
+     * Adds all the source ranges of the provided index.
+     *
+     * @param other the index whose ranges to add
+     */
+    void addAll(SourceRangeIndex other) {
+        for (int i = 0; i < other.nbRanges; i++) {
+            addRange(other.starts[i], other.ends[i]);
+        }
+        for (int i = 0; i < other.nbPoints; i++) {
+            addPoint(other.points[i]);
+        }
+    }
+
+    /** Removes all the source ranges. */
+    void clear() {
+        nbRanges = 0;
+        nbPoints = 0;
+    }
+
+    /**
+     * Returns whether this index holds no source range.
+     *
+     * @return true if this index holds no source range, false otherwise
+     */
+    boolean isEmpty() {
+        return nbRanges == 0 && nbPoints == 0;
+    }
+
+    /**
+     * Returns whether one of the source ranges overlaps the provided source range.
+     *
+     * @param start the start position of the provided range
+     * @param length the length of the provided range
+     * @return true if one of the source ranges overlaps the provided source range, false otherwise
+     */
+    boolean overlaps(int start, int length) {
+        final int end = start + length;
+        // the ranges starting before the end of the provided range overlap it if one of them ends after its start
+        final int lastRangeStartingBefore = firstIndexAtOrAfter(starts, nbRanges, end) - 1;
+        if (lastRangeStartingBefore >= 0 && maxEnds[lastRangeStartingBefore] > start) {
+            return true;
+        }
+        final int firstPoint = firstIndexAtOrAfter(points, nbPoints, start);
+        return firstPoint < nbPoints && points[firstPoint] < end;
+    }
+
+    /**
+     * Returns whether one of the source ranges contains the provided source range.
+     *
+     * @param start the start position of the provided range
+     * @param length the length of the provided range
+     * @return true if one of the source ranges contains the provided source range, false otherwise
+     */
+    boolean contains(int start, int length) {
+        final int lastRangeStartingAtOrBefore = firstIndexAfter(starts, nbRanges, start) - 1;
+        return lastRangeStartingAtOrBefore >= 0 && maxEnds[lastRangeStartingAtOrBefore] >= start + length;
+    }
+
+    /** Returns the index of the first element greater than or equal to the provided value. */
+    private static int firstIndexAtOrAfter(int[] sorted, int size, int value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (sorted[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /** Returns the index of the first element strictly greater than the provided value. */
+    private static int firstIndexAfter(int[] sorted, int size, int value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (sorted[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("SourceRangeIndex[");
+        for (int i = 0; i < nbRanges; i++) {
+            sb.append(i > 0 ? ", " : "").append(starts[i]).append('-').append(ends[i]);
+        }
+        for (int i = 0; i < nbPoints; i++) {
+            sb.append(nbRanges > 0 || i > 0 ? ", " : "").append(points[i]);
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The time a worker may spend refactoring a file, and the time each rule may spend on this file.
+ * <p>
+ * The budgets are enforced cooperatively: the {@link org.autorefactor.refactoring.rules.AggregateASTVisitor}
+ * tells which rule is running before each visit of a node,
+ * and the algorithms whose cost can grow out of proportion with the size of the file call {@link #check()}.
+ * Both throw a {@link TimeBudgetExceededException} once a budget is exhausted:
+ * the running rule is then abandoned for the rest of the file, while the other rules keep refactoring it.
+ * Once the budget of the file is exhausted, all the rules are abandoned.
+ * <p>
+ * The budgets measure the elapsed time of the thread refactoring the file, which is the only one using this budget.
+ * The time of a rule is charged when the next rule starts visiting a node,
+ * and every {@value #CHECK_PERIOD} calls to {@link #check()} while it runs.
+ */
+public final class TimeBudget {
+    /** The budget of the file refactored by the current thread, if any. */
+    private static final ThreadLocal<TimeBudget> CURRENT = new ThreadLocal<TimeBudget>();
+    /** Reading the clock costs much more than counting: only read it once in this many checks. */
+    private static final int CHECK_PERIOD = 64;
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private final String path;
+    private final long fileBudgetNanos;
+    private final long ruleBudgetNanos;
+    /** Whether any budget is enforced, otherwise this instance only holds the quarantined rules. */
+    private final boolean limited;
+    private final Set<String> quarantinedRuleClasses;
+    private final long start;
+    private long lastClock;
+    private int nbChecks;
+    private Object currentRule;
+    private final Map<Object, long[]> spentByRule = new IdentityHashMap<Object, long[]>();
+    private final Map<Object, Boolean> abandonedRules = new IdentityHashMap<Object, Boolean>();
+    private final Set<String> timedOutRuleClasses = new LinkedHashSet<String>();
+    private boolean fileBudgetExceeded;
+
+    private TimeBudget(String path, long fileBudgetMillis, long ruleBudgetMillis,
+            Set<String> quarantinedRuleClasses) {
+        this.path = path;
+        this.fileBudgetNanos = toNanos(fileBudgetMillis);
+        this.ruleBudgetNanos = toNanos(ruleBudgetMillis);
+        this.limited = fileBudgetMillis > 0 || ruleBudgetMillis > 0;
+        this.quarantinedRuleClasses = quarantinedRuleClasses;
+        this.start = System.nanoTime();
+        this.lastClock = start;
+    }
+
+    private static long toNanos(long millis) {
+        return millis > 0 ? millis * NANOS_PER_MILLI : Long.MAX_VALUE;
+    }
+
+    /**
+     * Starts the budget of a file refactored by the current thread.
+     *
+     * @param path the path of the file
+     * @param fileBudgetMillis the milliseconds the file may be refactored for, 0 for no limit
+     * @param ruleBudgetMillis the milliseconds each rule may spend on the file, 0 for no limit
+     * @param quarantinedRuleClasses the names of the rule classes which must not refactor the file
+     * @return the budget of the file, to {@link #stop()} once the file is refactored
+     */
+    public static TimeBudget start(String path, long fileBudgetMillis, long ruleBudgetMillis,
+            Set<String> quarantinedRuleClasses) {
+        final TimeBudget budget = new TimeBudget(path, fileBudgetMillis, ruleBudgetMillis, quarantinedRuleClasses);
+        CURRENT.set(budget);
+        return budget;
+    }
+
+    /** Stops this budget, the current thread is done with refactoring the file. */
+    public void stop() {
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Checks the budgets of the file refactored by the current thread, and of the rule running, if any.
+     * <p>
+     * To be called from the loops whose number of iterations can grow out of proportion with the size of the file.
+     * It only reads the clock once every {@value #CHECK_PERIOD} calls, so it can be called often.
+     *
+     * @throws TimeBudgetExceededException if the budget of the file or of the running rule is exhausted
+     */
+    public static void check() {
+        final TimeBudget budget = CURRENT.get();
+        if (budget != null && budget.limited && ++budget.nbChecks % CHECK_PERIOD == 0) {
+            budget.charge(System.nanoTime());
+            budget.checkBudgets();
+        }
+    }
+
+    /**
+     * Records that the provided rule starts visiting a node.
+     * The time elapsed since the previous rule started visiting a node is charged to the previous rule.
+     *
+     * @param rule the rule starting to visit a node
+     * @throws TimeBudgetExceededException if the budget of the file or of the provided rule is exhausted
+     */
+    public void enter(Object rule) {
+        if (limited) {
+            charge(System.nanoTime());
+            currentRule = rule;
+            checkBudgets();
+        }
+    }
+
+    /**
+     * Records that no rule is running anymore,
+     * so the time spent parsing or applying the refactorings is not charged to the last rule which ran.
+     */
+    public void leave() {
+        if (limited) {
+            charge(System.nanoTime());
+            currentRule = null;
+        }
+    }
+
+    private void charge(long now) {
+        if (currentRule != null) {
+            long[] spent = spentByRule.get(currentRule);
+            if (spent == null) {
+                spent = new long[1];
+                spentByRule.put(currentRule, spent);
+            }
+            spent[0] += now - lastClock;
+        }
+        lastClock = now;
+    }
+
+    private void checkBudgets() {
+        if (lastClock - start > fileBudgetNanos) {
+            fileBudgetExceeded = true;
+            throw new TimeBudgetExceededException(currentRule, true);
+        }
+        if (currentRule != null) {
+            final long[] spent = spentByRule.get(currentRule);
+            if (spent != null && spent[0] > ruleBudgetNanos) {
+                throw new TimeBudgetExceededException(currentRule, false);
+            }
+        }
+    }
+
+    /**
+     * Abandons the quarantined rules among the provided ones.
+     *
+     * @param rules the rules about to refactor the file
+     */
+    public void abandonQuarantinedRules(Collection<?> rules) {
+        if (quarantinedRuleClasses.isEmpty()) {
+            return;
+        }
+        for (Object rule : rules) {
+            if (quarantinedRuleClasses.contains(rule.getClass().getName())) {
+                abandonedRules.put(rule, Boolean.TRUE);
+            }
+        }
+    }
+
+    /**
+     * Abandons the rule which exhausted a budget for the rest of the file.
+     *
+     * @param e the exception reporting the exhausted budget
+     */
+    public void abandon(TimeBudgetExceededException e) {
+        if (e.isFileBudget()) {
+            fileBudgetExceeded = true;
+        }
+        if (e.getRule() != null) {
+            abandonedRules.put(e.getRule(), Boolean.TRUE);
+            timedOutRuleClasses.add(e.getRule().getClass().getName());
+        }
+    }
+
+    /**
+     * Returns whether the provided rule must not refactor the file anymore.
+     *
+     * @param rule the rule
+     * @return true if the provided rule has been abandoned, false otherwise
+     */
+    public boolean isAbandoned(Object rule) {
+        return fileBudgetExceeded || (!abandonedRules.isEmpty() && abandonedRules.containsKey(rule));
+    }
+
+    /**
+     * Returns whether some rules did not refactor the whole file.
+     *
+     * @return true if some rules have been abandoned, false otherwise
+     */
+    public boolean hasAbandonedRules() {
+        return fileBudgetExceeded || !abandonedRules.isEmpty();
+    }
+
+    /**
+     * Returns whether the budget of the file is exhausted.
+     *
+     * @return true if the budget of the file is exhausted, false otherwise
+     */
+    public boolean isFileBudgetExceeded() {
+        if (!fileBudgetExceeded && limited && System.nanoTime() - start > fileBudgetNanos) {
+            fileBudgetExceeded = true;
+        }
+        return fileBudgetExceeded;
+    }
+
+    /**
+     * Returns the path of the file.
+     *
+     * @return the path of the file
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the names of the rule classes which exhausted a budget on the file.
+     *
+     * @return the names of the rule classes which exhausted a budget on the file
+     */
+    public List<String> getTimedOutRuleClasses() {
+        return Collections.unmodifiableList(new ArrayList<String>(timedOutRuleClasses));
+    }
+}
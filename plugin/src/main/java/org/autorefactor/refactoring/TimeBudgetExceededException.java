@@ -0,0 +1,69 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring;
+
+/**
+ * Interrupts a refactoring rule whose time budget, or the time budget of the file it refactors, is exhausted.
+ *
+ * @see TimeBudget
+ */
+public class TimeBudgetExceededException extends RuntimeException {
+    private static final long serialVersionUID = -3204178617409327395L;
+
+    private final transient Object rule;
+    private final boolean fileBudget;
+
+    /**
+     * Builds an instance of this class.
+     *
+     * @param rule the rule which was running when the budget was exhausted, or null if none was
+     * @param fileBudget whether the budget of the whole file is exhausted, rather than the one of the rule
+     */
+    TimeBudgetExceededException(Object rule, boolean fileBudget) {
+        super((fileBudget ? "Time budget of the file" : "Time budget of the rule") + " exhausted"
+                + (rule != null ? " while running " + rule.getClass().getName() : ""));
+        this.rule = rule;
+        this.fileBudget = fileBudget;
+    }
+
+    /**
+     * Returns the rule which was running when the budget was exhausted.
+     *
+     * @return the rule which was running when the budget was exhausted, or null if none was
+     */
+    public Object getRule() {
+        return rule;
+    }
+
+    /**
+     * Returns whether the budget of the whole file is exhausted, rather than the one of the rule.
+     *
+     * @return true if the budget of the whole file is exhausted, false if only the one of the rule is
+     */
+    public boolean isFileBudget() {
+        return fileBudget;
+    }
+}
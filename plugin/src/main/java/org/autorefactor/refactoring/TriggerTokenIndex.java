@@ -0,0 +1,297 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Decides which refactoring rules can refactor a file from the {@link TriggeredRefactoringRule#getTriggerTokens()
+ * trigger tokens} its source code contains, without parsing it.
+ * <p>
+ * All the tokens of all the rules are searched in a single pass over the source code
+ * with an Aho-Corasick automaton, compiled into a table with one transition per state and per byte class.
+ * Scanning a file costs one table lookup per byte, whatever the number of tokens.
+ * The rules which do not declare any trigger token can refactor any file:
+ * {@link #scan(CharSequence)} still rules out the other rules file by file,
+ * but a single such rule turns off {@link #canAnyRuleApply(File, Charset)}, which then never skips any file.
+ * <p>
+ * Instances are immutable, hence shared by the worker threads.
+ */
+public final class TriggerTokenIndex {
+    /** Building the automaton of a rule set only once for the whole life of the plugin. */
+    private static final ConcurrentMap<List<Class<?>>, TriggerTokenIndex> CACHE =
+            new ConcurrentHashMap<List<Class<?>>, TriggerTokenIndex>();
+    private static final int ASCII_SIZE = 128;
+    private static final String ASCII_SAMPLE = "azAZ09_$.";
+    private static final Charset US_ASCII = Charset.forName("US-ASCII");
+    private static final int BUFFER_SIZE = 8192;
+
+    private final int nbRules;
+    /** The rules which can refactor any file. */
+    private final BitSet untriggeredRules = new BitSet();
+    /** The class of each byte, 0 for the bytes which do not appear in any token. */
+    private final byte[] byteClasses = new byte[256];
+    private final int nbClasses;
+    /** The next state, indexed by {@code state * nbClasses + byteClass}. */
+    private final int[] transitions;
+    /** The rules whose tokens end with each state, null if none. */
+    private final int[][] matches;
+
+    private TriggerTokenIndex(List<?> rules) {
+        this.nbRules = rules.size();
+        final List<int[]> trie = new ArrayList<int[]>();
+        final List<BitSet> trieMatches = new ArrayList<BitSet>();
+        newTrieNode(trie, trieMatches);
+        for (int i = 0; i < nbRules; i++) {
+            final Object rule = rules.get(i);
+            final String[] tokens =
+                    rule instanceof TriggeredRefactoringRule ? ((TriggeredRefactoringRule) rule).getTriggerTokens() : null;
+            if (tokens == null || tokens.length == 0) {
+                untriggeredRules.set(i);
+                continue;
+            }
+            for (String token : tokens) {
+                addToken(trie, trieMatches, token, i);
+            }
+        }
+
+        int nbByteClasses = 1;
+        for (int[] children : trie) {
+            for (int c = 0; c < ASCII_SIZE; c++) {
+                if (children[c] != -1 && byteClasses[c] == 0) {
+                    byteClasses[c] = (byte) nbByteClasses++;
+                }
+            }
+        }
+        this.nbClasses = nbByteClasses;
+        this.transitions = new int[trie.size() * nbClasses];
+        this.matches = new int[trie.size()][];
+        compile(trie, trieMatches);
+    }
+
+    private static int newTrieNode(List<int[]> trie, List<BitSet> trieMatches) {
+        final int[] children = new int[ASCII_SIZE];
+        Arrays.fill(children, -1);
+        trie.add(children);
+        trieMatches.add(new BitSet());
+        return trie.size() - 1;
+    }
+
+    private static void addToken(List<int[]> trie, List<BitSet> trieMatches, String token, int rule) {
+        if (token.isEmpty()) {
+            throw new IllegalArgumentException("Trigger tokens must not be empty");
+        }
+        int state = 0;
+        for (int i = 0; i < token.length(); i++) {
+            final char c = token.charAt(i);
+            if (c >= ASCII_SIZE) {
+                throw new IllegalArgumentException("Trigger tokens must be ASCII, but got \"" + token + "\"");
+            }
+            if (trie.get(state)[c] == -1) {
+                final int child = newTrieNode(trie, trieMatches);
+                trie.get(state)[c] = child;
+            }
+            state = trie.get(state)[c];
+        }
+        trieMatches.get(state).set(rule);
+    }
+
+    /**
+     * Computes the failure links breadth first, merging the matches of the failure state into each state,
+     * and replaces the missing transitions by the ones of the failure state.
+     */
+    private void compile(List<int[]> trie, List<BitSet> trieMatches) {
+        final int[] failures = new int[trie.size()];
+        final Queue<Integer> queue = new LinkedList<Integer>();
+        queue.add(0);
+        while (!queue.isEmpty()) {
+            final int state = queue.remove();
+            final int[] children = trie.get(state);
+            for (int c = 0; c < ASCII_SIZE; c++) {
+                final int byteClass = byteClasses[c];
+                if (byteClass == 0) {
+                    // bytes which do not appear in any token always lead back to the root
+                    continue;
+                }
+                final int child = children[c];
+                final int failureNext = transitions[failures[state] * nbClasses + byteClass];
+                if (child == -1) {
+                    transitions[state * nbClasses + byteClass] = state == 0 ? 0 : failureNext;
+                } else {
+                    transitions[state * nbClasses + byteClass] = child;
+                    failures[child] = state == 0 ? 0 : failureNext;
+                    trieMatches.get(child).or(trieMatches.get(failures[child]));
+                    queue.add(child);
+                }
+            }
+            final BitSet stateMatches = trieMatches.get(state);
+            if (!stateMatches.isEmpty()) {
+                final int[] rules = new int[stateMatches.cardinality()];
+                int i = 0;
+                for (int rule = stateMatches.nextSetBit(0); rule >= 0; rule = stateMatches.nextSetBit(rule + 1)) {
+                    rules[i++] = rule;
+                }
+                matches[state] = rules;
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the trigger tokens of the provided rules.
+     *
+     * @param rules the rules
+     * @return the index of the trigger tokens of the provided rules
+     */
+    public static TriggerTokenIndex of(List<?> rules) {
+        final List<Class<?>> key = new ArrayList<Class<?>>(rules.size());
+        for (Object rule : rules) {
+            key.add(rule.getClass());
+        }
+        TriggerTokenIndex index = CACHE.get(key);
+        if (index == null) {
+            // concurrent workers may build the same index twice, but they will compute the same result
+            index = new TriggerTokenIndex(rules);
+            CACHE.putIfAbsent(key, index);
+        }
+        return index;
+    }
+
+    /**
+     * Returns whether some rules declare trigger tokens, i.e. whether scanning a file can rule out some rules.
+     *
+     * @return true if some rules declare trigger tokens, false otherwise
+     */
+    public boolean hasTriggeredRules() {
+        return untriggeredRules.cardinality() < nbRules;
+    }
+
+    /**
+     * Returns the rules which can refactor the provided source code.
+     *
+     * @param source the source code of a file
+     * @return the indices, in the list of rules of this index, of the rules which can refactor the source code
+     */
+    public BitSet scan(CharSequence source) {
+        final BitSet results = (BitSet) untriggeredRules.clone();
+        int nbRemaining = nbRules - results.cardinality();
+        int state = 0;
+        for (int i = 0; i < source.length() && nbRemaining > 0; i++) {
+            final char c = source.charAt(i);
+            state = transitions[state * nbClasses + (c < ASCII_SIZE ? byteClasses[c] : 0)];
+            nbRemaining = addMatches(results, state, nbRemaining);
+        }
+        return results;
+    }
+
+    /**
+     * Returns whether any rule can refactor the provided source code.
+     * The scan stops as soon as the first trigger token is found.
+     * Always true when some rules do not declare any trigger token.
+     *
+     * @param source the source code of a file
+     * @return true if any rule can refactor the provided source code, false otherwise
+     */
+    public boolean canAnyRuleApply(CharSequence source) {
+        if (!untriggeredRules.isEmpty()) {
+            return true;
+        }
+        int state = 0;
+        for (int i = 0; i < source.length(); i++) {
+            final char c = source.charAt(i);
+            state = transitions[state * nbClasses + (c < ASCII_SIZE ? byteClasses[c] : 0)];
+            if (matches[state] != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether any rule can refactor the provided file, reading its bytes rather than decoding them.
+     * The scan stops as soon as the first trigger token is found.
+     * Always true when some rules do not declare any trigger token, without reading the file.
+     * <p>
+     * The file is read through a bounded buffer rather than memory mapped,
+     * since a mapping is only released by the garbage collector and would lock the file on Windows meanwhile.
+     *
+     * @param file the file
+     * @param charset the charset of the file
+     * @return true if any rule can refactor the provided file, or if its charset does not encode ASCII as ASCII,
+     *         false otherwise
+     * @throws IOException if the file cannot be read
+     */
+    public boolean canAnyRuleApply(File file, Charset charset) throws IOException {
+        if (!untriggeredRules.isEmpty()) {
+            return true;
+        }
+        if (!Arrays.equals(ASCII_SAMPLE.getBytes(US_ASCII), ASCII_SAMPLE.getBytes(charset))) {
+            return true;
+        }
+        final InputStream in = new FileInputStream(file);
+        try {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            int state = 0;
+            int nbRead;
+            while ((nbRead = in.read(buffer)) != -1) {
+                for (int i = 0; i < nbRead; i++) {
+                    state = transitions[state * nbClasses + byteClasses[buffer[i] & 0xFF]];
+                    if (matches[state] != null) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        } finally {
+            in.close();
+        }
+    }
+
+    private int addMatches(BitSet results, int state, int nbRemaining) {
+        final int[] rules = matches[state];
+        if (rules == null) {
+            return nbRemaining;
+        }
+        for (int rule : rules) {
+            if (!results.get(rule)) {
+                results.set(rule);
+                nbRemaining--;
+            }
+        }
+        return nbRemaining;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring;
+
+/**
+ * Interface for the refactoring rules which can only refactor a file whose source code contains
+ * at least one of their trigger tokens, for example the name of the type they refactor.
+ * <p>
+ * The source code is searched for the tokens before being parsed: the rules which cannot refactor a file do not visit
+ * it, and a file which no rule can refactor is not even parsed.
+ * The tokens are searched as raw text, they must be ASCII and Unicode escapes are not decoded.
+ * The tokens must be chosen so that the rule never misses a refactoring, for example when a type is only referenced
+ * through an inherited member or a method returning it, the name of the type does not appear in the file.
+ *
+ * @see TriggerTokenIndex
+ */
+public interface TriggeredRefactoringRule extends RefactoringRule {
+    /**
+     * Returns the tokens, at least one of which the source code of a file must contain for this rule to refactor it.
+     *
+     * @return the tokens, at least one of which the source code of a file must contain for this rule to refactor it
+     */
+    String[] getTriggerTokens();
+}
@@ -0,0 +1,177 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+
+/**
+ * Memoizes what is resolved out of the bindings of an AST: the type bindings looked up by their fully qualified
+ * names, the types imported by the compilation unit and the top level types of the packages it imports.
+ * <p>
+ * The cache of an AST is a property of its root node, so {@link TypeNameDecider},
+ * {@link org.autorefactor.cfg.CFGBuilder} and the rules share it from any node of the AST, and it goes away with the
+ * AST. The type bindings of an AST only make sense within this AST, so they are never shared with another AST.
+ */
+public final class TypeBindingsCache {
+    private static final String PROPERTY = TypeBindingsCache.class.getName();
+    private static volatile boolean enabled = true;
+
+    /** The type bindings, by fully qualified name. */
+    private final Map<String, ITypeBinding> typeBindings = new HashMap<String, ITypeBinding>();
+    /** The fully qualified names of the top level types, by package name. */
+    private final Map<String, List<String>> topLevelTypeNames = new HashMap<String, List<String>>();
+    private NavigableSet<String> importedTypes;
+    private long nbHits;
+    private long nbMisses;
+
+    /**
+     * Returns the cache of the AST of the provided node, created on first use.
+     *
+     * @param node any node of the AST
+     * @return the cache of the AST of the provided node
+     */
+    public static TypeBindingsCache of(ASTNode node) {
+        if (!enabled) {
+            return new TypeBindingsCache();
+        }
+        final ASTNode root = node.getRoot();
+        TypeBindingsCache cache = (TypeBindingsCache) root.getProperty(PROPERTY);
+        if (cache == null) {
+            cache = new TypeBindingsCache();
+            root.setProperty(PROPERTY, cache);
+        }
+        return cache;
+    }
+
+    /**
+     * Forgets the cache of the AST of the provided node, only meant to measure what the caches save.
+     *
+     * @param node any node of the AST
+     */
+    public static void clear(ASTNode node) {
+        node.getRoot().setProperty(PROPERTY, null);
+    }
+
+    /**
+     * Sets whether the resolved bindings are cached, only meant to measure what the caches save.
+     *
+     * @param enabled true to cache the resolved bindings, which is the default, false otherwise
+     */
+    public static void setEnabled(boolean enabled) {
+        TypeBindingsCache.enabled = enabled;
+    }
+
+    /**
+     * Returns the type binding resolved for the provided fully qualified name.
+     *
+     * @param fullyQualifiedName the fully qualified type name
+     * @return the type binding, or null if it was not resolved yet
+     */
+    public ITypeBinding getTypeBinding(String fullyQualifiedName) {
+        return count(typeBindings.get(fullyQualifiedName));
+    }
+
+    /**
+     * Records the type binding resolved for the provided fully qualified name.
+     *
+     * @param fullyQualifiedName the fully qualified type name
+     * @param typeBinding the type binding
+     */
+    public void putTypeBinding(String fullyQualifiedName, ITypeBinding typeBinding) {
+        typeBindings.put(fullyQualifiedName, typeBinding);
+    }
+
+    /**
+     * Returns the fully qualified names of the types imported by the compilation unit.
+     *
+     * @return the imported types, or null if they were not collected yet
+     */
+    public NavigableSet<String> getImportedTypes() {
+        return count(importedTypes);
+    }
+
+    /**
+     * Records the fully qualified names of the types imported by the compilation unit.
+     *
+     * @param importedTypes the imported types, which must not be modified afterwards
+     */
+    public void setImportedTypes(NavigableSet<String> importedTypes) {
+        this.importedTypes = importedTypes;
+    }
+
+    /**
+     * Returns the fully qualified names of the top level types of the provided package.
+     *
+     * @param packageName the package name
+     * @return the top level types of the package, or null if they were not searched yet
+     */
+    public List<String> getTopLevelTypeNames(String packageName) {
+        return count(topLevelTypeNames.get(packageName));
+    }
+
+    /**
+     * Records the fully qualified names of the top level types of the provided package.
+     *
+     * @param packageName the package name
+     * @param typeNames the top level types of the package, which must not be modified afterwards
+     */
+    public void putTopLevelTypeNames(String packageName, List<String> typeNames) {
+        topLevelTypeNames.put(packageName, typeNames);
+    }
+
+    private <T> T count(T cached) {
+        if (cached != null) {
+            nbHits++;
+        } else {
+            nbMisses++;
+        }
+        return cached;
+    }
+
+    /**
+     * Returns the number of lookups answered from this cache.
+     *
+     * @return the number of lookups answered from this cache
+     */
+    public long getNbHits() {
+        return nbHits;
+    }
+
+    /**
+     * Returns the number of lookups which had to resolve the bindings.
+     *
+     * @return the number of lookups which had to resolve the bindings
+     */
+    public long getNbMisses() {
+        return nbMisses;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jdt.core.dom.ITypeBinding;
+
+/**
+ * Memoizes the type hierarchies looked up by {@link ASTHelper#instanceOf(ITypeBinding, String)}
+ * and the erased type names compared by {@link ASTHelper#hasType(ITypeBinding, String...)} while visiting an AST.
+ * <p>
+ * Each {@link org.autorefactor.refactoring.rules.RefactoringContext} owns the cache of the AST it refactors.
+ * The {@link org.autorefactor.refactoring.rules.AggregateASTVisitor} makes it the cache of the current thread
+ * while it visits the AST, so the rules use it without knowing about it.
+ * <p>
+ * The type bindings of an AST are unique instances, so they are compared by identity.
+ * The parameterizations of a generic type have the same supertypes once erased,
+ * so they share the set of the qualified names of the supertypes of their generic type.
+ */
+public final class TypeHierarchyCache {
+    /** The cache of the AST visited by the current thread, if any. */
+    private static final ThreadLocal<TypeHierarchyCache> CURRENT = new ThreadLocal<TypeHierarchyCache>();
+    private static volatile boolean enabled = true;
+
+    /** The qualified names of the type and of all its supertypes, erased, by type binding. */
+    private final Map<ITypeBinding, Set<String>> supertypeNames = new IdentityHashMap<ITypeBinding, Set<String>>();
+    /** The qualified name of the erasure, by type binding. */
+    private final Map<ITypeBinding, String> erasureNames = new IdentityHashMap<ITypeBinding, String>();
+    private long nbHits;
+    private long nbMisses;
+
+    /**
+     * Returns the cache of the AST visited by the current thread.
+     *
+     * @return the cache of the AST visited by the current thread, or null if there is none
+     */
+    public static TypeHierarchyCache current() {
+        return enabled ? CURRENT.get() : null;
+    }
+
+    /**
+     * Makes the provided cache the one of the AST visited by the current thread.
+     *
+     * @param cache the cache of the AST visited by the current thread, or null when done visiting it
+     * @return the previous cache of the current thread, to restore once done visiting the AST
+     */
+    public static TypeHierarchyCache setCurrent(TypeHierarchyCache cache) {
+        final TypeHierarchyCache previous = CURRENT.get();
+        if (cache != null) {
+            CURRENT.set(cache);
+        } else {
+            CURRENT.remove();
+        }
+        return previous;
+    }
+
+    /**
+     * Sets whether the type hierarchies are cached, only meant to measure what the caches save.
+     *
+     * @param enabled true to cache the type hierarchies, which is the default, false otherwise
+     */
+    public static void setEnabled(boolean enabled) {
+        TypeHierarchyCache.enabled = enabled;
+    }
+
+    /**
+     * Returns whether the provided type is, or is a subtype of, the provided type.
+     * <p>
+     * Same as {@link ASTHelper#findImplementedType(ITypeBinding, String)} returning a type,
+     * for the type names without type arguments.
+     *
+     * @param typeBinding the type binding to analyze
+     * @param qualifiedTypeName the qualified name of the type to find, without type arguments
+     * @return true if the provided type is, or is a subtype of, the provided type, false otherwise
+     */
+    public boolean isSubtypeOf(ITypeBinding typeBinding, String qualifiedTypeName) {
+        return getSupertypeNames(typeBinding).contains(qualifiedTypeName);
+    }
+
+    private Set<String> getSupertypeNames(ITypeBinding typeBinding) {
+        // the parameterized type names hold type arguments, the callers look up type names without any
+        final ITypeBinding key = typeBinding.isParameterizedType() || typeBinding.isRawType()
+                ? typeBinding.getErasure() : typeBinding;
+        Set<String> names = supertypeNames.get(key);
+        if (names != null) {
+            nbHits++;
+            return names;
+        }
+        nbMisses++;
+        // only reached by an invalid cyclic hierarchy while computing it
+        supertypeNames.put(key, Collections.<String> emptySet());
+        names = new HashSet<String>();
+        names.add(key.getQualifiedName());
+        names.add(getErasureName(key));
+        addSupertypeNames(names, key.getSuperclass());
+        for (ITypeBinding itfBinding : key.getInterfaces()) {
+            addSupertypeNames(names, itfBinding);
+        }
+        names = Collections.unmodifiableSet(names);
+        supertypeNames.put(key, names);
+        return names;
+    }
+
+    private void addSupertypeNames(Set<String> names, ITypeBinding supertype) {
+        if (supertype != null) {
+            names.add(getErasureName(supertype));
+            names.addAll(getSupertypeNames(supertype));
+        }
+    }
+
+    /**
+     * Returns the qualified name of the erasure of the provided type.
+     *
+     * @param typeBinding the type binding
+     * @return the qualified name of the erasure of the provided type
+     */
+    public String getErasureName(ITypeBinding typeBinding) {
+        String name = erasureNames.get(typeBinding);
+        if (name != null) {
+            nbHits++;
+            return name;
+        }
+        nbMisses++;
+        name = typeBinding.getErasure().getQualifiedName();
+        erasureNames.put(typeBinding, name);
+        return name;
+    }
+
+    /**
+     * Returns the number of lookups answered from this cache.
+     *
+     * @return the number of lookups answered from this cache
+     */
+    public long getNbHits() {
+        return nbHits;
+    }
+
+    /**
+     * Returns the number of lookups which had to walk the bindings.
+     *
+     * @return the number of lookups which had to walk the bindings
+     */
+    public long getNbMisses() {
+        return nbMisses;
+    }
+}
@@ -25,8 +25,11 @@
  */
 package org.autorefactor.refactoring;
 
+import static java.lang.invoke.MethodType.methodType;
 import static org.autorefactor.refactoring.ASTHelper.imports;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.NavigableSet;
@@ -59,10 +62,71 @@ public class TypeNameDecider {
      * FIXME Horribly brittle hack that uses reflection to resolve type bindings.
      * <p>
      * But how could I do otherwise?
+     * <p>
+     * The internal JDT members are looked up once per runtime class, then accessed through method handles.
      *
      * @see org.eclipse.jdt.core.dom.DefaultBindingResolver#resolveWellKnownType(String)
      */
     static final class ReflectionResolveTypeBindingStrategy implements ResolveTypeBindingStrategy {
+        /** Reads {@code TypeBinding.resolver}, by type binding class. */
+        private static final ClassValue<MethodHandle> GET_RESOLVER = new FieldGetter("resolver");
+        /** Reads {@code DefaultBindingResolver.scope}, by binding resolver class. */
+        private static final ClassValue<MethodHandle> GET_SCOPE = new FieldGetter("scope");
+        /** Invokes {@code CompilationUnitScope.getType(char[][], int)}, by scope class. */
+        private static final ClassValue<MethodHandle> GET_TYPE = new ClassValue<MethodHandle>() {
+            @Override
+            protected MethodHandle computeValue(Class<?> scopeClass) {
+                try {
+                    final Method getType = scopeClass.getMethod("getType", char[][].class, int.class);
+                    return unreflect(getType, Object.class, char[][].class, int.class);
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        /**
+         * Invokes {@code DefaultBindingResolver.getTypeBinding(TypeBinding)}, by binding resolver class,
+         * then by the class of its parameter.
+         */
+        private static final ClassValue<ClassValue<MethodHandle>> GET_TYPE_BINDING =
+                new ClassValue<ClassValue<MethodHandle>>() {
+            @Override
+            protected ClassValue<MethodHandle> computeValue(final Class<?> resolverClass) {
+                return new ClassValue<MethodHandle>() {
+                    @Override
+                    protected MethodHandle computeValue(Class<?> parameterClass) {
+                        try {
+                            final Method getTypeBinding =
+                                    resolverClass.getDeclaredMethod("getTypeBinding", parameterClass);
+                            return unreflect(getTypeBinding, Object.class, Object.class);
+                        } catch (ReflectiveOperationException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                };
+            }
+        };
+
+        /** Reads the field with the provided name, declared by the class of the object. */
+        private static final class FieldGetter extends ClassValue<MethodHandle> {
+            private final String fieldName;
+
+            private FieldGetter(String fieldName) {
+                this.fieldName = fieldName;
+            }
+
+            @Override
+            protected MethodHandle computeValue(Class<?> clazz) {
+                try {
+                    final Field f = clazz.getDeclaredField(fieldName);
+                    f.setAccessible(true);
+                    return MethodHandles.lookup().unreflectGetter(f).asType(methodType(Object.class, Object.class));
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+
         private final ASTNode parsedNode;
         private final ITypeBinding anyTypeBinding;
 
@@ -71,6 +135,12 @@ public class TypeNameDecider {
             this.anyTypeBinding = anyTypeBinding;
         }
 
+        private static MethodHandle unreflect(Method method, Class<?>... parameterTypes)
+                throws IllegalAccessException {
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method).asType(methodType(Object.class, parameterTypes));
+        }
+
         /**
          * Resolve the type binding.
          *
@@ -80,37 +150,29 @@ public class TypeNameDecider {
          */
         public ITypeBinding resolveTypeBinding(String fullyQualifiedName) {
             try {
-                final Object bindingResolver = getField(anyTypeBinding, "resolver");
-                final Object compilationUnitScope = getField(bindingResolver, "scope");
+                final Object bindingResolver = GET_RESOLVER.get(anyTypeBinding.getClass()).invokeExact(
+                        (Object) anyTypeBinding);
+                final Object compilationUnitScope = GET_SCOPE.get(bindingResolver.getClass()).invokeExact(
+                        bindingResolver);
 
                 final char[][] simpleNamesArray = toSimpleNamesArray(fullyQualifiedName);
-                final Method getType = compilationUnitScope.getClass().getMethod("getType", char[][].class, int.class);
-                final Object internalTypeBinding =
-                        invokeMethod(compilationUnitScope, getType, simpleNamesArray, simpleNamesArray.length);
-
-                final Method getTypeBinding = bindingResolver.getClass().getDeclaredMethod("getTypeBinding",
-                        internalTypeBinding.getClass().getSuperclass().getSuperclass());
-                return invokeMethod(bindingResolver, getTypeBinding, internalTypeBinding);
-            } catch (Exception e) {
+                final Object internalTypeBinding = GET_TYPE.get(compilationUnitScope.getClass()).invokeExact(
+                        compilationUnitScope, simpleNamesArray, simpleNamesArray.length);
+
+                final MethodHandle getTypeBinding = GET_TYPE_BINDING.get(bindingResolver.getClass())
+                        .get(internalTypeBinding.getClass().getSuperclass().getSuperclass());
+                return (ITypeBinding) (Object) getTypeBinding.invokeExact(bindingResolver, internalTypeBinding);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
                 throw new UnhandledException(parsedNode, e);
             }
         }
-
-        @SuppressWarnings("unchecked")
-        private <T> T invokeMethod(Object object, Method method, Object... args) throws ReflectiveOperationException {
-            method.setAccessible(true);
-            return (T) method.invoke(object, args);
-        }
-
-        @SuppressWarnings("unchecked")
-        private <T> T getField(Object object, String fieldName) throws ReflectiveOperationException {
-            final Field f = object.getClass().getDeclaredField(fieldName);
-            f.setAccessible(true);
-            return (T) f.get(object);
-        }
     }
 
     private final ResolveTypeBindingStrategy resolveTypeBindingStrategy;
+    /** The cache of the AST of the parsed node, null without any AST. */
+    private final TypeBindingsCache cache;
     private final NavigableSet<String> importedTypes;
     private final String packageName;
 
@@ -129,7 +191,13 @@ public class TypeNameDecider {
         }
         final CompilationUnit cu = (CompilationUnit) root;
         this.packageName = cu.getPackage().getName().getFullyQualifiedName();
-        this.importedTypes = getImportedTypes(cu);
+        this.cache = TypeBindingsCache.of(cu);
+        NavigableSet<String> imported = cache.getImportedTypes();
+        if (imported == null) {
+            imported = getImportedTypes(cu);
+            cache.setImportedTypes(imported);
+        }
+        this.importedTypes = imported;
     }
 
     /**
@@ -140,6 +208,7 @@ public class TypeNameDecider {
      */
     public TypeNameDecider(ResolveTypeBindingStrategy resolveTypeBindingStrategy, NavigableSet<String> importedTypes) {
         this.resolveTypeBindingStrategy = resolveTypeBindingStrategy;
+        this.cache = null;
         this.packageName = "";
         this.importedTypes = importedTypes;
     }
@@ -176,12 +245,22 @@ public class TypeNameDecider {
 
     /**
      * Resolves the type binding corresponding to the provided fully qualified name.
+     * <p>
+     * The type bindings resolved out of an AST are cached for the whole AST.
      *
      * @param fullyQualifiedName the fully qualified type name
      * @return a type binding
      */
     public ITypeBinding resolveTypeBinding(String fullyQualifiedName) {
-        return resolveTypeBindingStrategy.resolveTypeBinding(fullyQualifiedName);
+        if (cache == null) {
+            return resolveTypeBindingStrategy.resolveTypeBinding(fullyQualifiedName);
+        }
+        ITypeBinding typeBinding = cache.getTypeBinding(fullyQualifiedName);
+        if (typeBinding == null) {
+            typeBinding = resolveTypeBindingStrategy.resolveTypeBinding(fullyQualifiedName);
+            cache.putTypeBinding(fullyQualifiedName, typeBinding);
+        }
+        return typeBinding;
     }
 
     /**
@@ -84,8 +84,9 @@ public abstract class AbstractRefactoringRule extends ASTVisitor implements Java
     @Override
     public boolean preVisit2(ASTNode node) {
         // only visit nodes that have not been refactored
-        // to avoid trying to refactor twice the same node (or sub nodes)
-        return !ctx.getRefactorings().hasBeenRefactored(node);
+        // to avoid trying to refactor twice the same node (or sub nodes),
+        // and only the nodes intersecting the changed lines when restricted to them
+        return !ctx.getRefactorings().hasBeenRefactored(node) && ctx.isInChangedLines(node);
     }
 
     /**
@@ -32,6 +32,7 @@ import java.util.Set;
 
 import org.autorefactor.refactoring.ASTBuilder;
 import org.autorefactor.refactoring.Refactorings;
+import org.autorefactor.refactoring.TriggeredRefactoringRule;
 import org.autorefactor.util.NotImplementedException;
 import org.autorefactor.util.Pair;
 import org.eclipse.jdt.core.dom.ASTNode;
@@ -53,7 +54,8 @@ import static org.eclipse.jdt.core.dom.PrefixExpression.Operator.*;
 /**
  * See {@link #getDescription()} method.
  */
-public abstract class AbstractUnitTestRefactoring extends AbstractRefactoringRule {
+public abstract class AbstractUnitTestRefactoring extends AbstractRefactoringRule
+        implements TriggeredRefactoringRule {
 
     /**
      * The OBJECT constant.
@@ -105,6 +107,12 @@ public abstract class AbstractUnitTestRefactoring extends AbstractRefactoringRul
             final String methodName, final Expression copyOfActual, final Expression copyOfExpected,
             final Expression failureMessage);
 
+    @Override
+    public String[] getTriggerTokens() {
+        // the asserts inherited from a test case superclass are invoked without any import
+        return new String[] { "assert", "fail" };
+    }
+
     @Override
     public abstract boolean visit(MethodInvocation node);
 
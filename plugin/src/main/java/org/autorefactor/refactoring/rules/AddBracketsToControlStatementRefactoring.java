@@ -29,6 +29,7 @@ import static org.autorefactor.refactoring.ASTHelper.DO_NOT_VISIT_SUBTREE;
 import static org.autorefactor.refactoring.ASTHelper.VISIT_SUBTREE;
 
 import org.autorefactor.refactoring.ASTBuilder;
+import org.autorefactor.refactoring.BindingFreeRefactoringRule;
 import org.eclipse.jdt.core.dom.Block;
 import org.eclipse.jdt.core.dom.DoStatement;
 import org.eclipse.jdt.core.dom.EnhancedForStatement;
@@ -38,7 +39,8 @@ import org.eclipse.jdt.core.dom.Statement;
 import org.eclipse.jdt.core.dom.WhileStatement;
 
 /** See {@link #getDescription()} method. */
-public class AddBracketsToControlStatementRefactoring extends AbstractRefactoringRule {
+public class AddBracketsToControlStatementRefactoring extends AbstractRefactoringRule
+        implements BindingFreeRefactoringRule {
     /**
      * Get the name.
      *
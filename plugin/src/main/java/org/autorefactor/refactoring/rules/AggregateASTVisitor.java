@@ -31,21 +31,32 @@ import static org.autorefactor.refactoring.ASTHelper.VISIT_SUBTREE;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.autorefactor.preferences.Preferences;
+import org.autorefactor.refactoring.BindingFreeRefactoringRule;
+import org.autorefactor.refactoring.FreshAstRefactoringRule;
 import org.autorefactor.refactoring.JavaRefactoringRule;
+import org.autorefactor.refactoring.Profiler.ThreadProfile;
 import org.autorefactor.refactoring.RefactoringRule;
 import org.autorefactor.refactoring.Refactorings;
 import org.autorefactor.refactoring.Release;
+import org.autorefactor.refactoring.TimeBudget;
+import org.autorefactor.refactoring.TimeBudgetExceededException;
+import org.autorefactor.refactoring.TriggerTokenIndex;
+import org.autorefactor.refactoring.TypeHierarchyCache;
 import org.autorefactor.util.AutoRefactorException;
 import org.autorefactor.util.NotImplementedException;
 import org.autorefactor.util.UnhandledException;
@@ -139,21 +150,63 @@ import org.eclipse.jdt.core.dom.WildcardType;
 
 /**
  * Aggregates running several visitors into only one visitor to increase performances.
- * When one visitor refactors a subtree of the AST, visitors coming after will not be able to visit it.
+ * When one visitor refactors a subtree of the AST, the other visitors will not be able to visit the nodes
+ * overlapping its refactorings, but they keep visiting the rest of the AST during the same pass.
  * Visitors throwing exceptions are isolated and ignored for the rest of a run for stability.
+ * Visitors exhausting their {@link TimeBudget} are ignored for the rest of the file.
  */
 public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRule {
 
-    private final Map<Class<?>, List<ASTVisitor>> visitorsMap = new HashMap<Class<?>, List<ASTVisitor>>();
-    private final Map<Class<?>, List<ASTVisitor>> endVisitorsMap = new HashMap<Class<?>, List<ASTVisitor>>();
+    /** Maps each concrete {@link ASTNode} class to its node type. */
+    private static final Map<Class<?>, Integer> NODE_TYPES = new HashMap<Class<?>, Integer>();
+    /** The highest node type known to the running JDT. */
+    private static final int MAX_NODE_TYPE;
+    /** Reflection is expensive: analyze each visitor class only once for the whole life of the plugin. */
+    private static final ConcurrentMap<Class<?>, VisitorMethods> VISITOR_METHODS_CACHE =
+            new ConcurrentHashMap<Class<?>, VisitorMethods>();
+
+    static {
+        int maxNodeType = 0;
+        // node types are consecutive, but leave room for the ones added by future JDT releases
+        for (int nodeType = 1; nodeType < 256; nodeType++) {
+            try {
+                NODE_TYPES.put(ASTNode.nodeClassForType(nodeType), nodeType);
+                maxNodeType = nodeType;
+            } catch (IllegalArgumentException e) {
+                // not a node type for the running JDT
+            }
+        }
+        MAX_NODE_TYPE = maxNodeType;
+    }
+
+    /** The visitors overriding {@code visit()}, indexed by {@link ASTNode#getNodeType()}. */
+    private final List<ASTVisitor>[] visitorsByNodeType = newVisitorsByNodeType();
+    /** The visitors overriding {@code endVisit()}, indexed by {@link ASTNode#getNodeType()}. */
+    private final List<ASTVisitor>[] endVisitorsByNodeType = newVisitorsByNodeType();
     private final Set<ASTVisitor> preVisitors = new LinkedHashSet<ASTVisitor>();
     private final Set<ASTVisitor> preVisitors2 = new LinkedHashSet<ASTVisitor>();
     private final Set<ASTVisitor> postVisitors = new LinkedHashSet<ASTVisitor>();
 
     private final List<ASTVisitor> visitors;
+    /** The indices of the visitors which can refactor the visited file, or null if they all can. */
+    private BitSet triggeredVisitors;
+    /** Whether only the {@link BindingFreeRefactoringRule}s visit the file. */
+    private boolean bindingFreeVisitorsOnly;
 
     private RefactoringContext ctx;
     private final Set<ASTVisitor> visitorsContributingRefactoring = new HashSet<ASTVisitor>();
+    /** The visitors which threw an exception, never selected again during this run. */
+    private final Set<ASTVisitor> faultyVisitors = new HashSet<ASTVisitor>();
+    /** The visitors which must not visit the subtree of a node, mapped to this node. */
+    private final Map<ASTVisitor, ASTNode> blockedVisitors = new IdentityHashMap<ASTVisitor, ASTNode>();
+    /** Whether the node being visited overlaps the refactorings of the current pass, computed once per node. */
+    private boolean visitedNodeOverlapsCurrentPass;
+    /** The value of {@link Refactorings#getCurrentPassModCount()} when the flag above was computed. */
+    private int visitedNodeModCount;
+    /** Where the current thread records the time spent in each visitor, null when not profiling. */
+    private ThreadProfile profile;
+    /** The time budget of the visited file, null when there is none. */
+    private TimeBudget budget;
 
     /**
      * Builds an instance of this class.
@@ -204,30 +257,164 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
         return true;
     }
 
-    private void analyzeVisitors() {
-        for (ASTVisitor v : this.visitors) {
-            analyzeVisitor(v, v.getClass());
-        }
+    @SuppressWarnings("unchecked")
+    private static List<ASTVisitor>[] newVisitorsByNodeType() {
+        return new List[MAX_NODE_TYPE + 1];
     }
 
-    private void analyzeVisitor(ASTVisitor v, Class<?> clazz) {
-        if (ASTVisitor.class.equals(clazz)) {
-            return;
-        }
-        for (Method m : clazz.getDeclaredMethods()) {
-            if (is("preVisit", m)) {
+    private void analyzeVisitors() {
+        Arrays.fill(visitorsByNodeType, null);
+        Arrays.fill(endVisitorsByNodeType, null);
+        preVisitors.clear();
+        preVisitors2.clear();
+        postVisitors.clear();
+        for (int i = 0; i < visitors.size(); i++) {
+            if (!isSelected(i)) {
+                continue;
+            }
+            final ASTVisitor v = visitors.get(i);
+            final VisitorMethods methods = getVisitorMethods(v.getClass());
+            if (methods.hasPreVisit) {
                 preVisitors.add(v);
-            } else if (is("preVisit2", m)) {
+            }
+            if (methods.hasPreVisit2) {
                 preVisitors2.add(v);
-            } else if (is("postVisit", m)) {
+            }
+            if (methods.hasPostVisit) {
                 postVisitors.add(v);
-            } else if (isVisit(m)) {
-                put(visitorsMap, m.getParameterTypes()[0], v);
-            } else if (isEndVisit(m)) {
-                put(endVisitorsMap, m.getParameterTypes()[0], v);
             }
+            for (int nodeType : methods.visitNodeTypes) {
+                put(visitorsByNodeType, nodeType, v);
+            }
+            for (int nodeType : methods.endVisitNodeTypes) {
+                put(endVisitorsByNodeType, nodeType, v);
+            }
+        }
+    }
+
+    private boolean isTriggered(int visitorIndex) {
+        return triggeredVisitors == null || triggeredVisitors.get(visitorIndex);
+    }
+
+    private boolean isSelected(int visitorIndex) {
+        final ASTVisitor v = visitors.get(visitorIndex);
+        return isTriggered(visitorIndex)
+                && (!bindingFreeVisitorsOnly || v instanceof BindingFreeRefactoringRule)
+                && !faultyVisitors.contains(v);
+    }
+
+    /**
+     * Only keeps the visitors which can refactor the provided source code according to their trigger tokens.
+     * <p>
+     * To be called before each parse of the file, so the visitors triggered by the tokens
+     * the refactorings of the previous passes introduced visit the next passes.
+     *
+     * @param source the source code of the file to visit
+     * @return true if any visitor can refactor the provided source code, false if the file does not need parsing
+     * @see org.autorefactor.refactoring.TriggeredRefactoringRule
+     */
+    public boolean restrictToTriggeredVisitors(CharSequence source) {
+        final TriggerTokenIndex index = TriggerTokenIndex.of(visitors);
+        if (!index.hasTriggeredRules()) {
+            return !visitors.isEmpty();
+        }
+        final BitSet newTriggeredVisitors = index.scan(source);
+        if (!newTriggeredVisitors.equals(triggeredVisitors)) {
+            triggeredVisitors = newTriggeredVisitors;
+            analyzeVisitors();
+        }
+        return !newTriggeredVisitors.isEmpty();
+    }
+
+    /**
+     * Returns whether any triggered visitor needs, or does not need, the bindings of the visited AST.
+     *
+     * @param needingBindings true to look for the visitors needing the bindings,
+     *        false to look for the {@link BindingFreeRefactoringRule}s
+     * @return true if any such visitor is triggered, false otherwise
+     * @see #restrictToTriggeredVisitors(CharSequence)
+     */
+    public boolean hasTriggeredVisitors(boolean needingBindings) {
+        for (int i = 0; i < visitors.size(); i++) {
+            final ASTVisitor v = visitors.get(i);
+            if (isTriggered(i) && needingBindings != (v instanceof BindingFreeRefactoringRule)
+                    && !faultyVisitors.contains(v)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sets whether only the {@link BindingFreeRefactoringRule}s visit the AST,
+     * so the AST can be parsed without resolving its bindings.
+     *
+     * @param bindingFreeVisitorsOnly true to only keep the binding free visitors, false to keep all the visitors
+     */
+    public void setBindingFreeVisitorsOnly(boolean bindingFreeVisitorsOnly) {
+        if (this.bindingFreeVisitorsOnly != bindingFreeVisitorsOnly) {
+            this.bindingFreeVisitorsOnly = bindingFreeVisitorsOnly;
+            analyzeVisitors();
+        }
+    }
+
+    private static VisitorMethods getVisitorMethods(Class<?> clazz) {
+        VisitorMethods methods = VISITOR_METHODS_CACHE.get(clazz);
+        if (methods == null) {
+            // concurrent workers may analyze the same class twice, but they will compute the same result
+            methods = new VisitorMethods(clazz);
+            VISITOR_METHODS_CACHE.putIfAbsent(clazz, methods);
+        }
+        return methods;
+    }
+
+    /** The {@link ASTVisitor} methods overridden by a visitor class, computed once via reflection. */
+    private static final class VisitorMethods {
+        private boolean hasPreVisit;
+        private boolean hasPreVisit2;
+        private boolean hasPostVisit;
+        private final int[] visitNodeTypes;
+        private final int[] endVisitNodeTypes;
+
+        private VisitorMethods(Class<?> visitorClass) {
+            final Set<Integer> visitTypes = new LinkedHashSet<Integer>();
+            final Set<Integer> endVisitTypes = new LinkedHashSet<Integer>();
+            for (Class<?> clazz = visitorClass;
+                    clazz != null && !ASTVisitor.class.equals(clazz);
+                    clazz = clazz.getSuperclass()) {
+                for (Method m : clazz.getDeclaredMethods()) {
+                    if (is("preVisit", m)) {
+                        hasPreVisit = true;
+                    } else if (is("preVisit2", m)) {
+                        hasPreVisit2 = true;
+                    } else if (is("postVisit", m)) {
+                        hasPostVisit = true;
+                    } else if (isVisit(m)) {
+                        addNodeType(visitTypes, m.getParameterTypes()[0]);
+                    } else if (isEndVisit(m)) {
+                        addNodeType(endVisitTypes, m.getParameterTypes()[0]);
+                    }
+                }
+            }
+            this.visitNodeTypes = toIntArray(visitTypes);
+            this.endVisitNodeTypes = toIntArray(endVisitTypes);
+        }
+
+        private static void addNodeType(Set<Integer> nodeTypes, Class<?> nodeClass) {
+            final Integer nodeType = NODE_TYPES.get(nodeClass);
+            if (nodeType != null) {
+                nodeTypes.add(nodeType);
+            }
+        }
+
+        private static int[] toIntArray(Set<Integer> nodeTypes) {
+            final int[] results = new int[nodeTypes.size()];
+            int i = 0;
+            for (Integer nodeType : nodeTypes) {
+                results[i++] = nodeType;
+            }
+            return results;
         }
-        analyzeVisitor(v, clazz.getSuperclass());
     }
 
     private static boolean is(String methodName, Method m) {
@@ -250,20 +437,27 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
             && !Modifier.isAbstract(m.getParameterTypes()[0].getModifiers());
     }
 
-    private void put(Map<Class<?>, List<ASTVisitor>> map, Class<?> key, ASTVisitor value) {
-        List<ASTVisitor> visitors = map.get(key);
+    private void put(List<ASTVisitor>[] visitorsByType, int nodeType, ASTVisitor value) {
+        List<ASTVisitor> visitors = visitorsByType[nodeType];
         if (visitors == null) {
             visitors = new ArrayList<ASTVisitor>(1);
-            map.put(key, visitors);
+            visitorsByType[nodeType] = visitors;
         }
         visitors.add(value);
     }
 
-    private List<ASTVisitor> getVisitors(Map<Class<?>, List<ASTVisitor>> map,
-            Class<? extends ASTNode> clazzKey) {
-        final List<ASTVisitor> result = map.get(clazzKey);
+    private List<ASTVisitor> getVisitors(List<ASTVisitor>[] visitorsByType, ASTNode node) {
+        final List<ASTVisitor> result = visitorsByType[node.getNodeType()];
         if (result != null) {
-            return result;
+            final Refactorings refactorings = ctx.getRefactorings();
+            if (!refactorings.overlapsPreviousPasses(node)) {
+                if (visitorsByType == visitorsByNodeType) {
+                    // only the visits check it, the end visits follow the visits
+                    visitedNodeOverlapsCurrentPass = refactorings.overlapsCurrentPass(node);
+                    visitedNodeModCount = refactorings.getCurrentPassModCount();
+                }
+                return result;
+            }
         }
         return Collections.emptyList();
     }
@@ -297,6 +491,29 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
             v.setRefactoringContext(ctx);
         }
         this.visitorsContributingRefactoring.clear();
+        this.blockedVisitors.clear();
+    }
+
+    /**
+     * Sets where to record the time spent in each visitor, and the refactorings they contribute.
+     *
+     * @param profile where the current thread records its measures, or null to not profile the visitors
+     */
+    public void setProfile(ThreadProfile profile) {
+        this.profile = profile;
+    }
+
+    /**
+     * Sets the time budget of the file to visit.
+     * The quarantined visitors and the ones exhausting their budget do not visit the file.
+     *
+     * @param budget the time budget of the file to visit, or null for no budget
+     */
+    public void setTimeBudget(TimeBudget budget) {
+        this.budget = budget;
+        if (budget != null) {
+            budget.abandonQuarantinedRules(visitors);
+        }
     }
 
     /**
@@ -307,10 +524,62 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
      * @return the refactorings.
      */
     public Refactorings getRefactorings(CompilationUnit astRoot) {
-        astRoot.accept(this);
+        // the rules look up the type hierarchies of this AST through the static helpers
+        final TypeHierarchyCache previousCache = TypeHierarchyCache.setCurrent(ctx.getTypeHierarchyCache());
+        try {
+            astRoot.accept(this);
+        } finally {
+            leaveBudget();
+            TypeHierarchyCache.setCurrent(previousCache);
+        }
         return this.ctx.getRefactorings();
     }
 
+    /**
+     * Runs one more pass over the same AST, accumulating new refactorings with the ones of the previous passes.
+     * <p>
+     * Only the visitors which did not contribute any refactoring yet take part in the new pass.
+     * They can only refactor the nodes which do not overlap the refactorings of the previous passes,
+     * so the resolved bindings of the nodes they analyze are still valid.
+     * The {@link FreshAstRefactoringRule}s never take part in such passes.
+     *
+     * @param astRoot the compilation unit already visited by the previous passes
+     * @return true if the new pass contributed refactorings, false otherwise
+     */
+    public boolean visitAgain(CompilationUnit astRoot) {
+        final List<RefactoringRule> remainingRules = new ArrayList<RefactoringRule>();
+        for (int i = 0; i < visitors.size(); i++) {
+            final RefactoringRule rule = (RefactoringRule) visitors.get(i);
+            if (isSelected(i)
+                    && !visitorsContributingRefactoring.contains(rule)
+                    && !(rule instanceof FreshAstRefactoringRule)
+                    && (budget == null || !budget.isAbandoned(rule))) {
+                remainingRules.add(rule);
+            }
+        }
+        if (remainingRules.isEmpty()) {
+            return false;
+        }
+
+        final Refactorings refactorings = ctx.getRefactorings();
+        refactorings.startNewPass();
+        final AggregateASTVisitor nextPass = new AggregateASTVisitor(remainingRules);
+        nextPass.setRefactoringContext(ctx);
+        nextPass.setProfile(profile);
+        nextPass.setTimeBudget(budget);
+        final TypeHierarchyCache previousCache = TypeHierarchyCache.setCurrent(ctx.getTypeHierarchyCache());
+        try {
+            astRoot.accept(nextPass);
+        } finally {
+            leaveBudget();
+            TypeHierarchyCache.setCurrent(previousCache);
+        }
+        final Set<ASTVisitor> nextPassContributors = nextPass.getVisitorsContributingRefactoring();
+        visitorsContributingRefactoring.addAll(nextPassContributors);
+        // stop when no visitor owns up the new refactorings, they could otherwise be contributed again and again
+        return refactorings.hasRefactoringsInCurrentPass() && !nextPassContributors.isEmpty();
+    }
+
     /**
      * Returns the visitors that contributed refactorings in the last run.
      *
@@ -321,28 +590,143 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
     }
 
     /**
-     * Verify whether the following visitors can visit the current node.
+     * Returns whether the provided visitor can visit the provided node.
+     * <p>
+     * Visitors do not visit the nodes overlapping the refactorings recorded during the current pass,
+     * nor their subtrees, since their refactorings would conflict.
+     * They keep visiting the rest of the AST, so the rules whose refactorings do not overlap
+     * all contribute during the same pass.
+     *
+     * @param v the visitor
+     * @param node the node to visit
+     * @return true if the provided visitor can visit the provided node, false otherwise
+     */
+    private boolean canVisit(ASTVisitor v, ASTNode node) {
+        if (!isJavaVersionSupported(v) || isBlocked(v, node)) {
+            return false;
+        }
+        if (overlapsCurrentPass(node)) {
+            blockedVisitors.put(v, node);
+            return false;
+        }
+        ctx.getRefactorings().setVisitedNode(node);
+        enterBudget(v);
+        return true;
+    }
+
+    /**
+     * Returns whether the provided node overlaps the refactorings of the current pass.
+     * The answer computed by {@link #getVisitors(List[], ASTNode)} is reused
+     * until one of the visitors of this node refactors a location.
+     */
+    private boolean overlapsCurrentPass(ASTNode node) {
+        final Refactorings refactorings = ctx.getRefactorings();
+        final int modCount = refactorings.getCurrentPassModCount();
+        if (visitedNodeModCount != modCount) {
+            visitedNodeOverlapsCurrentPass = refactorings.overlapsCurrentPass(node);
+            visitedNodeModCount = modCount;
+        }
+        return visitedNodeOverlapsCurrentPass;
+    }
+
+    /**
+     * Returns whether the provided visitor can end the visit of the provided node.
+     *
+     * @param v the visitor
+     * @param node the node whose visit ends
+     * @return true if the provided visitor can end the visit of the provided node, false otherwise
+     */
+    private boolean canEndVisit(ASTVisitor v, ASTNode node) {
+        if (isBlocked(v, node)) {
+            return false;
+        }
+        ctx.getRefactorings().setVisitedNode(node);
+        enterBudget(v);
+        return true;
+    }
+
+    private void enterBudget(ASTVisitor v) {
+        if (budget != null) {
+            budget.enter(v);
+        }
+    }
+
+    private void leaveBudget() {
+        if (budget != null) {
+            budget.leave();
+        }
+    }
+
+    /**
+     * Returns whether the provided visitor must not visit the provided node,
+     * because it must not visit the subtree of one of its ancestors.
+     */
+    private boolean isBlocked(ASTVisitor v, ASTNode node) {
+        if (budget != null && budget.isAbandoned(v)) {
+            return true;
+        }
+        if (!faultyVisitors.isEmpty() && faultyVisitors.contains(v)) {
+            // still listed for the other node types until the visitors are analyzed again
+            return true;
+        }
+        if (blockedVisitors.isEmpty()) {
+            return false;
+        }
+        final ASTNode blockingNode = blockedVisitors.get(v);
+        return blockingNode != null && blockingNode != node;
+    }
+
+    private void unblockVisitors(ASTNode node) {
+        if (!blockedVisitors.isEmpty()) {
+            for (Iterator<ASTNode> iter = blockedVisitors.values().iterator(); iter.hasNext();) {
+                if (iter.next() == node) {
+                    iter.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Records the visit of the current node by the current visitor.
      *
      * @param continueVisiting whether the current visitor reported it wants
      *        to visit the subtree of the current node
      * @param v the current visitor
      * @param node the node being currently visited
-     * @return true if the following visitors can visit the current node,
-     *         false otherwise
+     * @param start when the current visitor started visiting the current node, as returned by {@link #startTiming()}
      */
-    private boolean continueVisiting(boolean continueVisiting, ASTVisitor v, ASTNode node) {
+    private void recordVisit(boolean continueVisiting, ASTVisitor v, ASTNode node, long start) {
+        if (profile != null) {
+            profile.recordVisit(v, node.getNodeType(), start);
+        }
         if (!continueVisiting) {
-            if (!this.ctx.getRefactorings().hasRefactorings()) {
-                logBadlyBehavedVisitor(v, node);
+            final Refactorings refactorings = this.ctx.getRefactorings();
+            if (!refactorings.hasRefactorings()) {
+                if (!refactorings.hasRefactoringsOutsideChangedLines()) {
+                    logBadlyBehavedVisitor(v, node);
+                }
             } else {
                 visitorsContributingRefactoring.add(v);
+                if (profile != null) {
+                    profile.recordRefactoring(v, node.getNodeType());
+                }
             }
             // changes will be made to this node.
-            // no other visitors can make any more changes to it
-            // => do not let other visitors visit this node
-            return false;
+            // the other visitors can still visit it and its subtree as long as they do not overlap the changes,
+            // but this visitor asked to not visit its subtree
+            blockedVisitors.put(v, node);
+        }
+    }
+
+    /** Only reads the clock when profiling, so visiting costs nothing more otherwise. */
+    private long startTiming() {
+        return profile != null ? System.nanoTime() : 0L;
+    }
+
+    private void stopTiming(ASTVisitor v, ASTNode node, long start) {
+        if (profile != null) {
+            profile.recordEndVisit(v, node.getNodeType(), start);
         }
-        return true;
     }
 
     private void logBadlyBehavedVisitor(ASTVisitor v, ASTNode node) {
@@ -351,14 +735,30 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
         ctx.getLogger().error(message, new AutoRefactorException(node, message));
     }
 
-    private void logFaultyVisitor(ASTVisitor v, ASTNode node, Exception e) {
+    /**
+     * Handles the exception thrown by the provided visitor while visiting the provided node.
+     *
+     * @param v the visitor
+     * @param node the visited node
+     * @param e the exception thrown by the visitor
+     * @return true if the visitor is faulty and disabled for the rest of this run,
+     *         false if it only exhausted its time budget and is abandoned for the rest of the current file
+     */
+    private boolean isFaulty(ASTVisitor v, ASTNode node, Exception e) {
         if (e instanceof OperationCanceledException) {
             // let the user cancel the current operation
             throw (OperationCanceledException) e;
         }
+        if (e instanceof TimeBudgetExceededException && budget != null) {
+            // not a bug of the visitor, it will be quarantined once done with this file
+            budget.abandon((TimeBudgetExceededException) e);
+            return false;
+        }
+        faultyVisitors.add(v);
         String message = "Visitor " + v.getClass().getName() + " is faulty,"
                 + " it will be disabled for the rest of this run.";
         ctx.getLogger().error(message, new UnhandledException(node, message, e));
+        return true;
     }
 
     /**
@@ -399,8 +799,10 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
             final boolean isPrevisit2 = is("preVisit2", m);
             if (isVisit || isEndVisit) {
                 System.out.print("\tfinal List<ASTVisitor> visitorList = getVisitors(");
-                System.out.print((isVisit ? "visitorsMap" : "endVisitorsMap") + ", ");
-                System.out.println(m.getParameterTypes()[0].getSimpleName() + ".class);");
+                System.out.println((isVisit ? "visitorsByNodeType" : "endVisitorsByNodeType") + ", node);");
+            }
+            if (is("postVisit", m)) {
+                System.out.println("\tunblockVisitors(node);");
             }
             System.out.print("\tfor (Iterator<ASTVisitor> iter = ");
             if (is("preVisit", m)) {
@@ -417,21 +819,31 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
             System.out.println(".iterator(); iter.hasNext();) {");
             System.out.println("\t\tfinal ASTVisitor v = iter.next();");
             System.out.println("\t\ttry {");
+            if (isVisit || isEndVisit) {
+                System.out.println("\t\t\tfinal long start = startTiming();");
+            }
             if (isPrevisit2) {
                 System.out.println("\t\t\tif (!v." + m.getName() + "(node)) {");
                 System.out.println("\t\t\t\treturn DO_NOT_VISIT_SUBTREE;");
                 System.out.println("\t\t\t}");
             } else if (Boolean.TYPE.equals(m.getReturnType())) {
-                System.out.println("\t\t\tif (isJavaVersionSupported(v)");
-                System.out.println("\t\t\t\t\t&& !continueVisiting(v." + m.getName() + "(node), v, node)) {");
-                System.out.println("\t\t\t\treturn DO_NOT_VISIT_SUBTREE;");
+                System.out.println("\t\t\tif (canVisit(v, node)) {");
+                System.out.println("\t\t\t\trecordVisit(v." + m.getName() + "(node), v, node, start);");
                 System.out.println("\t\t\t}");
             } else {
-                System.out.println("\t\t\tv." + m.getName() + "(node);");
+                if (isEndVisit) {
+                    System.out.println("\t\t\tif (canEndVisit(v, node)) {");
+                    System.out.println("\t\t\t\tv." + m.getName() + "(node);");
+                    System.out.println("\t\t\t\tstopTiming(v, node, start);");
+                    System.out.println("\t\t\t}");
+                } else {
+                    System.out.println("\t\t\tv." + m.getName() + "(node);");
+                }
             }
             System.out.println("\t\t} catch (Exception e) {");
-            System.out.println("\t\t\tlogFaultyVisitor(v, node, e);");
-            System.out.println("\t\t\titer.remove();");
+            System.out.println("\t\t\tif (isFaulty(v, node, e)) {");
+            System.out.println("\t\t\t\titer.remove();");
+            System.out.println("\t\t\t}");
             System.out.println("\t\t}");
             System.out.println("\t}");
             if (Boolean.TYPE.equals(m.getReturnType())) {
@@ -444,1189 +856,1611 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public void endVisit(AnnotationTypeDeclaration node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, AnnotationTypeDeclaration.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(AnnotationTypeMemberDeclaration node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, AnnotationTypeMemberDeclaration.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(AnonymousClassDeclaration node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, AnonymousClassDeclaration.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(ArrayAccess node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, ArrayAccess.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(ArrayCreation node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, ArrayCreation.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(ArrayInitializer node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, ArrayInitializer.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(ArrayType node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, ArrayType.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(AssertStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, AssertStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(Assignment node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, Assignment.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(Block node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, Block.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(BlockComment node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, BlockComment.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(BooleanLiteral node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, BooleanLiteral.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(BreakStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, BreakStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(CastExpression node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, CastExpression.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(CatchClause node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, CatchClause.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(CharacterLiteral node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, CharacterLiteral.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(ClassInstanceCreation node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, ClassInstanceCreation.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(CompilationUnit node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, CompilationUnit.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(ConditionalExpression node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, ConditionalExpression.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(ConstructorInvocation node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, ConstructorInvocation.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(ContinueStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, ContinueStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(DoStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, DoStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(EmptyStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, EmptyStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(EnhancedForStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, EnhancedForStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(EnumConstantDeclaration node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, EnumConstantDeclaration.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(EnumDeclaration node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, EnumDeclaration.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(ExpressionStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, ExpressionStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(FieldAccess node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, FieldAccess.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(FieldDeclaration node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, FieldDeclaration.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(ForStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, ForStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(IfStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, IfStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(ImportDeclaration node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, ImportDeclaration.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(InfixExpression node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, InfixExpression.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(Initializer node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, Initializer.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(InstanceofExpression node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, InstanceofExpression.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(Javadoc node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, Javadoc.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(LabeledStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, LabeledStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(LineComment node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, LineComment.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(MarkerAnnotation node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, MarkerAnnotation.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(MemberRef node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, MemberRef.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(MemberValuePair node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, MemberValuePair.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(MethodDeclaration node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, MethodDeclaration.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(MethodInvocation node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, MethodInvocation.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(MethodRef node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, MethodRef.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(MethodRefParameter node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, MethodRefParameter.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(Modifier node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, Modifier.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(NormalAnnotation node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, NormalAnnotation.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(NullLiteral node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, NullLiteral.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(NumberLiteral node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, NumberLiteral.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(PackageDeclaration node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, PackageDeclaration.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(ParameterizedType node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, ParameterizedType.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(ParenthesizedExpression node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, ParenthesizedExpression.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(PostfixExpression node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, PostfixExpression.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(PrefixExpression node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, PrefixExpression.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(PrimitiveType node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, PrimitiveType.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(QualifiedName node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, QualifiedName.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(QualifiedType node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, QualifiedType.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(ReturnStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, ReturnStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(SimpleName node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, SimpleName.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(SimpleType node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, SimpleType.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(SingleMemberAnnotation node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, SingleMemberAnnotation.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(SingleVariableDeclaration node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, SingleVariableDeclaration.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(StringLiteral node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, StringLiteral.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(SuperConstructorInvocation node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, SuperConstructorInvocation.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(SuperFieldAccess node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, SuperFieldAccess.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(SuperMethodInvocation node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, SuperMethodInvocation.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(SwitchCase node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, SwitchCase.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(SwitchStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, SwitchStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(SynchronizedStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, SynchronizedStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(TagElement node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, TagElement.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(TextElement node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, TextElement.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(ThisExpression node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, ThisExpression.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(ThrowStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, ThrowStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(TryStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, TryStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(TypeDeclaration node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, TypeDeclaration.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(TypeDeclarationStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, TypeDeclarationStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(TypeLiteral node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, TypeLiteral.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(TypeParameter node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, TypeParameter.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(UnionType node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, UnionType.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(VariableDeclarationExpression node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, VariableDeclarationExpression.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(VariableDeclarationFragment node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, VariableDeclarationFragment.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(VariableDeclarationStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, VariableDeclarationStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(WhileStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, WhileStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void endVisit(WildcardType node) {
-        final List<ASTVisitor> visitorList = getVisitors(endVisitorsMap, WildcardType.class);
+        final List<ASTVisitor> visitorList = getVisitors(endVisitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                v.endVisit(node);
+                final long start = startTiming();
+                if (canEndVisit(v, node)) {
+                    v.endVisit(node);
+                    stopTiming(v, node, start);
+                }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
 
     @Override
     public void postVisit(ASTNode node) {
+        unblockVisitors(node);
         for (Iterator<ASTVisitor> iter = postVisitors.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
                 v.postVisit(node);
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
@@ -1638,8 +2472,9 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
             try {
                 v.preVisit(node);
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
     }
@@ -1653,8 +2488,9 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
                     return DO_NOT_VISIT_SUBTREE;
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -1662,17 +2498,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(AnnotationTypeDeclaration node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, AnnotationTypeDeclaration.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -1680,17 +2517,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(AnnotationTypeMemberDeclaration node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, AnnotationTypeMemberDeclaration.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -1698,17 +2536,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(AnonymousClassDeclaration node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, AnonymousClassDeclaration.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -1716,17 +2555,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(ArrayAccess node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, ArrayAccess.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -1734,17 +2574,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(ArrayCreation node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, ArrayCreation.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -1752,17 +2593,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(ArrayInitializer node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, ArrayInitializer.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -1770,17 +2612,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(ArrayType node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, ArrayType.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -1788,17 +2631,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(AssertStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, AssertStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -1806,17 +2650,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(Assignment node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, Assignment.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -1824,17 +2669,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(Block node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, Block.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -1842,17 +2688,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(BlockComment node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, BlockComment.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -1860,17 +2707,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(BooleanLiteral node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, BooleanLiteral.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -1878,17 +2726,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(BreakStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, BreakStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -1896,17 +2745,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(CastExpression node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, CastExpression.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -1914,17 +2764,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(CatchClause node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, CatchClause.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -1932,17 +2783,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(CharacterLiteral node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, CharacterLiteral.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -1950,17 +2802,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(ClassInstanceCreation node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, ClassInstanceCreation.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -1968,17 +2821,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(CompilationUnit node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, CompilationUnit.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -1986,17 +2840,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(ConditionalExpression node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, ConditionalExpression.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2004,17 +2859,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(ConstructorInvocation node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, ConstructorInvocation.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2022,17 +2878,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(ContinueStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, ContinueStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2040,17 +2897,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(DoStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, DoStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2058,17 +2916,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(EmptyStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, EmptyStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2076,17 +2935,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(EnhancedForStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, EnhancedForStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2094,17 +2954,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(EnumConstantDeclaration node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, EnumConstantDeclaration.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2112,17 +2973,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(EnumDeclaration node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, EnumDeclaration.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2130,17 +2992,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(ExpressionStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, ExpressionStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2148,17 +3011,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(FieldAccess node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, FieldAccess.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2166,17 +3030,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(FieldDeclaration node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, FieldDeclaration.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2184,17 +3049,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(ForStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, ForStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2202,17 +3068,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(IfStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, IfStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2220,17 +3087,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(ImportDeclaration node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, ImportDeclaration.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2238,17 +3106,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(InfixExpression node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, InfixExpression.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2256,17 +3125,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(Initializer node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, Initializer.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2274,17 +3144,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(InstanceofExpression node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, InstanceofExpression.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2292,17 +3163,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(Javadoc node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, Javadoc.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2310,17 +3182,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(LabeledStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, LabeledStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2328,17 +3201,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(LineComment node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, LineComment.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2346,17 +3220,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(MarkerAnnotation node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, MarkerAnnotation.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2364,17 +3239,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(MemberRef node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, MemberRef.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2382,17 +3258,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(MemberValuePair node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, MemberValuePair.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2400,17 +3277,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(MethodDeclaration node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, MethodDeclaration.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2418,17 +3296,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(MethodInvocation node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, MethodInvocation.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2436,17 +3315,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(MethodRef node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, MethodRef.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2454,17 +3334,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(MethodRefParameter node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, MethodRefParameter.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2472,17 +3353,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(Modifier node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, Modifier.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2490,17 +3372,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(NormalAnnotation node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, NormalAnnotation.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2508,17 +3391,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(NullLiteral node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, NullLiteral.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2526,17 +3410,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(NumberLiteral node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, NumberLiteral.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2544,17 +3429,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(PackageDeclaration node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, PackageDeclaration.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2562,17 +3448,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(ParameterizedType node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, ParameterizedType.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2580,17 +3467,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(ParenthesizedExpression node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, ParenthesizedExpression.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2598,17 +3486,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(PostfixExpression node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, PostfixExpression.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2616,17 +3505,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(PrefixExpression node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, PrefixExpression.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2634,17 +3524,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(PrimitiveType node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, PrimitiveType.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2652,17 +3543,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(QualifiedName node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, QualifiedName.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2670,17 +3562,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(QualifiedType node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, QualifiedType.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2688,17 +3581,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(ReturnStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, ReturnStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2706,17 +3600,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(SimpleName node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, SimpleName.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2724,17 +3619,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(SimpleType node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, SimpleType.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2742,17 +3638,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(SingleMemberAnnotation node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, SingleMemberAnnotation.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2760,17 +3657,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(SingleVariableDeclaration node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, SingleVariableDeclaration.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2778,17 +3676,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(StringLiteral node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, StringLiteral.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2796,17 +3695,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(SuperConstructorInvocation node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, SuperConstructorInvocation.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2814,17 +3714,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(SuperFieldAccess node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, SuperFieldAccess.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2832,17 +3733,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(SuperMethodInvocation node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, SuperMethodInvocation.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2850,17 +3752,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(SwitchCase node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, SwitchCase.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2868,17 +3771,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(SwitchStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, SwitchStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2886,17 +3790,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(SynchronizedStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, SynchronizedStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2904,17 +3809,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(TagElement node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, TagElement.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2922,17 +3828,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(TextElement node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, TextElement.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2940,17 +3847,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(ThisExpression node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, ThisExpression.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2958,17 +3866,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(ThrowStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, ThrowStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2976,17 +3885,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(TryStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, TryStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -2994,17 +3904,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(TypeDeclaration node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, TypeDeclaration.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -3012,17 +3923,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(TypeDeclarationStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, TypeDeclarationStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -3030,17 +3942,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(TypeLiteral node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, TypeLiteral.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -3048,17 +3961,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(TypeParameter node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, TypeParameter.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -3066,17 +3980,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(UnionType node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, UnionType.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -3084,17 +3999,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(VariableDeclarationExpression node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, VariableDeclarationExpression.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -3102,17 +4018,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(VariableDeclarationFragment node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, VariableDeclarationFragment.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -3120,17 +4037,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(VariableDeclarationStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, VariableDeclarationStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -3138,17 +4056,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(WhileStatement node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, WhileStatement.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
@@ -3156,17 +4075,18 @@ public class AggregateASTVisitor extends ASTVisitor implements JavaRefactoringRu
 
     @Override
     public boolean visit(WildcardType node) {
-        final List<ASTVisitor> visitorList = getVisitors(visitorsMap, WildcardType.class);
+        final List<ASTVisitor> visitorList = getVisitors(visitorsByNodeType, node);
         for (Iterator<ASTVisitor> iter = visitorList.iterator(); iter.hasNext();) {
             final ASTVisitor v = iter.next();
             try {
-                if (isJavaVersionSupported(v)
-                        && !continueVisiting(v.visit(node), v, node)) {
-                    return DO_NOT_VISIT_SUBTREE;
+                final long start = startTiming();
+                if (canVisit(v, node)) {
+                    recordVisit(v.visit(node), v, node, start);
                 }
             } catch (Exception e) {
-                logFaultyVisitor(v, node, e);
-                iter.remove();
+                if (isFaulty(v, node, e)) {
+                    iter.remove();
+                }
             }
         }
         return VISIT_SUBTREE;
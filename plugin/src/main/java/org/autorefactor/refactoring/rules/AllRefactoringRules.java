@@ -184,6 +184,23 @@ public final class AllRefactoringRules {
                 );
     }
 
+    /**
+     * Returns a new instance of the provided refactoring rule, for a worker refactoring files
+     * at the same time as the other workers. The configuration of the rule, like the operation flag of the
+     * {@link OperationFlagRefactoringRule}s, is kept.
+     *
+     * @param rule the refactoring rule to copy
+     * @return a new instance of the provided refactoring rule
+     * @throws Exception if the refactoring rule cannot be instantiated
+     */
+    public static RefactoringRule copyOf(RefactoringRule rule) throws Exception {
+        if (rule instanceof OperationFlagRefactoringRule) {
+            final int operationFlag = ((OperationFlagRefactoringRule) rule).getOperationFlag();
+            return rule.getClass().getConstructor(int.class).newInstance(operationFlag);
+        }
+        return rule.getClass().newInstance();
+    }
+
     private static List<RefactoringRule> newArrayList(RefactoringRule... refactorings) {
         final List<RefactoringRule> results = new ArrayList<RefactoringRule>(refactorings.length);
         for (RefactoringRule r : refactorings) {
@@ -35,6 +35,7 @@ import org.autorefactor.preferences.Preferences;
 import org.autorefactor.refactoring.ASTBuilder;
 import org.autorefactor.refactoring.FinderVisitor;
 import org.autorefactor.refactoring.Refactorings;
+import org.autorefactor.refactoring.TriggeredRefactoringRule;
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.Block;
 import org.eclipse.jdt.core.dom.IMethodBinding;
@@ -44,7 +45,7 @@ import org.eclipse.jdt.core.dom.Statement;
 import org.eclipse.jdt.core.dom.TypeDeclaration;
 
 /** See {@link #getDescription()} method. */
-public class AndroidWakeLockRefactoring extends AbstractRefactoringRule {
+public class AndroidWakeLockRefactoring extends AbstractRefactoringRule implements TriggeredRefactoringRule {
     /**
      * Get the name.
      *
@@ -77,6 +78,12 @@ public class AndroidWakeLockRefactoring extends AbstractRefactoringRule {
         return "It improves the performance.";
     }
 
+    @Override
+    public String[] getTriggerTokens() {
+        // an inherited field or a getter can provide the wake lock without naming its type
+        return new String[] { "release", "acquire" };
+    }
+
     @Override
     public boolean isEnabled(Preferences preferences) {
         // FIXME enable only when android libraries are detected
@@ -43,6 +43,7 @@ import static org.eclipse.jdt.core.dom.InfixExpression.Operator.PLUS;
 import static org.eclipse.jdt.core.dom.PrefixExpression.Operator.NOT;
 
 import org.autorefactor.refactoring.ASTBuilder;
+import org.autorefactor.refactoring.TriggeredRefactoringRule;
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.ClassInstanceCreation;
 import org.eclipse.jdt.core.dom.Expression;
@@ -57,7 +58,7 @@ import org.eclipse.jdt.core.dom.StringLiteral;
 
 /** See {@link #getDescription()} method. */
 @SuppressWarnings("javadoc")
-public class BigNumberRefactoring extends AbstractRefactoringRule {
+public class BigNumberRefactoring extends AbstractRefactoringRule implements TriggeredRefactoringRule {
     /**
      * Get the name.
      *
@@ -90,6 +91,12 @@ public class BigNumberRefactoring extends AbstractRefactoringRule {
         return "It improves the readibility.";
     }
 
+    @Override
+    public String[] getTriggerTokens() {
+        // equals() and valueOf() can be invoked on big numbers whose type is never named in the file
+        return new String[] { "BigDecimal", "BigInteger", "equals", "valueOf" };
+    }
+
     private int getJavaMinorVersion() {
         return ctx.getJavaProjectOptions().getJavaSERelease().getMinorVersion();
     }
@@ -256,7 +256,7 @@ public class BooleanRefactoring extends AbstractRefactoringRule {
     @Override
     public void setRefactoringContext(RefactoringContext ctx) {
         super.setRefactoringContext(ctx);
-        b = ctx.getASTBuilder();
+        b = ctx != null ? ctx.getASTBuilder() : null;
     }
 
     private int getJavaMinorVersion() {
@@ -29,6 +29,7 @@ import static org.autorefactor.refactoring.ASTHelper.DO_NOT_VISIT_SUBTREE;
 import static org.autorefactor.refactoring.ASTHelper.VISIT_SUBTREE;
 
 import org.autorefactor.refactoring.ASTBuilder;
+import org.autorefactor.refactoring.BindingFreeRefactoringRule;
 import org.eclipse.jdt.core.dom.NumberLiteral;
 
 /**
@@ -36,7 +37,7 @@ import org.eclipse.jdt.core.dom.NumberLiteral;
  *
  * This rule refactors the Sonar squid:LowerCaseLongSuffixCheck.
  */
-public class CapitalizeLongLiteralRefactoring extends AbstractRefactoringRule {
+public class CapitalizeLongLiteralRefactoring extends AbstractRefactoringRule implements BindingFreeRefactoringRule {
     /**
      * Get the name.
      *
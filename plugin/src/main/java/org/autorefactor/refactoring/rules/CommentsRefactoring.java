@@ -55,6 +55,7 @@ import java.util.TreeMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.autorefactor.refactoring.FreshAstRefactoringRule;
 import org.autorefactor.refactoring.SourceLocation;
 import org.autorefactor.util.NotImplementedException;
 import org.autorefactor.util.Pair;
@@ -85,7 +86,7 @@ import org.eclipse.jdt.core.dom.TypeDeclaration;
  * <li>TODO Fix typo in comments</li>
  * </ul>
  */
-public class CommentsRefactoring extends AbstractRefactoringRule {
+public class CommentsRefactoring extends AbstractRefactoringRule implements FreshAstRefactoringRule {
     /**
      * Get the name.
      *
@@ -43,6 +43,7 @@ import java.util.Stack;
 
 import org.autorefactor.refactoring.ASTBuilder;
 import org.autorefactor.refactoring.ASTHelper;
+import org.autorefactor.refactoring.FreshAstRefactoringRule;
 import org.autorefactor.refactoring.Refactorings;
 import org.autorefactor.util.COEvolgy;
 import org.eclipse.jdt.core.dom.ASTNode;
@@ -71,16 +72,21 @@ import org.eclipse.jdt.internal.corext.dom.ASTNodes;
 
 
 /** See {@link #getDescription()} method. */
-public class DrawAllocationRefactoring extends AbstractRefactoringRule {
+public class DrawAllocationRefactoring extends AbstractRefactoringRule
+        implements FreshAstRefactoringRule, OperationFlagRefactoringRule {
 
 	public static final String TAG = "DrawAllocation";
 	
 	private static final String tracerImport = "org.greenlab.coevolgy.util.Tracer";
-	private static boolean foundTracerImport = false;
 	
-	private static CompilationUnit mainNode = null;
-	private static int operationFlag = MEASURE;
-	private static Set<String> fields;
+	private int operationFlag = MEASURE;
+	
+	/** State kept about the compilation unit being refactored. */
+	static final class State {
+		private boolean foundTracerImport;
+		private CompilationUnit mainNode;
+		private Set<String> fields;
+	}
 	
 	public DrawAllocationRefactoring() {
 		super();
@@ -91,6 +97,11 @@ public class DrawAllocationRefactoring extends AbstractRefactoringRule {
 		operationFlag = flag;
 	}
 
+	@Override
+	public int getOperationFlag() {
+		return operationFlag;
+	}
+
 	
 	@Override
 	public String getDescription() {
@@ -114,13 +125,14 @@ public class DrawAllocationRefactoring extends AbstractRefactoringRule {
     
     @Override
     public boolean visit(CompilationUnit node) {
+    	final State state = ctx.getRuleState(State.class);
     	List<ImportDeclaration> allImports = node.imports();
-		foundTracerImport = COEvolgy.isImportIncluded(allImports, tracerImport);
-		mainNode = node;
+		state.foundTracerImport = COEvolgy.isImportIncluded(allImports, tracerImport);
+		state.mainNode = node;
 		
 		ClassVarsFinder varsFinder = new ClassVarsFinder();
 		node.accept(varsFinder);
-		fields = varsFinder.classVars;
+		state.fields = varsFinder.classVars;
 		return VISIT_SUBTREE;
     }
     
@@ -128,15 +140,16 @@ public class DrawAllocationRefactoring extends AbstractRefactoringRule {
     public boolean visit(ImportDeclaration node) {
 		final ASTBuilder b = ctx.getASTBuilder();
 		final Refactorings r = ctx.getRefactorings();
+		final State state = ctx.getRuleState(State.class);
 		boolean refactored = false;
 
-		if (operationFlag == TRACE && !foundTracerImport) {
+		if (operationFlag == TRACE && !state.foundTracerImport) {
 			ImportDeclaration importTracer = r.getAST().newImportDeclaration();
 			Name importName = b.name(tracerImport.split("\\."));
 			importTracer.setName(importName);
 			r.insertBefore(importTracer, node);
 			
-			foundTracerImport = true;
+			state.foundTracerImport = true;
 			refactored = true;
 		}
 		
@@ -151,7 +164,7 @@ public class DrawAllocationRefactoring extends AbstractRefactoringRule {
 			final ASTBuilder b = this.ctx.getASTBuilder();
 			final Refactorings r = this.ctx.getRefactorings();
 			
-			node.accept(new OnDrawTransformer(this.ctx, node));
+			node.accept(new OnDrawTransformer(this.ctx, node, operationFlag));
 		}
 		return VISIT_SUBTREE;
 	}
@@ -169,7 +182,7 @@ public class DrawAllocationRefactoring extends AbstractRefactoringRule {
 			return isMethod(methodBinding, "android.view.View", "onDraw", "android.graphics.Canvas");
 			
 		} else {
-			List<ImportDeclaration> imports = mainNode.imports();
+			List<ImportDeclaration> imports = ctx.getRuleState(State.class).mainNode.imports();
 			List<String> typesToCheck = new ArrayList<>(COEvolgy.androidExtendables.get("android.view.View"));
 			typesToCheck.add("android.view.View");
 			return COEvolgy.isClassExtendedBy(typeDeclaration, typesToCheck, imports);
@@ -183,10 +196,14 @@ public class DrawAllocationRefactoring extends AbstractRefactoringRule {
 		private MethodDeclaration onDrawDeclaration;
 		private Map<String, ASTNode> variables;
 		private List<String> movedVariables;
+		private final int operationFlag;
+		private final Set<String> fields;
 		
-		public OnDrawTransformer(RefactoringContext ctx, MethodDeclaration onDrawDeclaration){
+		public OnDrawTransformer(RefactoringContext ctx, MethodDeclaration onDrawDeclaration, int operationFlag){
 			this.ctx=ctx;
 			this.onDrawDeclaration = onDrawDeclaration;
+			this.operationFlag = operationFlag;
+			this.fields = ctx.getRuleState(State.class).fields;
 			this.variables = new HashMap<>();
 			this.movedVariables = new ArrayList<>();
 		}
@@ -219,7 +236,7 @@ public class DrawAllocationRefactoring extends AbstractRefactoringRule {
 				if(initializer.getNodeType() == ASTNode.CAST_EXPRESSION){
 					initializer = ((CastExpression)initializer).getExpression();
 				}
-				InitializerVisitor initializerVisitor = new InitializerVisitor(this.variables.keySet());
+				InitializerVisitor initializerVisitor = new InitializerVisitor(this.variables.keySet(), fields);
 				initializer.accept(initializerVisitor);
 				if(initializerVisitor.initializerCanBeExtracted){
 					if(initializer.getNodeType() == ASTNode.CLASS_INSTANCE_CREATION || initializer.getNodeType() == ASTNode.METHOD_INVOCATION){
@@ -305,7 +322,7 @@ public class DrawAllocationRefactoring extends AbstractRefactoringRule {
 			Expression right = node.getRightHandSide();
 			
 			if (this.variables.containsKey(varLeftHS)) {
-				InitializerVisitor initializerVisitor = new InitializerVisitor(variables.keySet());
+				InitializerVisitor initializerVisitor = new InitializerVisitor(variables.keySet(), fields);
 				right.accept(initializerVisitor);
 				if (initializerVisitor.initializerCanBeExtracted) {
 					if (right.getNodeType() == ASTNode.CLASS_INSTANCE_CREATION || right.getNodeType() == ASTNode.METHOD_INVOCATION) {
@@ -396,9 +413,11 @@ public class DrawAllocationRefactoring extends AbstractRefactoringRule {
 		private Set<String> localVariables;
 		public Set<String> varsToExtract;
 		private Stack<String> methodNames;
+		private final Set<String> fields;
 		
-		public InitializerVisitor(Set<String> variables) {
+		public InitializerVisitor(Set<String> variables, Set<String> fields) {
 			this.localVariables = variables;
+			this.fields = fields;
 			this.varsToExtract = new HashSet<>();
 			this.methodNames = new Stack<>();
 		}
@@ -13,6 +13,7 @@ import java.util.Stack;
 
 import org.autorefactor.refactoring.ASTBuilder;
 import org.autorefactor.refactoring.ASTHelper;
+import org.autorefactor.refactoring.FreshAstRefactoringRule;
 import org.autorefactor.refactoring.Refactorings;
 import org.autorefactor.util.COEvolgy;
 import org.eclipse.jdt.core.dom.ASTNode;
@@ -43,16 +44,24 @@ import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
 import org.eclipse.jdt.core.dom.VariableDeclarationStatement;
 import org.eclipse.jdt.core.dom.WhileStatement;
 
-public class ExcessiveMethodCallsRefactoring extends AbstractRefactoringRule {
+public class ExcessiveMethodCallsRefactoring extends AbstractRefactoringRule
+        implements FreshAstRefactoringRule, OperationFlagRefactoringRule {
 	
 	public static final String TAG = "ExcessiveMethodCalls";
-	private static boolean foundTracerImport = false;
 	private static final String tracerImport = "org.greenlab.coevolgy.util.Tracer";
 	
-	private static int operationFlag = MEASURE;
-	private static int phase = 0;
-	private static String fileName = "";
-	private static String packageName = "";
+	private int operationFlag = MEASURE;
+	
+	/** State kept about the compilation unit being refactored. */
+	static final class State {
+		private boolean foundTracerImport;
+		private String fileName = "";
+		private String packageName = "";
+	}
+	
+	private State state() {
+		return ctx.getRuleState(State.class);
+	}
 	
 	private String visitingMethod;
 	private Map<String, List<String>> methodCalls;
@@ -79,6 +88,11 @@ public class ExcessiveMethodCallsRefactoring extends AbstractRefactoringRule {
 		this.classVars = new HashSet<>();
 	}
 
+	@Override
+	public int getOperationFlag() {
+		return operationFlag;
+	}
+
 	@Override
 	public String getName() {
 		return "ExcessiveMethodCallsRefactoring";
@@ -101,14 +115,13 @@ public class ExcessiveMethodCallsRefactoring extends AbstractRefactoringRule {
     @Override
     public boolean visit(CompilationUnit node) {
     	
-		this.phase++;
-		fileName = node.getJavaElement().getElementName();
-		packageName = node.getPackage().getName().getFullyQualifiedName();
+		state().fileName = COEvolgy.getFileName(node);
+		state().packageName = COEvolgy.getPackageName(node);
 		ASTVisitor visitor;
 		
 		// 1st Traversal : Get information about class variables.
 		List<ImportDeclaration> allImports = node.imports();
-		foundTracerImport = COEvolgy.isImportIncluded(allImports, tracerImport);
+		state().foundTracerImport = COEvolgy.isImportIncluded(allImports, tracerImport);
 		visitor = new ClassVarsVisitor();
 		node.accept(visitor);
 		
@@ -120,8 +133,8 @@ public class ExcessiveMethodCallsRefactoring extends AbstractRefactoringRule {
 		visitor = new MethodCallVisitor();
 		node.accept(visitor);
 
-		fileName = "";
-		packageName = "";
+		state().fileName = "";
+		state().packageName = "";
 		
 		this.classVars.clear();
 		this.conditionedVars.clear();
@@ -422,7 +435,7 @@ public class ExcessiveMethodCallsRefactoring extends AbstractRefactoringRule {
         
         @Override
         public boolean visit(MethodDeclaration node) {
-            visitingMethod = packageName + "." + fileName + "." + node.getName();
+            visitingMethod = state().packageName + "." + state().fileName + "." + node.getName();
             return super.visit(node);
         }
 		
@@ -651,7 +664,7 @@ public class ExcessiveMethodCallsRefactoring extends AbstractRefactoringRule {
         
         @Override
         public boolean visit(MethodDeclaration node) {
-            visitingMethod = packageName + "." + fileName + "." + node.getName();
+            visitingMethod = state().packageName + "." + state().fileName + "." + node.getName();
             return super.visit(node);
         }
         
@@ -717,13 +730,13 @@ public class ExcessiveMethodCallsRefactoring extends AbstractRefactoringRule {
 			final Refactorings r = ctx.getRefactorings();
 			boolean refactored = false;
 
-			if (operationFlag == TRACE && !foundTracerImport) {
+			if (operationFlag == TRACE && !state().foundTracerImport) {
 				ImportDeclaration importTracer = r.getAST().newImportDeclaration();
 				Name importName = b.name(tracerImport.split("\\."));
 				importTracer.setName(importName);
 				r.insertBefore(importTracer, node);
 				
-				foundTracerImport = true;
+				state().foundTracerImport = true;
 				refactored = true;
 			}
 			
@@ -9,7 +9,9 @@ import java.util.List;
 
 import org.autorefactor.refactoring.ASTBuilder;
 import org.autorefactor.refactoring.ASTHelper;
+import org.autorefactor.refactoring.FreshAstRefactoringRule;
 import org.autorefactor.refactoring.Refactorings;
+import org.autorefactor.refactoring.TriggeredRefactoringRule;
 import org.autorefactor.util.COEvolgy;
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.ASTVisitor;
@@ -36,19 +38,27 @@ import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
 import org.eclipse.jdt.core.dom.VariableDeclarationStatement;
 
 
-public class HashMapUsageRefactoring extends AbstractRefactoringRule {
+public class HashMapUsageRefactoring extends AbstractRefactoringRule
+        implements FreshAstRefactoringRule, OperationFlagRefactoringRule, TriggeredRefactoringRule {
 	
 	public static final String TAG = "HashMapUsage";
-	public static String fileName = "";
 	
 	private HashMap<String, String> instances;
 	private List<String> integers;
-	private static boolean foundArrayImport = false;
-	private static boolean foundTracerImport = false;
 	private static final String newMapClass = "ArrayMap";
 	private static final String arrayMapImport = "android.support.v4.util.ArrayMap";
 	private static final String tracerImport = "org.greenlab.coevolgy.util.Tracer";
-	private static int operationFlag = MEASURE;
+	private int operationFlag = MEASURE;
+	
+	/** State kept about the compilation unit being refactored. */
+	static final class State {
+		private boolean foundArrayImport;
+		private boolean foundTracerImport;
+	}
+	
+	private State state() {
+		return ctx.getRuleState(State.class);
+	}
 	
 	public HashMapUsageRefactoring() {
 		super();
@@ -62,6 +72,11 @@ public class HashMapUsageRefactoring extends AbstractRefactoringRule {
 		instances = new HashMap<>();
 		integers = new ArrayList<>();
 	}
+
+	@Override
+	public int getOperationFlag() {
+		return operationFlag;
+	}
 	
 	@Override
 	public String getName() {
@@ -87,6 +102,12 @@ public class HashMapUsageRefactoring extends AbstractRefactoringRule {
     public String getReason() {
         return "It improves the performance.";
     }
+
+    @Override
+    public String[] getTriggerTokens() {
+        // the type names are matched as text, so nothing is refactored without them
+        return new String[] { "HashMap" };
+    }
     
     /* VISITORS */
     
@@ -364,23 +385,23 @@ public class HashMapUsageRefactoring extends AbstractRefactoringRule {
     		final ASTBuilder b = ctx.getASTBuilder();
     		final Refactorings r = ctx.getRefactorings();
     		boolean refactored = false;
-    		if (!foundArrayImport) {
+    		if (!state().foundArrayImport) {
     			ImportDeclaration newImport = r.getAST().newImportDeclaration();
     			Name name = b.name(arrayMapImport.split("\\."));
     			newImport.setName(name);
     			r.insertBefore(newImport, node);
     			
-    			foundArrayImport = true;
+    			state().foundArrayImport = true;
     			refactored = true;
     		}
     		
-    		if (operationFlag == TRACE && !foundTracerImport) {
+    		if (operationFlag == TRACE && !state().foundTracerImport) {
     			ImportDeclaration importTracer = r.getAST().newImportDeclaration();
     			Name importName = b.name(tracerImport.split("\\."));
     			importTracer.setName(importName);
     			r.insertBefore(importTracer, node);
     			
-    			foundTracerImport = true;
+    			state().foundTracerImport = true;
     			refactored = true;
     		}
     		
@@ -393,10 +414,9 @@ public class HashMapUsageRefactoring extends AbstractRefactoringRule {
 
     @Override
     public boolean visit(CompilationUnit node) {
-    	fileName = node.getJavaElement().getPath().toString();
     	List<ImportDeclaration> allImports = node.imports();
-    	foundArrayImport = COEvolgy.isImportIncluded(allImports, arrayMapImport);
-    	foundTracerImport = COEvolgy.isImportIncluded(allImports, tracerImport);
+    	state().foundArrayImport = COEvolgy.isImportIncluded(allImports, arrayMapImport);
+    	state().foundTracerImport = COEvolgy.isImportIncluded(allImports, tracerImport);
     	instances = new HashMap<>();
     	integers = new ArrayList<>();
     	
@@ -10,6 +10,7 @@ import java.util.Set;
 
 import org.autorefactor.refactoring.ASTBuilder;
 import org.autorefactor.refactoring.ASTHelper;
+import org.autorefactor.refactoring.FreshAstRefactoringRule;
 import org.autorefactor.refactoring.Refactorings;
 import org.autorefactor.util.COEvolgy;
 import org.eclipse.jdt.core.dom.ASTNode;
@@ -33,37 +34,45 @@ import org.eclipse.jdt.core.dom.TypeDeclaration;
 import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
 import org.eclipse.jdt.internal.corext.dom.ASTNodes;
 
-public class MemberIgnoringMethodRefactoring extends AbstractRefactoringRule {
+public class MemberIgnoringMethodRefactoring extends AbstractRefactoringRule
+        implements FreshAstRefactoringRule, OperationFlagRefactoringRule {
 
 	public static final String TAG = "MemberIgnoringMethod";
 	
-	private static int operationFlag = MEASURE;
-	private static boolean foundTracerImport = false;
+	private int operationFlag = MEASURE;
+	
+	/** State kept about the compilation unit being refactored. */
+	static final class State {
+		private boolean foundTracerImport;
+		private final Map<String, Boolean> fields = new HashMap<>();
+		private final Map<String, Set<String>> methods = new HashMap<>();
+		private final Map<String, Boolean> methodsStatus = new HashMap<>();
+		private int methodsDepth;
+		private String mClassName = "";
+	}
+	
+	private State state() {
+		return ctx.getRuleState(State.class);
+	}
 	
-	private static Map<String, Boolean> fields;
-    private static Map<String, Set<String>> methods;
-    private static Map<String, Boolean> methodsStatus;
-    private static int methodsDepth = 0;
 	
 	private static final String tracerImport = "org.greenlab.coevolgy.util.Tracer";
 	
-	private static String mClassName = "";
 	
 	public MemberIgnoringMethodRefactoring() {
 		super();
 		
-		fields = new HashMap<>();
-        methods = new HashMap<>();
-        methodsStatus = new HashMap<>();
 	}
 	
 	public MemberIgnoringMethodRefactoring(int flag) {
 		super();
 		operationFlag = flag;
 		
-		fields = new HashMap<>();
-        methods = new HashMap<>();
-        methodsStatus = new HashMap<>();
+	}
+
+	@Override
+	public int getOperationFlag() {
+		return operationFlag;
 	}
 	
 	@Override
@@ -82,16 +91,16 @@ public class MemberIgnoringMethodRefactoring extends AbstractRefactoringRule {
 				"method, can be converted to static.";
 	}
 	
-	private static void isMIM(String methodName) {
-        methodsStatus.put(methodName, true);
+	private void isMIM(String methodName) {
+        state().methodsStatus.put(methodName, true);
     }
 
-    private static void notMIM(String methodName) {
-        methodsStatus.put(methodName, false);
+    private void notMIM(String methodName) {
+        state().methodsStatus.put(methodName, false);
     }
 
-    private static boolean isField(String qualifiedName) {
-        if (fields.containsKey(qualifiedName)) return fields.get(qualifiedName);
+    private boolean isField(String qualifiedName) {
+        if (state().fields.containsKey(qualifiedName)) return state().fields.get(qualifiedName);
 
         return false;
     }
@@ -110,20 +119,20 @@ public class MemberIgnoringMethodRefactoring extends AbstractRefactoringRule {
     }
     
     private void classifyMIM(String methodName) {
-        if (methodsStatus.containsKey(methodName)) {
+        if (state().methodsStatus.containsKey(methodName)) {
         	return;
         }
 
-        if (! methods.containsKey(methodName)){
+        if (! state().methods.containsKey(methodName)){
             // it's a method that we have no information about. Hence, it can either be a MIM or not.
             // since we MUST avoid having false positives, in this cases we assume is a non-MIM.
             notMIM(methodName);
             return;
         }
 
-        for (String depend : methods.get(methodName)) {
+        for (String depend : state().methods.get(methodName)) {
             classifyMIM(depend);
-            if (methodsStatus.containsKey(depend) && !methodsStatus.get(depend)) {
+            if (state().methodsStatus.containsKey(depend) && !state().methodsStatus.get(depend)) {
                 notMIM(methodName);
                 return;
             }
@@ -132,29 +141,29 @@ public class MemberIgnoringMethodRefactoring extends AbstractRefactoringRule {
     }
 
     private void checkDependencies() {
-        for (String method : methods.keySet()) {
+        for (String method : state().methods.keySet()) {
             classifyMIM(method);
         }
     }
 	
 	public void debug() {
         System.out.println("\t << FIELDS >>");
-        for (String f : fields.keySet()) {
-            System.out.println("\t\t>> " + f + " [" + fields.get(f) + "]");
+        for (String f : state().fields.keySet()) {
+            System.out.println("\t\t>> " + f + " [" + state().fields.get(f) + "]");
         }
 
         System.out.println("\t ** METHODS **");
-        for (String m : methods.keySet()) {
+        for (String m : state().methods.keySet()) {
             System.out.print("\t\t** " + m + " => [ ");
-            for (String d :  methods.get(m)) {
+            for (String d :  state().methods.get(m)) {
                 System.out.print(d + ", ");
             }
             System.out.println(" ]");
         }
 
         System.out.println("\t ## STATUS ##");
-        for (String s : methodsStatus.keySet()) {
-            System.out.println("\t\t## " + s + " [" + methodsStatus.get(s) + "]");
+        for (String s : state().methodsStatus.keySet()) {
+            System.out.println("\t\t## " + s + " [" + state().methodsStatus.get(s) + "]");
         }
         System.out.println();
     }
@@ -163,10 +172,10 @@ public class MemberIgnoringMethodRefactoring extends AbstractRefactoringRule {
 	@Override
     public boolean visit(TypeDeclaration node) {
 		CompilationUnit unit = (CompilationUnit)ASTNodes.getParent(node, ASTNode.COMPILATION_UNIT);
-		mClassName = node.resolveBinding().getQualifiedName();
+		state().mClassName = node.resolveBinding().getQualifiedName();
 		
-		fields.clear();
-		methods.clear();
+		state().fields.clear();
+		state().methods.clear();
 		if (!node.isInterface() && !Modifier.isAbstract(node.getModifiers())) {
 			// First check: fields
 			FieldChecker checker = new FieldChecker();
@@ -199,7 +208,7 @@ public class FieldChecker extends ASTVisitor{
 		for (Object o : field.fragments()) {
 			VariableDeclarationFragment fragment = (VariableDeclarationFragment) o;
 			String fullName = containingClass.resolveBinding().getQualifiedName() + "." + fragment.getName().getIdentifier();
-			fields.put(fullName, isNonStatic);
+			state().fields.put(fullName, isNonStatic);
 		}
     }
 	
@@ -236,12 +245,12 @@ public class MemberIgnoringChecker extends ASTVisitor{
         String methodName = COEvolgy.getMethodQualifiedName(parentMethod);
         
         if (methodName != null && !methodName.equals(reference)) {
-            if (methods.containsKey(methodName)) {
-                methods.get(methodName).add(reference);
+            if (state().methods.containsKey(methodName)) {
+                state().methods.get(methodName).add(reference);
             } else {
                 Set<String> refs = new HashSet<>();
                 refs.add(reference);
-                methods.put(methodName, refs);
+                state().methods.put(methodName, refs);
             }
         }
     }
@@ -259,7 +268,7 @@ public class MemberIgnoringChecker extends ASTVisitor{
 	
 	@Override
 	public boolean visit(ClassInstanceCreation node) {
-		if (methodsDepth > 0) {
+		if (state().methodsDepth > 0) {
 			String parentStmt = COEvolgy.getParentStatement(node).toString();
 			if (parentStmt.startsWith("new ")) {
 				MethodDeclaration parentMethod = COEvolgy.getParentMethod(node);
@@ -275,12 +284,12 @@ public class MemberIgnoringChecker extends ASTVisitor{
 	@Override
 	public boolean visit(MethodDeclaration node) {
 		if (!node.isConstructor()) {
-			methodsDepth++;
+			state().methodsDepth++;
 			String methodName = COEvolgy.getMethodQualifiedName(node);
 			if (methodName == null) {
 				// the following code will be executed if a there are two methods with the same name.
-				methodName = mClassName + "." + node.getName().getIdentifier() + "(";
-				for (String m : methods.keySet()) {
+				methodName = state().mClassName + "." + node.getName().getIdentifier() + "(";
+				for (String m : state().methods.keySet()) {
 					if (m.startsWith(methodName)) notMIM(m);
 				}
 				return super.visit(node); 
@@ -295,7 +304,7 @@ public class MemberIgnoringChecker extends ASTVisitor{
 				return super.visit(node);
 			}
 			
-			if (methodsDepth > 1) {
+			if (state().methodsDepth > 1) {
 				MethodDeclaration parent = COEvolgy.getParentMethod(node.getParent());
 				if (parent != null) {
 					addDependency(parent, methodName);
@@ -317,8 +326,8 @@ public class MemberIgnoringChecker extends ASTVisitor{
 						
 			ASTNode parentClass = getParentClass(node);
 			
-			if (!methods.containsKey(methodName)) {
-				methods.put(methodName, new HashSet<>());
+			if (!state().methods.containsKey(methodName)) {
+				state().methods.put(methodName, new HashSet<>());
 			}
 			
 			boolean isStatic = Modifier.isStatic(node.resolveBinding().getModifiers());
@@ -344,7 +353,7 @@ public class MemberIgnoringChecker extends ASTVisitor{
 	@Override
 	public void endVisit(MethodDeclaration node) {
 		if (!node.isConstructor()) {
-			methodsDepth--;
+			state().methodsDepth--;
 		}
 		super.endVisit(node);
 	}
@@ -358,7 +367,7 @@ public class MemberIgnoringChecker extends ASTVisitor{
 			notMIM(COEvolgy.getMethodQualifiedName(parentMethod));
 		}
 		
-		if (methodsDepth > 0 && parentMethod != null && !parentMethod.isConstructor()) {
+		if (state().methodsDepth > 0 && parentMethod != null && !parentMethod.isConstructor()) {
 			Expression exp = node.getExpression();
 			if (exp != null) {
 				// a method call that was either accessed through a variable, 
@@ -374,7 +383,7 @@ public class MemberIgnoringChecker extends ASTVisitor{
 				}
 
 					// a method call that was accessed through a variable.
-					String varQualifiedName = mClassName + "." + callVar;
+					String varQualifiedName = state().mClassName + "." + callVar;
 					if (isField(varQualifiedName)) {
 						notMIM(COEvolgy.getMethodQualifiedName(parentMethod));
 					}
@@ -391,8 +400,8 @@ public class MemberIgnoringChecker extends ASTVisitor{
 				if (isStatic) {
 					isMIM(methodName);
 					
-					if (!methods.containsKey(methodName)) {
-						methods.put(methodName, new HashSet<>());
+					if (!state().methods.containsKey(methodName)) {
+						state().methods.put(methodName, new HashSet<>());
 					}
 				}
 				
@@ -403,7 +412,7 @@ public class MemberIgnoringChecker extends ASTVisitor{
 	
 	@Override
 	public boolean visit(SimpleName node) {
-		if (methodsDepth > 0) {
+		if (state().methodsDepth > 0) {
 			MethodDeclaration parentMethod = COEvolgy.getParentMethod(node);
 			if (parentMethod != null) {
 				String methodName = COEvolgy.getMethodQualifiedName(parentMethod);
@@ -420,8 +429,8 @@ public class MemberIgnoringChecker extends ASTVisitor{
 				} else {
 					// 'methodName == null' means we can't be sure what is happening in this method.
 					// Hence, we assume it is "not MIM".
-					methodName = mClassName + "." + parentMethod.getName().getIdentifier() + "(";
-					for (String m : methods.keySet()) {
+					methodName = state().mClassName + "." + parentMethod.getName().getIdentifier() + "(";
+					for (String m : state().methods.keySet()) {
 						if (m.startsWith(methodName)) {
 							notMIM(m);
 						}
@@ -461,7 +470,7 @@ public class MemberIgnoringRefactor extends ASTVisitor {
 			return super.visit(node);
 		}
 		
-		if (methodsStatus.containsKey(methodName) && methodsStatus.get(methodName)) {
+		if (state().methodsStatus.containsKey(methodName) && state().methodsStatus.get(methodName)) {
 			// MIM found!
 			final ASTBuilder b = ctx.getASTBuilder();
 			final Refactorings r = ctx.getRefactorings();
@@ -505,13 +514,13 @@ public class ImportVisitor extends ASTVisitor {
 			final Refactorings r = ctx.getRefactorings();
 			boolean refactored = false;
 			
-			if (operationFlag == TRACE && !foundTracerImport) {
+			if (operationFlag == TRACE && !state().foundTracerImport) {
 				ImportDeclaration importTracer = r.getAST().newImportDeclaration();
 				Name importName = b.name(tracerImport.split("\\."));
 				importTracer.setName(importName);
 				r.insertBefore(importTracer, node);
 				
-				foundTracerImport = true;
+				state().foundTracerImport = true;
 				refactored = true;
 			}
 			
@@ -11,6 +11,7 @@ import java.util.Set;
 
 import org.autorefactor.refactoring.ASTBuilder;
 import org.autorefactor.refactoring.ASTHelper;
+import org.autorefactor.refactoring.FreshAstRefactoringRule;
 import org.autorefactor.refactoring.Refactorings;
 import org.autorefactor.util.COEvolgy;
 import org.eclipse.jdt.core.dom.ASTNode;
@@ -35,7 +36,8 @@ import org.eclipse.jdt.core.dom.VariableDeclarationExpression;
 import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
 import org.eclipse.jdt.core.dom.VariableDeclarationStatement;
 
-public class MemoizationChanceRefactoring extends AbstractRefactoringRule {
+public class MemoizationChanceRefactoring extends AbstractRefactoringRule
+        implements FreshAstRefactoringRule, OperationFlagRefactoringRule {
 	
 	private static final boolean genericApproach = false;
 	
@@ -44,7 +46,18 @@ public class MemoizationChanceRefactoring extends AbstractRefactoringRule {
 	private static final String memoizerImport = "org.greenlab.memoization.Memoizer";
 	private static final String mapImport = "java.util.Hashtable";
 
-	private static int operationFlag = MEASURE;
+	private int operationFlag = MEASURE;
+	
+	/** State kept about the compilation unit being refactored. */
+	static final class State {
+		private boolean foundMemoizerImport;
+		private boolean foundTracerImport;
+		private boolean foundMapImport;
+	}
+	
+	private State state() {
+		return ctx.getRuleState(State.class);
+	}
 	
 	private HashMap<String, Boolean> classVars;
     private HashMap<String, Boolean> classMethods;
@@ -52,9 +65,6 @@ public class MemoizationChanceRefactoring extends AbstractRefactoringRule {
     private HashMap<String, HashSet<String>> methodLocalVars;
     private String className;
     private String packageName;
-    private static boolean foundMemoizerImport = false;
-	private static boolean foundTracerImport = false;
-	private static boolean foundMapImport = false;
 	
 	public MemoizationChanceRefactoring() {
 		super();
@@ -76,6 +86,11 @@ public class MemoizationChanceRefactoring extends AbstractRefactoringRule {
 		this.className = "";
 		this.packageName = "";
 	}
+
+	@Override
+	public int getOperationFlag() {
+		return operationFlag;
+	}
 	
 	@Override
 	public String getName() {
@@ -167,13 +182,13 @@ public class MemoizationChanceRefactoring extends AbstractRefactoringRule {
 
 	@Override
     public boolean visit(CompilationUnit node) {		
-		className = node.getJavaElement().getElementName().replace(".java", "");
-		packageName = node.getPackage().getName().getFullyQualifiedName();
+		className = COEvolgy.getFileName(node).replace(".java", "");
+		packageName = COEvolgy.getPackageName(node);
 		
 		List<ImportDeclaration> allImports = node.imports();
-		foundTracerImport = COEvolgy.isImportIncluded(allImports, tracerImport);
-		foundMemoizerImport = COEvolgy.isImportIncluded(allImports, memoizerImport);
-		foundMapImport = COEvolgy.isImportIncluded(allImports, mapImport);
+		state().foundTracerImport = COEvolgy.isImportIncluded(allImports, tracerImport);
+		state().foundMemoizerImport = COEvolgy.isImportIncluded(allImports, memoizerImport);
+		state().foundMapImport = COEvolgy.isImportIncluded(allImports, mapImport);
 		
 		// Phase #1: Collect class variables.
 		FieldsVisitor gatherer = new FieldsVisitor(packageName, className);
@@ -574,33 +589,33 @@ public class MemoizationChanceRefactoring extends AbstractRefactoringRule {
 			final Refactorings r = ctx.getRefactorings();
 			boolean refactored = false;
 			
-			if (!foundMemoizerImport && hasMemoizableMethods()) {
+			if (!state().foundMemoizerImport && hasMemoizableMethods()) {
 				ImportDeclaration newImport = r.getAST().newImportDeclaration();
 				Name name = b.name(memoizerImport.split("\\."));
 				newImport.setName(name);
 				r.insertBefore(newImport, node);
 				
-				foundMemoizerImport = true;
+				state().foundMemoizerImport = true;
 				refactored = true;
 			}
 			
-			if (!foundMapImport && hasMemoizableMethods()) {
+			if (!state().foundMapImport && hasMemoizableMethods()) {
 				ImportDeclaration mapImportStmt = r.getAST().newImportDeclaration();
 				Name mapImportName = b.name(mapImport.split("\\."));
 				mapImportStmt.setName(mapImportName);
 				r.insertBefore(mapImportStmt, node);
 				
-				foundMapImport = true;
+				state().foundMapImport = true;
 				refactored = true;
 			}
 			
-			if (operationFlag == TRACE && !foundTracerImport) {
+			if (operationFlag == TRACE && !state().foundTracerImport) {
 				ImportDeclaration importTracer = r.getAST().newImportDeclaration();
 				Name importName = b.name(tracerImport.split("\\."));
 				importTracer.setName(importName);
 				r.insertBefore(importTracer, node);
 				
-				foundTracerImport = true;
+				state().foundTracerImport = true;
 				refactored = true;
 			}
 			
@@ -0,0 +1,44 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring.rules;
+
+import org.autorefactor.refactoring.RefactoringRule;
+
+/**
+ * The COEvolgy refactoring rules, configured with an operation flag like {@link org.autorefactor.util.COEvolgy#MEASURE}
+ * or {@link org.autorefactor.util.COEvolgy#TRACE}.
+ * <p>
+ * The copies of such rules given to each worker must keep the operation flag,
+ * see {@link AllRefactoringRules#copyOf(RefactoringRule)}.
+ */
+public interface OperationFlagRefactoringRule extends RefactoringRule {
+    /**
+     * Returns the operation flag this rule was configured with.
+     *
+     * @return the operation flag this rule was configured with
+     */
+    int getOperationFlag();
+}
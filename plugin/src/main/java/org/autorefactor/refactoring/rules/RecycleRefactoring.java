@@ -29,6 +29,7 @@ package org.autorefactor.refactoring.rules;
 
 import static org.autorefactor.refactoring.ASTHelper.DO_NOT_VISIT_SUBTREE;
 import static org.autorefactor.refactoring.ASTHelper.VISIT_SUBTREE;
+import static org.autorefactor.refactoring.ASTHelper.getFileName;
 import static org.autorefactor.util.COEvolgy.MEASURE;
 import static org.autorefactor.util.COEvolgy.TRACE;
 
@@ -38,6 +39,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.autorefactor.refactoring.ASTBuilder;
+import org.autorefactor.refactoring.FreshAstRefactoringRule;
 import org.autorefactor.refactoring.Refactorings;
 import org.autorefactor.util.COEvolgy;
 import org.eclipse.jdt.core.dom.ASTNode;
@@ -78,20 +80,29 @@ import org.eclipse.jdt.internal.corext.dom.ASTNodes;
  */
 
 /** See {@link #getDescription()} method. */
-public class RecycleRefactoring extends AbstractRefactoringRule {
+public class RecycleRefactoring extends AbstractRefactoringRule
+        implements FreshAstRefactoringRule, OperationFlagRefactoringRule {
 	
 	public static final String TAG = "Recycle";
 	private static final String tracerImport = "org.greenlab.coevolgy.util.Tracer";
-	private static boolean foundTracerImport = false;
 	
-	private static CompilationUnit mainNode = null;
-	private static int operationFlag = MEASURE;
+	private int operationFlag = MEASURE;
+	
+	/** State kept about the compilation unit being refactored. */
+	static final class State {
+		private boolean foundTracerImport;
+		private CompilationUnit mainNode;
+		private String lastVisitedCU = "";
+		private boolean alreadyVisitedCU;
+	}
+	
+	private State state() {
+		return ctx.getRuleState(State.class);
+	}
 	
 	private List<VariableDeclaration> fields;
 	private List<VariableDeclaration> variables;
 	
-	private static String lastVisitedCU = "";
-	private static boolean alreadyVisitedCU = false;
 	
 	private Map<SimpleName, String> recycles;
 	private int countRecycles;
@@ -109,6 +120,11 @@ public class RecycleRefactoring extends AbstractRefactoringRule {
 		operationFlag = flag;
 	}
 
+	@Override
+	public int getOperationFlag() {
+		return operationFlag;
+	}
+
 	@Override
 	public String getDescription() {
 		return "Many resources, such as TypedArrays, VelocityTrackers, etc., should be "
@@ -133,15 +149,15 @@ public class RecycleRefactoring extends AbstractRefactoringRule {
     
     @Override
     public boolean visit(CompilationUnit node) {
-    	if (node.getJavaElement().getPath().toString().equals(lastVisitedCU)) {
-    		alreadyVisitedCU = true;
+    	if (unitPath(node).equals(state().lastVisitedCU)) {
+    		state().alreadyVisitedCU = true;
     		return VISIT_SUBTREE;
     	}
-    	alreadyVisitedCU = false;
+    	state().alreadyVisitedCU = false;
     	List<ImportDeclaration> allImports = node.imports();
-		foundTracerImport = COEvolgy.isImportIncluded(allImports, tracerImport);
+		state().foundTracerImport = COEvolgy.isImportIncluded(allImports, tracerImport);
 		
-		mainNode = node;
+		state().mainNode = node;
 		
 		this.fields = new ArrayList<>();
 		this.variables = new ArrayList<>();
@@ -150,7 +166,12 @@ public class RecycleRefactoring extends AbstractRefactoringRule {
     }
     
     public void endVisit(CompilationUnit node) {
-    	lastVisitedCU = node.getJavaElement().getPath().toString();
+    	state().lastVisitedCU = unitPath(node);
+    }
+
+    private static String unitPath(CompilationUnit node) {
+    	// there is no Java element when the compilation unit does not belong to any Java project
+    	return node.getJavaElement() != null ? node.getJavaElement().getPath().toString() : getFileName(node);
     }
     
     @Override
@@ -159,13 +180,13 @@ public class RecycleRefactoring extends AbstractRefactoringRule {
 		final Refactorings r = ctx.getRefactorings();
 		boolean refactored = false;
 
-		if (operationFlag == TRACE && !foundTracerImport) {
+		if (operationFlag == TRACE && !state().foundTracerImport) {
 			ImportDeclaration importTracer = r.getAST().newImportDeclaration();
 			Name importName = b.name(tracerImport.split("\\."));
 			importTracer.setName(importName);
 			r.insertBefore(importTracer, node);
 			
-			foundTracerImport = true;
+			state().foundTracerImport = true;
 			refactored = true;
 		}
 		
@@ -212,7 +233,7 @@ public class RecycleRefactoring extends AbstractRefactoringRule {
         List<VariableDeclaration> allVars = new ArrayList<>(fields);
 		allVars.addAll(variables);
 		
-        return COEvolgy.instanceOf(node, typeQualifiedName, mainNode, allVars);
+        return COEvolgy.instanceOf(node, typeQualifiedName, state().mainNode, allVars);
 	}
 	
 	private boolean isMethodIgnoringParameters(MethodInvocation node, String typeQualifiedName, String[] methodNames){
@@ -276,7 +297,7 @@ public class RecycleRefactoring extends AbstractRefactoringRule {
 		}
 		else if(COEvolgy.isMethod(
 			node,
-			mainNode,
+			state().mainNode,
 			allVars,
 			"android.view.VelocityTracker",
 			"obtain")
@@ -299,7 +320,7 @@ public class RecycleRefactoring extends AbstractRefactoringRule {
 		}
 		else if(COEvolgy.isMethod(
 			node,
-			mainNode,
+			state().mainNode,
 			allVars,
 			"android.view.MotionEvent",
 			"obtainNoHistory", "android.view.MotionEvent")
@@ -315,7 +336,7 @@ public class RecycleRefactoring extends AbstractRefactoringRule {
 		}
 		else if(COEvolgy.isMethod(
 			node,
-			mainNode,
+			state().mainNode,
 			allVars,
 			"android.os.Parcel",
 			"obtain")
@@ -335,7 +356,7 @@ public class RecycleRefactoring extends AbstractRefactoringRule {
 	
 	@Override
 	public boolean visit(ReturnStatement node) {
-		if (alreadyVisitedCU) return VISIT_SUBTREE;
+		if (state().alreadyVisitedCU) return VISIT_SUBTREE;
 		
 		final ASTBuilder b = this.ctx.getASTBuilder();
 		final Refactorings r = this.ctx.getRefactorings();
@@ -389,7 +410,7 @@ public class RecycleRefactoring extends AbstractRefactoringRule {
 	
     @Override
     public boolean visit(MethodInvocation node) {
-    	if (alreadyVisitedCU) return VISIT_SUBTREE;
+    	if (state().alreadyVisitedCU) return VISIT_SUBTREE;
     	
 		String recycleCallName = methodNameToCleanupResource(node);
 		if(recycleCallName != null){
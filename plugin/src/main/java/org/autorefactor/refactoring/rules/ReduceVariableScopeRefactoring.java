@@ -41,6 +41,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 import org.autorefactor.refactoring.ASTBuilder;
+import org.autorefactor.refactoring.FreshAstRefactoringRule;
 import org.autorefactor.refactoring.Refactorings;
 import org.autorefactor.util.IllegalArgumentException;
 import org.autorefactor.util.IllegalStateException;
@@ -80,7 +81,7 @@ import org.eclipse.jdt.core.dom.WhileStatement;
  *
  * @see {@link #getDescription()}
  */
-public class ReduceVariableScopeRefactoring extends AbstractRefactoringRule {
+public class ReduceVariableScopeRefactoring extends AbstractRefactoringRule implements FreshAstRefactoringRule {
     /**
      * Get the name.
      *
@@ -26,8 +26,11 @@
 package org.autorefactor.refactoring.rules;
 
 import org.autorefactor.refactoring.ASTBuilder;
+import org.autorefactor.refactoring.ChangedLines;
 import org.autorefactor.refactoring.JavaProjectOptions;
 import org.autorefactor.refactoring.Refactorings;
+import org.autorefactor.refactoring.TypeHierarchyCache;
+import org.autorefactor.util.IllegalStateException;
 import org.autorefactor.util.UnhandledException;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.jdt.core.ICompilationUnit;
@@ -46,12 +49,16 @@ import org.autorefactor.environment.Logger;
 /** Class holding necessary data for a refactoring. */
 public class RefactoringContext {
     private final ICompilationUnit compilationUnit;
+    private final String source;
     private final CompilationUnit astRoot;
     private final Refactorings refactorings;
     private final ASTBuilder astBuilder;
     private final JavaProjectOptions options;
     private final SubMonitor monitor;
     private final Environment environment;
+    private final RuleStates ruleStates;
+    private final ChangedLines changedLines;
+    private final TypeHierarchyCache typeHierarchyCache = new TypeHierarchyCache();
 
     /**
      * Builds an instance of this class.
@@ -64,11 +71,50 @@ public class RefactoringContext {
      */
     public RefactoringContext(ICompilationUnit compilationUnit, CompilationUnit astRoot,
             JavaProjectOptions options, SubMonitor monitor, Environment environment) {
+        this(compilationUnit, astRoot, options, monitor, environment, new RuleStates());
+    }
+
+    /**
+     * Builds an instance of this class.
+     *
+     * @param compilationUnit the compilation unit to refactor,
+     *        or null when it does not belong to any Java project
+     * @param astRoot the compilation unit, root of the AST
+     * @param options the Java project options used to compile the project
+     * @param monitor the progress monitor of the current job
+     * @param environment the environment
+     * @param ruleStates the state kept by the refactoring rules about the compilation unit to refactor
+     */
+    public RefactoringContext(ICompilationUnit compilationUnit, CompilationUnit astRoot,
+            JavaProjectOptions options, SubMonitor monitor, Environment environment, RuleStates ruleStates) {
+        this(compilationUnit, astRoot, options, monitor, environment, ruleStates, null, null);
+    }
+
+    /**
+     * Builds an instance of this class.
+     *
+     * @param compilationUnit the compilation unit to refactor,
+     *        or null when it does not belong to any Java project
+     * @param astRoot the compilation unit, root of the AST
+     * @param options the Java project options used to compile the project
+     * @param monitor the progress monitor of the current job
+     * @param environment the environment
+     * @param ruleStates the state kept by the refactoring rules about the compilation unit to refactor
+     * @param changedLines the only lines to refactor, or null to refactor the whole compilation unit
+     * @param source the source code the AST has been parsed from,
+     *        only read when the compilation unit does not belong to any Java project
+     */
+    public RefactoringContext(ICompilationUnit compilationUnit, CompilationUnit astRoot,
+            JavaProjectOptions options, SubMonitor monitor, Environment environment, RuleStates ruleStates,
+            ChangedLines changedLines, String source) {
+        this.changedLines = changedLines;
         this.compilationUnit = compilationUnit;
+        this.source = source;
         this.astRoot = astRoot;
         this.monitor = monitor;
         this.environment = environment;
-        this.refactorings = new Refactorings(astRoot, environment.getEventLoop());
+        this.ruleStates = ruleStates;
+        this.refactorings = new Refactorings(astRoot, environment.getEventLoop(), changedLines);
         this.astBuilder = new ASTBuilder(refactorings);
         this.options = options;
     }
@@ -94,7 +140,7 @@ public class RefactoringContext {
     /**
      * Returns the compilation unit to refactor.
      *
-     * @return the compilation unit to refactor
+     * @return the compilation unit to refactor, or null when it does not belong to any Java project
      */
     public ICompilationUnit getCompilationUnit() {
         return compilationUnit;
@@ -127,7 +173,44 @@ public class RefactoringContext {
         return refactorings;
     }
 
+    /**
+     * Returns the state kept by a refactoring rule about the compilation unit to refactor.
+     *
+     * @param <S> the type of the state
+     * @param stateClass the class of the state
+     * @return the state kept by a refactoring rule about the compilation unit to refactor
+     * @see RuleStates#get(Class)
+     */
+    public <S> S getRuleState(Class<S> stateClass) {
+        return ruleStates.get(stateClass);
+    }
+
+    /**
+     * Returns whether the provided node intersects the lines to refactor.
+     *
+     * @param node the node for which to make the determination
+     * @return true if the provided node intersects the lines to refactor, false otherwise
+     */
+    public boolean isInChangedLines(ASTNode node) {
+        return changedLines == null || changedLines.intersects(node);
+    }
+
+    /**
+     * Returns the cache of the type hierarchies of the AST to refactor.
+     *
+     * @return the cache of the type hierarchies of the AST to refactor
+     */
+    public TypeHierarchyCache getTypeHierarchyCache() {
+        return typeHierarchyCache;
+    }
+
     String getSource(ASTNode node) {
+        if (compilationUnit == null) {
+            if (source == null) {
+                throw new IllegalStateException(node, "The source code of the compilation unit is not available");
+            }
+            return source;
+        }
         try {
             return compilationUnit.getSource();
         } catch (JavaModelException e) {
@@ -34,6 +34,8 @@ import java.util.TreeSet;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.autorefactor.refactoring.BindingFreeRefactoringRule;
+import org.autorefactor.refactoring.FreshAstRefactoringRule;
 import org.autorefactor.refactoring.Refactorings;
 import org.autorefactor.refactoring.SourceLocation;
 import org.eclipse.jdt.core.dom.ASTNode;
@@ -46,7 +48,8 @@ import org.eclipse.jdt.core.dom.MethodDeclaration;
 import org.eclipse.jdt.core.dom.TypeDeclaration;
 
 /** See {@link #getDescription()} method. */
-public class RemoveEmptyLinesRefactoring extends AbstractRefactoringRule {
+public class RemoveEmptyLinesRefactoring extends AbstractRefactoringRule
+        implements FreshAstRefactoringRule, BindingFreeRefactoringRule {
     /**
      * Get the name.
      *
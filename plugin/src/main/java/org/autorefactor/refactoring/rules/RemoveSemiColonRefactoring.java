@@ -45,6 +45,8 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.autorefactor.refactoring.ASTHelper.NodeStartPositionComparator;
+import org.autorefactor.refactoring.BindingFreeRefactoringRule;
+import org.autorefactor.refactoring.FreshAstRefactoringRule;
 import org.autorefactor.refactoring.SourceLocation;
 import org.autorefactor.util.NotImplementedException;
 import org.eclipse.jdt.core.dom.ASTNode;
@@ -69,7 +71,8 @@ import org.eclipse.jdt.core.dom.VariableDeclarationExpression;
  * <p>
  * TODO remove superfluous semi-colons in try-with-resources
  */
-public class RemoveSemiColonRefactoring extends AbstractRefactoringRule {
+public class RemoveSemiColonRefactoring extends AbstractRefactoringRule
+        implements FreshAstRefactoringRule, BindingFreeRefactoringRule {
     /**
      * Get the name.
      *
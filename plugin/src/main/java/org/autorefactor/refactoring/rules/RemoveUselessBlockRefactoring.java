@@ -36,12 +36,13 @@ import java.util.List;
 import java.util.Set;
 
 import org.autorefactor.refactoring.ASTBuilder;
+import org.autorefactor.refactoring.BindingFreeRefactoringRule;
 import org.autorefactor.refactoring.Refactorings;
 import org.eclipse.jdt.core.dom.Block;
 import org.eclipse.jdt.core.dom.Statement;
 
 /** See {@link #getDescription()} method. */
-public class RemoveUselessBlockRefactoring extends AbstractRefactoringRule {
+public class RemoveUselessBlockRefactoring extends AbstractRefactoringRule implements BindingFreeRefactoringRule {
     /**
      * Get the name.
      *
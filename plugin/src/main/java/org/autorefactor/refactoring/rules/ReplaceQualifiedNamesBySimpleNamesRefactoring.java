@@ -57,6 +57,7 @@ import java.util.TreeMap;
 
 import org.autorefactor.refactoring.ASTBuilder;
 import org.autorefactor.refactoring.CollectorVisitor;
+import org.autorefactor.refactoring.TypeBindingsCache;
 import org.autorefactor.util.NotImplementedException;
 import org.autorefactor.util.UnhandledException;
 import org.eclipse.jdt.core.JavaModelException;
@@ -484,6 +485,20 @@ public class ReplaceQualifiedNamesBySimpleNamesRefactoring extends AbstractRefac
     }
 
     private void importTypesFromPackage(final String pkgName, ASTNode node) {
+        // each top level type declaration imports java.lang and the packages imported on demand again
+        final TypeBindingsCache cache = TypeBindingsCache.of(node);
+        List<String> typeNames = cache.getTopLevelTypeNames(pkgName);
+        if (typeNames == null) {
+            typeNames = searchTopLevelTypeNames(pkgName, node);
+            cache.putTopLevelTypeNames(pkgName, typeNames);
+        }
+        for (String typeName : typeNames) {
+            types.addName(FQN.fromImport(QName.valueOf(typeName), true));
+        }
+    }
+
+    private List<String> searchTopLevelTypeNames(final String pkgName, ASTNode node) {
+        final List<String> typeNames = new ArrayList<String>();
         final TypeNameMatchRequestor importTypeCollector = new TypeNameMatchRequestor() {
             @Override
             public void acceptTypeNameMatch(TypeNameMatch typeNameMatch) {
@@ -494,8 +509,7 @@ public class ReplaceQualifiedNamesBySimpleNamesRefactoring extends AbstractRefac
                         throw new IllegalStateException("Expected package '" + typeNameMatch.getPackageName()
                                                         + "' to be equal to '" + pkgName + "'");
                     }
-                    QName qname = QName.valueOf(typeNameMatch.getFullyQualifiedName());
-                    types.addName(FQN.fromImport(qname, true));
+                    typeNames.add(typeNameMatch.getFullyQualifiedName());
                 }
             }
         };
@@ -513,6 +527,7 @@ public class ReplaceQualifiedNamesBySimpleNamesRefactoring extends AbstractRefac
         } catch (JavaModelException e) {
             throw new UnhandledException(node, e);
         }
+        return typeNames;
     }
 
     @Override
@@ -0,0 +1,63 @@
+/*
+ * AutoRefactor - Eclipse plugin to automatically refactor Java code bases.
+ *
+ * Copyright (C) 2018 Jean-Noël Rouvignac - initial API and implementation
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program under LICENSE-GNUGPL.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution under LICENSE-ECLIPSE, and is
+ * available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.autorefactor.refactoring.rules;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.autorefactor.util.UnhandledException;
+
+/**
+ * Holds the state kept by the refactoring rules about the compilation unit being refactored.
+ * <p>
+ * One instance is shared by all the {@link RefactoringContext}s created while refactoring the same compilation unit,
+ * so the state survives parsing the compilation unit again after each round of refactorings.
+ * It is never shared with other compilation units, even when they are refactored in parallel.
+ * Rules must therefore keep their per compilation unit state here rather than in static fields.
+ */
+public class RuleStates {
+    private final Map<Class<?>, Object> states = new HashMap<Class<?>, Object>();
+
+    /**
+     * Returns the state of the provided class, creating it with its no-arg constructor on first access.
+     *
+     * @param <S> the type of the state
+     * @param stateClass the class of the state, usually nested in the rule keeping this state
+     * @return the state of the provided class
+     */
+    public <S> S get(Class<S> stateClass) {
+        Object state = states.get(stateClass);
+        if (state == null) {
+            try {
+                state = stateClass.newInstance();
+            } catch (Exception e) {
+                throw new UnhandledException(null, "Cannot create the rule state " + stateClass.getName(), e);
+            }
+            states.put(stateClass, state);
+        }
+        return stateClass.cast(state);
+    }
+}
@@ -10,6 +10,7 @@ import java.util.List;
 
 import org.autorefactor.refactoring.ASTBuilder;
 import org.autorefactor.refactoring.ASTHelper;
+import org.autorefactor.refactoring.FreshAstRefactoringRule;
 import org.autorefactor.refactoring.Refactorings;
 import org.autorefactor.util.COEvolgy;
 import org.eclipse.jdt.core.dom.ASTNode;
@@ -21,12 +22,21 @@ import org.eclipse.jdt.core.dom.MethodDeclaration;
 import org.eclipse.jdt.core.dom.Name;
 import org.eclipse.jdt.core.dom.TypeDeclaration;
 
-public class TraceMethodsRefactoring extends AbstractRefactoringRule {
+public class TraceMethodsRefactoring extends AbstractRefactoringRule
+        implements FreshAstRefactoringRule, OperationFlagRefactoringRule {
 
 	public static final String TAG = "ObsoleteLayoutParam";
-	private static boolean foundTracerImport = false;
 	private static final String tracerImport = "org.greenlab.coevolgy.util.Tracer";
-	private static int operationFlag = MEASURE;
+	private int operationFlag = MEASURE;
+	
+	/** State kept about the compilation unit being refactored. */
+	static final class State {
+		private boolean foundTracerImport;
+	}
+	
+	private State state() {
+		return ctx.getRuleState(State.class);
+	}
 	
 	private String packageName;
 	private String fileName;
@@ -67,6 +77,11 @@ public class TraceMethodsRefactoring extends AbstractRefactoringRule {
 		this.insertedTraceNode = false;
 		this.isMethodConstructor = false;
 	}
+
+	@Override
+	public int getOperationFlag() {
+		return operationFlag;
+	}
 	
 	@Override
 	public String getName() {
@@ -87,9 +102,9 @@ public class TraceMethodsRefactoring extends AbstractRefactoringRule {
 	@Override
     public boolean visit(CompilationUnit node) {
 		List<ImportDeclaration> allImports = node.imports();
-		fileName = node.getJavaElement().getElementName();
-		packageName = node.getPackage().getName().getFullyQualifiedName();
-		foundTracerImport = COEvolgy.isImportIncluded(allImports, tracerImport);
+		fileName = COEvolgy.getFileName(node);
+		packageName = COEvolgy.getPackageName(node);
+		state().foundTracerImport = COEvolgy.isImportIncluded(allImports, tracerImport);
 		
 		return VISIT_SUBTREE;
 	}
@@ -107,13 +122,13 @@ public class TraceMethodsRefactoring extends AbstractRefactoringRule {
 		final Refactorings r = ctx.getRefactorings();
 		boolean refactored = false;
 
-		if (operationFlag == TRACE && !foundTracerImport) {
+		if (operationFlag == TRACE && !state().foundTracerImport) {
 			ImportDeclaration importTracer = r.getAST().newImportDeclaration();
 			Name importName = b.name(tracerImport.split("\\."));
 			importTracer.setName(importName);
 			r.insertBefore(importTracer, node);
 			
-			foundTracerImport = true;
+			state().foundTracerImport = true;
 			refactored = true;
 		}
 		
@@ -132,7 +147,7 @@ public class TraceMethodsRefactoring extends AbstractRefactoringRule {
 				&& this.insideMethod 
 				&& !this.insertedTraceNode 
 				&& !(this.fullMethodNames.contains(qualifiedName))
-				&& foundTracerImport) {
+				&& state().foundTracerImport) {
 			int insertIndex = 0;
 			if (this.isMethodConstructor) {
 				insertIndex = Math.min(1, node.statements().size());
@@ -37,6 +37,7 @@ import java.util.LinkedList;
 import java.util.List;
 
 import org.autorefactor.refactoring.ASTBuilder;
+import org.autorefactor.refactoring.FreshAstRefactoringRule;
 import org.autorefactor.refactoring.Refactorings;
 import org.autorefactor.util.COEvolgy;
 import org.eclipse.jdt.core.dom.ASTNode;
@@ -72,14 +73,23 @@ import org.eclipse.jdt.internal.corext.dom.ASTNodes;
  */
 
 /** See {@link #getDescription()} method. */
-public class ViewHolderRefactoring extends AbstractRefactoringRule {
+public class ViewHolderRefactoring extends AbstractRefactoringRule
+        implements FreshAstRefactoringRule, OperationFlagRefactoringRule {
 
 	public static final String TAG = "ViewHolder";
 	private static final String tracerImport = "org.greenlab.coevolgy.util.Tracer";
-	private static boolean foundTracerImport = false;
 	
-	private static CompilationUnit mainNode = null;
-	private static int operationFlag = MEASURE;
+	private int operationFlag = MEASURE;
+	
+	/** State kept about the compilation unit being refactored. */
+	static final class State {
+		private boolean foundTracerImport;
+		private CompilationUnit mainNode;
+	}
+	
+	private State state() {
+		return ctx.getRuleState(State.class);
+	}
 	
 	private List<VariableDeclaration> fields;
 	private List<VariableDeclaration> variables;
@@ -93,6 +103,11 @@ public class ViewHolderRefactoring extends AbstractRefactoringRule {
 		operationFlag = flag;
 	}
 
+	@Override
+	public int getOperationFlag() {
+		return operationFlag;
+	}
+
 	
 	@Override
 	public String getDescription() {
@@ -118,8 +133,8 @@ public class ViewHolderRefactoring extends AbstractRefactoringRule {
     @Override
     public boolean visit(CompilationUnit node) {
     	List<ImportDeclaration> allImports = node.imports();
-		foundTracerImport = COEvolgy.isImportIncluded(allImports, tracerImport);
-		mainNode = node;
+		state().foundTracerImport = COEvolgy.isImportIncluded(allImports, tracerImport);
+		state().mainNode = node;
 		
 		this.fields = new ArrayList<>();
 		this.variables = new ArrayList<>();
@@ -133,13 +148,13 @@ public class ViewHolderRefactoring extends AbstractRefactoringRule {
 		final Refactorings r = ctx.getRefactorings();
 		boolean refactored = false;
 
-		if (operationFlag == TRACE && !foundTracerImport) {
+		if (operationFlag == TRACE && !state().foundTracerImport) {
 			ImportDeclaration importTracer = r.getAST().newImportDeclaration();
 			Name importName = b.name(tracerImport.split("\\."));
 			importTracer.setName(importName);
 			r.insertBefore(importTracer, node);
 			
-			foundTracerImport = true;
+			state().foundTracerImport = true;
 			refactored = true;
 		}
 		
@@ -169,7 +184,7 @@ public class ViewHolderRefactoring extends AbstractRefactoringRule {
 		
 		if(COEvolgy.isMethod(
 					node,
-					mainNode,
+					state().mainNode,
 					allVars,
 					"android.widget.Adapter",
 					"getView",
@@ -310,10 +325,10 @@ public class ViewHolderRefactoring extends AbstractRefactoringRule {
     	List<VariableDeclaration> allVars = new ArrayList<>(fields);
 		allVars.addAll(variables);
 		
-    	return  COEvolgy.isMethod(node, mainNode, allVars, "android.view.LayoutInflater", "inflate", "int", "android.view.ViewGroup")||
-    			COEvolgy.isMethod(node, mainNode, allVars, "android.view.LayoutInflater", "inflate", "int", "android.view.ViewGroup","boolean")||
-    			COEvolgy.isMethod(node, mainNode, allVars, "android.view.LayoutInflater", "inflate", "org.xmlpull.v1.XmlPullParser", "android.view.ViewGroup")||
-    			COEvolgy.isMethod(node, mainNode, allVars, "android.view.LayoutInflater", "inflate", "org.xmlpull.v1.XmlPullParser", "android.view.ViewGroup", "boolean");
+    	return  COEvolgy.isMethod(node, state().mainNode, allVars, "android.view.LayoutInflater", "inflate", "int", "android.view.ViewGroup")||
+    			COEvolgy.isMethod(node, state().mainNode, allVars, "android.view.LayoutInflater", "inflate", "int", "android.view.ViewGroup","boolean")||
+    			COEvolgy.isMethod(node, state().mainNode, allVars, "android.view.LayoutInflater", "inflate", "org.xmlpull.v1.XmlPullParser", "android.view.ViewGroup")||
+    			COEvolgy.isMethod(node, state().mainNode, allVars, "android.view.LayoutInflater", "inflate", "org.xmlpull.v1.XmlPullParser", "android.view.ViewGroup", "boolean");
 	}
     
 	public class GetViewVisitor extends ASTVisitor {
@@ -435,7 +450,7 @@ public class ViewHolderRefactoring extends AbstractRefactoringRule {
 	    	List<VariableDeclaration> allVars = new ArrayList<>(fields);
 			allVars.addAll(variables);
 			
-			if(COEvolgy.isMethod(node, mainNode, allVars, "android.view.View", "findViewById", "int")){
+			if(COEvolgy.isMethod(node, state().mainNode, allVars, "android.view.View", "findViewById", "int")){
 				FindViewByIdItem item = new FindViewByIdItem(node);
 				items.add(item);
 			}
@@ -36,7 +36,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.autorefactor.refactoring.ASTBuilder;
+import org.autorefactor.refactoring.FreshAstRefactoringRule;
 import org.autorefactor.refactoring.Refactorings;
+import org.autorefactor.refactoring.TriggeredRefactoringRule;
 import org.autorefactor.util.COEvolgy;
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.ASTVisitor;
@@ -63,14 +65,23 @@ import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
 import org.eclipse.jdt.internal.corext.dom.ASTNodes;
 
 /** See {@link #getDescription()} method. */
-public class WakelockRefactoring extends AbstractRefactoringRule {
+public class WakelockRefactoring extends AbstractRefactoringRule
+        implements FreshAstRefactoringRule, OperationFlagRefactoringRule, TriggeredRefactoringRule {
 	
 	public static final String TAG = "Wakelock";
 	private static final String tracerImport = "org.greenlab.coevolgy.util.Tracer";
-	private static boolean foundTracerImport = false;
 	
-	private static int operationFlag = MEASURE;
-	private static CompilationUnit mainNode = null;
+	private int operationFlag = MEASURE;
+	
+	/** State kept about the compilation unit being refactored. */
+	static final class State {
+		private boolean foundTracerImport;
+		private CompilationUnit mainNode;
+	}
+	
+	private State state() {
+		return ctx.getRuleState(State.class);
+	}
 	
 	private List<VariableDeclaration> fields;
 	private List<VariableDeclaration> variables;
@@ -84,6 +95,11 @@ public class WakelockRefactoring extends AbstractRefactoringRule {
 		operationFlag = flag;
 	}
 
+	@Override
+	public int getOperationFlag() {
+		return operationFlag;
+	}
+
 
 	@Override
 	public String getDescription() {
@@ -106,12 +122,18 @@ public class WakelockRefactoring extends AbstractRefactoringRule {
     public String getReason() {
         return "It improves the performance.";
     }
+
+    @Override
+    public String[] getTriggerTokens() {
+        // an inherited field or a getter can provide the wake lock without naming its type
+        return new String[] { "release", "acquire" };
+    }
     
     @Override
     public boolean visit(CompilationUnit node) {
     	List<ImportDeclaration> allImports = node.imports();
-		foundTracerImport = COEvolgy.isImportIncluded(allImports, tracerImport);
-		mainNode = node;
+		state().foundTracerImport = COEvolgy.isImportIncluded(allImports, tracerImport);
+		state().mainNode = node;
 		
 		this.fields = new ArrayList<>();
 		this.variables = new ArrayList<>();
@@ -133,7 +155,7 @@ public class WakelockRefactoring extends AbstractRefactoringRule {
     
     @Override
     public boolean visit(ImportDeclaration node) {
-		if (operationFlag == TRACE && !foundTracerImport) {
+		if (operationFlag == TRACE && !state().foundTracerImport) {
 			final ASTBuilder b = ctx.getASTBuilder();
 			final Refactorings r = ctx.getRefactorings();
 			ImportDeclaration importTracer = r.getAST().newImportDeclaration();
@@ -141,7 +163,7 @@ public class WakelockRefactoring extends AbstractRefactoringRule {
 			importTracer.setName(importName);
 			r.insertBefore(importTracer, node);
 			
-			foundTracerImport = true;
+			state().foundTracerImport = true;
 			return DO_NOT_VISIT_SUBTREE;
 		}
 		
@@ -169,12 +191,12 @@ public class WakelockRefactoring extends AbstractRefactoringRule {
     	List<VariableDeclaration> allVars = new ArrayList<>(fields);
 		allVars.addAll(variables);
 		
-    	if(COEvolgy.isMethod(node, mainNode, allVars, "android.os.PowerManager.WakeLock", "release")){
+    	if(COEvolgy.isMethod(node, state().mainNode, allVars, "android.os.PowerManager.WakeLock", "release")){
     		// check whether it is being called in onDestroy
     		final Refactorings r = this.ctx.getRefactorings();
     		final ASTBuilder b = this.ctx.getASTBuilder();
     		MethodDeclaration enclosingMethod = (MethodDeclaration) ASTNodes.getParent(node, ASTNode.METHOD_DECLARATION);
-    		if(COEvolgy.isMethod(enclosingMethod, mainNode, allVars, "android.app.Activity", "onDestroy")){
+    		if(COEvolgy.isMethod(enclosingMethod, state().mainNode, allVars, "android.app.Activity", "onDestroy")){
     			TypeDeclaration typeDeclaration= (TypeDeclaration) ASTNodes.getParent(enclosingMethod, TypeDeclaration.class);
     			MethodDeclaration onPauseMethod = findMethodOfType("onPause", typeDeclaration);
     			Statement releaseNode = createWakelockReleaseNode(node);
@@ -213,7 +235,7 @@ public class WakelockRefactoring extends AbstractRefactoringRule {
 
     		}
     	}
-    	else if(COEvolgy.isMethod(node, mainNode, allVars, "android.os.PowerManager.WakeLock", "acquire")){
+    	else if(COEvolgy.isMethod(node, state().mainNode, allVars, "android.os.PowerManager.WakeLock", "acquire")){
     		final Refactorings r = this.ctx.getRefactorings();
     		final ASTBuilder b = this.ctx.getASTBuilder();
     		TypeDeclaration typeDeclaration= (TypeDeclaration) ASTNodes.getParent(node, ASTNode.TYPE_DECLARATION);
@@ -352,7 +374,7 @@ public class WakelockRefactoring extends AbstractRefactoringRule {
     		List<VariableDeclaration> allVars = new ArrayList<>(fields);
     		allVars.addAll(variables);
     		
-    		if(COEvolgy.isMethod(node, mainNode, allVars, "android.os.PowerManager.WakeLock", "release")){
+    		if(COEvolgy.isMethod(node, state().mainNode, allVars, "android.os.PowerManager.WakeLock", "release")){
     			this.releasePresent=true;
     			return DO_NOT_VISIT_SUBTREE;
     		}
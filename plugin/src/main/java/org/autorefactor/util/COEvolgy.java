@@ -17,6 +17,7 @@ import org.autorefactor.refactoring.ASTHelper;
 import org.autorefactor.refactoring.Refactorings;
 import org.autorefactor.refactoring.rules.RefactoringContext;
 import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.AbstractTypeDeclaration;
 import org.eclipse.jdt.core.dom.ArrayAccess;
 import org.eclipse.jdt.core.dom.Block;
 import org.eclipse.jdt.core.dom.CompilationUnit;
@@ -648,6 +649,32 @@ public class COEvolgy {
 	}
 	
 	
+	/**
+	 * Returns the name of the file of the compilation unit, like "Foo.java".
+	 * There is no Java element when the compilation unit does not belong to any Java project,
+	 * the file is then named after its public top level type.
+	 */
+	public static String getFileName(CompilationUnit node) {
+		if (node.getJavaElement() != null) {
+			return node.getJavaElement().getElementName();
+		}
+		AbstractTypeDeclaration mainType = null;
+		for (Object type : node.types()) {
+			AbstractTypeDeclaration typeDecl = (AbstractTypeDeclaration) type;
+			if (mainType == null || Modifier.isPublic(typeDecl.getModifiers())) {
+				mainType = typeDecl;
+			}
+		}
+		return mainType != null ? mainType.getName().getIdentifier() + ".java" : ASTHelper.getFileName(node);
+	}
+	
+	/**
+	 * Returns the name of the package of the compilation unit, empty for the default package.
+	 */
+	public static String getPackageName(CompilationUnit node) {
+		return node.getPackage() != null ? node.getPackage().getName().getFullyQualifiedName() : "";
+	}
+	
 	public static boolean isImportIncluded(List<ImportDeclaration> imports, String importName) {
 		for (ImportDeclaration importDecl : imports) {
 			if (importDecl.getName().toString().equals(importName)) {
@@ -1054,7 +1081,7 @@ public class COEvolgy {
 		return MEASURE;
 	}
 	
-	public static void traceRefactoring(String tag) {
+	public static synchronized void traceRefactoring(String tag) {
 		FileWriter fw = null;
 		BufferedWriter bw = null;
 		